@@ -33,7 +33,7 @@ public class CorsFilter extends OncePerRequestFilter {
 
     private static final String ALLOWED_METHODS = "GET, POST, PUT, DELETE, OPTIONS, PATCH";
     private static final String ALLOWED_HEADERS = "*";
-    private static final String EXPOSED_HEADERS = "Authorization";
+    private static final String EXPOSED_HEADERS = "Authorization, ETag";
     private static final boolean ALLOW_CREDENTIALS = true;
     private static final long MAX_AGE = 3600L;
 
@@ -0,0 +1,167 @@
+package com.papusbarbershop.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Configuración de los clientes de Amazon S3.
+ *
+ * El cliente y el presigner son únicos para toda la aplicación: se crean al iniciar, comparten
+ * las credenciales y el pool de conexiones HTTP, y Spring los cierra al detener la aplicación.
+ *
+ * Si se define {@code aws.s3.endpoint}, los clientes apuntan a ese endpoint en lugar de AWS
+ * (por ejemplo MinIO o LocalStack en desarrollo), normalmente junto con {@code aws.s3.path-style=true}.
+ *
+ * Sólo se activa con {@code almacenamiento.tipo=s3} (valor por defecto).
+ */
+@Configuration
+@ConditionalOnProperty(name = "almacenamiento.tipo", havingValue = "s3", matchIfMissing = true)
+public class S3Config {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3Config.class);
+
+    @Value("${aws.s3.region}")
+    private String region;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${aws.s3.access-key-id}")
+    private String accessKeyId;
+
+    @Value("${aws.s3.secret-access-key}")
+    private String secretAccessKey;
+
+    @Value("${aws.s3.presigned-url-expiration:3600}")
+    private long presignedUrlExpiration;
+
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${aws.s3.path-style:false}")
+    private boolean pathStyle;
+
+    @Value("${aws.s3.max-conexiones:50}")
+    private int maxConexiones;
+
+    @Value("${aws.s3.timeout-conexion-ms:2000}")
+    private long timeoutConexionMs;
+
+    /**
+     * Cliente S3 compartido, con pool de conexiones HTTP.
+     *
+     * @return Cliente S3 configurado
+     */
+    @Bean(destroyMethod = "close")
+    public S3Client s3Client() {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credenciales())
+                .serviceConfiguration(configuracionServicio())
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConexiones)
+                        .connectionTimeout(Duration.ofMillis(timeoutConexionMs)));
+        if (tieneEndpoint()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        S3Client client = builder.build();
+
+        logger.info("Cliente S3 creado: región={}, bucket={}, endpoint={}, maxConexiones={}",
+                region, bucketName, tieneEndpoint() ? endpoint : "AWS", maxConexiones);
+        return client;
+    }
+
+    /**
+     * Presigner S3 compartido. Firmar una URL es un cálculo local, no abre conexiones.
+     *
+     * @return Presigner S3 configurado
+     */
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credenciales())
+                .serviceConfiguration(configuracionServicio());
+        if (tieneEndpoint()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    private StaticCredentialsProvider credenciales() {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey));
+    }
+
+    private S3Configuration configuracionServicio() {
+        return S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyle)
+                .build();
+    }
+
+    private boolean tieneEndpoint() {
+        return endpoint != null && !endpoint.isBlank();
+    }
+
+    /**
+     * Valida la configuración de S3 antes de crear los clientes.
+     * Se ejecuta automáticamente después de que Spring inyecta las propiedades.
+     */
+    @PostConstruct
+    public void validarConfiguracion() {
+        logger.info("=== Validando configuración de S3 ===");
+        logger.info("Región: {}", region);
+        logger.info("Bucket: {}", bucketName);
+        logger.info("Access Key ID presente: {}", (accessKeyId != null && !accessKeyId.isEmpty()));
+        logger.info("Secret Access Key presente: {}", (secretAccessKey != null && !secretAccessKey.isEmpty()));
+        logger.info("Tiempo de expiración de URLs presignadas: {} segundos", presignedUrlExpiration);
+
+        if (region == null || region.isEmpty()) {
+            logger.error("ERROR: AWS_REGION no está configurada");
+            throw new IllegalStateException("AWS_REGION no está configurada");
+        }
+
+        if (bucketName == null || bucketName.isEmpty()) {
+            logger.error("ERROR: AWS_S3_BUCKET_NAME no está configurada");
+            throw new IllegalStateException("AWS_S3_BUCKET_NAME no está configurada");
+        }
+
+        if (accessKeyId == null || accessKeyId.isEmpty()) {
+            logger.error("ERROR: AWS_ACCESS_KEY_ID no está configurada");
+            throw new IllegalStateException("AWS_ACCESS_KEY_ID no está configurada");
+        }
+
+        if (secretAccessKey == null || secretAccessKey.isEmpty()) {
+            logger.error("ERROR: AWS_SECRET_ACCESS_KEY no está configurada");
+            throw new IllegalStateException("AWS_SECRET_ACCESS_KEY no está configurada");
+        }
+
+        // Validar formato de región y endpoint
+        try {
+            Region.of(region);
+            if (tieneEndpoint()) {
+                URI.create(endpoint);
+            }
+        } catch (Exception e) {
+            logger.error("ERROR: Región o endpoint inválido: región={}, endpoint={}", region, endpoint, e);
+            throw new IllegalStateException("Región o endpoint de S3 inválido: " + region + " " + endpoint, e);
+        }
+
+        logger.info("=== Configuración de S3 validada correctamente ===");
+    }
+}
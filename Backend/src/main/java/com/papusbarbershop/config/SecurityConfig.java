@@ -2,6 +2,7 @@ package com.papusbarbershop.config;
 
 import com.papusbarbershop.security.JwtAuthenticationFilter;
 import com.papusbarbershop.service.JwtService;
+import com.papusbarbershop.service.RevocacionTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -40,6 +41,9 @@ public class SecurityConfig {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private RevocacionTokenService revocacionTokenService;
+
     /**
      * Configura el codificador de contraseñas usando BCrypt.
      * 
@@ -76,6 +80,9 @@ public class SecurityConfig {
                         
                         // Permitir acceso público a endpoints de health check (Railway)
                         .requestMatchers("/actuator/health").permitAll()
+
+                        // Métricas de la aplicación (pool de correos, caches, etc.) solo para ADMIN
+                        .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
                         
                         // Permitir acceso público a endpoints de autenticación
                         .requestMatchers("/auth/**").permitAll()
@@ -85,6 +92,12 @@ public class SecurityConfig {
                         
                         // Solo ADMIN puede cambiar su contraseña (autenticado)
                         .requestMatchers("/admin/change-password").hasRole("ADMIN")
+
+                        // Solo ADMIN consulta y reintenta los correos fallidos del outbox
+                        .requestMatchers("/admin/correos/**").hasRole("ADMIN")
+
+                        // Solo ADMIN activa y desactiva usuarios
+                        .requestMatchers("/admin/usuarios/**").hasRole("ADMIN")
                         
                         // Permitir acceso público a endpoints para vista de clientes (sin autenticación)
                         // IMPORTANTE: Las rutas más específicas deben ir ANTES de las generales
@@ -99,6 +112,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/s3/exists").permitAll() // Verificación de existencia de archivos
                         .requestMatchers("/api/s3/producto-imagen/**").permitAll() // Referencias de imágenes de productos (público para sincronización)
                         .requestMatchers("/api/s3/producto-imagenes/**").permitAll() // Todas las referencias de imágenes (público para sincronización)
+                        .requestMatchers("/api/archivos/**").permitAll() // Almacenamiento local: acceso controlado por URLs firmadas
                         
                         // Proteger endpoints según roles
                         // ADMIN, BARBERO y CESIA: Acceso a servicios y ventas
@@ -109,6 +123,9 @@ public class SecurityConfig {
                         .requestMatchers("/productos/**").hasAnyRole("ADMIN", "CESIA")
                         .requestMatchers("/api/s3/delete").hasAnyRole("ADMIN", "BARBERO", "CESIA")
                         
+                        // ADMIN y CESIA: Consulta del cierre de caja diario
+                        .requestMatchers(HttpMethod.GET, "/reportes/cierre-caja").hasAnyRole("ADMIN", "CESIA")
+                        
                         // ADMIN: Acceso completo a operaciones CRUD restantes
                         .requestMatchers("/barberos/**").hasRole("ADMIN")
                         .requestMatchers("/tipos-corte/**").hasRole("ADMIN")
@@ -154,7 +171,7 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
         configuration.setAllowCredentials(true);
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "ETag"));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -171,6 +188,7 @@ public class SecurityConfig {
         JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
         // Inyectar manualmente el JwtService
         filter.setJwtService(jwtService);
+        filter.setRevocacionTokenService(revocacionTokenService);
         return filter;
     }
 }
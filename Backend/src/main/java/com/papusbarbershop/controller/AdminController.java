@@ -1,8 +1,15 @@
 package com.papusbarbershop.controller;
 
 import com.papusbarbershop.dto.ChangePasswordRequest;
+import com.papusbarbershop.dto.CorreoSalienteDTO;
+import com.papusbarbershop.entity.CorreoSaliente;
 import com.papusbarbershop.entity.Usuario;
+import com.papusbarbershop.exception.ValidacionException;
 import com.papusbarbershop.repository.UsuarioRepository;
+import com.papusbarbershop.service.AuthService;
+import com.papusbarbershop.service.CorreoSalienteService;
+import com.papusbarbershop.service.DespachadorCorreoService;
+import com.papusbarbershop.service.RevocacionTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -10,10 +17,16 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * Controlador para administración.
  * - reset-admin-password: resetea la contraseña del usuario admin a "admin123" (sin autenticación, solo desarrollo/recuperación).
  * - change-password: permite al usuario admin (autenticado) cambiar su contraseña indicando la actual y la nueva.
+ *   Ambos revocan los tokens emitidos antes del cambio.
+ * - correos: consulta y reintento de los correos del outbox que quedaron en estado FALLIDO.
+ * - usuarios/{username}/estado: activa o desactiva un usuario; desactivarlo revoca sus tokens.
  */
 @RestController
 @RequestMapping("/admin")
@@ -26,6 +39,18 @@ public class AdminController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CorreoSalienteService correoSalienteService;
+
+    @Autowired
+    private DespachadorCorreoService despachadorCorreoService;
+
+    @Autowired
+    private RevocacionTokenService revocacionTokenService;
+
+    @Autowired
+    private AuthService authService;
+
     /**
      * Endpoint para restablecer la contraseña del usuario admin a "admin123".
      * Acceso público. Útil para desarrollo o recuperación de acceso.
@@ -38,6 +63,7 @@ public class AdminController {
 
             admin.setPassword(passwordEncoder.encode("admin123"));
             usuarioRepository.saveAndFlush(admin);
+            revocacionTokenService.revocarUsuario(admin.getUsername());
 
             return ResponseEntity.ok("Contraseña del usuario admin actualizada a 'admin123'. Inicia sesión y cambia la contraseña desde el menú.");
         } catch (Exception e) {
@@ -75,7 +101,55 @@ public class AdminController {
 
         usuario.setPassword(passwordEncoder.encode(newPassword));
         usuarioRepository.saveAndFlush(usuario);
+        // Las sesiones abiertas con la contraseña anterior dejan de ser válidas
+        revocacionTokenService.revocarUsuario(usuario.getUsername());
         return ResponseEntity.ok("Contraseña actualizada correctamente.");
     }
-}
 
+    /**
+     * Lista los correos del outbox en estado FALLIDO (agotaron los reintentos o fueron rechazados).
+     */
+    @GetMapping("/correos/fallidos")
+    public ResponseEntity<List<CorreoSalienteDTO>> correosFallidos(@RequestParam(defaultValue = "50") int limite) {
+        List<CorreoSalienteDTO> fallidos = correoSalienteService.obtenerFallidos(Math.max(1, Math.min(limite, 500)))
+                .stream().map(this::convertirCorreo).collect(Collectors.toList());
+        return ResponseEntity.ok(fallidos);
+    }
+
+    /**
+     * Devuelve un correo FALLIDO a la cola del outbox para volver a enviarlo.
+     */
+    @PostMapping("/correos/{id}/reintentar")
+    public ResponseEntity<Void> reintentarCorreo(@PathVariable Long id) {
+        correoSalienteService.reintentar(id);
+        despachadorCorreoService.despertar();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Activa o desactiva un usuario. Al desactivarlo sus sesiones abiertas se cierran de inmediato.
+     * Un administrador no puede desactivarse a sí mismo.
+     */
+    @PutMapping("/usuarios/{username}/estado")
+    public ResponseEntity<Void> cambiarEstadoUsuario(@PathVariable String username, @RequestParam boolean activo) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (!activo && auth != null && username.equals(auth.getName())) {
+            throw new ValidacionException("Un administrador no puede desactivarse a sí mismo");
+        }
+        authService.cambiarEstadoUsuario(username, activo);
+        return ResponseEntity.noContent().build();
+    }
+
+    private CorreoSalienteDTO convertirCorreo(CorreoSaliente correo) {
+        CorreoSalienteDTO dto = new CorreoSalienteDTO();
+        dto.setId(correo.getId());
+        dto.setDestinatario(correo.getDestinatario());
+        dto.setAsunto(correo.getAsunto());
+        dto.setEstado(correo.getEstado());
+        dto.setIntentos(correo.getIntentos());
+        dto.setUltimoError(correo.getUltimoError());
+        dto.setCreadoEn(correo.getCreadoEn());
+        dto.setProximoIntento(correo.getProximoIntento());
+        return dto;
+    }
+}
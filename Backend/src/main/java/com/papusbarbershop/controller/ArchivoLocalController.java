@@ -0,0 +1,198 @@
+package com.papusbarbershop.controller;
+
+import com.papusbarbershop.service.AlmacenamientoLocalService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Controlador que recibe y sirve los archivos del almacenamiento local.
+ *
+ * Todas las peticiones deben traer una URL firmada generada por {@link AlmacenamientoLocalService}
+ * (parámetros expira y firma). Las descargas se envían con {@link FileChannel#transferTo}, admiten
+ * un rango de bytes (Range / If-Range), ETag con respuesta 304 y Cache-Control por la vigencia de
+ * la URL: las claves incluyen timestamp y UUID, así que el contenido de una clave no cambia.
+ *
+ * Se activa con {@code almacenamiento.tipo=local}.
+ */
+@RestController
+@RequestMapping("/api/archivos")
+@ConditionalOnProperty(name = "almacenamiento.tipo", havingValue = "local")
+public class ArchivoLocalController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivoLocalController.class);
+
+    @Autowired
+    private AlmacenamientoLocalService almacenamientoLocalService;
+
+    /**
+     * Endpoint para descargar un archivo con una URL firmada.
+     *
+     * @param key Clave del archivo (resto de la ruta)
+     * @param expira Expiración de la URL (segundos desde epoch)
+     * @param firma Firma de la URL
+     */
+    @GetMapping("/{*key}")
+    public void descargar(@PathVariable String key, @RequestParam long expira, @RequestParam String firma,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        key = key.substring(1);
+        if (!almacenamientoLocalService.firmaValida("GET", key, expira, firma)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "URL inválida o expirada");
+            return;
+        }
+
+        Path archivo;
+        try {
+            archivo = almacenamientoLocalService.resolver(key);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (!Files.isRegularFile(archivo)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long tamano = Files.size(archivo);
+        String etag = "\"" + Long.toHexString(tamano) + "-"
+                + Long.toHexString(Files.getLastModifiedTime(archivo).toMillis()) + "\"";
+        long maxAge = Math.max(0, expira - Instant.now().getEpochSecond());
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + maxAge + ", immutable");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(archivo.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        // Rango solicitado; If-Range con otro ETag obliga a enviar el archivo completo
+        long inicio = 0;
+        long fin = tamano - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] rango = parsearRango(range, tamano);
+            if (rango == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (rango.length == 2) {
+                inicio = rango[0];
+                fin = rango[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+            }
+        }
+
+        long longitud = fin - inicio + 1;
+        response.setContentLengthLong(longitud);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || longitud <= 0) {
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel destino = Channels.newChannel(response.getOutputStream());
+            long posicion = inicio;
+            long restante = longitud;
+            while (restante > 0) {
+                long enviados = canal.transferTo(posicion, restante, destino);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicion += enviados;
+                restante -= enviados;
+            }
+        }
+    }
+
+    /**
+     * Endpoint para subir un archivo con una URL firmada. El cuerpo de la petición es el
+     * contenido del archivo, igual que una subida a una URL presignada de S3. Responde 413 si el
+     * contenido supera almacenamiento.local.max-bytes, ya sea por su Content-Length o al recibirlo
+     * (subidas sin Content-Length).
+     *
+     * @param key Clave del archivo (resto de la ruta)
+     * @param expira Expiración de la URL (segundos desde epoch)
+     * @param firma Firma de la URL
+     */
+    @PutMapping("/{*key}")
+    public void subir(@PathVariable String key, @RequestParam long expira, @RequestParam String firma,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        key = key.substring(1);
+        if (!almacenamientoLocalService.firmaValida("PUT", key, expira, firma)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "URL inválida o expirada");
+            return;
+        }
+        if (request.getContentLengthLong() > almacenamientoLocalService.getMaxBytes()) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+
+        almacenamientoLocalService.guardar(key, request.getInputStream());
+        logger.info("Archivo subido al almacenamiento local: key={}", key);
+        response.setStatus(HttpServletResponse.SC_OK);
+    }
+
+    /**
+     * Interpreta una cabecera Range de un único rango ("bytes=a-b", "bytes=a-" o "bytes=-n").
+     *
+     * @return {inicio, fin}; un arreglo vacío si la cabecera no aplica (se envía el archivo
+     *         completo); o null si el rango no es satisfacible
+     */
+    private long[] parsearRango(String range, long tamano) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String valor = range.substring("bytes=".length()).trim();
+        int guion = valor.indexOf('-');
+        if (guion < 0) {
+            return new long[0];
+        }
+        try {
+            String desde = valor.substring(0, guion).trim();
+            String hasta = valor.substring(guion + 1).trim();
+            long inicio;
+            long fin;
+            if (desde.isEmpty()) {
+                // Sufijo: últimos n bytes
+                long sufijo = Long.parseLong(hasta);
+                if (sufijo <= 0) {
+                    return null;
+                }
+                inicio = Math.max(0, tamano - sufijo);
+                fin = tamano - 1;
+            } else {
+                inicio = Long.parseLong(desde);
+                fin = hasta.isEmpty() ? tamano - 1 : Math.min(Long.parseLong(hasta), tamano - 1);
+            }
+            if (inicio >= tamano || inicio > fin) {
+                return null;
+            }
+            return new long[]{inicio, fin};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.papusbarbershop.controller;
 
 import com.papusbarbershop.dto.LoginRequest;
 import com.papusbarbershop.dto.LoginResponse;
+import com.papusbarbershop.dto.RefreshTokenRequest;
 import com.papusbarbershop.dto.RegisterRequest;
 import com.papusbarbershop.entity.Usuario;
 import com.papusbarbershop.service.AuthService;
@@ -16,7 +17,7 @@ import org.springframework.web.bind.annotation.*;
  * Controlador para operaciones de autenticación.
  * 
  * Este controlador maneja las peticiones relacionadas con la autenticación
- * de usuarios, incluyendo el login y registro.
+ * de usuarios, incluyendo el login, la renovación de tokens, el cierre de sesión y el registro.
  */
 @RestController
 @RequestMapping("/auth")
@@ -69,6 +70,38 @@ public class AuthController {
         }
     }
     
+    /**
+     * Endpoint para renovar los tokens de una sesión con su refresh token.
+     * El refresh token presentado queda revocado y la respuesta incluye uno nuevo.
+     *
+     * @param request Solicitud con el refresh token
+     * @return Respuesta con los nuevos tokens, o 401 si el refresh token no es válido
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@RequestBody RefreshTokenRequest request) {
+        LoginResponse response = authService.refrescar(request != null ? request.getRefreshToken() : null);
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+
+    /**
+     * Endpoint para cerrar sesión: revoca el token de acceso del header Authorization y el
+     * refresh token indicado en el cuerpo (opcional).
+     *
+     * @param authHeader Header Authorization con el token de acceso
+     * @param request Solicitud con el refresh token
+     * @return 204 sin contenido
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                       @RequestBody(required = false) RefreshTokenRequest request) {
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        authService.cerrarSesion(accessToken, request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Endpoint para registrar un nuevo usuario.
      * Solo accesible para usuarios con rol ADMIN.
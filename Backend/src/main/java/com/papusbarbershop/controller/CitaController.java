@@ -4,6 +4,7 @@ import com.papusbarbershop.dto.*;
 import com.papusbarbershop.service.CitaService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -54,7 +55,7 @@ public class CitaController {
     @GetMapping("/{id}")
     public ResponseEntity<CitaDTO> obtenerPorId(@PathVariable Long id) {
         CitaDTO cita = citaService.obtenerPorId(id);
-        return ResponseEntity.ok(cita);
+        return ResponseEntity.ok().eTag(EtagVersion.etiqueta(cita.getVersion())).body(cita);
     }
 
     /**
@@ -91,13 +92,15 @@ public class CitaController {
 
     /**
      * Actualiza la hora de una cita existente.
+     * Con If-Match sólo se aplica si la cita no cambió desde que se leyó (412 en caso contrario).
      */
     @PutMapping("/{id}/hora")
     public ResponseEntity<CitaDTO> actualizarHora(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody com.papusbarbershop.dto.CitaUpdateHoraDTO citaUpdateHoraDTO) {
-        CitaDTO cita = citaService.actualizarHora(id, citaUpdateHoraDTO.getHora());
-        return ResponseEntity.ok(cita);
+        CitaDTO cita = citaService.actualizarHora(id, citaUpdateHoraDTO.getHora(), EtagVersion.versionEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(EtagVersion.etiqueta(cita.getVersion())).body(cita);
     }
 
     /**
@@ -0,0 +1,46 @@
+package com.papusbarbershop.controller;
+
+import com.papusbarbershop.exception.ConflictoVersionException;
+
+/**
+ * Conversión entre la versión de bloqueo optimista de una entidad y los encabezados
+ * HTTP ETag / If-Match.
+ * 
+ * El ETag es la versión entre comillas (por ejemplo {@code "3"}). Un PUT que envía
+ * {@code If-Match} con ese valor sólo se aplica si el recurso no cambió desde que se leyó.
+ */
+final class EtagVersion {
+
+    private EtagVersion() {
+    }
+
+    /**
+     * Genera el valor del encabezado ETag para una versión.
+     */
+    static String etiqueta(Long version) {
+        return "\"" + (version != null ? version : 0L) + "\"";
+    }
+
+    /**
+     * Obtiene la versión esperada a partir del encabezado If-Match.
+     * 
+     * @param ifMatch Valor del encabezado (puede ser null)
+     * @return Versión esperada, o null si no se envió el encabezado o es "*"
+     * @throws ConflictoVersionException si el valor no corresponde a ninguna versión
+     */
+    static Long versionEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String valor = ifMatch.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        valor = valor.replace("\"", "");
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new ConflictoVersionException("El encabezado If-Match no corresponde a una versión válida: " + ifMatch);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.papusbarbershop.dto.HorarioDTO;
 import com.papusbarbershop.service.HorarioService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -44,7 +45,7 @@ public class HorarioController {
     @GetMapping("/{id}")
     public ResponseEntity<HorarioDTO> getHorarioById(@PathVariable Long id) {
         HorarioDTO horario = horarioService.findById(id);
-        return ResponseEntity.ok(horario);
+        return ResponseEntity.ok().eTag(EtagVersion.etiqueta(horario.getVersion())).body(horario);
     }
 
     /**
@@ -90,17 +91,20 @@ public class HorarioController {
 
     /**
      * Actualiza un horario existente.
+     * Con If-Match sólo se aplica si el horario no cambió desde que se leyó (412 en caso contrario).
      * 
      * @param id ID del horario
+     * @param ifMatch ETag del horario leído por el cliente (opcional)
      * @param horarioCreateDTO DTO con los datos actualizados
      * @return Horario actualizado
      */
     @PutMapping("/{id}")
     public ResponseEntity<HorarioDTO> updateHorario(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody HorarioCreateDTO horarioCreateDTO) {
-        HorarioDTO horario = horarioService.update(id, horarioCreateDTO);
-        return ResponseEntity.ok(horario);
+        HorarioDTO horario = horarioService.update(id, horarioCreateDTO, EtagVersion.versionEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(EtagVersion.etiqueta(horario.getVersion())).body(horario);
     }
 
     /**
@@ -1,16 +1,29 @@
 package com.papusbarbershop.controller;
 
+import com.papusbarbershop.dto.AlertaStockDTO;
+import com.papusbarbershop.dto.DiferenciaInventarioDTO;
+import com.papusbarbershop.dto.MovimientoInventarioDTO;
 import com.papusbarbershop.dto.ProductoCreateDTO;
 import com.papusbarbershop.dto.ProductoDTO;
+import com.papusbarbershop.dto.RecoleccionImagenesDTO;
+import com.papusbarbershop.dto.ReposicionStockDTO;
+import com.papusbarbershop.dto.StockEnFechaDTO;
+import com.papusbarbershop.service.InventarioService;
 import com.papusbarbershop.service.ProductoService;
+import com.papusbarbershop.service.RecolectorImagenesService;
+import com.papusbarbershop.service.VelocidadVentaService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador para la gestión de productos.
@@ -23,6 +36,15 @@ public class ProductoController {
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private VelocidadVentaService velocidadVentaService;
+
+    @Autowired
+    private RecolectorImagenesService recolectorImagenesService;
+
     /**
      * Crea un nuevo producto.
      * Solo accesible para usuarios con rol ADMIN.
@@ -40,8 +62,11 @@ public class ProductoController {
     /**
      * Actualiza un producto existente.
      * Solo accesible para usuarios con rol ADMIN.
+     * Si se envía If-Match con el ETag leído, la actualización sólo se aplica si el producto
+     * no cambió desde entonces (412 en caso contrario).
      * 
      * @param id ID del producto
+     * @param ifMatch ETag del producto leído por el cliente (opcional)
      * @param productoCreateDTO DTO con los datos actualizados
      * @return Producto actualizado
      */
@@ -49,9 +74,10 @@ public class ProductoController {
     @PreAuthorize("hasAnyRole('ADMIN', 'CESIA')")
     public ResponseEntity<ProductoDTO> updateProducto(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductoCreateDTO productoCreateDTO) {
-        ProductoDTO producto = productoService.update(id, productoCreateDTO);
-        return ResponseEntity.ok(producto);
+        ProductoDTO producto = productoService.update(id, productoCreateDTO, EtagVersion.versionEsperada(ifMatch));
+        return ResponseEntity.ok().eTag(EtagVersion.etiqueta(producto.getVersion())).body(producto);
     }
 
     /**
@@ -74,7 +100,7 @@ public class ProductoController {
     @GetMapping("/{id}")
     public ResponseEntity<ProductoDTO> getProductoById(@PathVariable Long id) {
         ProductoDTO producto = productoService.findById(id);
-        return ResponseEntity.ok(producto);
+        return ResponseEntity.ok().eTag(EtagVersion.etiqueta(producto.getVersion())).body(producto);
     }
 
     /**
@@ -90,5 +116,106 @@ public class ProductoController {
         productoService.delete(id);
         return ResponseEntity.noContent().build();
     }
-}
 
+    // ==================== LIBRO DE INVENTARIO ====================
+
+    /**
+     * Registra una reposición de stock de un producto.
+     * Solo accesible para usuarios con rol ADMIN o CESIA.
+     * 
+     * @param id ID del producto
+     * @param reposicionDTO DTO con la cantidad y el motivo
+     * @return Producto con el stock actualizado
+     */
+    @PostMapping("/{id}/reposiciones")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CESIA')")
+    public ResponseEntity<ProductoDTO> registrarReposicion(
+            @PathVariable Long id,
+            @Valid @RequestBody ReposicionStockDTO reposicionDTO) {
+        ProductoDTO producto = productoService.registrarReposicion(id, reposicionDTO);
+        return ResponseEntity.ok(producto);
+    }
+
+    /**
+     * Obtiene los movimientos de inventario de un producto en un rango de fechas.
+     * También funciona para productos eliminados del catálogo.
+     * 
+     * @param id ID del producto
+     * @param desde Inicio del rango (ISO, ej. 2025-01-01T00:00:00)
+     * @param hasta Fin del rango (ISO)
+     * @return Movimientos en orden cronológico
+     */
+    @GetMapping("/{id}/movimientos")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CESIA')")
+    public ResponseEntity<List<MovimientoInventarioDTO>> getMovimientos(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        return ResponseEntity.ok(inventarioService.findMovimientos(id, desde, hasta));
+    }
+
+    /**
+     * Obtiene el stock que tenía un producto en un instante, según el libro de inventario.
+     * 
+     * @param id ID del producto
+     * @param fechaHora Instante a consultar (ISO)
+     * @return Stock en el instante indicado
+     */
+    @GetMapping("/{id}/stock-en-fecha")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CESIA')")
+    public ResponseEntity<StockEnFechaDTO> getStockEnFecha(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaHora) {
+        return ResponseEntity.ok(inventarioService.stockEnFecha(id, fechaHora));
+    }
+
+    /**
+     * Compara el stock de todos los productos con el libro de inventario.
+     * Solo accesible para usuarios con rol ADMIN.
+     * 
+     * @return Productos cuyo stock no coincide con el libro
+     */
+    @GetMapping("/inventario/conciliacion")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DiferenciaInventarioDTO>> conciliarInventario() {
+        return ResponseEntity.ok(inventarioService.conciliar());
+    }
+
+    /**
+     * Ejecuta manualmente la recolección de imágenes huérfanas de productos.
+     * Solo accesible para usuarios con rol ADMIN.
+     * 
+     * @param simulacion true para sólo listar los huérfanos sin eliminarlos (por defecto el configurado)
+     * @return Resultado de la recolección
+     */
+    @PostMapping("/imagenes/recoleccion")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RecoleccionImagenesDTO> recolectarImagenes(@RequestParam(required = false) Boolean simulacion) {
+        return ResponseEntity.ok(recolectorImagenesService.recolectar(simulacion));
+    }
+
+    /**
+     * Genera manualmente las fotografías de inventario pendientes.
+     * Solo accesible para usuarios con rol ADMIN.
+     * 
+     * @return Cantidad de fotografías generadas
+     */
+    @PostMapping("/inventario/snapshots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> generarSnapshots() {
+        return ResponseEntity.ok(Map.of("snapshotsGenerados", inventarioService.generarSnapshots()));
+    }
+
+    /**
+     * Obtiene los productos sin stock o con stock proyectado para menos días que el umbral,
+     * según la velocidad de venta estimada, con la cantidad sugerida a reponer.
+     * 
+     * @param umbralDias Umbral de días de stock (opcional, por defecto inventario.alertas.dias-umbral)
+     * @return Alertas ordenadas de menor a mayor cantidad de días restantes
+     */
+    @GetMapping("/alertas-stock")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CESIA')")
+    public ResponseEntity<List<AlertaStockDTO>> getAlertasStock(@RequestParam(required = false) Double umbralDias) {
+        return ResponseEntity.ok(velocidadVentaService.obtenerAlertas(umbralDias));
+    }
+}
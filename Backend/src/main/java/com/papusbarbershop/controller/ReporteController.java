@@ -1,15 +1,32 @@
 package com.papusbarbershop.controller;
 
+import com.papusbarbershop.dto.CierreCajaDTO;
+import com.papusbarbershop.dto.CierreNominaCreateDTO;
+import com.papusbarbershop.dto.CierreNominaDTO;
+import com.papusbarbershop.dto.ConsultaCuboDTO;
+import com.papusbarbershop.dto.DesviacionNominaDTO;
+import com.papusbarbershop.dto.ResultadoCuboDTO;
 import com.papusbarbershop.dto.ResumenDiarioDTO;
 import com.papusbarbershop.dto.ResumenMensualDTO;
+import com.papusbarbershop.dto.UtilizacionDTO;
+import com.papusbarbershop.service.CierreCajaService;
+import com.papusbarbershop.service.CuboAnaliticoService;
+import com.papusbarbershop.service.NominaService;
 import com.papusbarbershop.service.ReporteService;
+import com.papusbarbershop.service.UtilizacionService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador para la generación de reportes.
@@ -22,6 +39,18 @@ public class ReporteController {
     @Autowired
     private ReporteService reporteService;
 
+    @Autowired
+    private UtilizacionService utilizacionService;
+
+    @Autowired
+    private CuboAnaliticoService cuboAnaliticoService;
+
+    @Autowired
+    private NominaService nominaService;
+
+    @Autowired
+    private CierreCajaService cierreCajaService;
+
     /**
      * Obtiene el resumen diario.
      * 
@@ -61,5 +90,120 @@ public class ReporteController {
         ResumenDiarioDTO resumen = reporteService.generarResumenPorFecha(fecha);
         return ResponseEntity.ok(resumen);
     }
-}
 
+    /**
+     * Obtiene el mapa de calor de utilización (minutos reservados vs. disponibles)
+     * por barbero, día de la semana e intervalo de 30 minutos.
+     * 
+     * @param fechaInicio Fecha inicial del rango
+     * @param fechaFin Fecha final del rango
+     * @return Reporte de utilización
+     */
+    @GetMapping("/utilizacion")
+    public ResponseEntity<UtilizacionDTO> getUtilizacion(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        UtilizacionDTO utilizacion = utilizacionService.calcularUtilizacion(fechaInicio, fechaFin);
+        return ResponseEntity.ok(utilizacion);
+    }
+
+    /**
+     * Consulta el cubo analítico en memoria (filtro, agrupación y suma de servicios y ventas).
+     * 
+     * @param consulta Filtros y dimensiones de agrupación
+     * @return Resultado agrupado
+     */
+    @PostMapping("/cubo")
+    public ResponseEntity<ResultadoCuboDTO> consultarCubo(@RequestBody ConsultaCuboDTO consulta) {
+        ResultadoCuboDTO resultado = cuboAnaliticoService.consultar(consulta);
+        return ResponseEntity.ok(resultado);
+    }
+
+    /**
+     * Reconstruye el cubo analítico desde la base de datos.
+     * 
+     * @return Respuesta sin contenido
+     */
+    @PostMapping("/cubo/recargar")
+    public ResponseEntity<Void> recargarCubo() {
+        cuboAnaliticoService.recargar();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Cierra la nómina de un periodo, congelando el pago de cada barbero.
+     * 
+     * @param cierreNominaCreateDTO Periodo a cerrar
+     * @return Cierre creado
+     */
+    @PostMapping("/nomina/cierres")
+    public ResponseEntity<CierreNominaDTO> cerrarNomina(@Valid @RequestBody CierreNominaCreateDTO cierreNominaCreateDTO) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String usuario = auth != null ? auth.getName() : null;
+        CierreNominaDTO cierre = nominaService.cerrarPeriodo(
+                cierreNominaCreateDTO.getFechaInicio(), cierreNominaCreateDTO.getFechaFin(), usuario);
+        return ResponseEntity.status(HttpStatus.CREATED).body(cierre);
+    }
+
+    /**
+     * Obtiene todos los cierres de nómina.
+     * 
+     * @return Lista de cierres
+     */
+    @GetMapping("/nomina/cierres")
+    public ResponseEntity<List<CierreNominaDTO>> getCierresNomina() {
+        return ResponseEntity.ok(nominaService.findAll());
+    }
+
+    /**
+     * Obtiene un cierre de nómina con el detalle por barbero.
+     * 
+     * @param id ID del cierre
+     * @return Cierre encontrado
+     */
+    @GetMapping("/nomina/cierres/{id}")
+    public ResponseEntity<CierreNominaDTO> getCierreNomina(@PathVariable Long id) {
+        return ResponseEntity.ok(nominaService.findById(id));
+    }
+
+    /**
+     * Compara un cierre de nómina contra un recálculo de los datos actuales.
+     * 
+     * @param id ID del cierre
+     * @return Diferencias por barbero
+     */
+    @GetMapping("/nomina/cierres/{id}/desviacion")
+    public ResponseEntity<DesviacionNominaDTO> getDesviacionNomina(@PathVariable Long id) {
+        return ResponseEntity.ok(nominaService.detectarDesviacion(id));
+    }
+
+    /**
+     * Obtiene el cierre de caja de un día con totales por método de pago y por barbero.
+     * 
+     * @param fecha Fecha del cierre (opcional, por defecto hoy)
+     * @return Cierre de caja
+     */
+    @GetMapping("/cierre-caja")
+    public ResponseEntity<CierreCajaDTO> getCierreCaja(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        if (fecha == null) {
+            fecha = LocalDate.now();
+        }
+        return ResponseEntity.ok(cierreCajaService.obtenerCierre(fecha));
+    }
+
+    /**
+     * Reconstruye los acumulados del cierre de caja de un rango de fechas a partir de servicios y ventas.
+     * 
+     * @param fechaInicio Fecha de inicio
+     * @param fechaFin Fecha de fin
+     * @return Cantidad de filas de acumulado generadas
+     */
+    @PostMapping("/cierre-caja/reconstruir")
+    public ResponseEntity<Map<String, Integer>> reconstruirCierreCaja(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        int filas = cierreCajaService.reconstruir(fechaInicio, fechaFin);
+        return ResponseEntity.ok(Map.of("filas", filas));
+    }
+}
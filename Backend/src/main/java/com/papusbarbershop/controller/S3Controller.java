@@ -1,15 +1,21 @@
 package com.papusbarbershop.controller;
 
 import com.papusbarbershop.service.ProductoService;
-import com.papusbarbershop.service.S3Service;
+import com.papusbarbershop.service.AlmacenamientoService;
+import com.papusbarbershop.service.ExistenciaArchivoCache;
+import com.papusbarbershop.service.ImagenVarianteService;
+import com.papusbarbershop.service.ProductoImagenService;
+import com.papusbarbershop.service.UrlPresignadaCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,6 +24,9 @@ import java.util.Map;
  * Este controlador maneja las peticiones relacionadas con el almacenamiento
  * de archivos en S3, incluyendo la generación de URLs presignadas para
  * subir y descargar archivos.
+ * 
+ * Las rutas conservan el prefijo /api/s3 por compatibilidad con el frontend; el almacenamiento
+ * real (S3 o sistema de archivos local) depende de la propiedad almacenamiento.tipo.
  */
 @RestController
 @RequestMapping("/api/s3")
@@ -27,11 +36,32 @@ public class S3Controller {
     private static final Logger logger = LoggerFactory.getLogger(S3Controller.class);
 
     @Autowired
-    private S3Service s3Service;
+    private AlmacenamientoService almacenamientoService;
 
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private ImagenVarianteService imagenVarianteService;
+
+    @Autowired
+    private ProductoImagenService productoImagenService;
+
+    @Autowired
+    private ExistenciaArchivoCache existenciaArchivoCache;
+
+    @Autowired
+    private UrlPresignadaCache urlPresignadaCache;
+
+    @Value("${aws.s3.presign-lote.max-claves:200}")
+    private int maxClavesLote;
+
+    @Value("${aws.s3.presign-lote.prefijo:productos/}")
+    private String prefijoLote;
+
+    @Value("${aws.s3.presigned-url-expiration:3600}")
+    private long maxExpiracionLote;
+
     /**
      * Endpoint para generar una URL presignada para subir un archivo.
      * 
@@ -54,12 +84,14 @@ public class S3Controller {
 
             logger.info("Generando URL presignada con parámetros: folder={}, contentType={}", folder, contentType);
 
-            S3Service.PresignedUrlResponse response = s3Service.generatePresignedUploadUrl(
+            AlmacenamientoService.PresignedUrlResponse response = almacenamientoService.generatePresignedUploadUrl(
                     request.getFileName(),
                     folder,
                     contentType
             );
 
+            existenciaArchivoCache.marcarSubidaPendiente(response.getKey());
+
             Map<String, String> result = new HashMap<>();
             result.put("url", response.getUrl());
             result.put("key", response.getKey());
@@ -98,7 +130,7 @@ public class S3Controller {
                     ? request.getExpirationTime()
                     : 3600; // Por defecto 1 hora
 
-            String presignedUrl = s3Service.generatePresignedDownloadUrl(request.getKey(), expirationTime);
+            String presignedUrl = almacenamientoService.generatePresignedDownloadUrl(request.getKey(), expirationTime);
 
             Map<String, String> result = new HashMap<>();
             result.put("url", presignedUrl);
@@ -110,6 +142,51 @@ public class S3Controller {
         }
     }
 
+    /**
+     * Endpoint para generar URLs presignadas de descarga de varias claves en una sola petición
+     * (por ejemplo, las imágenes de la grilla de productos).
+     * 
+     * El endpoint es público, así que sólo firma claves del catálogo (aws.s3.presign-lote.prefijo)
+     * y la vigencia nunca supera aws.s3.presigned-url-expiration.
+     * 
+     * @param request Solicitud con keys y expirationTime
+     * @return Mapa "urls" con clave → URL presignada; las claves que no se pudieron firmar se omiten
+     */
+    @PostMapping("/presigned-url/download/lote")
+    public ResponseEntity<?> generatePresignedDownloadUrls(@RequestBody PresignedDownloadBatchRequest request) {
+        try {
+            if (request.getKeys() == null || request.getKeys().isEmpty()) {
+                return ResponseEntity.badRequest().body(createErrorResponse("Se requiere al menos una clave de archivo"));
+            }
+            if (request.getKeys().size() > maxClavesLote) {
+                return ResponseEntity.badRequest().body(createErrorResponse(
+                        "Se permiten como máximo " + maxClavesLote + " claves por solicitud"));
+            }
+            for (String key : request.getKeys()) {
+                if (key == null || !key.startsWith(prefijoLote) || key.contains("..")) {
+                    return ResponseEntity.badRequest().body(createErrorResponse(
+                            "Sólo se pueden firmar claves que empiecen por " + prefijoLote));
+                }
+            }
+
+            long expirationTime = request.getExpirationTime() != null && request.getExpirationTime() > 0
+                    ? request.getExpirationTime()
+                    : 3600; // Por defecto 1 hora
+            expirationTime = Math.min(expirationTime, maxExpiracionLote);
+
+            Map<String, String> urls = almacenamientoService.generatePresignedDownloadUrls(request.getKeys(), expirationTime);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("urls", urls);
+
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error al generar URLs presignadas en lote", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error al generar URLs presignadas: " + e.getMessage()));
+        }
+    }
+
     /**
      * Endpoint para eliminar un archivo de S3.
      * 
@@ -123,7 +200,9 @@ public class S3Controller {
                 return ResponseEntity.badRequest().body(createErrorResponse("La clave del archivo es requerida"));
             }
 
-            s3Service.deleteFile(key);
+            almacenamientoService.deleteFile(key);
+            existenciaArchivoCache.marcarEliminado(key);
+            urlPresignadaCache.invalidar(key);
 
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
@@ -145,7 +224,8 @@ public class S3Controller {
                 return ResponseEntity.badRequest().body(createErrorResponse("La clave del archivo es requerida"));
             }
 
-            boolean exists = s3Service.fileExists(key);
+            // Desde el cache; sólo se consulta el almacenamiento si no hay un resultado vigente
+            boolean exists = existenciaArchivoCache.existe(key);
 
             Map<String, Object> result = new HashMap<>();
             result.put("exists", exists);
@@ -175,7 +255,10 @@ public class S3Controller {
             }
 
             // Guardar s3Key directamente en la entidad Producto (base de datos)
-            productoService.actualizarS3Key(request.getProductoId(), request.getS3Key());
+            // Generar en segundo plano las variantes redimensionadas de la imagen
+            if (productoService.actualizarS3Key(request.getProductoId(), request.getS3Key())) {
+                imagenVarianteService.programar(request.getProductoId(), request.getS3Key());
+            }
 
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
@@ -214,27 +297,24 @@ public class S3Controller {
     }
 
     /**
-     * Endpoint para obtener todas las referencias de imágenes.
+     * Endpoint para obtener las referencias de imágenes.
      * 
-     * @return Mapa con todas las referencias de imágenes
+     * Sin parámetros devuelve el mapa completo (productoId → {s3Key, timestamp, version}).
+     * Con since devuelve sólo los cambios posteriores a esa versión (ver CambiosImagenesDTO);
+     * una referencia con s3Key null indica que el producto ya no tiene imagen.
+     * 
+     * @param since Última versión conocida por el cliente (0 para la carga inicial)
+     * @param limite Cantidad máxima de cambios por respuesta
+     * @return Mapa con todas las referencias, o los cambios desde la versión indicada
      */
     @GetMapping("/producto-imagenes")
-    public ResponseEntity<?> obtenerTodasLasReferencias() {
+    public ResponseEntity<?> obtenerTodasLasReferencias(@RequestParam(required = false) Long since,
+                                                        @RequestParam(required = false) Integer limite) {
         try {
-            // Obtener todas las referencias directamente de la base de datos
-            java.util.List<com.papusbarbershop.entity.Producto> productos = productoService.findAllEntities();
-            Map<Long, Map<String, Object>> referencias = new HashMap<>();
-            
-            for (com.papusbarbershop.entity.Producto producto : productos) {
-                if (producto.getS3Key() != null && !producto.getS3Key().isEmpty()) {
-                    Map<String, Object> imagenData = new HashMap<>();
-                    imagenData.put("s3Key", producto.getS3Key());
-                    imagenData.put("timestamp", System.currentTimeMillis());
-                    referencias.put(producto.getId(), imagenData);
-                }
+            if (since != null) {
+                return ResponseEntity.ok(productoImagenService.obtenerCambios(since, limite));
             }
-            
-            return ResponseEntity.ok(referencias);
+            return ResponseEntity.ok(productoImagenService.obtenerTodasLasReferencias());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(createErrorResponse("Error al obtener referencias: " + e.getMessage()));
@@ -250,16 +330,21 @@ public class S3Controller {
     @PostMapping("/producto-imagenes/sincronizar")
     public ResponseEntity<?> sincronizarReferencias(@RequestBody Map<Long, Map<String, Object>> referencias) {
         try {
-            // Guardar cada referencia directamente en la entidad Producto (base de datos)
+            // Sólo se actualizan las referencias que difieren de las guardadas (una consulta para todas)
+            Map<Long, String> actuales = productoImagenService.obtenerS3Keys(referencias.keySet());
             int count = 0;
             for (Map.Entry<Long, Map<String, Object>> entry : referencias.entrySet()) {
                 Long productoId = entry.getKey();
                 Map<String, Object> imagenData = entry.getValue();
                 String s3Key = (String) imagenData.get("s3Key");
                 
-                if (s3Key != null && !s3Key.isEmpty()) {
+                if (s3Key != null && s3Key.equals(actuales.get(productoId))) {
+                    count++;
+                } else if (s3Key != null && !s3Key.isEmpty()) {
                     try {
-                        productoService.actualizarS3Key(productoId, s3Key);
+                        if (productoService.actualizarS3Key(productoId, s3Key)) {
+                            imagenVarianteService.programar(productoId, s3Key);
+                        }
                         count++;
                     } catch (Exception e) {
                         System.err.println("Error al actualizar s3Key para producto " + productoId + ": " + e.getMessage());
@@ -348,6 +433,30 @@ public class S3Controller {
         }
     }
 
+    /**
+     * Clase para la solicitud de URLs presignadas de descarga en lote.
+     */
+    public static class PresignedDownloadBatchRequest {
+        private List<String> keys;
+        private Long expirationTime;
+
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        public void setKeys(List<String> keys) {
+            this.keys = keys;
+        }
+
+        public Long getExpirationTime() {
+            return expirationTime;
+        }
+
+        public void setExpirationTime(Long expirationTime) {
+            this.expirationTime = expirationTime;
+        }
+    }
+
     /**
      * Clase para la solicitud de guardar referencia de imagen de producto.
      */
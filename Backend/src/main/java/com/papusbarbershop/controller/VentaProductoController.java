@@ -1,5 +1,7 @@
 package com.papusbarbershop.controller;
 
+import com.papusbarbershop.dto.TicketVentaCreateDTO;
+import com.papusbarbershop.dto.TicketVentaDTO;
 import com.papusbarbershop.dto.VentaProductoCreateDTO;
 import com.papusbarbershop.dto.VentaProductoDTO;
 import com.papusbarbershop.service.VentaProductoService;
@@ -36,6 +38,18 @@ public class VentaProductoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(venta);
     }
 
+    /**
+     * Registra un ticket con varias líneas de producto en una sola transacción.
+     * 
+     * @param ticketCreateDTO DTO con los datos del ticket
+     * @return Ventas registradas y total del ticket
+     */
+    @PostMapping("/ticket")
+    public ResponseEntity<TicketVentaDTO> createTicket(@Valid @RequestBody TicketVentaCreateDTO ticketCreateDTO) {
+        TicketVentaDTO ticket = ventaProductoService.crearTicket(ticketCreateDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ticket);
+    }
+
     /**
      * Obtiene todas las ventas de productos.
      * 
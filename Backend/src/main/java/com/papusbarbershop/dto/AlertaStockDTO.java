@@ -0,0 +1,65 @@
+package com.papusbarbershop.dto;
+
+/**
+ * DTO con la alerta de stock bajo y la sugerencia de reposición de un producto.
+ */
+public class AlertaStockDTO {
+    private Long productoId;
+    private String productoNombre;
+    private Integer stock;
+    private Double velocidadDiaria;
+    private Double diasRestantes;
+    private Integer cantidadSugerida;
+
+    public AlertaStockDTO() {
+    }
+
+    // Getters y Setters
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getProductoNombre() {
+        return productoNombre;
+    }
+
+    public void setProductoNombre(String productoNombre) {
+        this.productoNombre = productoNombre;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public Double getVelocidadDiaria() {
+        return velocidadDiaria;
+    }
+
+    public void setVelocidadDiaria(Double velocidadDiaria) {
+        this.velocidadDiaria = velocidadDiaria;
+    }
+
+    public Double getDiasRestantes() {
+        return diasRestantes;
+    }
+
+    public void setDiasRestantes(Double diasRestantes) {
+        this.diasRestantes = diasRestantes;
+    }
+
+    public Integer getCantidadSugerida() {
+        return cantidadSugerida;
+    }
+
+    public void setCantidadSugerida(Integer cantidadSugerida) {
+        this.cantidadSugerida = cantidadSugerida;
+    }
+}
@@ -0,0 +1,54 @@
+package com.papusbarbershop.dto;
+
+import java.util.List;
+
+/**
+ * DTO con los cambios de referencias de imágenes de productos posteriores a una versión.
+ *
+ * El cliente guarda {@code version} y la envía como {@code since} en la siguiente consulta.
+ * Si {@code completo} es true, la respuesta reemplaza todas las referencias del cliente
+ * (por ejemplo, si la versión enviada no existe en el servidor). Si {@code hayMas} es true,
+ * hay más cambios y se debe consultar de nuevo desde {@code version}.
+ */
+public class CambiosImagenesDTO {
+    private Long version;
+    private Boolean completo;
+    private Boolean hayMas;
+    private List<ReferenciaImagenDTO> referencias;
+
+    public CambiosImagenesDTO() {
+    }
+
+    // Getters y Setters
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Boolean getCompleto() {
+        return completo;
+    }
+
+    public void setCompleto(Boolean completo) {
+        this.completo = completo;
+    }
+
+    public Boolean getHayMas() {
+        return hayMas;
+    }
+
+    public void setHayMas(Boolean hayMas) {
+        this.hayMas = hayMas;
+    }
+
+    public List<ReferenciaImagenDTO> getReferencias() {
+        return referencias;
+    }
+
+    public void setReferencias(List<ReferenciaImagenDTO> referencias) {
+        this.referencias = referencias;
+    }
+}
@@ -0,0 +1,96 @@
+package com.papusbarbershop.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO para el cierre de caja diario con totales por método de pago y por barbero.
+ */
+public class CierreCajaDTO {
+    private LocalDate fecha;
+    private BigDecimal totalServicios;
+    private Integer cantidadServicios;
+    private BigDecimal totalVentas;
+    private Integer cantidadVentas;
+    private BigDecimal totalGeneral;
+    private List<TotalCajaDTO> porMetodoPago;
+    private List<TotalCajaDTO> porBarbero;
+    private List<TotalCajaDTO> detalle;
+
+    public CierreCajaDTO() {
+    }
+
+    // Getters y Setters
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public BigDecimal getTotalServicios() {
+        return totalServicios;
+    }
+
+    public void setTotalServicios(BigDecimal totalServicios) {
+        this.totalServicios = totalServicios;
+    }
+
+    public Integer getCantidadServicios() {
+        return cantidadServicios;
+    }
+
+    public void setCantidadServicios(Integer cantidadServicios) {
+        this.cantidadServicios = cantidadServicios;
+    }
+
+    public BigDecimal getTotalVentas() {
+        return totalVentas;
+    }
+
+    public void setTotalVentas(BigDecimal totalVentas) {
+        this.totalVentas = totalVentas;
+    }
+
+    public Integer getCantidadVentas() {
+        return cantidadVentas;
+    }
+
+    public void setCantidadVentas(Integer cantidadVentas) {
+        this.cantidadVentas = cantidadVentas;
+    }
+
+    public BigDecimal getTotalGeneral() {
+        return totalGeneral;
+    }
+
+    public void setTotalGeneral(BigDecimal totalGeneral) {
+        this.totalGeneral = totalGeneral;
+    }
+
+    public List<TotalCajaDTO> getPorMetodoPago() {
+        return porMetodoPago;
+    }
+
+    public void setPorMetodoPago(List<TotalCajaDTO> porMetodoPago) {
+        this.porMetodoPago = porMetodoPago;
+    }
+
+    public List<TotalCajaDTO> getPorBarbero() {
+        return porBarbero;
+    }
+
+    public void setPorBarbero(List<TotalCajaDTO> porBarbero) {
+        this.porBarbero = porBarbero;
+    }
+
+    public List<TotalCajaDTO> getDetalle() {
+        return detalle;
+    }
+
+    public void setDetalle(List<TotalCajaDTO> detalle) {
+        this.detalle = detalle;
+    }
+}
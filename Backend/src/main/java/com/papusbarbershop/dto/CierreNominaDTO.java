@@ -0,0 +1,79 @@
+package com.papusbarbershop.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para representar un cierre de nómina con el pago congelado de cada barbero.
+ */
+public class CierreNominaDTO {
+    private Long id;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private LocalDateTime fechaCierre;
+    private String cerradoPor;
+    private BigDecimal totalPagado;
+    private List<ResumenBarberoDTO> barberos;
+
+    public CierreNominaDTO() {
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDate fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public LocalDateTime getFechaCierre() {
+        return fechaCierre;
+    }
+
+    public void setFechaCierre(LocalDateTime fechaCierre) {
+        this.fechaCierre = fechaCierre;
+    }
+
+    public String getCerradoPor() {
+        return cerradoPor;
+    }
+
+    public void setCerradoPor(String cerradoPor) {
+        this.cerradoPor = cerradoPor;
+    }
+
+    public BigDecimal getTotalPagado() {
+        return totalPagado;
+    }
+
+    public void setTotalPagado(BigDecimal totalPagado) {
+        this.totalPagado = totalPagado;
+    }
+
+    public List<ResumenBarberoDTO> getBarberos() {
+        return barberos;
+    }
+
+    public void setBarberos(List<ResumenBarberoDTO> barberos) {
+        this.barberos = barberos;
+    }
+}
@@ -22,6 +22,7 @@ public class CitaDTO {
     private String telefonoCliente;
     private String comentarios;
     private String estado;
+    private Long version; // Versión para If-Match (la misma que el ETag)
 
     public CitaDTO() {
     }
@@ -146,5 +147,12 @@ public class CitaDTO {
     public void setEstado(String estado) {
         this.estado = estado;
     }
-}
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,89 @@
+package com.papusbarbershop.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO para consultar el cubo analítico en memoria.
+ * 
+ * Todos los filtros son opcionales. Las dimensiones de agrupación admitidas son:
+ * HECHO, FECHA, MES, ANIO, BARBERO, PRODUCTO, METODO_PAGO y TIPO_CORTE.
+ */
+public class ConsultaCuboDTO {
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private String hecho; // SERVICIO, VENTA o null para ambos
+    private List<Long> barberoIds;
+    private List<Long> productoIds;
+    private List<String> metodosPago;
+    private List<String> tiposCorte;
+    private List<String> agruparPor;
+
+    public ConsultaCuboDTO() {
+    }
+
+    // Getters y Setters
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDate fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public String getHecho() {
+        return hecho;
+    }
+
+    public void setHecho(String hecho) {
+        this.hecho = hecho;
+    }
+
+    public List<Long> getBarberoIds() {
+        return barberoIds;
+    }
+
+    public void setBarberoIds(List<Long> barberoIds) {
+        this.barberoIds = barberoIds;
+    }
+
+    public List<Long> getProductoIds() {
+        return productoIds;
+    }
+
+    public void setProductoIds(List<Long> productoIds) {
+        this.productoIds = productoIds;
+    }
+
+    public List<String> getMetodosPago() {
+        return metodosPago;
+    }
+
+    public void setMetodosPago(List<String> metodosPago) {
+        this.metodosPago = metodosPago;
+    }
+
+    public List<String> getTiposCorte() {
+        return tiposCorte;
+    }
+
+    public void setTiposCorte(List<String> tiposCorte) {
+        this.tiposCorte = tiposCorte;
+    }
+
+    public List<String> getAgruparPor() {
+        return agruparPor;
+    }
+
+    public void setAgruparPor(List<String> agruparPor) {
+        this.agruparPor = agruparPor;
+    }
+}
@@ -0,0 +1,58 @@
+package com.papusbarbershop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con la diferencia entre el pago congelado y el recalculado de un barbero.
+ */
+public class DesviacionBarberoDTO {
+    private Long barberoId;
+    private String barberoNombre;
+    private BigDecimal pagoCierre;
+    private BigDecimal pagoActual;
+    private BigDecimal diferencia;
+
+    public DesviacionBarberoDTO() {
+    }
+
+    // Getters y Setters
+    public Long getBarberoId() {
+        return barberoId;
+    }
+
+    public void setBarberoId(Long barberoId) {
+        this.barberoId = barberoId;
+    }
+
+    public String getBarberoNombre() {
+        return barberoNombre;
+    }
+
+    public void setBarberoNombre(String barberoNombre) {
+        this.barberoNombre = barberoNombre;
+    }
+
+    public BigDecimal getPagoCierre() {
+        return pagoCierre;
+    }
+
+    public void setPagoCierre(BigDecimal pagoCierre) {
+        this.pagoCierre = pagoCierre;
+    }
+
+    public BigDecimal getPagoActual() {
+        return pagoActual;
+    }
+
+    public void setPagoActual(BigDecimal pagoActual) {
+        this.pagoActual = pagoActual;
+    }
+
+    public BigDecimal getDiferencia() {
+        return diferencia;
+    }
+
+    public void setDiferencia(BigDecimal diferencia) {
+        this.diferencia = diferencia;
+    }
+}
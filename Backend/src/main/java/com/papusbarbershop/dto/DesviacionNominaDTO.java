@@ -0,0 +1,87 @@
+package com.papusbarbershop.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO con el resultado de comparar un cierre de nómina contra un recálculo de los datos actuales.
+ */
+public class DesviacionNominaDTO {
+    private Long cierreId;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private boolean hayDesviacion;
+    private BigDecimal totalCierre;
+    private BigDecimal totalActual;
+    private BigDecimal diferencia;
+    private List<DesviacionBarberoDTO> barberos;
+
+    public DesviacionNominaDTO() {
+    }
+
+    // Getters y Setters
+    public Long getCierreId() {
+        return cierreId;
+    }
+
+    public void setCierreId(Long cierreId) {
+        this.cierreId = cierreId;
+    }
+
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDate fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public boolean isHayDesviacion() {
+        return hayDesviacion;
+    }
+
+    public void setHayDesviacion(boolean hayDesviacion) {
+        this.hayDesviacion = hayDesviacion;
+    }
+
+    public BigDecimal getTotalCierre() {
+        return totalCierre;
+    }
+
+    public void setTotalCierre(BigDecimal totalCierre) {
+        this.totalCierre = totalCierre;
+    }
+
+    public BigDecimal getTotalActual() {
+        return totalActual;
+    }
+
+    public void setTotalActual(BigDecimal totalActual) {
+        this.totalActual = totalActual;
+    }
+
+    public BigDecimal getDiferencia() {
+        return diferencia;
+    }
+
+    public void setDiferencia(BigDecimal diferencia) {
+        this.diferencia = diferencia;
+    }
+
+    public List<DesviacionBarberoDTO> getBarberos() {
+        return barberos;
+    }
+
+    public void setBarberos(List<DesviacionBarberoDTO> barberos) {
+        this.barberos = barberos;
+    }
+}
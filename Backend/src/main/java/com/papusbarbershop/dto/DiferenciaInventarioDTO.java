@@ -0,0 +1,56 @@
+package com.papusbarbershop.dto;
+
+/**
+ * DTO con una diferencia entre el stock de un producto y el stock según el libro de inventario.
+ */
+public class DiferenciaInventarioDTO {
+    private Long productoId;
+    private String productoNombre;
+    private Integer stockProducto;
+    private Integer stockLibro;
+    private Integer diferencia;
+
+    public DiferenciaInventarioDTO() {
+    }
+
+    // Getters y Setters
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getProductoNombre() {
+        return productoNombre;
+    }
+
+    public void setProductoNombre(String productoNombre) {
+        this.productoNombre = productoNombre;
+    }
+
+    public Integer getStockProducto() {
+        return stockProducto;
+    }
+
+    public void setStockProducto(Integer stockProducto) {
+        this.stockProducto = stockProducto;
+    }
+
+    public Integer getStockLibro() {
+        return stockLibro;
+    }
+
+    public void setStockLibro(Integer stockLibro) {
+        this.stockLibro = stockLibro;
+    }
+
+    public Integer getDiferencia() {
+        return diferencia;
+    }
+
+    public void setDiferencia(Integer diferencia) {
+        this.diferencia = diferencia;
+    }
+}
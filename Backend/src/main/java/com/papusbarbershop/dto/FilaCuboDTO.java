@@ -0,0 +1,57 @@
+package com.papusbarbershop.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * DTO que representa un grupo del resultado de una consulta al cubo analítico.
+ */
+public class FilaCuboDTO {
+    private Map<String, Object> grupo;
+    private long registros;
+    private long cantidad;
+    private BigDecimal total;
+
+    public FilaCuboDTO() {
+    }
+
+    public FilaCuboDTO(Map<String, Object> grupo, long registros, long cantidad, BigDecimal total) {
+        this.grupo = grupo;
+        this.registros = registros;
+        this.cantidad = cantidad;
+        this.total = total;
+    }
+
+    // Getters y Setters
+    public Map<String, Object> getGrupo() {
+        return grupo;
+    }
+
+    public void setGrupo(Map<String, Object> grupo) {
+        this.grupo = grupo;
+    }
+
+    public long getRegistros() {
+        return registros;
+    }
+
+    public void setRegistros(long registros) {
+        this.registros = registros;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(long cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
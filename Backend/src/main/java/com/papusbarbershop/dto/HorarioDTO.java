@@ -14,6 +14,7 @@ public class HorarioDTO {
     private LocalTime horaSalida;
     private Boolean activo;
     private LocalDate fecha;
+    private Long version; // Versión para If-Match (la misma que el ETag)
 
     // ==================== CONSTRUCTORES ====================
 
@@ -87,5 +88,12 @@ public class HorarioDTO {
     public void setFecha(LocalDate fecha) {
         this.fecha = fecha;
     }
-}
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
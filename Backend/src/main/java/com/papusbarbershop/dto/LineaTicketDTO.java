@@ -0,0 +1,40 @@
+package com.papusbarbershop.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * DTO para una línea de producto dentro de un ticket de venta.
+ */
+public class LineaTicketDTO {
+
+    @NotNull(message = "El producto es obligatorio")
+    private Long productoId;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 1, message = "La cantidad debe ser mayor a 0")
+    private Integer cantidad;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public LineaTicketDTO() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+}
@@ -0,0 +1,94 @@
+package com.papusbarbershop.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO para un movimiento del libro de inventario.
+ */
+public class MovimientoInventarioDTO {
+    private Long id;
+    private Long productoId;
+    private String productoNombre;
+    private String tipo;
+    private Integer cantidad;
+    private Integer stockResultante;
+    private Long ventaId;
+    private String motivo;
+    private LocalDateTime fechaHora;
+
+    public MovimientoInventarioDTO() {
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getProductoNombre() {
+        return productoNombre;
+    }
+
+    public void setProductoNombre(String productoNombre) {
+        this.productoNombre = productoNombre;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public Integer getStockResultante() {
+        return stockResultante;
+    }
+
+    public void setStockResultante(Integer stockResultante) {
+        this.stockResultante = stockResultante;
+    }
+
+    public Long getVentaId() {
+        return ventaId;
+    }
+
+    public void setVentaId(Long ventaId) {
+        this.ventaId = ventaId;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    public void setMotivo(String motivo) {
+        this.motivo = motivo;
+    }
+
+    public LocalDateTime getFechaHora() {
+        return fechaHora;
+    }
+
+    public void setFechaHora(LocalDateTime fechaHora) {
+        this.fechaHora = fechaHora;
+    }
+}
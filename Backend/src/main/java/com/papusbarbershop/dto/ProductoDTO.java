@@ -1,6 +1,7 @@
 package com.papusbarbershop.dto;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 /**
  * DTO para la entidad Producto.
@@ -14,7 +15,9 @@ public class ProductoDTO {
     private BigDecimal precioVenta;
     private Integer comision;
     private String imagenUrl; // URL presignada de la imagen en S3
+    private Map<String, String> imagenVariantes; // URLs de las variantes redimensionadas (miniatura, tarjeta, completa)
     private String descripcion; // Descripción del producto
+    private Long version; // Versión para If-Match (la misma que el ETag)
 
     // ==================== CONSTRUCTORES ====================
 
@@ -109,6 +112,14 @@ public class ProductoDTO {
         this.imagenUrl = imagenUrl;
     }
 
+    public Map<String, String> getImagenVariantes() {
+        return imagenVariantes;
+    }
+
+    public void setImagenVariantes(Map<String, String> imagenVariantes) {
+        this.imagenVariantes = imagenVariantes;
+    }
+
     public String getDescripcion() {
         return descripcion;
     }
@@ -116,5 +127,12 @@ public class ProductoDTO {
     public void setDescripcion(String descripcion) {
         this.descripcion = descripcion;
     }
-}
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,85 @@
+package com.papusbarbershop.dto;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una recolección de imágenes huérfanas.
+ */
+public class RecoleccionImagenesDTO {
+    private Boolean simulacion; // true si no se eliminó nada
+    private Integer revisados;
+    private Integer referenciados;
+    private Integer recientes; // No referenciados pero dentro del período de gracia
+    private Integer huerfanos;
+    private Integer eliminados;
+    private Long duracionMs;
+    private List<String> ejemplos; // Primeras claves huérfanas encontradas
+
+    public RecoleccionImagenesDTO() {
+    }
+
+    // Getters y Setters
+    public Boolean getSimulacion() {
+        return simulacion;
+    }
+
+    public void setSimulacion(Boolean simulacion) {
+        this.simulacion = simulacion;
+    }
+
+    public Integer getRevisados() {
+        return revisados;
+    }
+
+    public void setRevisados(Integer revisados) {
+        this.revisados = revisados;
+    }
+
+    public Integer getReferenciados() {
+        return referenciados;
+    }
+
+    public void setReferenciados(Integer referenciados) {
+        this.referenciados = referenciados;
+    }
+
+    public Integer getRecientes() {
+        return recientes;
+    }
+
+    public void setRecientes(Integer recientes) {
+        this.recientes = recientes;
+    }
+
+    public Integer getHuerfanos() {
+        return huerfanos;
+    }
+
+    public void setHuerfanos(Integer huerfanos) {
+        this.huerfanos = huerfanos;
+    }
+
+    public Integer getEliminados() {
+        return eliminados;
+    }
+
+    public void setEliminados(Integer eliminados) {
+        this.eliminados = eliminados;
+    }
+
+    public Long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public void setDuracionMs(Long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+
+    public List<String> getEjemplos() {
+        return ejemplos;
+    }
+
+    public void setEjemplos(List<String> ejemplos) {
+        this.ejemplos = ejemplos;
+    }
+}
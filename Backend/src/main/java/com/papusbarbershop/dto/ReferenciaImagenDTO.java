@@ -0,0 +1,39 @@
+package com.papusbarbershop.dto;
+
+/**
+ * DTO con la referencia de imagen de un producto y la versión en que cambió.
+ * s3Key es null si el producto ya no tiene imagen o fue eliminado.
+ */
+public class ReferenciaImagenDTO {
+    private Long productoId;
+    private String s3Key;
+    private Long version;
+
+    public ReferenciaImagenDTO() {
+    }
+
+    // Getters y Setters
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+
+    public void setS3Key(String s3Key) {
+        this.s3Key = s3Key;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,28 @@
+package com.papusbarbershop.dto;
+
+/**
+ * DTO para solicitudes de renovación de tokens y de cierre de sesión.
+ */
+public class RefreshTokenRequest {
+
+    private String refreshToken;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public RefreshTokenRequest() {
+    }
+
+    public RefreshTokenRequest(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
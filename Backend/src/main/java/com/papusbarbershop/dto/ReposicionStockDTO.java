@@ -0,0 +1,41 @@
+package com.papusbarbershop.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO para registrar una reposición de stock de un producto.
+ */
+public class ReposicionStockDTO {
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 1, message = "La cantidad debe ser mayor a 0")
+    private Integer cantidad;
+
+    @Size(max = 255, message = "El motivo no puede exceder 255 caracteres")
+    private String motivo;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public ReposicionStockDTO() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    public void setMotivo(String motivo) {
+        this.motivo = motivo;
+    }
+}
@@ -0,0 +1,49 @@
+package com.papusbarbershop.dto;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una consulta al cubo analítico.
+ */
+public class ResultadoCuboDTO {
+    private List<FilaCuboDTO> filas;
+    private long filasEscaneadas;
+    private long filasCoincidentes;
+    private double tiempoMs;
+
+    public ResultadoCuboDTO() {
+    }
+
+    // Getters y Setters
+    public List<FilaCuboDTO> getFilas() {
+        return filas;
+    }
+
+    public void setFilas(List<FilaCuboDTO> filas) {
+        this.filas = filas;
+    }
+
+    public long getFilasEscaneadas() {
+        return filasEscaneadas;
+    }
+
+    public void setFilasEscaneadas(long filasEscaneadas) {
+        this.filasEscaneadas = filasEscaneadas;
+    }
+
+    public long getFilasCoincidentes() {
+        return filasCoincidentes;
+    }
+
+    public void setFilasCoincidentes(long filasCoincidentes) {
+        this.filasCoincidentes = filasCoincidentes;
+    }
+
+    public double getTiempoMs() {
+        return tiempoMs;
+    }
+
+    public void setTiempoMs(double tiempoMs) {
+        this.tiempoMs = tiempoMs;
+    }
+}
@@ -0,0 +1,49 @@
+package com.papusbarbershop.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con el stock de un producto en un instante, calculado desde el libro de inventario.
+ */
+public class StockEnFechaDTO {
+    private Long productoId;
+    private LocalDateTime fechaHora;
+    private Integer stock;
+    private LocalDateTime snapshotHasta;
+
+    public StockEnFechaDTO() {
+    }
+
+    // Getters y Setters
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public LocalDateTime getFechaHora() {
+        return fechaHora;
+    }
+
+    public void setFechaHora(LocalDateTime fechaHora) {
+        this.fechaHora = fechaHora;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public LocalDateTime getSnapshotHasta() {
+        return snapshotHasta;
+    }
+
+    public void setSnapshotHasta(LocalDateTime snapshotHasta) {
+        this.snapshotHasta = snapshotHasta;
+    }
+}
@@ -0,0 +1,80 @@
+package com.papusbarbershop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * DTO para registrar un ticket de venta con varias líneas de producto
+ * para un mismo barbero y método de pago.
+ */
+public class TicketVentaCreateDTO {
+
+    @NotNull(message = "La fecha es obligatoria")
+    private LocalDate fecha;
+
+    @NotNull(message = "La hora es obligatoria")
+    private LocalTime hora;
+
+    @NotNull(message = "El barbero es obligatorio")
+    private Long barberoId;
+
+    @NotNull(message = "El método de pago es obligatorio")
+    private String metodoPago;
+
+    @NotEmpty(message = "El ticket debe tener al menos una línea")
+    @Size(max = 100, message = "El ticket no puede tener más de 100 líneas")
+    @Valid
+    private List<LineaTicketDTO> lineas;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public TicketVentaCreateDTO() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    public void setHora(LocalTime hora) {
+        this.hora = hora;
+    }
+
+    public Long getBarberoId() {
+        return barberoId;
+    }
+
+    public void setBarberoId(Long barberoId) {
+        this.barberoId = barberoId;
+    }
+
+    public String getMetodoPago() {
+        return metodoPago;
+    }
+
+    public void setMetodoPago(String metodoPago) {
+        this.metodoPago = metodoPago;
+    }
+
+    public List<LineaTicketDTO> getLineas() {
+        return lineas;
+    }
+
+    public void setLineas(List<LineaTicketDTO> lineas) {
+        this.lineas = lineas;
+    }
+}
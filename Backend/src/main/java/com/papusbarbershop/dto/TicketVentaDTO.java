@@ -0,0 +1,47 @@
+package com.papusbarbershop.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO con el resultado de registrar un ticket de venta.
+ */
+public class TicketVentaDTO {
+    private List<VentaProductoDTO> ventas;
+    private Integer cantidadTotal;
+    private BigDecimal total;
+
+    public TicketVentaDTO() {
+    }
+
+    public TicketVentaDTO(List<VentaProductoDTO> ventas, Integer cantidadTotal, BigDecimal total) {
+        this.ventas = ventas;
+        this.cantidadTotal = cantidadTotal;
+        this.total = total;
+    }
+
+    // Getters y Setters
+    public List<VentaProductoDTO> getVentas() {
+        return ventas;
+    }
+
+    public void setVentas(List<VentaProductoDTO> ventas) {
+        this.ventas = ventas;
+    }
+
+    public Integer getCantidadTotal() {
+        return cantidadTotal;
+    }
+
+    public void setCantidadTotal(Integer cantidadTotal) {
+        this.cantidadTotal = cantidadTotal;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
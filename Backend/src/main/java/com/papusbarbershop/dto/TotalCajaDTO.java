@@ -0,0 +1,85 @@
+package com.papusbarbershop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con los totales de caja de un grupo (método de pago, barbero o ambos).
+ */
+public class TotalCajaDTO {
+    private String metodoPago;
+    private Long barberoId;
+    private String barberoNombre;
+    private BigDecimal totalServicios;
+    private Integer cantidadServicios;
+    private BigDecimal totalVentas;
+    private Integer cantidadVentas;
+    private BigDecimal total;
+
+    public TotalCajaDTO() {
+    }
+
+    // Getters y Setters
+    public String getMetodoPago() {
+        return metodoPago;
+    }
+
+    public void setMetodoPago(String metodoPago) {
+        this.metodoPago = metodoPago;
+    }
+
+    public Long getBarberoId() {
+        return barberoId;
+    }
+
+    public void setBarberoId(Long barberoId) {
+        this.barberoId = barberoId;
+    }
+
+    public String getBarberoNombre() {
+        return barberoNombre;
+    }
+
+    public void setBarberoNombre(String barberoNombre) {
+        this.barberoNombre = barberoNombre;
+    }
+
+    public BigDecimal getTotalServicios() {
+        return totalServicios;
+    }
+
+    public void setTotalServicios(BigDecimal totalServicios) {
+        this.totalServicios = totalServicios;
+    }
+
+    public Integer getCantidadServicios() {
+        return cantidadServicios;
+    }
+
+    public void setCantidadServicios(Integer cantidadServicios) {
+        this.cantidadServicios = cantidadServicios;
+    }
+
+    public BigDecimal getTotalVentas() {
+        return totalVentas;
+    }
+
+    public void setTotalVentas(BigDecimal totalVentas) {
+        this.totalVentas = totalVentas;
+    }
+
+    public Integer getCantidadVentas() {
+        return cantidadVentas;
+    }
+
+    public void setCantidadVentas(Integer cantidadVentas) {
+        this.cantidadVentas = cantidadVentas;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,86 @@
+package com.papusbarbershop.dto;
+
+/**
+ * DTO con el mapa de calor de utilización de un barbero.
+ * 
+ * Las matrices se indexan como [díaSemana][intervalo], donde díaSemana va de 0 (lunes)
+ * a 6 (domingo) e intervalo de 0 a 47 (bloques de 30 minutos desde las 00:00).
+ */
+public class UtilizacionBarberoDTO {
+    private Long barberoId;
+    private String barberoNombre;
+    private int[][] minutosReservados;
+    private int[][] minutosDisponibles;
+    private double[][] utilizacion;
+    private long totalMinutosReservados;
+    private long totalMinutosDisponibles;
+    private double utilizacionTotal;
+
+    public UtilizacionBarberoDTO() {
+    }
+
+    // Getters y Setters
+    public Long getBarberoId() {
+        return barberoId;
+    }
+
+    public void setBarberoId(Long barberoId) {
+        this.barberoId = barberoId;
+    }
+
+    public String getBarberoNombre() {
+        return barberoNombre;
+    }
+
+    public void setBarberoNombre(String barberoNombre) {
+        this.barberoNombre = barberoNombre;
+    }
+
+    public int[][] getMinutosReservados() {
+        return minutosReservados;
+    }
+
+    public void setMinutosReservados(int[][] minutosReservados) {
+        this.minutosReservados = minutosReservados;
+    }
+
+    public int[][] getMinutosDisponibles() {
+        return minutosDisponibles;
+    }
+
+    public void setMinutosDisponibles(int[][] minutosDisponibles) {
+        this.minutosDisponibles = minutosDisponibles;
+    }
+
+    public double[][] getUtilizacion() {
+        return utilizacion;
+    }
+
+    public void setUtilizacion(double[][] utilizacion) {
+        this.utilizacion = utilizacion;
+    }
+
+    public long getTotalMinutosReservados() {
+        return totalMinutosReservados;
+    }
+
+    public void setTotalMinutosReservados(long totalMinutosReservados) {
+        this.totalMinutosReservados = totalMinutosReservados;
+    }
+
+    public long getTotalMinutosDisponibles() {
+        return totalMinutosDisponibles;
+    }
+
+    public void setTotalMinutosDisponibles(long totalMinutosDisponibles) {
+        this.totalMinutosDisponibles = totalMinutosDisponibles;
+    }
+
+    public double getUtilizacionTotal() {
+        return utilizacionTotal;
+    }
+
+    public void setUtilizacionTotal(double utilizacionTotal) {
+        this.utilizacionTotal = utilizacionTotal;
+    }
+}
@@ -0,0 +1,51 @@
+package com.papusbarbershop.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO para el reporte de utilización (minutos reservados vs. disponibles)
+ * por barbero, día de la semana e intervalo de 30 minutos.
+ */
+public class UtilizacionDTO {
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private int minutosPorIntervalo;
+    private List<UtilizacionBarberoDTO> barberos;
+
+    public UtilizacionDTO() {
+    }
+
+    // Getters y Setters
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDate fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public int getMinutosPorIntervalo() {
+        return minutosPorIntervalo;
+    }
+
+    public void setMinutosPorIntervalo(int minutosPorIntervalo) {
+        this.minutosPorIntervalo = minutosPorIntervalo;
+    }
+
+    public List<UtilizacionBarberoDTO> getBarberos() {
+        return barberos;
+    }
+
+    public void setBarberos(List<UtilizacionBarberoDTO> barberos) {
+        this.barberos = barberos;
+    }
+}
@@ -0,0 +1,141 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Entidad que acumula los totales de caja de un día por barbero y método de pago.
+ * 
+ * Las filas se mantienen de forma incremental cada vez que se crea, edita o elimina
+ * un servicio o una venta, para que el cierre de caja no tenga que recorrer las
+ * transacciones del día.
+ */
+@Entity
+@Table(name = "cierres_caja")
+@IdClass(CierreCaja.CierreCajaId.class)
+public class CierreCaja {
+
+    @Id
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Id
+    @Column(name = "barbero_id", nullable = false)
+    private Long barberoId;
+
+    @Id
+    @Column(name = "metodo_pago", nullable = false, length = 50)
+    private String metodoPago;
+
+    @Column(name = "total_servicios", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalServicios = BigDecimal.ZERO;
+
+    @Column(name = "cantidad_servicios", nullable = false)
+    private Integer cantidadServicios = 0;
+
+    @Column(name = "total_ventas", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalVentas = BigDecimal.ZERO;
+
+    @Column(name = "cantidad_ventas", nullable = false)
+    private Integer cantidadVentas = 0;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public CierreCaja() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public Long getBarberoId() {
+        return barberoId;
+    }
+
+    public void setBarberoId(Long barberoId) {
+        this.barberoId = barberoId;
+    }
+
+    public String getMetodoPago() {
+        return metodoPago;
+    }
+
+    public void setMetodoPago(String metodoPago) {
+        this.metodoPago = metodoPago;
+    }
+
+    public BigDecimal getTotalServicios() {
+        return totalServicios;
+    }
+
+    public void setTotalServicios(BigDecimal totalServicios) {
+        this.totalServicios = totalServicios;
+    }
+
+    public Integer getCantidadServicios() {
+        return cantidadServicios;
+    }
+
+    public void setCantidadServicios(Integer cantidadServicios) {
+        this.cantidadServicios = cantidadServicios;
+    }
+
+    public BigDecimal getTotalVentas() {
+        return totalVentas;
+    }
+
+    public void setTotalVentas(BigDecimal totalVentas) {
+        this.totalVentas = totalVentas;
+    }
+
+    public Integer getCantidadVentas() {
+        return cantidadVentas;
+    }
+
+    public void setCantidadVentas(Integer cantidadVentas) {
+        this.cantidadVentas = cantidadVentas;
+    }
+
+    /**
+     * Llave primaria compuesta (fecha, barbero, método de pago).
+     */
+    public static class CierreCajaId implements Serializable {
+        private LocalDate fecha;
+        private Long barberoId;
+        private String metodoPago;
+
+        public CierreCajaId() {
+        }
+
+        public CierreCajaId(LocalDate fecha, Long barberoId, String metodoPago) {
+            this.fecha = fecha;
+            this.barberoId = barberoId;
+            this.metodoPago = metodoPago;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CierreCajaId)) return false;
+            CierreCajaId that = (CierreCajaId) o;
+            return Objects.equals(fecha, that.fecha)
+                    && Objects.equals(barberoId, that.barberoId)
+                    && Objects.equals(metodoPago, that.metodoPago);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fecha, barberoId, metodoPago);
+        }
+    }
+}
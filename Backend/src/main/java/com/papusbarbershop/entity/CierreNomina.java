@@ -0,0 +1,120 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entidad que representa el cierre de nómina de un periodo.
+ * 
+ * Guarda una fotografía inmutable del pago calculado a cada barbero al momento del cierre,
+ * de modo que editar ventas o servicios antiguos no altere una nómina ya pagada.
+ */
+@Entity
+@Immutable
+@Table(name = "cierres_nomina")
+public class CierreNomina {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "fecha_inicio", nullable = false, updatable = false)
+    private LocalDate fechaInicio;
+
+    @Column(name = "fecha_fin", nullable = false, updatable = false)
+    private LocalDate fechaFin;
+
+    @Column(name = "fecha_cierre", nullable = false, updatable = false)
+    private LocalDateTime fechaCierre;
+
+    @Column(name = "cerrado_por", length = 50, updatable = false)
+    private String cerradoPor;
+
+    @Column(name = "total_pagado", nullable = false, precision = 12, scale = 2, updatable = false)
+    private BigDecimal totalPagado;
+
+    @OneToMany(mappedBy = "cierre", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
+    @OrderBy("barberoId ASC")
+    private List<CierreNominaLinea> lineas = new ArrayList<>();
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCierre = LocalDateTime.now();
+    }
+
+    // ==================== CONSTRUCTORES ====================
+
+    public CierreNomina() {
+    }
+
+    public CierreNomina(LocalDate fechaInicio, LocalDate fechaFin, String cerradoPor) {
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.cerradoPor = cerradoPor;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDate fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public LocalDateTime getFechaCierre() {
+        return fechaCierre;
+    }
+
+    public void setFechaCierre(LocalDateTime fechaCierre) {
+        this.fechaCierre = fechaCierre;
+    }
+
+    public String getCerradoPor() {
+        return cerradoPor;
+    }
+
+    public void setCerradoPor(String cerradoPor) {
+        this.cerradoPor = cerradoPor;
+    }
+
+    public BigDecimal getTotalPagado() {
+        return totalPagado;
+    }
+
+    public void setTotalPagado(BigDecimal totalPagado) {
+        this.totalPagado = totalPagado;
+    }
+
+    public List<CierreNominaLinea> getLineas() {
+        return lineas;
+    }
+
+    public void setLineas(List<CierreNominaLinea> lineas) {
+        this.lineas = lineas;
+    }
+}
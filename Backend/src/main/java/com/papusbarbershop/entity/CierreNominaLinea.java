@@ -0,0 +1,150 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * Entidad que representa la línea de un barbero dentro de un cierre de nómina.
+ * 
+ * Conserva el nombre y el porcentaje del barbero al momento del cierre y no referencia
+ * la tabla de barberos con llave foránea, para que el registro histórico sobreviva
+ * aunque el barbero se modifique o elimine.
+ */
+@Entity
+@Immutable
+@Table(name = "cierres_nomina_lineas")
+public class CierreNominaLinea {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cierre_id", nullable = false, updatable = false)
+    private CierreNomina cierre;
+
+    @Column(name = "barbero_id", nullable = false, updatable = false)
+    private Long barberoId;
+
+    @Column(name = "barbero_nombre", nullable = false, length = 100, updatable = false)
+    private String barberoNombre;
+
+    @Column(name = "porcentaje_servicio", nullable = false, precision = 5, scale = 2, updatable = false)
+    private BigDecimal porcentajeServicio;
+
+    @Column(name = "total_servicios", nullable = false, precision = 12, scale = 2, updatable = false)
+    private BigDecimal totalServicios;
+
+    @Column(name = "cantidad_servicios", nullable = false, updatable = false)
+    private Integer cantidadServicios;
+
+    @Column(name = "total_ventas", nullable = false, precision = 12, scale = 2, updatable = false)
+    private BigDecimal totalVentas;
+
+    @Column(name = "cantidad_ventas", nullable = false, updatable = false)
+    private Integer cantidadVentas;
+
+    @Column(name = "total_comisiones", nullable = false, precision = 12, scale = 2, updatable = false)
+    private BigDecimal totalComisiones;
+
+    @Column(name = "pago_barbero", nullable = false, precision = 12, scale = 2, updatable = false)
+    private BigDecimal pagoBarbero;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public CierreNominaLinea() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public CierreNomina getCierre() {
+        return cierre;
+    }
+
+    public void setCierre(CierreNomina cierre) {
+        this.cierre = cierre;
+    }
+
+    public Long getBarberoId() {
+        return barberoId;
+    }
+
+    public void setBarberoId(Long barberoId) {
+        this.barberoId = barberoId;
+    }
+
+    public String getBarberoNombre() {
+        return barberoNombre;
+    }
+
+    public void setBarberoNombre(String barberoNombre) {
+        this.barberoNombre = barberoNombre;
+    }
+
+    public BigDecimal getPorcentajeServicio() {
+        return porcentajeServicio;
+    }
+
+    public void setPorcentajeServicio(BigDecimal porcentajeServicio) {
+        this.porcentajeServicio = porcentajeServicio;
+    }
+
+    public BigDecimal getTotalServicios() {
+        return totalServicios;
+    }
+
+    public void setTotalServicios(BigDecimal totalServicios) {
+        this.totalServicios = totalServicios;
+    }
+
+    public Integer getCantidadServicios() {
+        return cantidadServicios;
+    }
+
+    public void setCantidadServicios(Integer cantidadServicios) {
+        this.cantidadServicios = cantidadServicios;
+    }
+
+    public BigDecimal getTotalVentas() {
+        return totalVentas;
+    }
+
+    public void setTotalVentas(BigDecimal totalVentas) {
+        this.totalVentas = totalVentas;
+    }
+
+    public Integer getCantidadVentas() {
+        return cantidadVentas;
+    }
+
+    public void setCantidadVentas(Integer cantidadVentas) {
+        this.cantidadVentas = cantidadVentas;
+    }
+
+    public BigDecimal getTotalComisiones() {
+        return totalComisiones;
+    }
+
+    public void setTotalComisiones(BigDecimal totalComisiones) {
+        this.totalComisiones = totalComisiones;
+    }
+
+    public BigDecimal getPagoBarbero() {
+        return pagoBarbero;
+    }
+
+    public void setPagoBarbero(BigDecimal pagoBarbero) {
+        this.pagoBarbero = pagoBarbero;
+    }
+}
@@ -1,6 +1,7 @@
 package com.papusbarbershop.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Email;
@@ -63,6 +64,12 @@ public class Cita {
     @Column(name = "correos_enviados", columnDefinition = "TEXT")
     private String correosEnviados; // Almacena los correos a los que se envió la confirmación
 
+    // Bloqueo optimista: evita que dos cambios concurrentes de estado u hora se sobrescriban
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // ==================== CONSTRUCTORES ====================
 
     public Cita() {
@@ -171,5 +178,12 @@ public class Cita {
     public void setCorreosEnviados(String correosEnviados) {
         this.correosEnviados = correosEnviados;
     }
-}
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
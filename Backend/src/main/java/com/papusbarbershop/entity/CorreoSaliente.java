@@ -0,0 +1,177 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un correo pendiente de envío (outbox de correos).
+ * 
+ * Los correos se insertan en la misma transacción que la operación que los origina (por ejemplo,
+ * la creación de una cita), así sólo se envían si esa operación se confirma y no se pierden si la
+ * aplicación se reinicia antes de enviarlos. {@code DespachadorCorreoService} los envía después.
+ * La clave de idempotencia evita encolar dos veces el mismo correo y se envía a Resend para que
+ * un reintento tras un envío ya aceptado no produzca un correo duplicado.
+ */
+@Entity
+@Table(name = "correos_salientes", indexes = {
+        @Index(name = "idx_correos_salientes_clave", columnList = "clave_idempotencia", unique = true),
+        @Index(name = "idx_correos_salientes_estado", columnList = "estado, proximo_intento")
+})
+public class CorreoSaliente {
+
+    public static final String ESTADO_PENDIENTE = "PENDIENTE";
+    public static final String ESTADO_ENVIADO = "ENVIADO";
+    public static final String ESTADO_FALLIDO = "FALLIDO";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "clave_idempotencia", nullable = false, length = 255)
+    private String claveIdempotencia;
+
+    @Column(name = "destinatario", nullable = false, length = 255)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false, length = 255)
+    private String asunto;
+
+    @Column(name = "html", nullable = false, columnDefinition = "TEXT")
+    private String html;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado; // PENDIENTE, ENVIADO o FALLIDO (agotó los reintentos o fue rechazado)
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    @Column(name = "clave_lote", length = 100)
+    private String claveLote; // Clave del lote de Resend en que se envió (null si se envía solo)
+
+    @Column(name = "proveedor_id", length = 100)
+    private String proveedorId; // ID asignado por Resend al aceptar el correo
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+
+    @Column(name = "enviado_en")
+    private LocalDateTime enviadoEn;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public CorreoSaliente() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getClaveIdempotencia() {
+        return claveIdempotencia;
+    }
+
+    public void setClaveIdempotencia(String claveIdempotencia) {
+        this.claveIdempotencia = claveIdempotencia;
+    }
+
+    public String getDestinatario() {
+        return destinatario;
+    }
+
+    public void setDestinatario(String destinatario) {
+        this.destinatario = destinatario;
+    }
+
+    public String getAsunto() {
+        return asunto;
+    }
+
+    public void setAsunto(String asunto) {
+        this.asunto = asunto;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public void setHtml(String html) {
+        this.html = html;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public Integer getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(Integer intentos) {
+        this.intentos = intentos;
+    }
+
+    public LocalDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(LocalDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+
+    public String getProveedorId() {
+        return proveedorId;
+    }
+
+    public void setProveedorId(String proveedorId) {
+        this.proveedorId = proveedorId;
+    }
+
+    public LocalDateTime getCreadoEn() {
+        return creadoEn;
+    }
+
+    public void setCreadoEn(LocalDateTime creadoEn) {
+        this.creadoEn = creadoEn;
+    }
+
+    public LocalDateTime getEnviadoEn() {
+        return enviadoEn;
+    }
+
+    public void setEnviadoEn(LocalDateTime enviadoEn) {
+        this.enviadoEn = enviadoEn;
+    }
+
+    public String getClaveLote() {
+        return claveLote;
+    }
+
+    public void setClaveLote(String claveLote) {
+        this.claveLote = claveLote;
+    }
+}
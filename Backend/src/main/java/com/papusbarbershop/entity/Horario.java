@@ -1,6 +1,7 @@
 package com.papusbarbershop.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
@@ -38,6 +39,12 @@ public class Horario {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Bloqueo optimista (expuesto como ETag en GET/PUT /horarios/{id})
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -106,5 +113,12 @@ public class Horario {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
-}
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,158 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un movimiento del libro de inventario.
+ * 
+ * El libro es de sólo inserción: cada venta, reposición, ajuste o devolución agrega una fila
+ * con la cantidad firmada (negativa si sale stock) y el stock resultante. No referencia la
+ * tabla de productos con llave foránea, para que el historial sobreviva aunque el producto
+ * se elimine del catálogo.
+ */
+@Entity
+@Immutable
+@Table(name = "movimientos_inventario")
+public class MovimientoInventario {
+
+    // Secuencia con asignación por bloques para poder insertar los movimientos de un ticket en lote
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimientos_inventario_seq")
+    @SequenceGenerator(name = "movimientos_inventario_seq", sequenceName = "movimientos_inventario_id_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false, updatable = false)
+    private Long productoId;
+
+    @Column(name = "producto_nombre", nullable = false, length = 200, updatable = false)
+    private String productoNombre;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20, updatable = false)
+    private TipoMovimiento tipo;
+
+    @Column(name = "cantidad", nullable = false, updatable = false)
+    private Integer cantidad;
+
+    @Column(name = "stock_resultante", nullable = false, updatable = false)
+    private Integer stockResultante;
+
+    @Column(name = "venta_id", updatable = false)
+    private Long ventaId;
+
+    @Column(name = "motivo", length = 255, updatable = false)
+    private String motivo;
+
+    @Column(name = "fecha_hora", nullable = false, updatable = false)
+    private LocalDateTime fechaHora;
+
+    @PrePersist
+    protected void onCreate() {
+        if (fechaHora == null) {
+            fechaHora = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Enum que representa los tipos de movimiento de inventario.
+     */
+    public enum TipoMovimiento {
+        SALDO_INICIAL,
+        VENTA,
+        REPOSICION,
+        AJUSTE,
+        DEVOLUCION
+    }
+
+    // ==================== CONSTRUCTORES ====================
+
+    public MovimientoInventario() {
+    }
+
+    public MovimientoInventario(Long productoId, String productoNombre, TipoMovimiento tipo,
+                                Integer cantidad, Integer stockResultante) {
+        this.productoId = productoId;
+        this.productoNombre = productoNombre;
+        this.tipo = tipo;
+        this.cantidad = cantidad;
+        this.stockResultante = stockResultante;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getProductoNombre() {
+        return productoNombre;
+    }
+
+    public void setProductoNombre(String productoNombre) {
+        this.productoNombre = productoNombre;
+    }
+
+    public TipoMovimiento getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(TipoMovimiento tipo) {
+        this.tipo = tipo;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public Integer getStockResultante() {
+        return stockResultante;
+    }
+
+    public void setStockResultante(Integer stockResultante) {
+        this.stockResultante = stockResultante;
+    }
+
+    public Long getVentaId() {
+        return ventaId;
+    }
+
+    public void setVentaId(Long ventaId) {
+        this.ventaId = ventaId;
+    }
+
+    public String getMotivo() {
+        return motivo;
+    }
+
+    public void setMotivo(String motivo) {
+        this.motivo = motivo;
+    }
+
+    public LocalDateTime getFechaHora() {
+        return fechaHora;
+    }
+
+    public void setFechaHora(LocalDateTime fechaHora) {
+        this.fechaHora = fechaHora;
+    }
+}
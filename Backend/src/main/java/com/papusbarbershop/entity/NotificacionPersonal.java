@@ -0,0 +1,93 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa una notificación de nueva cita para el personal (barbero o admin)
+ * pendiente de agruparse en un correo de resumen.
+ * 
+ * Sólo se usa con {@code correo.resumen.modo=intervalo}: en lugar de un correo por cita, las
+ * notificaciones de cada destinatario se acumulan aquí y se envían juntas en un solo correo al
+ * cerrar la ventana. Las filas se eliminan al encolar el resumen.
+ */
+@Entity
+@Table(name = "notificaciones_personal", indexes = {
+        @Index(name = "idx_notificaciones_personal_destinatario", columnList = "destinatario")
+})
+public class NotificacionPersonal {
+
+    public static final String ROL_BARBERO = "BARBERO";
+    public static final String ROL_ADMIN = "ADMIN";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "destinatario", nullable = false, length = 255)
+    private String destinatario;
+
+    @Column(name = "rol", nullable = false, length = 20)
+    private String rol; // BARBERO o ADMIN
+
+    @Column(name = "cita_id", nullable = false)
+    private Long citaId;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public NotificacionPersonal() {
+    }
+
+    public NotificacionPersonal(String destinatario, String rol, Long citaId) {
+        this.destinatario = destinatario;
+        this.rol = rol;
+        this.citaId = citaId;
+        this.creadoEn = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDestinatario() {
+        return destinatario;
+    }
+
+    public void setDestinatario(String destinatario) {
+        this.destinatario = destinatario;
+    }
+
+    public String getRol() {
+        return rol;
+    }
+
+    public void setRol(String rol) {
+        this.rol = rol;
+    }
+
+    public Long getCitaId() {
+        return citaId;
+    }
+
+    public void setCitaId(Long citaId) {
+        this.citaId = citaId;
+    }
+
+    public LocalDateTime getCreadoEn() {
+        return creadoEn;
+    }
+
+    public void setCreadoEn(LocalDateTime creadoEn) {
+        this.creadoEn = creadoEn;
+    }
+}
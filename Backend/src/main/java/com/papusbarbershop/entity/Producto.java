@@ -1,6 +1,7 @@
 package com.papusbarbershop.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.DecimalMin;
@@ -50,9 +51,22 @@ public class Producto {
     @Column(name = "s3_key", nullable = true, length = 500)
     private String s3Key; // Clave del objeto en S3 para la imagen del producto
 
+    @Column(name = "imagen_variantes", nullable = true, length = 100)
+    private String imagenVariantes; // Variantes redimensionadas generadas para la imagen actual (ej: "miniatura,tarjeta")
+
     @Column(name = "descripcion", nullable = true, columnDefinition = "TEXT")
     private String descripcion; // Descripción del producto
 
+    /**
+     * Versión para bloqueo optimista. Las sentencias nativas de stock también la incrementan,
+     * de modo que una edición basada en datos leídos antes de una venta falla en lugar de
+     * sobrescribir el stock.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // ==================== CONSTRUCTORES ====================
 
     public Producto() {
@@ -124,6 +138,14 @@ public class Producto {
         this.s3Key = s3Key;
     }
 
+    public String getImagenVariantes() {
+        return imagenVariantes;
+    }
+
+    public void setImagenVariantes(String imagenVariantes) {
+        this.imagenVariantes = imagenVariantes;
+    }
+
     public String getDescripcion() {
         return descripcion;
     }
@@ -131,5 +153,12 @@ public class Producto {
     public void setDescripcion(String descripcion) {
         this.descripcion = descripcion;
     }
-}
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,72 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa la referencia de imagen de un producto para la sincronización de los frontends.
+ * 
+ * Hay una fila por producto. Cada cambio de imagen (o la eliminación del producto, que deja
+ * s3Key en null) asigna a la fila una versión mayor que todas las anteriores, de modo que un
+ * cliente puede pedir sólo los cambios posteriores a la última versión que conoce.
+ * Las filas se escriben con sentencias nativas desde {@code ReferenciaImagenProductoRepository}.
+ */
+@Entity
+@Table(name = "referencias_imagen_producto", indexes = {
+        @Index(name = "idx_referencias_imagen_version", columnList = "version", unique = true)
+})
+public class ReferenciaImagenProducto {
+
+    @Id
+    @Column(name = "producto_id")
+    private Long productoId;
+
+    @Column(name = "s3_key", nullable = true, length = 500)
+    private String s3Key; // null si el producto ya no tiene imagen (o fue eliminado)
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "actualizado_en", nullable = false)
+    private LocalDateTime actualizadoEn;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public ReferenciaImagenProducto() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+
+    public void setS3Key(String s3Key) {
+        this.s3Key = s3Key;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getActualizadoEn() {
+        return actualizadoEn;
+    }
+
+    public void setActualizadoEn(LocalDateTime actualizadoEn) {
+        this.actualizadoEn = actualizadoEn;
+    }
+}
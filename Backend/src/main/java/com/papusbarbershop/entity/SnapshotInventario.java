@@ -0,0 +1,83 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa una fotografía del stock de un producto según el libro de inventario.
+ * 
+ * El stock guardado es la suma de todos los movimientos del producto con fecha menor o igual
+ * a {@code hasta}. El stock en cualquier instante posterior se obtiene sumando a la última
+ * fotografía sólo los movimientos registrados después de ella.
+ */
+@Entity
+@Immutable
+@Table(name = "snapshots_inventario")
+public class SnapshotInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false, updatable = false)
+    private Long productoId;
+
+    @Column(name = "stock", nullable = false, updatable = false)
+    private Integer stock;
+
+    @Column(name = "hasta", nullable = false, updatable = false)
+    private LocalDateTime hasta;
+
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public SnapshotInventario() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(LocalDateTime hasta) {
+        this.hasta = hasta;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
@@ -0,0 +1,67 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa una revocación de tokens JWT.
+ *
+ * La clave identifica qué se revoca: un token concreto ("jti:" + id del token, al cerrar sesión o
+ * rotar un refresh token) o todos los tokens de un usuario emitidos hasta revocadoEn ("usuario:" +
+ * username, al cambiar o restablecer la contraseña). La fila se conserva hasta que expira el último
+ * token afectado; después se elimina.
+ */
+@Entity
+@Table(name = "tokens_revocados", indexes = {
+        @Index(name = "idx_tokens_revocados_revocado_en", columnList = "revocado_en")
+})
+public class TokenRevocado {
+
+    @Id
+    @Column(name = "clave", length = 100)
+    private String clave;
+
+    @Column(name = "revocado_en", nullable = false)
+    private LocalDateTime revocadoEn;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public TokenRevocado() {
+    }
+
+    public TokenRevocado(String clave, LocalDateTime revocadoEn, LocalDateTime expiraEn) {
+        this.clave = clave;
+        this.revocadoEn = revocadoEn;
+        this.expiraEn = expiraEn;
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public LocalDateTime getRevocadoEn() {
+        return revocadoEn;
+    }
+
+    public void setRevocadoEn(LocalDateTime revocadoEn) {
+        this.revocadoEn = revocadoEn;
+    }
+
+    public LocalDateTime getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(LocalDateTime expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+}
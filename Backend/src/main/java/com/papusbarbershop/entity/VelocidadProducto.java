@@ -0,0 +1,81 @@
+package com.papusbarbershop.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que guarda el estado de la velocidad de venta de un producto.
+ * 
+ * La velocidad es una media móvil exponencial (EWMA) de las unidades vendidas por día.
+ * El estado vive en memoria y se actualiza con cada venta; esta tabla sólo lo persiste
+ * periódicamente para no perderlo al reiniciar la aplicación.
+ */
+@Entity
+@Table(name = "velocidades_producto")
+public class VelocidadProducto {
+
+    @Id
+    @Column(name = "producto_id")
+    private Long productoId;
+
+    @Column(name = "ewma_diario", nullable = false)
+    private Double ewmaDiario;
+
+    @Column(name = "dia_actual", nullable = false)
+    private LocalDate diaActual;
+
+    @Column(name = "unidades_dia", nullable = false)
+    private Integer unidadesDia;
+
+    @Column(name = "actualizado_en", nullable = false)
+    private LocalDateTime actualizadoEn;
+
+    // ==================== CONSTRUCTORES ====================
+
+    public VelocidadProducto() {
+    }
+
+    // ==================== GETTERS Y SETTERS ====================
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public Double getEwmaDiario() {
+        return ewmaDiario;
+    }
+
+    public void setEwmaDiario(Double ewmaDiario) {
+        this.ewmaDiario = ewmaDiario;
+    }
+
+    public LocalDate getDiaActual() {
+        return diaActual;
+    }
+
+    public void setDiaActual(LocalDate diaActual) {
+        this.diaActual = diaActual;
+    }
+
+    public Integer getUnidadesDia() {
+        return unidadesDia;
+    }
+
+    public void setUnidadesDia(Integer unidadesDia) {
+        this.unidadesDia = unidadesDia;
+    }
+
+    public LocalDateTime getActualizadoEn() {
+        return actualizadoEn;
+    }
+
+    public void setActualizadoEn(LocalDateTime actualizadoEn) {
+        this.actualizadoEn = actualizadoEn;
+    }
+}
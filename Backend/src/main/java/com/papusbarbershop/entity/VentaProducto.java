@@ -20,8 +20,10 @@ import java.time.LocalTime;
 @Table(name = "ventas_productos")
 public class VentaProducto {
 
+    // Secuencia con asignación por bloques para poder insertar varias ventas en lote (tickets)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ventas_productos_seq")
+    @SequenceGenerator(name = "ventas_productos_seq", sequenceName = "ventas_productos_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -0,0 +1,11 @@
+package com.papusbarbershop.exception;
+
+/**
+ * Excepción lanzada cuando un archivo recibido supera el tamaño máximo permitido.
+ */
+public class ArchivoDemasiadoGrandeException extends ValidacionException {
+
+    public ArchivoDemasiadoGrandeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.papusbarbershop.exception;
+
+/**
+ * Excepción lanzada cuando la versión indicada por el cliente (encabezado If-Match)
+ * no coincide con la versión actual del recurso.
+ */
+public class ConflictoVersionException extends RuntimeException {
+
+    public ConflictoVersionException(String message) {
+        super(message);
+    }
+}
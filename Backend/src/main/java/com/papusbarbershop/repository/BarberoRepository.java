@@ -2,8 +2,13 @@ package com.papusbarbershop.repository;
 
 import com.papusbarbershop.entity.Barbero;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+
 /**
  * Repositorio para la entidad Barbero.
  * 
@@ -11,5 +16,30 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface BarberoRepository extends JpaRepository<Barbero, Long> {
-}
 
+    /**
+     * Calcula en una sola consulta los totales de nómina de todos los barberos en un rango de fechas.
+     * 
+     * Cada fila contiene: barberoId, nombre, porcentajeServicio, totalServicios, cantidadServicios,
+     * totalVentas, cantidadVentas y totalComisiones (comisión del producto * cantidad, 0 si el
+     * producto fue eliminado). Los barberos sin movimientos aparecen con totales en cero.
+     * 
+     * @param fechaInicio Fecha de inicio (inclusive)
+     * @param fechaFin Fecha de fin (inclusive)
+     * @return Filas de totales ordenadas por ID de barbero
+     */
+    @Query(value = "SELECT b.id, b.nombre, b.porcentaje_servicio, " +
+            "COALESCE(s.total, 0), COALESCE(s.cantidad, 0), " +
+            "COALESCE(v.total, 0), COALESCE(v.cantidad, 0), COALESCE(v.comisiones, 0) " +
+            "FROM barberos b " +
+            "LEFT JOIN (SELECT barbero_id, SUM(precio) AS total, COUNT(*) AS cantidad FROM servicios " +
+            "           WHERE fecha BETWEEN :fechaInicio AND :fechaFin GROUP BY barbero_id) s ON s.barbero_id = b.id " +
+            "LEFT JOIN (SELECT vp.barbero_id, SUM(vp.importe) AS total, COUNT(*) AS cantidad, " +
+            "                  SUM(COALESCE(p.comision, 0) * vp.cantidad) AS comisiones " +
+            "           FROM ventas_productos vp LEFT JOIN productos p ON p.id = vp.producto_id " +
+            "           WHERE vp.fecha BETWEEN :fechaInicio AND :fechaFin GROUP BY vp.barbero_id) v ON v.barbero_id = b.id " +
+            "ORDER BY b.id",
+            nativeQuery = true)
+    List<Object[]> calcularTotalesNomina(@Param("fechaInicio") LocalDate fechaInicio,
+                                         @Param("fechaFin") LocalDate fechaFin);
+}
@@ -0,0 +1,72 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.CierreCaja;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad CierreCaja.
+ */
+@Repository
+public interface CierreCajaRepository extends JpaRepository<CierreCaja, CierreCaja.CierreCajaId> {
+
+    /**
+     * Obtiene los acumulados de caja de un día.
+     */
+    List<CierreCaja> findByFecha(LocalDate fecha);
+
+    /**
+     * Suma (o resta, con valores negativos) un movimiento al acumulado de caja.
+     * Crea la fila si no existe, en una sola sentencia.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cierres_caja (fecha, barbero_id, metodo_pago, total_servicios, cantidad_servicios, " +
+            "total_ventas, cantidad_ventas) " +
+            "VALUES (:fecha, :barberoId, :metodoPago, :totalServicios, :cantidadServicios, :totalVentas, :cantidadVentas) " +
+            "ON CONFLICT (fecha, barbero_id, metodo_pago) DO UPDATE SET " +
+            "total_servicios = cierres_caja.total_servicios + EXCLUDED.total_servicios, " +
+            "cantidad_servicios = cierres_caja.cantidad_servicios + EXCLUDED.cantidad_servicios, " +
+            "total_ventas = cierres_caja.total_ventas + EXCLUDED.total_ventas, " +
+            "cantidad_ventas = cierres_caja.cantidad_ventas + EXCLUDED.cantidad_ventas",
+            nativeQuery = true)
+    int acumular(@Param("fecha") LocalDate fecha,
+                 @Param("barberoId") Long barberoId,
+                 @Param("metodoPago") String metodoPago,
+                 @Param("totalServicios") BigDecimal totalServicios,
+                 @Param("cantidadServicios") int cantidadServicios,
+                 @Param("totalVentas") BigDecimal totalVentas,
+                 @Param("cantidadVentas") int cantidadVentas);
+
+    /**
+     * Elimina los acumulados de caja de un rango de fechas.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM cierres_caja WHERE fecha BETWEEN :fechaInicio AND :fechaFin", nativeQuery = true)
+    int eliminarRango(@Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+
+    /**
+     * Recalcula los acumulados de caja de un rango de fechas a partir de servicios y ventas.
+     * Debe ejecutarse después de {@link #eliminarRango(LocalDate, LocalDate)}.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cierres_caja (fecha, barbero_id, metodo_pago, total_servicios, cantidad_servicios, " +
+            "total_ventas, cantidad_ventas) " +
+            "SELECT fecha, barbero_id, metodo_pago, SUM(total_servicios), SUM(cantidad_servicios), " +
+            "SUM(total_ventas), SUM(cantidad_ventas) FROM (" +
+            "  SELECT fecha, barbero_id, metodo_pago, precio AS total_servicios, 1 AS cantidad_servicios, " +
+            "         0 AS total_ventas, 0 AS cantidad_ventas " +
+            "  FROM servicios WHERE fecha BETWEEN :fechaInicio AND :fechaFin " +
+            "  UNION ALL " +
+            "  SELECT fecha, barbero_id, metodo_pago, 0, 0, importe, 1 " +
+            "  FROM ventas_productos WHERE fecha BETWEEN :fechaInicio AND :fechaFin" +
+            ") movimientos GROUP BY fecha, barbero_id, metodo_pago",
+            nativeQuery = true)
+    int reconstruirRango(@Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+}
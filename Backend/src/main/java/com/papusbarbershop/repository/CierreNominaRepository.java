@@ -0,0 +1,44 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.CierreNomina;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad CierreNomina.
+ */
+@Repository
+public interface CierreNominaRepository extends JpaRepository<CierreNomina, Long> {
+
+    /**
+     * Busca el cierre de nómina de un periodo exacto, incluyendo sus líneas.
+     */
+    @Query("SELECT DISTINCT c FROM CierreNomina c LEFT JOIN FETCH c.lineas " +
+           "WHERE c.fechaInicio = :fechaInicio AND c.fechaFin = :fechaFin")
+    Optional<CierreNomina> findByPeriodo(@Param("fechaInicio") LocalDate fechaInicio,
+                                         @Param("fechaFin") LocalDate fechaFin);
+
+    /**
+     * Busca un cierre de nómina por ID, incluyendo sus líneas.
+     */
+    @Query("SELECT DISTINCT c FROM CierreNomina c LEFT JOIN FETCH c.lineas WHERE c.id = :id")
+    Optional<CierreNomina> findByIdConLineas(@Param("id") Long id);
+
+    /**
+     * Verifica si algún cierre existente se traslapa con el periodo indicado.
+     */
+    @Query("SELECT COUNT(c) > 0 FROM CierreNomina c WHERE c.fechaInicio <= :fechaFin AND c.fechaFin >= :fechaInicio")
+    boolean existeTraslape(@Param("fechaInicio") LocalDate fechaInicio,
+                           @Param("fechaFin") LocalDate fechaFin);
+
+    /**
+     * Obtiene todos los cierres, del más reciente al más antiguo.
+     */
+    List<CierreNomina> findAllByOrderByFechaInicioDesc();
+}
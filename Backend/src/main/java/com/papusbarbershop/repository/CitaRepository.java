@@ -4,6 +4,7 @@ import com.papusbarbershop.entity.Cita;
 import com.papusbarbershop.entity.Barbero;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -47,5 +48,22 @@ public interface CitaRepository extends JpaRepository<Cita, Long> {
      */
     @Query("SELECT c FROM Cita c WHERE c.estado IN ('PENDIENTE', 'CONFIRMADA')")
     List<Cita> findCitasActivas();
-}
 
+    /**
+     * Busca las citas pendientes o confirmadas en un rango de fechas, con barbero y tipo de corte.
+     */
+    @Query("SELECT c FROM Cita c JOIN FETCH c.barbero JOIN FETCH c.tipoCorte " +
+           "WHERE c.estado IN ('PENDIENTE', 'CONFIRMADA') AND c.fecha BETWEEN :fechaInicio AND :fechaFin")
+    List<Cita> findCitasActivasEntre(@Param("fechaInicio") LocalDate fechaInicio,
+                                     @Param("fechaFin") LocalDate fechaFin);
+    
+    /**
+     * Obtiene, sin materializar entidades, los bloques reservados en un rango de fechas.
+     * Cada fila contiene: barberoId, fecha, hora y duración en minutos del tipo de corte.
+     * Excluye las citas canceladas.
+     */
+    @Query("SELECT c.barbero.id, c.fecha, c.hora, t.tiempoMinutos FROM Cita c JOIN c.tipoCorte t " +
+           "WHERE c.fecha BETWEEN :fechaInicio AND :fechaFin AND c.estado <> 'CANCELADA'")
+    List<Object[]> findBloquesReservados(@Param("fechaInicio") LocalDate fechaInicio,
+                                         @Param("fechaFin") LocalDate fechaFin);
+}
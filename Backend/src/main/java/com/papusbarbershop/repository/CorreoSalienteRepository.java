@@ -0,0 +1,59 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.CorreoSaliente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad CorreoSaliente.
+ *
+ * Los correos se reclaman con {@code FOR UPDATE SKIP LOCKED}: varias instancias de la aplicación
+ * pueden despachar a la vez sin bloquearse entre sí ni tomar el mismo correo.
+ */
+@Repository
+public interface CorreoSalienteRepository extends JpaRepository<CorreoSaliente, Long> {
+
+    /**
+     * Encola un correo. Si ya existe un correo con la misma clave de idempotencia no hace nada.
+     *
+     * @return 1 si se encoló, 0 si ya estaba encolado
+     */
+    @Modifying
+    @Query(value = "INSERT INTO correos_salientes (clave_idempotencia, destinatario, asunto, html, estado, " +
+            "intentos, proximo_intento, creado_en) " +
+            "VALUES (:clave, :destinatario, :asunto, :html, 'PENDIENTE', 0, :ahora, :ahora) " +
+            "ON CONFLICT (clave_idempotencia) DO NOTHING", nativeQuery = true)
+    int encolar(@Param("clave") String claveIdempotencia, @Param("destinatario") String destinatario,
+                @Param("asunto") String asunto, @Param("html") String html, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Bloquea los correos pendientes cuyo próximo intento ya venció, omitiendo los que otra
+     * transacción tiene bloqueados.
+     */
+    @Query(value = "SELECT * FROM correos_salientes WHERE estado = 'PENDIENTE' AND proximo_intento <= :ahora " +
+            "ORDER BY proximo_intento, id LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<CorreoSaliente> reclamarPendientes(@Param("ahora") LocalDateTime ahora, @Param("limite") int limite);
+
+    /**
+     * Obtiene los correos de un lote de Resend en el orden en que se enviaron.
+     */
+    List<CorreoSaliente> findByClaveLoteOrderByIdAsc(String claveLote);
+
+    List<CorreoSaliente> findByEstadoOrderByCreadoEnDesc(String estado, Pageable pageable);
+
+    long countByEstado(String estado);
+
+    /**
+     * Elimina los correos enviados antes de la fecha indicada.
+     */
+    @Modifying
+    @Query("DELETE FROM CorreoSaliente c WHERE c.estado = 'ENVIADO' AND c.enviadoEn < :limite")
+    int eliminarEnviadosAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -104,5 +105,17 @@ public interface HorarioRepository extends JpaRepository<Horario, Long> {
      */
     @Query("SELECT h FROM Horario h WHERE CAST(h.createdAt AS date) = :fecha")
     List<Horario> findHorariosPorFecha(@Param("fecha") LocalDate fecha);
+    
+    /**
+     * Obtiene, sin materializar entidades, los turnos de los barberos en un rango de fechas.
+     * Cada fila contiene: barberoId, createdAt (fecha del turno), horaEntrada y horaSalida.
+     * Se ordena del más reciente al más antiguo para poder quedarse con el último horario de cada día.
+     * 
+     * @param desde Inicio del rango (inclusive)
+     * @param hasta Fin del rango (exclusivo)
+     * @return Filas con los datos del turno
+     */
+    @Query("SELECT h.barbero.id, h.createdAt, h.horaEntrada, h.horaSalida FROM Horario h " +
+           "WHERE h.createdAt >= :desde AND h.createdAt < :hasta ORDER BY h.createdAt DESC")
+    List<Object[]> findTurnosEnRango(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 }
-
@@ -0,0 +1,74 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.MovimientoInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad MovimientoInventario.
+ */
+@Repository
+public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventario, Long> {
+
+    /**
+     * Obtiene los movimientos de un producto en un rango de fechas, en orden cronológico.
+     */
+    List<MovimientoInventario> findByProductoIdAndFechaHoraBetweenOrderByFechaHoraAscIdAsc(
+            Long productoId, LocalDateTime desde, LocalDateTime hasta);
+
+    /**
+     * Suma las cantidades de los movimientos de un producto en el intervalo (desde, hasta].
+     */
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM MovimientoInventario m " +
+           "WHERE m.productoId = :productoId AND m.fechaHora > :desde AND m.fechaHora <= :hasta")
+    long sumarCantidades(@Param("productoId") Long productoId,
+                         @Param("desde") LocalDateTime desde,
+                         @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Suma las cantidades de todos los movimientos de un producto hasta el instante indicado.
+     */
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM MovimientoInventario m " +
+           "WHERE m.productoId = :productoId AND m.fechaHora <= :hasta")
+    long sumarCantidadesHasta(@Param("productoId") Long productoId,
+                              @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Registra un movimiento de saldo inicial con el stock actual de cada producto que aún
+     * no tiene movimientos en el libro (productos anteriores al libro de inventario).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO movimientos_inventario (id, producto_id, producto_nombre, tipo, cantidad, " +
+            "stock_resultante, motivo, fecha_hora) " +
+            "SELECT nextval('movimientos_inventario_id_seq'), p.id, p.nombre, 'SALDO_INICIAL', p.stock, p.stock, " +
+            "'Saldo inicial del libro de inventario', :fechaHora " +
+            "FROM productos p " +
+            "WHERE NOT EXISTS (SELECT 1 FROM movimientos_inventario m WHERE m.producto_id = p.id)",
+            nativeQuery = true)
+    int registrarSaldosIniciales(@Param("fechaHora") LocalDateTime fechaHora);
+
+    /**
+     * Compara, para un lote de productos ordenado por ID, el stock de la tabla de productos con el
+     * stock derivado del libro (última fotografía más los movimientos posteriores).
+     * Ambos valores se leen en la misma sentencia, por lo que son consistentes entre sí.
+     * 
+     * Cada fila contiene: id, nombre, stock del producto y stock según el libro.
+     */
+    @Query(value = "SELECT p.id, p.nombre, p.stock, " +
+            "CAST(COALESCE(s.stock, 0) + COALESCE(SUM(m.cantidad), 0) AS integer) AS stock_libro " +
+            "FROM (SELECT id, nombre, stock FROM productos WHERE id > :despuesDe ORDER BY id LIMIT :lote) p " +
+            "LEFT JOIN (SELECT DISTINCT ON (producto_id) producto_id, stock, hasta FROM snapshots_inventario " +
+            "           ORDER BY producto_id, hasta DESC) s ON s.producto_id = p.id " +
+            "LEFT JOIN movimientos_inventario m ON m.producto_id = p.id " +
+            "     AND m.fecha_hora > COALESCE(s.hasta, TIMESTAMP '-infinity') " +
+            "GROUP BY p.id, p.nombre, p.stock, s.stock " +
+            "ORDER BY p.id",
+            nativeQuery = true)
+    List<Object[]> compararStockLote(@Param("despuesDe") long despuesDe, @Param("lote") int lote);
+}
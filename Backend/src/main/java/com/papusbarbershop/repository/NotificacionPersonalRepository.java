@@ -0,0 +1,23 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.NotificacionPersonal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio para la entidad NotificacionPersonal.
+ */
+@Repository
+public interface NotificacionPersonalRepository extends JpaRepository<NotificacionPersonal, Long> {
+
+    /**
+     * Bloquea las notificaciones pendientes, omitiendo las que otra instancia está agrupando.
+     */
+    @Query(value = "SELECT * FROM notificaciones_personal ORDER BY id LIMIT :limite FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<NotificacionPersonal> reclamarPendientes(@Param("limite") int limite);
+}
@@ -2,7 +2,13 @@ package com.papusbarbershop.repository;
 
 import com.papusbarbershop.entity.Producto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para la entidad Producto.
@@ -10,6 +16,56 @@ import org.springframework.stereotype.Repository;
  * Proporciona métodos para acceder a los datos de productos en la base de datos.
  */
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
-}
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
+
+    /**
+     * Descuenta stock de un producto de forma atómica, sólo si hay existencias suficientes.
+     * La verificación y la escritura ocurren en una única sentencia, por lo que dos ventas
+     * concurrentes de la última unidad no pueden pasar ambas.
+     * 
+     * Sentencia nativa de PostgreSQL (UPDATE … RETURNING); su comportamiento concurrente se
+     * prueba contra PostgreSQL real en ProductoRepositoryConcurrenciaTest.
+     * 
+     * @param id ID del producto
+     * @param cantidad Cantidad a descontar
+     * @return Stock restante, o vacío si el producto no existe o no tiene stock suficiente
+     */
+    @Transactional
+    @Query(value = "UPDATE productos SET stock = stock - :cantidad, version = version + 1 WHERE id = :id AND stock >= :cantidad RETURNING stock",
+           nativeQuery = true)
+    Optional<Integer> descontarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    /**
+     * Devuelve stock a un producto de forma atómica (por ejemplo al editar o eliminar una venta).
+     * 
+     * @param id ID del producto
+     * @param cantidad Cantidad a reponer
+     * @return Stock resultante, o vacío si el producto no existe
+     */
+    @Transactional
+    @Query(value = "UPDATE productos SET stock = stock + :cantidad, version = version + 1 WHERE id = :id RETURNING stock",
+           nativeQuery = true)
+    Optional<Integer> reponerStock(@Param("id") Long id, @Param("cantidad") int cantidad);
 
+    /**
+     * Obtiene el stock actual de un producto sin cargar la entidad.
+     * 
+     * @param id ID del producto
+     * @return Stock actual, si el producto existe
+     */
+    @Query("SELECT p.stock FROM Producto p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    /**
+     * Obtiene las claves S3 de las imágenes de todos los productos que tienen imagen.
+     */
+    @Query("SELECT p.s3Key FROM Producto p WHERE p.s3Key IS NOT NULL")
+    List<String> findS3Keys();
+
+    /**
+     * Obtiene la clave de imagen y las variantes generadas de todos los productos que tienen imagen.
+     * Cada fila es {s3Key, imagenVariantes}.
+     */
+    @Query("SELECT p.s3Key, p.imagenVariantes FROM Producto p WHERE p.s3Key IS NOT NULL")
+    List<Object[]> findImagenesConVariantes();
+}
@@ -0,0 +1,19 @@
+package com.papusbarbershop.repository;
+
+import java.util.Map;
+
+/**
+ * Operaciones de inventario de productos que requieren SQL construido dinámicamente.
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Descuenta el stock de varios productos en una sola sentencia, sólo en aquellos
+     * que tengan existencias suficientes. Las filas se bloquean en orden de ID, de modo que
+     * tickets concurrentes con los mismos productos en distinto orden no se interbloquean.
+     * 
+     * @param cantidades Cantidad a descontar por ID de producto
+     * @return Stock restante por ID de producto, únicamente de los productos descontados
+     */
+    Map<Long, Integer> descontarStockLote(Map<Long, Integer> cantidades);
+}
@@ -0,0 +1,62 @@
+package com.papusbarbershop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Implementación de {@link ProductoRepositoryCustom}.
+ */
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Map<Long, Integer> descontarStockLote(Map<Long, Integer> cantidades) {
+        Map<Long, Integer> restantes = new HashMap<>();
+        if (cantidades.isEmpty()) {
+            return restantes;
+        }
+
+        // Se bloquean las filas en orden de ID antes de descontar: el UPDATE las bloquearía en el
+        // orden del plan (el de las líneas recibidas), y dos tickets con los mismos productos en
+        // orden opuesto se interbloquearían
+        Map<Long, Integer> ordenadas = new TreeMap<>(cantidades);
+        entityManager.createNativeQuery("SELECT id FROM productos WHERE id IN (:ids) ORDER BY id FOR UPDATE")
+                .setParameter("ids", ordenadas.keySet())
+                .getResultList();
+
+        // UPDATE ... FROM (VALUES ...) descuenta todas las líneas en una sola sentencia
+        StringBuilder sql = new StringBuilder(
+                "UPDATE productos p SET stock = p.stock - v.cantidad, version = p.version + 1 FROM (VALUES ");
+        int posicion = 1;
+        for (int i = 0; i < ordenadas.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(CAST(?").append(posicion++).append(" AS bigint), CAST(?").append(posicion++).append(" AS integer))");
+        }
+        sql.append(") AS v(id, cantidad) WHERE p.id = v.id AND p.stock >= v.cantidad RETURNING p.id, p.stock");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        posicion = 1;
+        for (Map.Entry<Long, Integer> entrada : ordenadas.entrySet()) {
+            query.setParameter(posicion++, entrada.getKey());
+            query.setParameter(posicion++, entrada.getValue());
+        }
+
+        for (Object[] fila : (List<Object[]>) query.getResultList()) {
+            restantes.put(((Number) fila[0]).longValue(), ((Number) fila[1]).intValue());
+        }
+        return restantes;
+    }
+}
@@ -0,0 +1,83 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.ReferenciaImagenProducto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad ReferenciaImagenProducto.
+ *
+ * Las versiones se asignan como MAX(version) + 1 bajo un bloqueo advisory de transacción
+ * ({@link #bloquearVersiones}), así las versiones se confirman en el mismo orden en que se
+ * asignan y un cliente que sincroniza desde la versión N nunca se salta un cambio.
+ */
+@Repository
+public interface ReferenciaImagenProductoRepository extends JpaRepository<ReferenciaImagenProducto, Long> {
+
+    /**
+     * Toma el bloqueo que serializa la asignación de versiones hasta el fin de la transacción.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:clave)) bloqueo", nativeQuery = true)
+    Integer bloquearVersiones(@Param("clave") long clave);
+
+    /**
+     * Registra la referencia de imagen de un producto con una nueva versión, sólo si cambió.
+     *
+     * @return 1 si se registró el cambio, 0 si la referencia ya era la misma
+     */
+    @Modifying
+    @Query(value = "INSERT INTO referencias_imagen_producto (producto_id, s3_key, version, actualizado_en) " +
+            "VALUES (:productoId, :s3Key, " +
+            "(SELECT COALESCE(MAX(version), 0) + 1 FROM referencias_imagen_producto), :ahora) " +
+            "ON CONFLICT (producto_id) DO UPDATE SET s3_key = EXCLUDED.s3_key, " +
+            "version = EXCLUDED.version, actualizado_en = EXCLUDED.actualizado_en " +
+            "WHERE referencias_imagen_producto.s3_key IS DISTINCT FROM EXCLUDED.s3_key",
+            nativeQuery = true)
+    int registrar(@Param("productoId") Long productoId, @Param("s3Key") String s3Key,
+                  @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Registra las referencias de los productos con imagen que aún no tienen referencia.
+     *
+     * @return Cantidad de referencias registradas
+     */
+    @Modifying
+    @Query(value = "INSERT INTO referencias_imagen_producto (producto_id, s3_key, version, actualizado_en) " +
+            "SELECT p.id, p.s3_key, " +
+            "(SELECT COALESCE(MAX(version), 0) FROM referencias_imagen_producto) + ROW_NUMBER() OVER (ORDER BY p.id), " +
+            ":ahora " +
+            "FROM productos p " +
+            "WHERE p.s3_key IS NOT NULL AND p.s3_key <> '' " +
+            "AND NOT EXISTS (SELECT 1 FROM referencias_imagen_producto r WHERE r.producto_id = p.id)",
+            nativeQuery = true)
+    int registrarExistentes(@Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Busca las referencias modificadas después de una versión, en orden de versión.
+     */
+    List<ReferenciaImagenProducto> findByVersionGreaterThanOrderByVersionAsc(Long version, Pageable pageable);
+
+    /**
+     * Busca las referencias vigentes (con imagen).
+     */
+    List<ReferenciaImagenProducto> findByS3KeyIsNotNull();
+
+    /**
+     * Busca las referencias de los productos indicados.
+     */
+    List<ReferenciaImagenProducto> findByProductoIdIn(Collection<Long> productoIds);
+
+    /**
+     * Obtiene la versión más reciente (0 si no hay referencias).
+     */
+    @Query("SELECT COALESCE(MAX(r.version), 0) FROM ReferenciaImagenProducto r")
+    long findVersionActual();
+}
@@ -57,5 +57,12 @@ public interface ServicioRepository extends JpaRepository<Servicio, Long> {
     java.math.BigDecimal calcularTotalPorBarbero(@Param("barberoId") Long barberoId,
                                                   @Param("fechaInicio") LocalDate fechaInicio,
                                                   @Param("fechaFin") LocalDate fechaFin);
-}
 
+    /**
+     * Obtiene todos los servicios como proyección escalar (sin materializar entidades).
+     * Cada fila contiene: id, fecha, barberoId, tipoCorte, metodoPago y precio.
+     * Usado para cargar el cubo analítico en memoria.
+     */
+    @Query("SELECT s.id, s.fecha, s.barbero.id, s.tipoCorte, s.metodoPago, s.precio FROM Servicio s")
+    List<Object[]> findHechosAnaliticos();
+}
@@ -0,0 +1,41 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.SnapshotInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad SnapshotInventario.
+ */
+@Repository
+public interface SnapshotInventarioRepository extends JpaRepository<SnapshotInventario, Long> {
+
+    /**
+     * Obtiene la última fotografía de un producto tomada hasta el instante indicado.
+     */
+    Optional<SnapshotInventario> findFirstByProductoIdAndHastaLessThanEqualOrderByHastaDesc(
+            Long productoId, LocalDateTime instante);
+
+    /**
+     * Genera, en una sola sentencia, una fotografía nueva para cada producto con movimientos
+     * posteriores a su última fotografía y anteriores o iguales al corte. El stock de la nueva
+     * fotografía es el de la anterior más los movimientos del intervalo.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO snapshots_inventario (producto_id, stock, hasta, fecha_creacion) " +
+            "SELECT m.producto_id, COALESCE(s.stock, 0) + SUM(m.cantidad), :corte, :fechaCreacion " +
+            "FROM movimientos_inventario m " +
+            "LEFT JOIN (SELECT DISTINCT ON (producto_id) producto_id, stock, hasta FROM snapshots_inventario " +
+            "           ORDER BY producto_id, hasta DESC) s ON s.producto_id = m.producto_id " +
+            "WHERE m.fecha_hora > COALESCE(s.hasta, TIMESTAMP '-infinity') AND m.fecha_hora <= :corte " +
+            "GROUP BY m.producto_id, s.stock",
+            nativeQuery = true)
+    int generarSnapshots(@Param("corte") LocalDateTime corte,
+                         @Param("fechaCreacion") LocalDateTime fechaCreacion);
+}
@@ -0,0 +1,59 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.TokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad TokenRevocado.
+ */
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, String> {
+
+    /**
+     * Obtiene las revocaciones vigentes (para construir el estado en memoria).
+     */
+    List<TokenRevocado> findByExpiraEnAfter(LocalDateTime ahora);
+
+    /**
+     * Obtiene las revocaciones hechas desde la fecha indicada (incluidas las de otras instancias).
+     */
+    List<TokenRevocado> findByRevocadoEnGreaterThanEqual(LocalDateTime desde);
+
+    /**
+     * Inserta una revocación si su clave no existe. Es atómico frente a inserciones concurrentes
+     * de la misma clave: sólo una de ellas afecta una fila.
+     *
+     * @return 1 si se insertó, 0 si la clave ya estaba revocada
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tokens_revocados (clave, revocado_en, expira_en) " +
+            "VALUES (:clave, :revocadoEn, :expiraEn) ON CONFLICT (clave) DO NOTHING", nativeQuery = true)
+    int insertarSiNoExiste(@Param("clave") String clave, @Param("revocadoEn") LocalDateTime revocadoEn,
+                           @Param("expiraEn") LocalDateTime expiraEn);
+
+    /**
+     * Inserta una revocación o, si la clave ya existe, extiende sus fechas (nunca las retrocede).
+     * Es atómico frente a revocaciones concurrentes de la misma clave.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tokens_revocados (clave, revocado_en, expira_en) " +
+            "VALUES (:clave, :revocadoEn, :expiraEn) ON CONFLICT (clave) DO UPDATE SET " +
+            "revocado_en = GREATEST(tokens_revocados.revocado_en, EXCLUDED.revocado_en), " +
+            "expira_en = GREATEST(tokens_revocados.expira_en, EXCLUDED.expira_en)", nativeQuery = true)
+    void insertarOExtender(@Param("clave") String clave, @Param("revocadoEn") LocalDateTime revocadoEn,
+                           @Param("expiraEn") LocalDateTime expiraEn);
+
+    /**
+     * Elimina las revocaciones cuyos tokens ya expiraron.
+     */
+    @Modifying
+    @Query("DELETE FROM TokenRevocado t WHERE t.expiraEn <= :ahora")
+    int eliminarExpirados(@Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,12 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.VelocidadProducto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para la entidad VelocidadProducto.
+ */
+@Repository
+public interface VelocidadProductoRepository extends JpaRepository<VelocidadProducto, Long> {
+}
@@ -72,5 +72,23 @@ public interface VentaProductoRepository extends JpaRepository<VentaProducto, Lo
      */
     @Query("SELECT v FROM VentaProducto v WHERE v.producto.id = :productoId")
     List<VentaProducto> findByProducto_Id(@Param("productoId") Long productoId);
-}
 
+    /**
+     * Obtiene todas las ventas como proyección escalar (sin materializar entidades).
+     * Cada fila contiene: id, fecha, barberoId, productoId (puede ser null), cantidad, importe y metodoPago.
+     * Usado para cargar el cubo analítico en memoria.
+     */
+    @Query("SELECT v.id, v.fecha, v.barbero.id, p.id, v.cantidad, v.importe, v.metodoPago " +
+           "FROM VentaProducto v LEFT JOIN v.producto p")
+    List<Object[]> findHechosAnaliticos();
+
+    /**
+     * Obtiene las unidades vendidas por producto y día desde una fecha, en orden cronológico.
+     * Sólo se usa una vez para inicializar las velocidades de venta cuando aún no hay estado guardado.
+     * Cada fila contiene: ID del producto, fecha y unidades vendidas.
+     */
+    @Query("SELECT v.producto.id, v.fecha, SUM(v.cantidad) FROM VentaProducto v " +
+           "WHERE v.producto IS NOT NULL AND v.fecha >= :desde " +
+           "GROUP BY v.producto.id, v.fecha ORDER BY v.fecha")
+    List<Object[]> sumarUnidadesPorProductoYDia(@Param("desde") LocalDate desde);
+}
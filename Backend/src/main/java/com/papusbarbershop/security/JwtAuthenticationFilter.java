@@ -1,6 +1,7 @@
 package com.papusbarbershop.security;
 
 import com.papusbarbershop.service.JwtService;
+import com.papusbarbershop.service.RevocacionTokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,6 +27,8 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private JwtService jwtService;
+
+    private RevocacionTokenService revocacionTokenService;
     
     /**
      * Establece el servicio JWT para este filtro.
@@ -35,6 +38,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     public void setJwtService(JwtService jwtService) {
         this.jwtService = jwtService;
     }
+
+    /**
+     * Establece el servicio de revocación de tokens para este filtro.
+     *
+     * @param revocacionTokenService Servicio de revocación a utilizar
+     */
+    public void setRevocacionTokenService(RevocacionTokenService revocacionTokenService) {
+        this.revocacionTokenService = revocacionTokenService;
+    }
     
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, 
@@ -42,7 +54,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
         
         // Verificar si el header Authorization contiene un token JWT
         if (authHeader == null || !authHeader.startsWith("Bearer ") || jwtService == null) {
@@ -54,23 +65,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            // Extraer el nombre de usuario del token
-            username = jwtService.extractUsername(jwt);
-            
-            // Verificar que el usuario no esté ya autenticado y que el token sea válido
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                
-                // Validar el token JWT
-                if (jwtService.validateToken(jwt, username)) {
-                    
-                    // Extraer el rol del usuario del token
-                    String rol = jwtService.extractRol(jwt);
-                    
+            // Verificar el token una sola vez (firma y expiración) y obtener usuario y rol
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                JwtService.TokenVerificado token = jwtService.verificarToken(jwt);
+                String username = token.getUsername();
+
+                // Sólo los tokens de acceso autentican peticiones; los revocados se ignoran
+                if (username != null && token.esAcceso()
+                        && (revocacionTokenService == null || !revocacionTokenService.estaRevocado(token))) {
                     // Crear la autenticación con el rol del usuario
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         username,
                         null,
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + rol))
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + token.getRol()))
                     );
                     
                     // Establecer la autenticación en el contexto de seguridad
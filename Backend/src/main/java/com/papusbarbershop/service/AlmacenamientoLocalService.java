@@ -0,0 +1,299 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.exception.ArchivoDemasiadoGrandeException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Almacenamiento de archivos en el sistema de archivos local.
+ *
+ * Alternativa a S3 para instalaciones locales y de pruebas: no requiere credenciales de AWS ni
+ * acceso a red. Imita el flujo de URLs presignadas: el backend genera URLs firmadas con HMAC
+ * (método, clave y expiración) hacia /api/archivos, y ese controlador valida la firma antes de
+ * recibir (PUT) o servir (GET) el archivo.
+ *
+ * Las URLs se firman con su propio secreto (almacenamiento.local.secreto), obligatorio y distinto
+ * de jwt.secret: así una URL firmada nunca sirve como token ni a la inversa, y cada secreto se
+ * puede rotar por separado. El servicio no arranca si falta.
+ *
+ * Se activa con {@code almacenamiento.tipo=local}.
+ */
+@Service
+@ConditionalOnProperty(name = "almacenamiento.tipo", havingValue = "local")
+public class AlmacenamientoLocalService implements AlmacenamientoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlmacenamientoLocalService.class);
+
+    private static final String ALGORITMO_FIRMA = "HmacSHA256";
+
+    // Segmentos de clave permitidos: sin ".." ni separadores de otro tipo
+    private static final Pattern SEGMENTO_VALIDO = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    // HMAC-SHA256: la clave debe tener al menos el tamaño del hash
+    private static final int MIN_BYTES_SECRETO = 32;
+
+    @Value("${almacenamiento.local.directorio:./almacenamiento}")
+    private String directorio;
+
+    @Value("${almacenamiento.local.url-base:http://localhost:8080}")
+    private String urlBase;
+
+    @Value("${almacenamiento.local.secreto:}")
+    private String secreto;
+
+    @Value("${jwt.secret:}")
+    private String secretoJwt;
+
+    @Value("${almacenamiento.local.max-bytes:10485760}")
+    private long maxBytes;
+
+    @Value("${aws.s3.presigned-url-expiration:3600}")
+    private long vigenciaSubidaSegundos;
+
+    private Path raiz;
+
+    private SecretKeySpec claveFirma;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (secreto == null || secreto.isBlank()) {
+            throw new IllegalStateException("almacenamiento.local.secreto es obligatorio con almacenamiento.tipo=local");
+        }
+        if (secreto.getBytes(StandardCharsets.UTF_8).length < MIN_BYTES_SECRETO) {
+            throw new IllegalStateException("almacenamiento.local.secreto debe tener al menos " + MIN_BYTES_SECRETO + " bytes");
+        }
+        if (secreto.equals(secretoJwt)) {
+            throw new IllegalStateException("almacenamiento.local.secreto debe ser distinto de jwt.secret");
+        }
+        raiz = Paths.get(directorio).toAbsolutePath().normalize();
+        Files.createDirectories(raiz);
+        claveFirma = new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), ALGORITMO_FIRMA);
+        if (urlBase.endsWith("/")) {
+            urlBase = urlBase.substring(0, urlBase.length() - 1);
+        }
+        logger.info("Almacenamiento local de archivos en {} (URLs en {}/api/archivos)", raiz, urlBase);
+    }
+
+    // ==================== URLs FIRMADAS ====================
+
+    @Override
+    public PresignedUrlResponse generatePresignedUploadUrl(String fileName, String folder, String contentType) {
+        if (fileName == null || fileName.isEmpty()) {
+            throw new IllegalArgumentException("El nombre del archivo no puede estar vacío");
+        }
+        String key = folder + "/" + AlmacenamientoService.generateUniqueFileName(fileName);
+        resolver(key);
+        return new PresignedUrlResponse(urlFirmada("PUT", key, vigenciaSubidaSegundos), key);
+    }
+
+    @Override
+    public String generatePresignedDownloadUrl(String key, long expirationTime) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("La key no puede estar vacía");
+        }
+        resolver(key);
+        return urlFirmada("GET", key, expirationTime);
+    }
+
+    @Override
+    public Map<String, String> generatePresignedDownloadUrls(Collection<String> keys, long expirationTime) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (key == null || key.isEmpty() || urls.containsKey(key)) {
+                continue;
+            }
+            try {
+                urls.put(key, generatePresignedDownloadUrl(key, expirationTime));
+            } catch (IllegalArgumentException e) {
+                logger.warn("No se pudo generar URL firmada de descarga para key={}: {}", key, e.getMessage());
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Verifica la firma de una URL generada por este servicio.
+     *
+     * @param metodo Método HTTP de la petición (GET o PUT)
+     * @param key Clave del archivo
+     * @param expira Expiración de la URL (segundos desde epoch)
+     * @param firma Firma recibida
+     * @return true si la firma corresponde y la URL no ha expirado
+     */
+    public boolean firmaValida(String metodo, String key, long expira, String firma) {
+        if (firma == null || expira < Instant.now().getEpochSecond()) {
+            return false;
+        }
+        byte[] esperada = firmar(metodo, key, expira).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(esperada, firma.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String urlFirmada(String metodo, String key, long vigenciaSegundos) {
+        long expira = Instant.now().getEpochSecond() + vigenciaSegundos;
+        return urlBase + "/api/archivos/" + key + "?expira=" + expira + "&firma=" + firmar(metodo, key, expira);
+    }
+
+    private String firmar(String metodo, String key, long expira) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO_FIRMA);
+            mac.init(claveFirma);
+            byte[] firma = mac.doFinal((metodo + "\n" + key + "\n" + expira).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(firma);
+        } catch (Exception e) {
+            throw new IllegalStateException("Error al firmar la URL de almacenamiento local", e);
+        }
+    }
+
+    // ==================== ARCHIVOS ====================
+
+    /**
+     * Obtiene la ruta de un archivo dentro del directorio de almacenamiento.
+     *
+     * @param key Clave del archivo (segmentos separados por '/')
+     * @return Ruta absoluta del archivo
+     * @throws IllegalArgumentException si la clave no es válida o sale del directorio
+     */
+    public Path resolver(String key) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("La key no puede estar vacía");
+        }
+        for (String segmento : key.split("/", -1)) {
+            if (!SEGMENTO_VALIDO.matcher(segmento).matches()) {
+                throw new IllegalArgumentException("Key inválida: " + key);
+            }
+        }
+        Path ruta = raiz.resolve(key).normalize();
+        if (!ruta.startsWith(raiz)) {
+            throw new IllegalArgumentException("Key inválida: " + key);
+        }
+        return ruta;
+    }
+
+    /**
+     * Guarda el contenido recibido en la clave indicada. Se escribe en un archivo temporal y se
+     * mueve al destino al terminar, así una lectura concurrente nunca ve un archivo a medias.
+     *
+     * @param key Clave del archivo
+     * @param contenido Contenido del archivo
+     * @throws ArchivoDemasiadoGrandeException si el contenido supera el tamaño máximo
+     */
+    public void guardar(String key, InputStream contenido) throws IOException {
+        Path destino = resolver(key);
+        Files.createDirectories(destino.getParent());
+        Path temporal = Files.createTempFile(destino.getParent(), ".subida-", ".tmp");
+        try {
+            long escritos = 0;
+            byte[] buffer = new byte[TAMANO_BUFFER];
+            try (OutputStream salida = Files.newOutputStream(temporal)) {
+                int leidos;
+                while ((leidos = contenido.read(buffer)) != -1) {
+                    escritos += leidos;
+                    if (escritos > maxBytes) {
+                        throw new ArchivoDemasiadoGrandeException("El archivo supera el tamaño máximo de " + maxBytes + " bytes");
+                    }
+                    salida.write(buffer, 0, leidos);
+                }
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Archivo guardado: key={}, bytes={}", key, escritos);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public InputStream readFile(String key) throws Exception {
+        return Files.newInputStream(resolver(key));
+    }
+
+    @Override
+    public void uploadFile(String key, byte[] content, String contentType) throws Exception {
+        guardar(key, new ByteArrayInputStream(content));
+    }
+
+    @Override
+    public void listFiles(String prefix, BiConsumer<String, Instant> consumidor) {
+        Path inicio = raiz.resolve(prefix).normalize();
+        Path directorioInicio = Files.isDirectory(inicio) ? inicio : inicio.getParent();
+        if (directorioInicio == null || !directorioInicio.startsWith(raiz) || !Files.isDirectory(directorioInicio)) {
+            return;
+        }
+        try (Stream<Path> rutas = Files.walk(directorioInicio)) {
+            rutas.filter(Files::isRegularFile).forEach(ruta -> {
+                String key = raiz.relativize(ruta).toString().replace(File.separatorChar, '/');
+                if (key.startsWith(prefix) && !ruta.getFileName().toString().startsWith(".subida-")) {
+                    try {
+                        consumidor.accept(key, Files.getLastModifiedTime(ruta).toInstant());
+                    } catch (IOException e) {
+                        logger.warn("No se pudo leer el archivo {}: {}", key, e.getMessage());
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Error al recorrer el almacenamiento local: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int deleteFiles(List<String> keys) {
+        int eliminados = 0;
+        for (String key : keys) {
+            try {
+                if (Files.deleteIfExists(resolver(key))) {
+                    eliminados++;
+                }
+            } catch (Exception e) {
+                logger.warn("No se pudo eliminar el archivo {}: {}", key, e.getMessage());
+            }
+        }
+        return eliminados;
+    }
+
+    @Override
+    public void deleteFile(String key) throws Exception {
+        Files.deleteIfExists(resolver(key));
+        logger.info("Archivo eliminado: key={}", key);
+    }
+
+    @Override
+    public boolean fileExists(String key) {
+        try {
+            return Files.isRegularFile(resolver(key));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.papusbarbershop.service;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Almacenamiento de archivos (imágenes de productos, barberos, cortes).
+ *
+ * La implementación se elige con la propiedad {@code almacenamiento.tipo}:
+ * - {@code s3} (por defecto): Amazon S3 o un servicio compatible ({@link S3Service}).
+ * - {@code local}: sistema de archivos local ({@link AlmacenamientoLocalService}).
+ *
+ * En ambos casos el frontend sube y descarga los archivos directamente con URLs firmadas
+ * de vigencia limitada; el backend sólo genera las URLs.
+ */
+public interface AlmacenamientoService {
+
+    /**
+     * Máximo de claves por petición de eliminación en lote (límite de DeleteObjects de S3).
+     */
+    int MAX_CLAVES_ELIMINACION = 1000;
+
+    /**
+     * Genera una URL firmada para subir un archivo con PUT.
+     *
+     * @param fileName Nombre del archivo
+     * @param folder Carpeta donde se guardará (ej: 'productos', 'barberos', 'cortes')
+     * @param contentType Tipo de contenido (ej: 'image/jpeg', 'image/png')
+     * @return URL firmada y la key del objeto
+     */
+    PresignedUrlResponse generatePresignedUploadUrl(String fileName, String folder, String contentType);
+
+    /**
+     * Genera una URL firmada para descargar/ver un archivo.
+     *
+     * @param key Clave del objeto
+     * @param expirationTime Tiempo de expiración en segundos
+     * @return URL firmada
+     */
+    String generatePresignedDownloadUrl(String key, long expirationTime);
+
+    /**
+     * Genera URLs firmadas de descarga para varias claves en una sola llamada.
+     * Las claves vacías o repetidas se ignoran y las que no se pueden firmar se omiten.
+     *
+     * @param keys Claves de objetos
+     * @param expirationTime Tiempo de expiración en segundos
+     * @return Mapa clave → URL firmada, en el orden de las claves recibidas
+     */
+    Map<String, String> generatePresignedDownloadUrls(Collection<String> keys, long expirationTime);
+
+    /**
+     * Lee el contenido de un archivo. El llamador debe cerrar el stream.
+     *
+     * @param key Clave del objeto
+     * @return Contenido del archivo
+     * @throws Exception Si el archivo no existe o no se puede leer
+     */
+    InputStream readFile(String key) throws Exception;
+
+    /**
+     * Guarda un archivo generado por el backend (por ejemplo, variantes de imágenes).
+     *
+     * @param key Clave del objeto
+     * @param content Contenido del archivo
+     * @param contentType Tipo de contenido
+     * @throws Exception Si hay un error al guardar el archivo
+     */
+    void uploadFile(String key, byte[] content, String contentType) throws Exception;
+
+    /**
+     * Recorre los archivos bajo un prefijo, página por página, sin cargarlos todos en memoria.
+     *
+     * @param prefix Prefijo de las claves (ej: 'productos/')
+     * @param consumidor Recibe la clave y la fecha de última modificación de cada archivo
+     */
+    void listFiles(String prefix, BiConsumer<String, Instant> consumidor);
+
+    /**
+     * Elimina varios archivos, en lotes de hasta {@link #MAX_CLAVES_ELIMINACION} claves por petición.
+     *
+     * @param keys Claves de los archivos
+     * @return Cantidad de archivos eliminados
+     */
+    int deleteFiles(List<String> keys);
+
+    /**
+     * Elimina un archivo.
+     *
+     * @param key Clave del objeto
+     * @throws Exception Si hay un error al eliminar el archivo
+     */
+    void deleteFile(String key) throws Exception;
+
+    /**
+     * Verifica si un archivo existe.
+     *
+     * @param key Clave del objeto
+     * @return true si el archivo existe
+     * @throws RuntimeException si no se pudo verificar la existencia
+     */
+    boolean fileExists(String key);
+
+    /**
+     * Genera un nombre de archivo único basado en el nombre original.
+     * 
+     * @param originalFileName Nombre original del archivo
+     * @return Nombre de archivo único con timestamp y UUID
+     */
+    static String generateUniqueFileName(String originalFileName) {
+        String extension = "";
+        int lastDotIndex = originalFileName.lastIndexOf('.');
+        if (lastDotIndex > 0) {
+            extension = originalFileName.substring(lastDotIndex);
+            originalFileName = originalFileName.substring(0, lastDotIndex);
+        }
+
+        // Sanitizar el nombre del archivo
+        String sanitizedName = originalFileName
+                .toLowerCase()
+                .replaceAll("[^a-z0-9]", "-")
+                .replaceAll("-+", "-")
+                .replaceAll("^-|-$", "");
+
+        // Limitar la longitud
+        if (sanitizedName.length() > 50) {
+            sanitizedName = sanitizedName.substring(0, 50);
+        }
+
+        // Agregar timestamp y UUID para garantizar unicidad
+        long timestamp = System.currentTimeMillis();
+        String uuid = UUID.randomUUID().toString().substring(0, 8);
+
+        return sanitizedName + "-" + timestamp + "-" + uuid + extension;
+    }
+
+    /**
+     * Clase para la respuesta de URL firmada de subida.
+     */
+    class PresignedUrlResponse {
+        private String url;
+        private String key;
+
+        public PresignedUrlResponse(String url, String key) {
+            this.url = url;
+            this.key = key;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -7,6 +7,9 @@ import com.papusbarbershop.entity.Usuario;
 import com.papusbarbershop.exception.RecursoDuplicadoException;
 import com.papusbarbershop.exception.RecursoNoEncontradoException;
 import com.papusbarbershop.repository.UsuarioRepository;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -19,9 +22,13 @@ import java.util.Optional;
  * 
  * Este servicio maneja la autenticación de usuarios, incluyendo la validación
  * de credenciales y la generación de tokens JWT para sesiones autenticadas.
+ * Cada sesión recibe un token de acceso de vida corta y un refresh token para renovarlo
+ * ({@link #refrescar}); ambos se revocan al cerrar sesión ({@link #cerrarSesion}).
  */
 @Service
 public class AuthService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
     
     @Autowired
     private UsuarioRepository usuarioRepository;
@@ -31,6 +38,9 @@ public class AuthService {
     
     @Autowired
     private JwtService jwtService;
+
+    @Autowired
+    private RevocacionTokenService revocacionTokenService;
     
     /**
      * Autentica un usuario con las credenciales proporcionadas.
@@ -75,22 +85,8 @@ public class AuthService {
                 return new LoginResponse(false, "Contraseña incorrecta");
             }
             
-            // Generar token JWT
-            String token = jwtService.generateToken(
-                usuario.getUsername(), 
-                usuario.getId(), 
-                usuario.getRol().name()
-            );
-            
-            // Retornar respuesta exitosa
-            LoginResponse response = new LoginResponse();
-            response.setSuccess(true);
-            response.setMessage("Login exitoso");
-            response.setToken(token);
-            response.setUserId(usuario.getId());
-            response.setUsername(usuario.getUsername());
-            response.setRol(usuario.getRol().name());
-            return response;
+            // Generar tokens JWT (acceso y refresco)
+            return crearRespuestaTokens(usuario, "Login exitoso");
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -98,6 +94,110 @@ public class AuthService {
         }
     }
     
+    /**
+     * Renueva los tokens de una sesión a partir de un refresh token.
+     *
+     * El refresh token se rota: el presentado queda revocado y se devuelve uno nuevo. La revocación
+     * es atómica ({@link RevocacionTokenService#consumirToken}), así que de dos renovaciones
+     * concurrentes con el mismo refresh token sólo una obtiene tokens. Si se presenta un refresh
+     * token ya revocado (posible robo y reutilización), se revocan todos los tokens del usuario.
+     *
+     * @param refreshToken Refresh token obtenido al iniciar sesión o en la renovación anterior
+     * @return Respuesta con los nuevos tokens, o error si el refresh token no es válido
+     */
+    @Transactional
+    public LoginResponse refrescar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return new LoginResponse(false, "El refresh token es obligatorio");
+        }
+        JwtService.TokenVerificado token;
+        try {
+            token = jwtService.verificarToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            return new LoginResponse(false, "Refresh token inválido o expirado");
+        }
+        if (!token.esRefresco()) {
+            return new LoginResponse(false, "El token indicado no es un refresh token");
+        }
+        if (revocacionTokenService.estaRevocado(token)) {
+            return rechazarReutilizacion(token);
+        }
+
+        Usuario usuario = usuarioRepository.findByUsername(token.getUsername()).orElse(null);
+        if (usuario == null || !Boolean.TRUE.equals(usuario.getActivo())) {
+            return new LoginResponse(false, "Usuario inactivo");
+        }
+
+        // Otra renovación con el mismo refresh token pudo revocarlo después de la comprobación anterior
+        if (!revocacionTokenService.consumirToken(token)) {
+            return rechazarReutilizacion(token);
+        }
+        return crearRespuestaTokens(usuario, "Tokens renovados");
+    }
+
+    private LoginResponse rechazarReutilizacion(JwtService.TokenVerificado token) {
+        logger.warn("Refresh token revocado reutilizado para el usuario {}; se revocan todas sus sesiones",
+                token.getUsername());
+        revocacionTokenService.revocarUsuario(token.getUsername());
+        return new LoginResponse(false, "Refresh token revocado");
+    }
+
+    /**
+     * Cierra una sesión revocando su token de acceso y su refresh token. Los tokens inválidos o
+     * ya expirados se ignoran.
+     *
+     * @param accessToken Token de acceso de la sesión (puede ser null)
+     * @param refreshToken Refresh token de la sesión (puede ser null)
+     */
+    @Transactional
+    public void cerrarSesion(String accessToken, String refreshToken) {
+        for (String jwt : new String[] { accessToken, refreshToken }) {
+            if (jwt == null || jwt.isBlank()) {
+                continue;
+            }
+            try {
+                revocacionTokenService.revocarToken(jwtService.verificarToken(jwt));
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.debug("Token ignorado al cerrar sesión: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Activa o desactiva un usuario. Al desactivarlo se revocan todos sus tokens
+     * ({@link RevocacionTokenService#revocarUsuario}), de modo que sus sesiones abiertas dejan de
+     * ser válidas de inmediato y no sólo al intentar refrescarlas.
+     *
+     * @param username Nombre de usuario
+     * @param activo Nuevo estado
+     * @return Usuario actualizado
+     * @throws RecursoNoEncontradoException si el usuario no existe
+     */
+    @Transactional
+    public Usuario cambiarEstadoUsuario(String username, boolean activo) {
+        Usuario usuario = usuarioRepository.findByUsername(username)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario no encontrado: " + username));
+        usuario.setActivo(activo);
+        usuarioRepository.saveAndFlush(usuario);
+        if (!activo) {
+            revocacionTokenService.revocarUsuario(usuario.getUsername());
+        }
+        return usuario;
+    }
+
+    private LoginResponse crearRespuestaTokens(Usuario usuario, String mensaje) {
+        String rol = usuario.getRol().name();
+        LoginResponse response = new LoginResponse();
+        response.setSuccess(true);
+        response.setMessage(mensaje);
+        response.setToken(jwtService.generateToken(usuario.getUsername(), usuario.getId(), rol));
+        response.setRefreshToken(jwtService.generateRefreshToken(usuario.getUsername(), usuario.getId(), rol));
+        response.setUserId(usuario.getId());
+        response.setUsername(usuario.getUsername());
+        response.setRol(rol);
+        return response;
+    }
+
     /**
      * Registra un nuevo usuario en el sistema.
      * 
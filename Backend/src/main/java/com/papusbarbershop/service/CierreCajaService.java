@@ -0,0 +1,331 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.CierreCajaDTO;
+import com.papusbarbershop.dto.TotalCajaDTO;
+import com.papusbarbershop.entity.Barbero;
+import com.papusbarbershop.entity.CierreCaja;
+import com.papusbarbershop.entity.Servicio;
+import com.papusbarbershop.entity.VentaProducto;
+import com.papusbarbershop.exception.ValidacionException;
+import com.papusbarbershop.repository.BarberoRepository;
+import com.papusbarbershop.repository.CierreCajaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio para el cierre de caja diario por método de pago y por barbero.
+ *
+ * Los totales se mantienen de forma incremental: cada alta, edición o eliminación de un
+ * servicio o venta suma o resta su importe en la tabla cierres_caja dentro de la misma
+ * transacción, y al confirmarse se aplica el mismo movimiento a la copia en memoria de
+ * los días recientes. Así el cierre se arma en tiempo constante sin recorrer las
+ * transacciones del día.
+ */
+@Service
+public class CierreCajaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CierreCajaService.class);
+
+    private static final int MAX_DIAS_EN_MEMORIA = 62;
+    private static final LocalDate FECHA_MINIMA = LocalDate.of(2000, 1, 1);
+    private static final LocalDate FECHA_MAXIMA = LocalDate.of(2999, 12, 31);
+
+    // Índices del acumulado en memoria (importes en centavos)
+    private static final int SERVICIOS = 0;
+    private static final int CANTIDAD_SERVICIOS = 1;
+    private static final int VENTAS = 2;
+    private static final int CANTIDAD_VENTAS = 3;
+
+    @Autowired
+    private CierreCajaRepository cierreCajaRepository;
+
+    @Autowired
+    private BarberoRepository barberoRepository;
+
+    private final ConcurrentSkipListMap<LocalDate, Map<ClaveCaja, long[]>> dias = new ConcurrentSkipListMap<>();
+
+    // Transacciones con movimientos de caja aún sin completar, y contador de movimientos completados.
+    // Permiten descartar una carga desde la base si coincidió con un movimiento en curso.
+    private final AtomicInteger movimientosEnCurso = new AtomicInteger();
+    private final AtomicLong movimientosCompletados = new AtomicLong();
+
+    /**
+     * Reconstruye los acumulados si la tabla está vacía (primer arranque) y precarga el día actual.
+     */
+    @Transactional
+    public void inicializar() {
+        if (cierreCajaRepository.count() == 0) {
+            int filas = reconstruir(FECHA_MINIMA, FECHA_MAXIMA);
+            logger.info("Acumulados de caja reconstruidos desde el histórico: {} filas", filas);
+        }
+        obtenerCierre(LocalDate.now());
+    }
+
+    // ==================== MOVIMIENTOS ====================
+
+    /**
+     * Suma (signo 1) o resta (signo -1) un servicio en el cierre de caja de su día.
+     * Debe llamarse dentro de la transacción que modifica el servicio.
+     */
+    @Transactional
+    public void registrarServicio(Servicio servicio, int signo) {
+        acumular(servicio.getFecha(), servicio.getBarbero().getId(), servicio.getMetodoPago(),
+                multiplicar(servicio.getPrecio(), signo), signo, true);
+    }
+
+    /**
+     * Suma (signo 1) o resta (signo -1) una venta en el cierre de caja de su día.
+     * Debe llamarse dentro de la transacción que modifica la venta.
+     */
+    @Transactional
+    public void registrarVenta(VentaProducto venta, int signo) {
+        acumular(venta.getFecha(), venta.getBarbero().getId(), venta.getMetodoPago(),
+                multiplicar(venta.getImporte(), signo), signo, false);
+    }
+
+    /**
+     * Suma las ventas de un ticket (mismo día, barbero y método de pago) en el cierre de caja
+     * con un solo movimiento.
+     * Debe llamarse dentro de la transacción que registra las ventas.
+     */
+    @Transactional
+    public void registrarTicket(LocalDate fecha, Long barberoId, String metodoPago, BigDecimal total, int cantidadVentas) {
+        acumular(fecha, barberoId, metodoPago, multiplicar(total, 1), cantidadVentas, false);
+    }
+
+    private static BigDecimal multiplicar(BigDecimal importe, int signo) {
+        return (importe != null ? importe : BigDecimal.ZERO).multiply(BigDecimal.valueOf(signo));
+    }
+
+    private void acumular(LocalDate fecha, Long barberoId, String metodoPago, BigDecimal monto,
+                          int cantidad, boolean esServicio) {
+        if (esServicio) {
+            cierreCajaRepository.acumular(fecha, barberoId, metodoPago, monto, cantidad, BigDecimal.ZERO, 0);
+        } else {
+            cierreCajaRepository.acumular(fecha, barberoId, metodoPago, BigDecimal.ZERO, 0, monto, cantidad);
+        }
+
+        long centavos = aCentavos(monto);
+        ClaveCaja clave = new ClaveCaja(barberoId, metodoPago);
+        movimientosEnCurso.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Map<ClaveCaja, long[]> dia = dias.get(fecha);
+                if (dia == null) {
+                    return;
+                }
+                synchronized (dia) {
+                    long[] acumulado = dia.computeIfAbsent(clave, k -> new long[4]);
+                    if (esServicio) {
+                        acumulado[SERVICIOS] += centavos;
+                        acumulado[CANTIDAD_SERVICIOS] += cantidad;
+                    } else {
+                        acumulado[VENTAS] += centavos;
+                        acumulado[CANTIDAD_VENTAS] += cantidad;
+                    }
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                movimientosCompletados.incrementAndGet();
+                movimientosEnCurso.decrementAndGet();
+            }
+        });
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Obtiene el cierre de caja de un día.
+     *
+     * @param fecha Fecha del cierre
+     * @return Totales por método de pago, por barbero y detalle
+     */
+    public CierreCajaDTO obtenerCierre(LocalDate fecha) {
+        Map<ClaveCaja, long[]> dia = dias.get(fecha);
+        if (dia == null) {
+            dia = cargarDia(fecha);
+        }
+
+        Map<ClaveCaja, long[]> copia = new HashMap<>();
+        synchronized (dia) {
+            dia.forEach((clave, acumulado) -> copia.put(clave, acumulado.clone()));
+        }
+        return construirDTO(fecha, copia);
+    }
+
+    /**
+     * Reconstruye los acumulados de caja de un rango de fechas a partir de servicios y ventas.
+     *
+     * @param fechaInicio Fecha de inicio
+     * @param fechaFin Fecha de fin
+     * @return Cantidad de filas de acumulado generadas
+     */
+    @Transactional
+    public int reconstruir(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new ValidacionException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        cierreCajaRepository.eliminarRango(fechaInicio, fechaFin);
+        int filas = cierreCajaRepository.reconstruirRango(fechaInicio, fechaFin);
+        movimientosEnCurso.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                dias.subMap(fechaInicio, true, fechaFin, true).clear();
+                movimientosCompletados.incrementAndGet();
+                movimientosEnCurso.decrementAndGet();
+            }
+        });
+        return filas;
+    }
+
+    /**
+     * Carga un día desde la tabla de acumulados. Sólo se guarda en memoria si no hubo
+     * movimientos en curso durante la lectura; de lo contrario se usa una sola vez.
+     */
+    private Map<ClaveCaja, long[]> cargarDia(LocalDate fecha) {
+        boolean sinMovimientos = movimientosEnCurso.get() == 0;
+        long completadosAntes = movimientosCompletados.get();
+
+        Map<ClaveCaja, long[]> dia = new HashMap<>();
+        for (CierreCaja fila : cierreCajaRepository.findByFecha(fecha)) {
+            dia.put(new ClaveCaja(fila.getBarberoId(), fila.getMetodoPago()), new long[]{
+                    aCentavos(fila.getTotalServicios()),
+                    fila.getCantidadServicios(),
+                    aCentavos(fila.getTotalVentas()),
+                    fila.getCantidadVentas()
+            });
+        }
+
+        if (sinMovimientos && movimientosEnCurso.get() == 0 && movimientosCompletados.get() == completadosAntes) {
+            Map<ClaveCaja, long[]> existente = dias.putIfAbsent(fecha, dia);
+            if (existente != null) {
+                return existente;
+            }
+            while (dias.size() > MAX_DIAS_EN_MEMORIA) {
+                dias.pollFirstEntry();
+            }
+        }
+        return dia;
+    }
+
+    private CierreCajaDTO construirDTO(LocalDate fecha, Map<ClaveCaja, long[]> dia) {
+        Map<Long, String> nombres = new HashMap<>();
+        List<Long> barberoIds = dia.keySet().stream().map(c -> c.barberoId).distinct().toList();
+        for (Barbero barbero : barberoRepository.findAllById(barberoIds)) {
+            nombres.put(barbero.getId(), barbero.getNombre());
+        }
+
+        Map<String, long[]> porMetodo = new TreeMap<>();
+        Map<Long, long[]> porBarbero = new TreeMap<>();
+        long[] total = new long[4];
+        List<TotalCajaDTO> detalle = new ArrayList<>();
+
+        for (Map.Entry<ClaveCaja, long[]> entrada : dia.entrySet()) {
+            long[] acumulado = entrada.getValue();
+            if (acumulado[CANTIDAD_SERVICIOS] == 0 && acumulado[CANTIDAD_VENTAS] == 0
+                    && acumulado[SERVICIOS] == 0 && acumulado[VENTAS] == 0) {
+                continue;
+            }
+            ClaveCaja clave = entrada.getKey();
+            sumar(porMetodo.computeIfAbsent(clave.metodoPago, k -> new long[4]), acumulado);
+            sumar(porBarbero.computeIfAbsent(clave.barberoId, k -> new long[4]), acumulado);
+            sumar(total, acumulado);
+            detalle.add(crearTotal(clave.metodoPago, clave.barberoId, nombres.get(clave.barberoId), acumulado));
+        }
+        detalle.sort(Comparator.comparing(TotalCajaDTO::getBarberoId).thenComparing(TotalCajaDTO::getMetodoPago));
+
+        List<TotalCajaDTO> totalesMetodo = new ArrayList<>();
+        porMetodo.forEach((metodo, acumulado) -> totalesMetodo.add(crearTotal(metodo, null, null, acumulado)));
+        List<TotalCajaDTO> totalesBarbero = new ArrayList<>();
+        porBarbero.forEach((barberoId, acumulado) ->
+                totalesBarbero.add(crearTotal(null, barberoId, nombres.get(barberoId), acumulado)));
+
+        CierreCajaDTO cierre = new CierreCajaDTO();
+        cierre.setFecha(fecha);
+        cierre.setTotalServicios(desdeCentavos(total[SERVICIOS]));
+        cierre.setCantidadServicios((int) total[CANTIDAD_SERVICIOS]);
+        cierre.setTotalVentas(desdeCentavos(total[VENTAS]));
+        cierre.setCantidadVentas((int) total[CANTIDAD_VENTAS]);
+        cierre.setTotalGeneral(desdeCentavos(total[SERVICIOS] + total[VENTAS]));
+        cierre.setPorMetodoPago(totalesMetodo);
+        cierre.setPorBarbero(totalesBarbero);
+        cierre.setDetalle(detalle);
+        return cierre;
+    }
+
+    private static TotalCajaDTO crearTotal(String metodoPago, Long barberoId, String barberoNombre, long[] acumulado) {
+        TotalCajaDTO dto = new TotalCajaDTO();
+        dto.setMetodoPago(metodoPago);
+        dto.setBarberoId(barberoId);
+        dto.setBarberoNombre(barberoNombre);
+        dto.setTotalServicios(desdeCentavos(acumulado[SERVICIOS]));
+        dto.setCantidadServicios((int) acumulado[CANTIDAD_SERVICIOS]);
+        dto.setTotalVentas(desdeCentavos(acumulado[VENTAS]));
+        dto.setCantidadVentas((int) acumulado[CANTIDAD_VENTAS]);
+        dto.setTotal(desdeCentavos(acumulado[SERVICIOS] + acumulado[VENTAS]));
+        return dto;
+    }
+
+    private static void sumar(long[] destino, long[] origen) {
+        for (int i = 0; i < destino.length; i++) {
+            destino[i] += origen[i];
+        }
+    }
+
+    private static long aCentavos(BigDecimal monto) {
+        return monto.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal desdeCentavos(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    /**
+     * Llave del acumulado en memoria (barbero, método de pago).
+     */
+    private static final class ClaveCaja {
+        private final Long barberoId;
+        private final String metodoPago;
+
+        ClaveCaja(Long barberoId, String metodoPago) {
+            this.barberoId = barberoId;
+            this.metodoPago = metodoPago;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClaveCaja)) return false;
+            ClaveCaja that = (ClaveCaja) o;
+            return Objects.equals(barberoId, that.barberoId) && Objects.equals(metodoPago, that.metodoPago);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(barberoId, metodoPago);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.papusbarbershop.service;
 
 import com.papusbarbershop.dto.*;
 import com.papusbarbershop.entity.*;
+import com.papusbarbershop.exception.ConflictoVersionException;
 import com.papusbarbershop.exception.RecursoNoEncontradoException;
 import com.papusbarbershop.exception.ValidacionException;
 import com.papusbarbershop.repository.*;
@@ -9,13 +10,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -46,6 +47,12 @@ public class CitaService {
     @Autowired
     private EmailAsyncService emailAsyncService;
 
+    @Autowired
+    private ReintentoOptimista reintentoOptimista;
+
+    @Autowired
+    private RecordatorioCitaService recordatorioCitaService;
+
     /**
      * Crea una nueva cita con validaciones de disponibilidad.
      */
@@ -82,27 +89,9 @@ public class CitaService {
         // la validación se hace en validarDisponibilidad() que excluye citas completadas/canceladas)
         Cita citaGuardada = citaRepository.save(cita);
 
-        // Enviar 3 correos de forma ASÍNCRONA: cliente, barbero y admin
-        DateTimeFormatter fechaFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        DateTimeFormatter horaFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        
-        logger.info("Preparando envío ASÍNCRONO de correos (cliente, barbero, admin). Correos cliente: {}", 
-                citaCreateDTO.getCorreosConfirmacion());
-        
-        emailAsyncService.enviarConfirmacionCitaAsync(
-                citaCreateDTO.getCorreosConfirmacion(),
-                citaCreateDTO.getNombreCliente(),
-                citaCreateDTO.getCorreoCliente(),
-                citaCreateDTO.getTelefonoCliente(),
-                citaCreateDTO.getFecha().format(fechaFormatter),
-                citaCreateDTO.getHora().format(horaFormatter),
-                barbero.getNombre(),
-                barbero.getCorreo(),
-                tipoCorte.getNombre(),
-                citaCreateDTO.getComentarios()
-        );
-        
-        logger.info("Tarea de envío de correos enviada al pool asíncrono.");
+        // Encolar los correos en esta misma transacción (cliente, barbero y admin); se envían al confirmarse
+        emailAsyncService.encolarCorreosCita(citaGuardada, citaCreateDTO.getCorreosConfirmacion());
+        recordatorioCitaService.programarAlConfirmar(citaGuardada, true);
 
         return convertirADTO(citaGuardada);
     }
@@ -487,17 +476,23 @@ public class CitaService {
 
     /**
      * Cancela una cita.
+     * Se ejecuta en su propia transacción y se reintenta ante un conflicto de versión:
+     * el estado se vuelve a validar con los datos más recientes en cada intento.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void cancelarCita(Long id) {
-        Cita cita = citaRepository.findById(id)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Cita no encontrada con ID: " + id));
-        
-        if ("CANCELADA".equals(cita.getEstado())) {
-            throw new ValidacionException("La cita ya está cancelada");
-        }
+        reintentoOptimista.ejecutar("cancelar cita " + id, () -> {
+            Cita cita = citaRepository.findById(id)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Cita no encontrada con ID: " + id));
 
-        cita.setEstado("CANCELADA");
-        citaRepository.save(cita);
+            if ("CANCELADA".equals(cita.getEstado())) {
+                throw new ValidacionException("La cita ya está cancelada");
+            }
+
+            cita.setEstado("CANCELADA");
+            citaRepository.save(cita);
+        });
+        recordatorioCitaService.cancelar(id);
     }
 
     /**
@@ -506,14 +501,20 @@ public class CitaService {
      * 
      * @param id ID de la cita
      * @param nuevaHora Nueva hora para la cita
+     * @param versionEsperada Versión leída por el cliente (If-Match), o null para no verificarla
      * @return Cita actualizada
      * @throws RecursoNoEncontradoException si no se encuentra la cita
      * @throws ValidacionException si la nueva hora está ocupada o la cita está cancelada/completada
+     * @throws ConflictoVersionException si la cita cambió desde la versión esperada
      */
     @Transactional
-    public CitaDTO actualizarHora(Long id, LocalTime nuevaHora) {
+    public CitaDTO actualizarHora(Long id, LocalTime nuevaHora, Long versionEsperada) {
         Cita cita = citaRepository.findById(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Cita no encontrada con ID: " + id));
+        if (versionEsperada != null && !versionEsperada.equals(cita.getVersion())) {
+            throw new ConflictoVersionException("La cita con ID " + id + " fue modificada por otro usuario " +
+                    "(versión actual " + cita.getVersion() + ", esperada " + versionEsperada + ")");
+        }
         
         // Verificar que la cita no esté cancelada o completada
         if ("CANCELADA".equals(cita.getEstado())) {
@@ -534,10 +535,11 @@ public class CitaService {
             DEFAULT_TIMEZONE
         );
 
-        // Actualizar la hora
+        // Actualizar la hora (flush para detectar aquí el conflicto de versión y devolver la versión nueva)
         cita.setHora(nuevaHora);
-        Cita citaActualizada = citaRepository.save(cita);
-        
+        Cita citaActualizada = citaRepository.saveAndFlush(cita);
+        recordatorioCitaService.programarAlConfirmar(citaActualizada, false);
+
         return convertirADTO(citaActualizada);
     }
 
@@ -549,26 +551,30 @@ public class CitaService {
      * @throws RecursoNoEncontradoException si no se encuentra la cita
      * @throws ValidacionException si la cita ya está cancelada o completada
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CitaDTO completarCita(Long id) {
-        Cita cita = citaRepository.findById(id)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Cita no encontrada con ID: " + id));
-        
-        // Verificar que la cita no esté cancelada
-        if ("CANCELADA".equals(cita.getEstado())) {
-            throw new ValidacionException("No se puede completar una cita cancelada");
-        }
-        
-        // Verificar que la cita no esté ya completada
-        if ("COMPLETADA".equals(cita.getEstado())) {
-            throw new ValidacionException("La cita ya está completada");
-        }
+        CitaDTO completada = reintentoOptimista.ejecutar("completar cita " + id, () -> {
+            Cita cita = citaRepository.findById(id)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Cita no encontrada con ID: " + id));
 
-        // Actualizar el estado a COMPLETADA
-        cita.setEstado("COMPLETADA");
-        Cita citaActualizada = citaRepository.save(cita);
-        
-        return convertirADTO(citaActualizada);
+            // Verificar que la cita no esté cancelada
+            if ("CANCELADA".equals(cita.getEstado())) {
+                throw new ValidacionException("No se puede completar una cita cancelada");
+            }
+
+            // Verificar que la cita no esté ya completada
+            if ("COMPLETADA".equals(cita.getEstado())) {
+                throw new ValidacionException("La cita ya está completada");
+            }
+
+            // Actualizar el estado a COMPLETADA
+            cita.setEstado("COMPLETADA");
+            Cita citaActualizada = citaRepository.saveAndFlush(cita);
+
+            return convertirADTO(citaActualizada);
+        });
+        recordatorioCitaService.cancelar(id);
+        return completada;
     }
 
     /**
@@ -591,6 +597,7 @@ public class CitaService {
         dto.setTelefonoCliente(cita.getTelefonoCliente());
         dto.setComentarios(cita.getComentarios());
         dto.setEstado(cita.getEstado());
+        dto.setVersion(cita.getVersion());
         return dto;
     }
 }
@@ -0,0 +1,227 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.entity.CorreoSaliente;
+import com.papusbarbershop.exception.RecursoNoEncontradoException;
+import com.papusbarbershop.exception.ValidacionException;
+import com.papusbarbershop.repository.CorreoSalienteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Servicio del outbox de correos: encola los correos en la transacción de la operación que los
+ * origina y lleva el estado de cada envío (reintentos con backoff exponencial y estado FALLIDO
+ * cuando se agotan los intentos).
+ */
+@Service
+public class CorreoSalienteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorreoSalienteService.class);
+
+    private static final int MAX_LONGITUD_ERROR = 1000;
+
+    @Autowired
+    private CorreoSalienteRepository correoSalienteRepository;
+
+    @Value("${correo.outbox.bloqueo-segundos:120}")
+    private long bloqueoSegundos;
+
+    @Value("${correo.outbox.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${correo.outbox.reintento-base-segundos:30}")
+    private long reintentoBaseSegundos;
+
+    @Value("${correo.outbox.reintento-max-segundos:3600}")
+    private long reintentoMaxSegundos;
+
+    /**
+     * Encola un correo en la transacción actual (o en una nueva si no hay ninguna).
+     *
+     * @param claveIdempotencia Clave única del correo (el mismo correo encolado dos veces se ignora)
+     * @param destinatario Correo del destinatario
+     * @param asunto Asunto del correo
+     * @param html Cuerpo HTML del correo
+     * @return true si se encoló, false si ya estaba encolado
+     */
+    @Transactional
+    public boolean encolar(String claveIdempotencia, String destinatario, String asunto, String html) {
+        return correoSalienteRepository.encolar(claveIdempotencia, destinatario.trim(), asunto, html,
+                LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Reclama un lote de correos pendientes para enviarlos. Cada correo reclamado cuenta un
+     * intento y su próximo intento se aplaza el tiempo de bloqueo: si la instancia se detiene
+     * durante el envío, el correo vuelve a estar disponible al vencer ese plazo.
+     *
+     * @param limite Cantidad máxima de correos
+     * @return Correos reclamados
+     */
+    @Transactional
+    public List<CorreoSaliente> reclamar(int limite) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<CorreoSaliente> correos = correoSalienteRepository.reclamarPendientes(ahora, limite);
+        for (CorreoSaliente correo : correos) {
+            correo.setIntentos(correo.getIntentos() + 1);
+            correo.setProximoIntento(ahora.plusSeconds(bloqueoSegundos));
+        }
+        return correos;
+    }
+
+    /**
+     * Registra el lote de Resend en que se enviarán los correos. Se confirma antes de enviar el
+     * lote, para que un reintento reenvíe exactamente el mismo lote con la misma clave.
+     *
+     * @param ids IDs de los correos
+     * @param claveLote Clave de idempotencia del lote
+     */
+    @Transactional
+    public void asignarLote(Collection<Long> ids, String claveLote) {
+        for (CorreoSaliente correo : correoSalienteRepository.findAllById(ids)) {
+            correo.setClaveLote(claveLote);
+        }
+    }
+
+    /**
+     * Obtiene todos los correos de un lote de Resend, en el orden en que se enviaron.
+     *
+     * @param claveLote Clave de idempotencia del lote
+     */
+    @Transactional(readOnly = true)
+    public List<CorreoSaliente> obtenerLote(String claveLote) {
+        return correoSalienteRepository.findByClaveLoteOrderByIdAsc(claveLote);
+    }
+
+    /**
+     * Marca un correo como enviado.
+     *
+     * @param id ID del correo
+     * @param proveedorId ID asignado por el proveedor
+     */
+    @Transactional
+    public void registrarEnvio(Long id, String proveedorId) {
+        correoSalienteRepository.findById(id).ifPresent(correo -> {
+            correo.setEstado(CorreoSaliente.ESTADO_ENVIADO);
+            correo.setProveedorId(proveedorId);
+            correo.setEnviadoEn(LocalDateTime.now());
+            correo.setUltimoError(null);
+        });
+    }
+
+    /**
+     * Marca varios correos como enviados en una sola transacción.
+     *
+     * @param proveedorIds ID del correo → ID asignado por el proveedor
+     */
+    @Transactional
+    public void registrarEnvios(Map<Long, String> proveedorIds) {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (CorreoSaliente correo : correoSalienteRepository.findAllById(proveedorIds.keySet())) {
+            correo.setEstado(CorreoSaliente.ESTADO_ENVIADO);
+            correo.setProveedorId(proveedorIds.get(correo.getId()));
+            correo.setEnviadoEn(ahora);
+            correo.setUltimoError(null);
+        }
+    }
+
+    /**
+     * Aplaza correos reclamados sin contar el intento: no llegaron a enviarse porque el
+     * proveedor limitó la tasa de envío.
+     *
+     * @param ids IDs de los correos
+     * @param segundos Segundos hasta el próximo intento
+     */
+    @Transactional
+    public void aplazar(Collection<Long> ids, long segundos) {
+        LocalDateTime proximoIntento = LocalDateTime.now().plusSeconds(segundos);
+        for (CorreoSaliente correo : correoSalienteRepository.findAllById(ids)) {
+            correo.setIntentos(Math.max(0, correo.getIntentos() - 1));
+            correo.setProximoIntento(proximoIntento);
+        }
+    }
+
+    /**
+     * Registra un envío fallido. Si el error es reintentable y quedan intentos, el correo se
+     * reprograma con backoff exponencial (con variación aleatoria para no sincronizar reintentos);
+     * si no, pasa a FALLIDO.
+     *
+     * @param id ID del correo
+     * @param error Descripción del error
+     * @param reintentable false si el proveedor rechazó el correo (reintentar no cambiaría el resultado)
+     * @return true si el correo pasó a FALLIDO
+     */
+    @Transactional
+    public boolean registrarFallo(Long id, String error, boolean reintentable) {
+        CorreoSaliente correo = correoSalienteRepository.findById(id).orElse(null);
+        if (correo == null) {
+            return false;
+        }
+        correo.setUltimoError(error != null && error.length() > MAX_LONGITUD_ERROR
+                ? error.substring(0, MAX_LONGITUD_ERROR) : error);
+        if (!reintentable || correo.getIntentos() >= maxIntentos) {
+            correo.setEstado(CorreoSaliente.ESTADO_FALLIDO);
+            logger.error("Correo {} a {} marcado como FALLIDO tras {} intentos: {}", correo.getId(),
+                    correo.getDestinatario(), correo.getIntentos(), error);
+            return true;
+        }
+        long espera = Math.min(reintentoMaxSegundos, reintentoBaseSegundos << Math.min(correo.getIntentos() - 1, 20));
+        espera = Math.max(1, (long) (espera * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+        correo.setProximoIntento(LocalDateTime.now().plusSeconds(espera));
+        logger.warn("Envío del correo {} a {} falló (intento {}), se reintentará en {} s: {}", correo.getId(),
+                correo.getDestinatario(), correo.getIntentos(), espera, error);
+        return false;
+    }
+
+    /**
+     * Obtiene los correos en estado FALLIDO más recientes.
+     *
+     * @param limite Cantidad máxima de correos
+     */
+    @Transactional(readOnly = true)
+    public List<CorreoSaliente> obtenerFallidos(int limite) {
+        return correoSalienteRepository.findByEstadoOrderByCreadoEnDesc(CorreoSaliente.ESTADO_FALLIDO,
+                PageRequest.of(0, limite));
+    }
+
+    /**
+     * Devuelve un correo FALLIDO a la cola con los intentos reiniciados.
+     *
+     * @param id ID del correo
+     * @throws RecursoNoEncontradoException si el correo no existe
+     * @throws ValidacionException si el correo no está en estado FALLIDO
+     */
+    @Transactional
+    public void reintentar(Long id) {
+        CorreoSaliente correo = correoSalienteRepository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Correo no encontrado con ID: " + id));
+        if (!CorreoSaliente.ESTADO_FALLIDO.equals(correo.getEstado())) {
+            throw new ValidacionException("Sólo se pueden reintentar correos en estado FALLIDO");
+        }
+        correo.setEstado(CorreoSaliente.ESTADO_PENDIENTE);
+        correo.setIntentos(0);
+        // Reintento manual: se envía de nuevo fuera de su lote original
+        correo.setClaveLote(null);
+        correo.setProximoIntento(LocalDateTime.now());
+    }
+
+    /**
+     * Elimina los correos enviados antes de la fecha indicada.
+     *
+     * @return Cantidad de correos eliminados
+     */
+    @Transactional
+    public int depurarEnviados(LocalDateTime limite) {
+        return correoSalienteRepository.eliminarEnviadosAntesDe(limite);
+    }
+}
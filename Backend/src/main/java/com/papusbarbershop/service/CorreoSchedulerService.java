@@ -0,0 +1,87 @@
+package com.papusbarbershop.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio programado que envía los resúmenes de citas al personal según correo.resumen.modo y
+ * recarga los recordatorios de citas que entran al horizonte de correo.recordatorio.horizonte-horas.
+ */
+@Service
+public class CorreoSchedulerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorreoSchedulerService.class);
+
+    @Autowired
+    private ResumenPersonalService resumenPersonalService;
+
+    @Autowired
+    private RecordatorioCitaService recordatorioCitaService;
+
+    @Value("${correo.resumen.modo:inmediato}")
+    private String modoResumen;
+
+    @Value("${correo.resumen.agenda-hora:7}")
+    private int horaAgenda;
+
+    @Value("${correo.resumen.zona-horaria:America/Guatemala}")
+    private String zonaResumen;
+
+    /**
+     * Modo intervalo: envía cada intervalo un resumen por destinatario con las citas nuevas.
+     */
+    @Scheduled(fixedDelayString = "${correo.resumen.intervalo-minutos:30}",
+            initialDelayString = "${correo.resumen.intervalo-minutos:30}", timeUnit = TimeUnit.MINUTES)
+    public void enviarResumenes() {
+        if (!EmailAsyncService.MODO_INTERVALO.equalsIgnoreCase(modoResumen)) {
+            return;
+        }
+        try {
+            resumenPersonalService.enviarResumenesPendientes();
+        } catch (Exception e) {
+            logger.error("Error al enviar los resúmenes de citas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Modo agenda: a la hora configurada envía la agenda del día. Se ejecuta cada hora en la zona
+     * horaria de la barbería y sólo actúa en la hora de la agenda.
+     */
+    @Scheduled(cron = "0 0 * * * *", zone = "${correo.resumen.zona-horaria:America/Guatemala}")
+    public void enviarAgendaDelDia() {
+        if (!EmailAsyncService.MODO_AGENDA.equalsIgnoreCase(modoResumen)) {
+            return;
+        }
+        ZonedDateTime ahora = ZonedDateTime.now(ZoneId.of(zonaResumen));
+        if (ahora.getHour() != horaAgenda) {
+            return;
+        }
+        try {
+            resumenPersonalService.enviarAgenda(ahora.toLocalDate());
+        } catch (Exception e) {
+            logger.error("Error al enviar la agenda del día: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recarga los recordatorios de citas: incorpora las citas que entraron al horizonte desde la
+     * última carga (el envío de cada recordatorio no depende de esta tarea).
+     */
+    @Scheduled(fixedDelayString = "${correo.recordatorio.recarga-horas:12}",
+            initialDelayString = "${correo.recordatorio.recarga-horas:12}", timeUnit = TimeUnit.HOURS)
+    public void recargarRecordatorios() {
+        try {
+            recordatorioCitaService.recargar();
+        } catch (Exception e) {
+            logger.error("Error al recargar los recordatorios de citas: {}", e.getMessage(), e);
+        }
+    }
+}
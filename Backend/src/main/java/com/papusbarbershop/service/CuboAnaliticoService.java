@@ -0,0 +1,588 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.ConsultaCuboDTO;
+import com.papusbarbershop.dto.FilaCuboDTO;
+import com.papusbarbershop.dto.ResultadoCuboDTO;
+import com.papusbarbershop.entity.Servicio;
+import com.papusbarbershop.entity.VentaProducto;
+import com.papusbarbershop.exception.ValidacionException;
+import com.papusbarbershop.repository.ServicioRepository;
+import com.papusbarbershop.repository.VentaProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cubo analítico en memoria para servicios y ventas de productos.
+ *
+ * Guarda los hechos en columnas de arreglos primitivos (fecha como día epoch, barbero,
+ * producto, cantidad e importe en centavos) y codifica metodoPago y tipoCorte con
+ * diccionarios, de modo que las consultas de filtro/agrupación/suma se resuelven
+ * recorriendo arreglos sin tocar PostgreSQL.
+ *
+ * Es opcional (propiedad {@code analitica.cubo.habilitado}). Se carga al arrancar la
+ * aplicación y se mantiene al día con las escrituras de ServicioService y
+ * VentaProductoService una vez confirmada la transacción. Las actualizaciones marcan la
+ * fila anterior como eliminada y agregan una nueva; cuando las filas eliminadas superan la
+ * fracción {@code analitica.cubo.compactar-fraccion} del total, las columnas se compactan
+ * en el mismo bloqueo de escritura.
+ */
+@Service
+public class CuboAnaliticoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CuboAnaliticoService.class);
+
+    private static final byte HECHO_SERVICIO = 0;
+    private static final byte HECHO_VENTA = 1;
+    private static final int CAPACIDAD_INICIAL = 1024;
+    // Por debajo de este número de filas eliminadas no vale la pena compactar
+    private static final int MIN_ELIMINADAS_COMPACTAR = 256;
+
+    /**
+     * Dimensiones por las que se puede agrupar una consulta.
+     */
+    private enum Dimension {
+        HECHO, FECHA, MES, ANIO, BARBERO, PRODUCTO, METODO_PAGO, TIPO_CORTE
+    }
+
+    @Autowired
+    private ServicioRepository servicioRepository;
+
+    @Autowired
+    private VentaProductoRepository ventaProductoRepository;
+
+    @Value("${analitica.cubo.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${analitica.cubo.compactar-fraccion:0.25}")
+    private double fraccionCompactar;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ==================== COLUMNAS ====================
+    private byte[] hecho = new byte[CAPACIDAD_INICIAL];
+    private int[] fecha = new int[CAPACIDAD_INICIAL];
+    private long[] barbero = new long[CAPACIDAD_INICIAL];
+    private long[] producto = new long[CAPACIDAD_INICIAL];
+    private int[] cantidad = new int[CAPACIDAD_INICIAL];
+    private long[] centavos = new long[CAPACIDAD_INICIAL];
+    private int[] metodoPago = new int[CAPACIDAD_INICIAL];
+    private int[] tipoCorte = new int[CAPACIDAD_INICIAL];
+    private final BitSet eliminadas = new BitSet();
+    private int filas;
+    private int totalEliminadas;
+
+    private final Diccionario diccionarioMetodoPago = new Diccionario();
+    private final Diccionario diccionarioTipoCorte = new Diccionario();
+    private final Map<Long, Integer> filaPorServicio = new HashMap<>();
+    private final Map<Long, Integer> filaPorVenta = new HashMap<>();
+    private volatile boolean cargado = false;
+
+    /**
+     * Carga el cubo al arrancar la aplicación, si está habilitado.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        if (!habilitado) {
+            logger.info("Cubo analítico deshabilitado (analitica.cubo.habilitado=false)");
+            return;
+        }
+        recargar();
+    }
+
+    /**
+     * Reconstruye el cubo completo desde la base de datos.
+     * Se mantiene el bloqueo de escritura durante la carga para que las escrituras
+     * concurrentes se apliquen después sobre el cubo ya cargado.
+     */
+    public void recargar() {
+        verificarHabilitado();
+        long inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            limpiar();
+            for (Object[] fila : servicioRepository.findHechosAnaliticos()) {
+                agregarServicio((Long) fila[0], (LocalDate) fila[1], (Long) fila[2],
+                        (String) fila[3], (String) fila[4], (BigDecimal) fila[5]);
+            }
+            for (Object[] fila : ventaProductoRepository.findHechosAnaliticos()) {
+                agregarVenta((Long) fila[0], (LocalDate) fila[1], (Long) fila[2], (Long) fila[3],
+                        (Integer) fila[4], (BigDecimal) fila[5], (String) fila[6]);
+            }
+            cargado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Cubo analítico cargado: {} filas en {} ms", filas, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // ==================== ESCRITURAS ====================
+
+    /**
+     * Registra (o reemplaza) un servicio en el cubo una vez confirmada la transacción actual.
+     */
+    public void registrarServicio(Servicio servicio) {
+        if (!habilitado) {
+            return;
+        }
+        Long id = servicio.getId();
+        LocalDate fechaServicio = servicio.getFecha();
+        Long barberoId = servicio.getBarbero().getId();
+        String tipo = servicio.getTipoCorte();
+        String metodo = servicio.getMetodoPago();
+        BigDecimal precio = servicio.getPrecio();
+        ejecutarTrasCommit(() -> {
+            eliminarFila(filaPorServicio.remove(id));
+            agregarServicio(id, fechaServicio, barberoId, tipo, metodo, precio);
+        });
+    }
+
+    /**
+     * Registra (o reemplaza) una venta en el cubo una vez confirmada la transacción actual.
+     */
+    public void registrarVenta(VentaProducto venta) {
+        if (!habilitado) {
+            return;
+        }
+        Long id = venta.getId();
+        LocalDate fechaVenta = venta.getFecha();
+        Long barberoId = venta.getBarbero().getId();
+        Long productoId = venta.getProducto() != null ? venta.getProducto().getId() : null;
+        Integer unidades = venta.getCantidad();
+        BigDecimal importe = venta.getImporte();
+        String metodo = venta.getMetodoPago();
+        ejecutarTrasCommit(() -> {
+            eliminarFila(filaPorVenta.remove(id));
+            agregarVenta(id, fechaVenta, barberoId, productoId, unidades, importe, metodo);
+        });
+    }
+
+    /**
+     * Elimina un servicio del cubo una vez confirmada la transacción actual.
+     */
+    public void eliminarServicio(Long id) {
+        if (habilitado) {
+            ejecutarTrasCommit(() -> eliminarFila(filaPorServicio.remove(id)));
+        }
+    }
+
+    /**
+     * Elimina una venta del cubo una vez confirmada la transacción actual.
+     */
+    public void eliminarVenta(Long id) {
+        if (habilitado) {
+            ejecutarTrasCommit(() -> eliminarFila(filaPorVenta.remove(id)));
+        }
+    }
+
+    private void ejecutarTrasCommit(Runnable cambio) {
+        Runnable conBloqueo = () -> {
+            lock.writeLock().lock();
+            try {
+                cambio.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    conBloqueo.run();
+                }
+            });
+        } else {
+            conBloqueo.run();
+        }
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Ejecuta una consulta de filtro/agrupación/suma sobre el cubo.
+     *
+     * @param consulta Filtros y dimensiones de agrupación
+     * @return Grupos resultantes ordenados por total descendente
+     */
+    public ResultadoCuboDTO consultar(ConsultaCuboDTO consulta) {
+        verificarHabilitado();
+        if (!cargado) {
+            throw new ValidacionException("El cubo analítico aún se está cargando");
+        }
+        Dimension[] dimensiones = parsearDimensiones(consulta.getAgruparPor());
+        int fechaMin = consulta.getFechaInicio() != null ? (int) consulta.getFechaInicio().toEpochDay() : Integer.MIN_VALUE;
+        int fechaMax = consulta.getFechaFin() != null ? (int) consulta.getFechaFin().toEpochDay() : Integer.MAX_VALUE;
+        int hechoFiltro = parsearHecho(consulta.getHecho());
+        long[] barberosFiltro = aArregloOrdenado(consulta.getBarberoIds());
+        long[] productosFiltro = aArregloOrdenado(consulta.getProductoIds());
+
+        long inicio = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            boolean[] metodosFiltro = diccionarioMetodoPago.mascara(consulta.getMetodosPago());
+            boolean[] tiposFiltro = diccionarioTipoCorte.mascara(consulta.getTiposCorte());
+
+            Map<ClaveGrupo, long[]> grupos = new HashMap<>();
+            ClaveGrupo sonda = new ClaveGrupo(dimensiones.length);
+            long coincidentes = 0;
+
+            for (int i = eliminadas.nextClearBit(0); i < filas; i = eliminadas.nextClearBit(i + 1)) {
+                int dia = fecha[i];
+                if (dia < fechaMin || dia > fechaMax) {
+                    continue;
+                }
+                if (hechoFiltro >= 0 && hecho[i] != hechoFiltro) {
+                    continue;
+                }
+                if (barberosFiltro != null && Arrays.binarySearch(barberosFiltro, barbero[i]) < 0) {
+                    continue;
+                }
+                if (productosFiltro != null && Arrays.binarySearch(productosFiltro, producto[i]) < 0) {
+                    continue;
+                }
+                if (metodosFiltro != null && (metodoPago[i] < 0 || !metodosFiltro[metodoPago[i]])) {
+                    continue;
+                }
+                if (tiposFiltro != null && (tipoCorte[i] < 0 || !tiposFiltro[tipoCorte[i]])) {
+                    continue;
+                }
+                coincidentes++;
+
+                for (int d = 0; d < dimensiones.length; d++) {
+                    sonda.valores[d] = valorDimension(dimensiones[d], i);
+                }
+                sonda.recalcularHash();
+                long[] acumulado = grupos.get(sonda);
+                if (acumulado == null) {
+                    acumulado = new long[3];
+                    grupos.put(sonda.copia(), acumulado);
+                }
+                acumulado[0]++;
+                acumulado[1] += cantidad[i];
+                acumulado[2] += centavos[i];
+            }
+
+            List<FilaCuboDTO> resultado = new ArrayList<>(grupos.size());
+            for (Map.Entry<ClaveGrupo, long[]> entrada : grupos.entrySet()) {
+                long[] acumulado = entrada.getValue();
+                resultado.add(new FilaCuboDTO(
+                        decodificarGrupo(dimensiones, entrada.getKey()),
+                        acumulado[0],
+                        acumulado[1],
+                        BigDecimal.valueOf(acumulado[2], 2)));
+            }
+            resultado.sort((a, b) -> b.getTotal().compareTo(a.getTotal()));
+
+            ResultadoCuboDTO dto = new ResultadoCuboDTO();
+            dto.setFilas(resultado);
+            dto.setFilasEscaneadas(filas - totalEliminadas);
+            dto.setFilasCoincidentes(coincidentes);
+            dto.setTiempoMs((System.nanoTime() - inicio) / 1_000_000d);
+            return dto;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long valorDimension(Dimension dimension, int fila) {
+        switch (dimension) {
+            case HECHO:
+                return hecho[fila];
+            case FECHA:
+                return fecha[fila];
+            case MES: {
+                LocalDate dia = LocalDate.ofEpochDay(fecha[fila]);
+                return dia.getYear() * 12L + dia.getMonthValue() - 1;
+            }
+            case ANIO:
+                return LocalDate.ofEpochDay(fecha[fila]).getYear();
+            case BARBERO:
+                return barbero[fila];
+            case PRODUCTO:
+                return producto[fila];
+            case METODO_PAGO:
+                return metodoPago[fila];
+            case TIPO_CORTE:
+                return tipoCorte[fila];
+            default:
+                throw new IllegalStateException("Dimensión no soportada: " + dimension);
+        }
+    }
+
+    private Map<String, Object> decodificarGrupo(Dimension[] dimensiones, ClaveGrupo clave) {
+        Map<String, Object> grupo = new LinkedHashMap<>();
+        for (int d = 0; d < dimensiones.length; d++) {
+            long valor = clave.valores[d];
+            Object decodificado;
+            switch (dimensiones[d]) {
+                case HECHO:
+                    decodificado = valor == HECHO_SERVICIO ? "SERVICIO" : "VENTA";
+                    break;
+                case FECHA:
+                    decodificado = LocalDate.ofEpochDay(valor).toString();
+                    break;
+                case MES:
+                    decodificado = String.format("%04d-%02d", valor / 12, valor % 12 + 1);
+                    break;
+                case PRODUCTO:
+                    decodificado = valor != 0 ? valor : null;
+                    break;
+                case METODO_PAGO:
+                    decodificado = diccionarioMetodoPago.valor((int) valor);
+                    break;
+                case TIPO_CORTE:
+                    decodificado = diccionarioTipoCorte.valor((int) valor);
+                    break;
+                default:
+                    decodificado = valor;
+            }
+            grupo.put(dimensiones[d].name(), decodificado);
+        }
+        return grupo;
+    }
+
+    // ==================== ALMACENAMIENTO INTERNO ====================
+
+    private void agregarServicio(Long id, LocalDate fechaServicio, Long barberoId, String tipo,
+                                 String metodo, BigDecimal precio) {
+        int fila = agregarFila(HECHO_SERVICIO, fechaServicio, barberoId, null, 1, precio, metodo);
+        tipoCorte[fila] = diccionarioTipoCorte.codificar(tipo);
+        filaPorServicio.put(id, fila);
+    }
+
+    private void agregarVenta(Long id, LocalDate fechaVenta, Long barberoId, Long productoId,
+                              Integer unidades, BigDecimal importe, String metodo) {
+        int fila = agregarFila(HECHO_VENTA, fechaVenta, barberoId, productoId,
+                unidades != null ? unidades : 0, importe, metodo);
+        tipoCorte[fila] = -1;
+        filaPorVenta.put(id, fila);
+    }
+
+    private int agregarFila(byte tipoHecho, LocalDate dia, Long barberoId, Long productoId,
+                            int unidades, BigDecimal monto, String metodo) {
+        asegurarCapacidad(filas + 1);
+        int fila = filas++;
+        hecho[fila] = tipoHecho;
+        fecha[fila] = (int) dia.toEpochDay();
+        barbero[fila] = barberoId != null ? barberoId : 0L;
+        producto[fila] = productoId != null ? productoId : 0L;
+        cantidad[fila] = unidades;
+        centavos[fila] = monto != null ? monto.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue() : 0L;
+        metodoPago[fila] = diccionarioMetodoPago.codificar(metodo);
+        return fila;
+    }
+
+    private void eliminarFila(Integer fila) {
+        if (fila == null) {
+            return;
+        }
+        eliminadas.set(fila);
+        totalEliminadas++;
+        if (totalEliminadas >= MIN_ELIMINADAS_COMPACTAR && totalEliminadas > filas * fraccionCompactar) {
+            compactar();
+        }
+    }
+
+    /**
+     * Mueve las filas vigentes al inicio de las columnas, en el mismo orden, y reescribe los
+     * índices por id. Se llama con el bloqueo de escritura tomado.
+     */
+    private void compactar() {
+        int[] nuevaFila = new int[filas];
+        int destino = 0;
+        for (int i = eliminadas.nextClearBit(0); i < filas; i = eliminadas.nextClearBit(i + 1)) {
+            hecho[destino] = hecho[i];
+            fecha[destino] = fecha[i];
+            barbero[destino] = barbero[i];
+            producto[destino] = producto[i];
+            cantidad[destino] = cantidad[i];
+            centavos[destino] = centavos[i];
+            metodoPago[destino] = metodoPago[i];
+            tipoCorte[destino] = tipoCorte[i];
+            nuevaFila[i] = destino++;
+        }
+        filaPorServicio.replaceAll((id, fila) -> nuevaFila[fila]);
+        filaPorVenta.replaceAll((id, fila) -> nuevaFila[fila]);
+        logger.debug("Cubo analítico compactado: {} filas eliminadas descartadas, {} vigentes", totalEliminadas, destino);
+        filas = destino;
+        eliminadas.clear();
+        totalEliminadas = 0;
+    }
+
+    private void asegurarCapacidad(int requerida) {
+        if (requerida <= hecho.length) {
+            return;
+        }
+        int capacidad = Math.max(requerida, hecho.length * 2);
+        hecho = Arrays.copyOf(hecho, capacidad);
+        fecha = Arrays.copyOf(fecha, capacidad);
+        barbero = Arrays.copyOf(barbero, capacidad);
+        producto = Arrays.copyOf(producto, capacidad);
+        cantidad = Arrays.copyOf(cantidad, capacidad);
+        centavos = Arrays.copyOf(centavos, capacidad);
+        metodoPago = Arrays.copyOf(metodoPago, capacidad);
+        tipoCorte = Arrays.copyOf(tipoCorte, capacidad);
+    }
+
+    private void limpiar() {
+        filas = 0;
+        eliminadas.clear();
+        totalEliminadas = 0;
+        filaPorServicio.clear();
+        filaPorVenta.clear();
+        diccionarioMetodoPago.limpiar();
+        diccionarioTipoCorte.limpiar();
+        cargado = false;
+    }
+
+    // ==================== UTILIDADES ====================
+
+    private void verificarHabilitado() {
+        if (!habilitado) {
+            throw new ValidacionException("El cubo analítico no está habilitado (analitica.cubo.habilitado)");
+        }
+    }
+
+    private static Dimension[] parsearDimensiones(List<String> agruparPor) {
+        if (agruparPor == null || agruparPor.isEmpty()) {
+            return new Dimension[0];
+        }
+        Dimension[] dimensiones = new Dimension[agruparPor.size()];
+        for (int i = 0; i < dimensiones.length; i++) {
+            try {
+                dimensiones[i] = Dimension.valueOf(agruparPor.get(i).trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new ValidacionException("Dimensión de agrupación no válida: " + agruparPor.get(i)
+                        + ". Valores permitidos: " + Arrays.toString(Dimension.values()));
+            }
+        }
+        return dimensiones;
+    }
+
+    private static int parsearHecho(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return -1;
+        }
+        switch (valor.trim().toUpperCase(Locale.ROOT)) {
+            case "SERVICIO":
+                return HECHO_SERVICIO;
+            case "VENTA":
+                return HECHO_VENTA;
+            default:
+                throw new ValidacionException("Tipo de hecho no válido: " + valor + ". Valores permitidos: SERVICIO, VENTA");
+        }
+    }
+
+    private static long[] aArregloOrdenado(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        long[] arreglo = ids.stream().filter(id -> id != null).mapToLong(Long::longValue).toArray();
+        Arrays.sort(arreglo);
+        return arreglo;
+    }
+
+    /**
+     * Diccionario que asigna un código entero a cada valor distinto de una columna de texto.
+     * El valor null se codifica como -1.
+     */
+    private static final class Diccionario {
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final List<String> valores = new ArrayList<>();
+
+        int codificar(String valor) {
+            if (valor == null) {
+                return -1;
+            }
+            Integer codigo = codigos.get(valor);
+            if (codigo == null) {
+                codigo = valores.size();
+                valores.add(valor);
+                codigos.put(valor, codigo);
+            }
+            return codigo;
+        }
+
+        String valor(int codigo) {
+            return codigo >= 0 ? valores.get(codigo) : null;
+        }
+
+        /**
+         * Convierte una lista de valores de filtro en una máscara indexada por código.
+         * Retorna null si no hay filtro.
+         */
+        boolean[] mascara(List<String> filtro) {
+            if (filtro == null || filtro.isEmpty()) {
+                return null;
+            }
+            boolean[] mascara = new boolean[valores.size()];
+            for (String valor : filtro) {
+                Integer codigo = codigos.get(valor);
+                if (codigo != null) {
+                    mascara[codigo] = true;
+                }
+            }
+            return mascara;
+        }
+
+        void limpiar() {
+            codigos.clear();
+            valores.clear();
+        }
+    }
+
+    /**
+     * Clave de agrupación compuesta por los valores codificados de cada dimensión.
+     * Se reutiliza una instancia como sonda durante el recorrido y sólo se copia
+     * cuando aparece un grupo nuevo.
+     */
+    private static final class ClaveGrupo {
+        private final long[] valores;
+        private int hash;
+
+        ClaveGrupo(int dimensiones) {
+            this.valores = new long[dimensiones];
+        }
+
+        void recalcularHash() {
+            hash = Arrays.hashCode(valores);
+        }
+
+        ClaveGrupo copia() {
+            ClaveGrupo copia = new ClaveGrupo(valores.length);
+            System.arraycopy(valores, 0, copia.valores, 0, valores.length);
+            copia.hash = hash;
+            return copia;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            return otro instanceof ClaveGrupo && Arrays.equals(valores, ((ClaveGrupo) otro).valores);
+        }
+    }
+}
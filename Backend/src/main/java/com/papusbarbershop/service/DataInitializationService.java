@@ -36,6 +36,18 @@ public class DataInitializationService implements CommandLineRunner {
     @Autowired
     private HorarioService horarioService;
 
+    @Autowired
+    private CierreCajaService cierreCajaService;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private VelocidadVentaService velocidadVentaService;
+
+    @Autowired
+    private ProductoImagenService productoImagenService;
+
     @Autowired
     private EntityManager entityManager;
 
@@ -50,6 +62,10 @@ public class DataInitializationService implements CommandLineRunner {
         initializeBarberoUser();
         initializeCesiaUser();
         desactivarHorariosPasados();
+        inicializarCierreCaja();
+        inicializarLibroInventario();
+        inicializarVelocidadesVenta();
+        inicializarReferenciasImagenes();
         logger.info("Inicialización de datos completada.");
     }
     
@@ -200,6 +216,54 @@ public class DataInitializationService implements CommandLineRunner {
         }
     }
 
+    /**
+     * Reconstruye los acumulados del cierre de caja si aún no existen y precarga el día actual.
+     */
+    private void inicializarCierreCaja() {
+        try {
+            cierreCajaService.inicializar();
+        } catch (Exception e) {
+            logger.error("Error al inicializar el cierre de caja: {}", e.getMessage(), e);
+            // No lanzar la excepción para que la aplicación pueda iniciar
+        }
+    }
+
+    /**
+     * Registra el saldo inicial en el libro de inventario de los productos que aún no tienen movimientos.
+     */
+    private void inicializarLibroInventario() {
+        try {
+            inventarioService.registrarSaldosIniciales();
+        } catch (Exception e) {
+            logger.error("Error al inicializar el libro de inventario: {}", e.getMessage(), e);
+            // No lanzar la excepción para que la aplicación pueda iniciar
+        }
+    }
+
+    /**
+     * Carga las velocidades de venta de los productos para las alertas de stock bajo.
+     */
+    private void inicializarVelocidadesVenta() {
+        try {
+            velocidadVentaService.inicializar();
+        } catch (Exception e) {
+            logger.error("Error al inicializar las velocidades de venta: {}", e.getMessage(), e);
+            // No lanzar la excepción para que la aplicación pueda iniciar
+        }
+    }
+
+    /**
+     * Registra las referencias de imagen versionadas de los productos existentes que aún no tienen una.
+     */
+    private void inicializarReferenciasImagenes() {
+        try {
+            productoImagenService.registrarExistentes();
+        } catch (Exception e) {
+            logger.error("Error al inicializar las referencias de imágenes: {}", e.getMessage(), e);
+            // No lanzar la excepción para que la aplicación pueda iniciar
+        }
+    }
+
     /**
      * Inicializa el usuario administrador por defecto.
      * Si el usuario 'admin' no existe, lo crea con la contraseña 'admin123'.
@@ -0,0 +1,448 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.entity.CorreoSaliente;
+import com.resend.Resend;
+import com.resend.core.exception.ResendException;
+import com.resend.core.net.RequestOptions;
+import com.resend.services.batch.model.BatchEmail;
+import com.resend.services.batch.model.BatchError;
+import com.resend.services.batch.model.CreateBatchEmailsResponse;
+import com.resend.services.emails.model.CreateEmailOptions;
+import com.resend.services.emails.model.CreateEmailResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Servicio que envía con Resend los correos del outbox ({@link CorreoSalienteService}).
+ *
+ * Los correos se reclaman por lotes y los que se envían por primera vez van en una sola petición
+ * a la API de lotes de Resend (hasta 100 correos). Las peticiones pasan por un limitador de tasa (token bucket)
+ * ajustado a la cuota del proveedor; si aun así el proveedor responde 429, el lote se aplaza sin
+ * contar el intento en lugar de fallar. El despacho se ejecuta siempre en el pool de
+ * {@link EmailExecutor}: cuando se encola un correo (al confirmarse la transacción) y, además,
+ * periódicamente para los reintentos y los correos que quedaron pendientes tras un reinicio. El
+ * despacho periódico sólo lo solicita, porque el limitador espera dormido y el planificador de
+ * Spring tiene un único hilo para todas las tareas programadas.
+ *
+ * Ningún reintento produce un duplicado si la instancia se detiene después de que Resend aceptó
+ * un envío (las claves de idempotencia de Resend duran 24 horas):
+ * - un correo enviado solo lleva su propia clave de idempotencia, y los reintentos de un correo
+ *   que nunca fue parte de un lote se envían también solos con esa clave;
+ * - antes de enviar un lote se guarda su clave en cada correo (clave_lote), y el reintento de
+ *   cualquiera de ellos reenvía exactamente el mismo lote (mismos correos, mismo orden) con la
+ *   misma clave, aunque al reclamarlo lo acompañen otros correos.
+ */
+@Service
+public class DespachadorCorreoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DespachadorCorreoService.class);
+
+    // Máximo de correos por petición a la API de lotes de Resend
+    private static final int MAX_CORREOS_POR_LOTE = 100;
+
+    @Autowired
+    private CorreoSalienteService correoSalienteService;
+
+    @Autowired
+    private EmailExecutor emailExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${resend.api-key:}")
+    private String resendApiKey;
+
+    @Value("${resend.from.email:Citas Papus BarberShop <citas@papusbarbershop.com>}")
+    private String emailFrom;
+
+    @Value("${correo.outbox.lote:20}")
+    private int tamanoLote;
+
+    @Value("${correo.outbox.retencion-dias:30}")
+    private int retencionDias;
+
+    @Value("${correo.resend.peticiones-por-segundo:2}")
+    private double peticionesPorSegundo;
+
+    @Value("${correo.resend.rafaga:2}")
+    private int rafaga;
+
+    @Value("${correo.resend.espera-limite-segundos:10}")
+    private long esperaLimiteSegundos;
+
+    private Resend resend;
+
+    private LimitadorTasa limitador;
+
+    // Un solo despacho a la vez por instancia; una solicitud durante el despacho lo repite al terminar
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+    private final AtomicBoolean solicitado = new AtomicBoolean(false);
+
+    // Hay una tarea de despacho esperando en el pool de correos
+    private final AtomicBoolean programado = new AtomicBoolean(false);
+
+    private Counter enviados;
+    private Counter reintentos;
+    private Counter fallidos;
+    private Counter aplazados;
+
+    @PostConstruct
+    public void init() {
+        logger.info("=== Validando configuración de Resend ===");
+        if (resendApiKey == null || resendApiKey.isBlank()) {
+            logger.warn("⚠️  RESEND_API_KEY no está configurada. Los correos quedarán pendientes en el outbox.");
+            logger.warn("⚠️  Configura resend.api-key o la variable de entorno RESEND_API_KEY.");
+            resend = null;
+        } else {
+            resend = new Resend(resendApiKey);
+            logger.info("✓ Resend configurado correctamente");
+            logger.info("✓ Email remitente: {}", emailFrom);
+        }
+        logger.info("=== Validación de Resend completada ===");
+
+        enviados = Counter.builder("correo.outbox.envios").tag("resultado", "enviado")
+                .description("Correos del outbox enviados").register(meterRegistry);
+        reintentos = Counter.builder("correo.outbox.envios").tag("resultado", "reintento")
+                .description("Envíos de correo fallidos que se reintentarán").register(meterRegistry);
+        fallidos = Counter.builder("correo.outbox.envios").tag("resultado", "fallido")
+                .description("Correos marcados como FALLIDO").register(meterRegistry);
+        aplazados = Counter.builder("correo.outbox.envios").tag("resultado", "aplazado")
+                .description("Correos aplazados por el límite de tasa del proveedor").register(meterRegistry);
+
+        limitador = new LimitadorTasa(peticionesPorSegundo, rafaga);
+    }
+
+    /**
+     * Solicita un despacho en segundo plano. No bloquea. Las solicitudes se agrupan: hay como
+     * máximo una tarea de despacho esperando en el pool de correos.
+     */
+    public void despertar() {
+        if (resend != null && programado.compareAndSet(false, true)) {
+            boolean aceptada = emailExecutor.ejecutarEnvioAsincrono(() -> {
+                programado.set(false);
+                despachar();
+            });
+            if (!aceptada) {
+                // Pool lleno: el despacho periódico enviará los correos
+                programado.set(false);
+            }
+        }
+    }
+
+    /**
+     * Despacho periódico: reintentos vencidos y correos que no se despacharon al encolarse. Se
+     * delega al pool de correos para no bloquear el hilo del planificador.
+     */
+    @Scheduled(fixedDelayString = "${correo.outbox.intervalo-ms:15000}", initialDelay = 10000)
+    public void despacharProgramado() {
+        despertar();
+    }
+
+    /**
+     * Envía los correos pendientes hasta vaciar la cola de correos vencidos. Si el proveedor
+     * limita la tasa (429), el lote se aplaza y el despacho termina hasta el siguiente sondeo.
+     */
+    public void despachar() {
+        if (resend == null) {
+            return;
+        }
+        solicitado.set(true);
+        while (solicitado.get() && enCurso.compareAndSet(false, true)) {
+            try {
+                solicitado.set(false);
+                int tamano = Math.min(tamanoLote, MAX_CORREOS_POR_LOTE);
+                List<CorreoSaliente> lote;
+                do {
+                    lote = correoSalienteService.reclamar(tamano);
+                    if (!lote.isEmpty() && !enviarLote(lote)) {
+                        return;
+                    }
+                } while (lote.size() == tamano);
+            } finally {
+                enCurso.set(false);
+            }
+        }
+    }
+
+    /**
+     * Envía un lote de correos reclamados, respetando el limitador de tasa:
+     * - los correos de un lote de Resend anterior reenvían ese mismo lote con su clave;
+     * - los reintentos de correos que nunca fueron parte de un lote se envían solos con su clave;
+     * - los correos en su primer intento se envían juntos con la API de lotes (o solos si es uno).
+     *
+     * @return false si el proveedor limitó la tasa y los correos restantes se aplazaron
+     */
+    private boolean enviarLote(List<CorreoSaliente> lote) {
+        Map<String, List<CorreoSaliente>> lotesPrevios = new LinkedHashMap<>();
+        List<List<CorreoSaliente>> peticiones = new ArrayList<>();
+        List<CorreoSaliente> nuevos = new ArrayList<>();
+        for (CorreoSaliente correo : lote) {
+            if (correo.getClaveLote() != null) {
+                lotesPrevios.computeIfAbsent(correo.getClaveLote(), clave -> new ArrayList<>()).add(correo);
+            } else if (correo.getIntentos() > 1) {
+                peticiones.add(List.of(correo));
+            } else {
+                nuevos.add(correo);
+            }
+        }
+        peticiones.addAll(lotesPrevios.values());
+        if (!nuevos.isEmpty()) {
+            nuevos.sort(Comparator.comparing(CorreoSaliente::getId));
+            peticiones.add(nuevos);
+        }
+
+        for (int i = 0; i < peticiones.size(); i++) {
+            if (!enviarPeticion(peticiones.get(i))) {
+                List<CorreoSaliente> restantes = new ArrayList<>();
+                for (List<CorreoSaliente> pendiente : peticiones.subList(i, peticiones.size())) {
+                    restantes.addAll(pendiente);
+                }
+                aplazarPorLimite(restantes);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Envía en una petición correos reclamados: un correo solo (sin lote) o un lote.
+     *
+     * @return false si el proveedor limitó la tasa (los correos quedan sin registrar)
+     */
+    private boolean enviarPeticion(List<CorreoSaliente> correos) {
+        try {
+            limitador.esperar();
+            CorreoSaliente primero = correos.get(0);
+            if (correos.size() == 1 && primero.getClaveLote() == null) {
+                RequestOptions opciones = RequestOptions.builder()
+                        .setIdempotencyKey(primero.getClaveIdempotencia())
+                        .build();
+                CreateEmailResponse response = resend.emails().send(construirCorreo(primero), opciones);
+                correoSalienteService.registrarEnvio(primero.getId(), response.getId());
+                enviados.increment();
+                logger.info("✓ Correo enviado a {} (id: {})", primero.getDestinatario(), response.getId());
+            } else {
+                enviarConApiLotes(correos);
+            }
+            return true;
+        } catch (ResendException e) {
+            if (Integer.valueOf(429).equals(e.getStatusCode())) {
+                return false;
+            }
+            for (CorreoSaliente correo : correos) {
+                registrarFallo(correo, e.getMessage(), esReintentable(e.getStatusCode()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            for (CorreoSaliente correo : correos) {
+                registrarFallo(correo, e.getMessage(), true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Envía varios correos en una sola petición. Con validación permisiva, un correo inválido
+     * no rechaza el lote: el proveedor informa su índice y los demás se envían.
+     *
+     * Si los correos ya tienen clave de lote, se reenvía el lote completo registrado con esa clave
+     * (Resend responde con el resultado original si ya lo había aceptado); si no, la clave se
+     * guarda en los correos antes de enviarlo.
+     *
+     * @param reclamados Correos reclamados: los de un mismo lote anterior, o correos nuevos
+     */
+    private void enviarConApiLotes(List<CorreoSaliente> reclamados) throws ResendException {
+        String claveLote = reclamados.get(0).getClaveLote();
+        List<CorreoSaliente> lote;
+        if (claveLote != null) {
+            lote = correoSalienteService.obtenerLote(claveLote);
+        } else {
+            lote = reclamados;
+            claveLote = claveIdempotenciaLote(lote);
+            List<Long> ids = new ArrayList<>(lote.size());
+            for (CorreoSaliente correo : lote) {
+                ids.add(correo.getId());
+            }
+            correoSalienteService.asignarLote(ids, claveLote);
+        }
+
+        List<CreateEmailOptions> correos = new ArrayList<>(lote.size());
+        for (CorreoSaliente correo : lote) {
+            correos.add(construirCorreo(correo));
+        }
+        RequestOptions opciones = RequestOptions.builder()
+                .setIdempotencyKey(claveLote)
+                .add("x-batch-validation", "permissive")
+                .build();
+        CreateBatchEmailsResponse response = resend.batch().send(correos, opciones);
+
+        Map<Integer, String> errores = new HashMap<>();
+        if (response.getErrors() != null) {
+            for (BatchError error : response.getErrors()) {
+                errores.put(error.getIndex(), error.getMessage());
+            }
+        }
+        // Los IDs devueltos corresponden, en orden, a los correos sin error
+        List<BatchEmail> ids = response.getData() != null ? response.getData() : List.of();
+        Map<Long, String> proveedorIds = new HashMap<>();
+        int siguienteId = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            CorreoSaliente correo = lote.get(i);
+            if (errores.containsKey(i)) {
+                if (!CorreoSaliente.ESTADO_FALLIDO.equals(correo.getEstado())) {
+                    registrarFallo(correo, errores.get(i), false);
+                }
+            } else {
+                String proveedorId = siguienteId < ids.size() ? ids.get(siguienteId++).getId() : null;
+                if (!CorreoSaliente.ESTADO_ENVIADO.equals(correo.getEstado())) {
+                    proveedorIds.put(correo.getId(), proveedorId);
+                }
+            }
+        }
+        correoSalienteService.registrarEnvios(proveedorIds);
+        enviados.increment(proveedorIds.size());
+        logger.info("✓ Lote de {} correos enviado ({} rechazados)", proveedorIds.size(), errores.size());
+    }
+
+    private CreateEmailOptions construirCorreo(CorreoSaliente correo) {
+        return CreateEmailOptions.builder()
+                .from(emailFrom)
+                .to(correo.getDestinatario())
+                .subject(correo.getAsunto())
+                .html(correo.getHtml())
+                .build();
+    }
+
+    /**
+     * Clave de idempotencia de un lote: hash de las claves de sus correos, así el mismo lote
+     * reenviado tras una caída no se duplica.
+     */
+    private String claveIdempotenciaLote(List<CorreoSaliente> lote) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (CorreoSaliente correo : lote) {
+                digest.update(correo.getClaveIdempotencia().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return "lote-" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * El proveedor limitó la tasa: se pausa el limitador y los correos se aplazan sin contar el intento.
+     */
+    private void aplazarPorLimite(List<CorreoSaliente> lote) {
+        limitador.pausar(esperaLimiteSegundos);
+        List<Long> ids = new ArrayList<>(lote.size());
+        for (CorreoSaliente correo : lote) {
+            ids.add(correo.getId());
+        }
+        correoSalienteService.aplazar(ids, esperaLimiteSegundos);
+        aplazados.increment(lote.size());
+        logger.warn("Límite de tasa del proveedor de correo: {} correos aplazados {} s", lote.size(), esperaLimiteSegundos);
+    }
+
+    private void registrarFallo(CorreoSaliente correo, String error, boolean reintentable) {
+        if (correoSalienteService.registrarFallo(correo.getId(), error, reintentable)) {
+            fallidos.increment();
+        } else {
+            reintentos.increment();
+        }
+    }
+
+    /**
+     * Los rechazos del proveedor (4xx) no se reintentan, salvo límite de tasa (429) y conflicto de
+     * idempotencia (409, otra petición con la misma clave en curso).
+     */
+    private boolean esReintentable(Integer status) {
+        return status == null || status == 409 || status == 429 || status >= 500;
+    }
+
+    /**
+     * Elimina diariamente los correos enviados más antiguos que el período de retención.
+     */
+    @Scheduled(cron = "0 15 4 * * *") // Todos los días a las 04:15
+    public void depurarEnviados() {
+        try {
+            int eliminados = correoSalienteService.depurarEnviados(LocalDateTime.now().minusDays(retencionDias));
+            if (eliminados > 0) {
+                logger.info("Outbox de correos: {} correos enviados depurados", eliminados);
+            }
+        } catch (Exception e) {
+            logger.error("Error al depurar el outbox de correos: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Limitador de tasa de tipo token bucket: se acumulan fichas a la tasa configurada hasta
+     * la capacidad de ráfaga, y cada petición al proveedor consume una (esperando si no hay).
+     */
+    static final class LimitadorTasa {
+
+        private final double fichasPorNano;
+        private final double capacidad;
+        private double fichas;
+        private long ultimaRecarga;
+
+        LimitadorTasa(double porSegundo, int capacidad) {
+            this.fichasPorNano = Math.max(porSegundo, 0.001) / 1_000_000_000d;
+            this.capacidad = Math.max(1, capacidad);
+            this.fichas = this.capacidad;
+            this.ultimaRecarga = System.nanoTime();
+        }
+
+        /**
+         * Consume una ficha, esperando lo necesario si no hay disponible.
+         */
+        void esperar() throws InterruptedException {
+            long espera;
+            synchronized (this) {
+                recargar();
+                fichas -= 1;
+                espera = fichas >= 0 ? 0 : (long) (-fichas / fichasPorNano);
+            }
+            if (espera > 0) {
+                TimeUnit.NANOSECONDS.sleep(espera);
+            }
+        }
+
+        /**
+         * Vacía el balde para que la siguiente petición espere al menos los segundos indicados.
+         */
+        synchronized void pausar(long segundos) {
+            recargar();
+            fichas = Math.min(fichas, -segundos * 1_000_000_000d * fichasPorNano);
+        }
+
+        private void recargar() {
+            long ahora = System.nanoTime();
+            fichas = Math.min(capacidad, fichas + (ahora - ultimaRecarga) * fichasPorNano);
+            ultimaRecarga = ahora;
+        }
+    }
+}
@@ -1,253 +1,327 @@
 package com.papusbarbershop.service;
 
-import com.resend.Resend;
-import com.resend.core.exception.ResendException;
-import com.resend.services.emails.model.CreateEmailOptions;
-import com.resend.services.emails.model.CreateEmailResponse;
-import jakarta.annotation.PostConstruct;
+import com.papusbarbershop.dto.AlertaStockDTO;
+import com.papusbarbershop.entity.Cita;
+import com.papusbarbershop.entity.NotificacionPersonal;
+import com.papusbarbershop.repository.CitaRepository;
+import com.papusbarbershop.repository.NotificacionPersonalRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
- * Servicio asíncrono para el envío de correos electrónicos usando Resend.
+ * Servicio para el envío asíncrono de correos electrónicos.
  *
- * Al agendar una cita se envían automáticamente 3 correos:
+ * Los correos no se envían directamente: se encolan en el outbox ({@link CorreoSalienteService})
+ * dentro de la transacción de quien los origina, y {@link DespachadorCorreoService} los envía con
+ * Resend una vez confirmada. Así un correo sólo sale si la operación se guardó, y no se pierde si
+ * la aplicación se reinicia antes de enviarlo.
+ *
+ * Al agendar una cita se encolan automáticamente 3 correos:
  * - Al cliente: confirmación con datos de la cita (fecha, hora, barbero, tipo de corte).
  * - Al barbero seleccionado: notificación de nueva cita con datos del cliente.
  * - Al admin de la barbería: notificación general de nueva cita.
+ * Las notificaciones al barbero y al admin pueden agruparse en resúmenes (correo.resumen.modo).
+ * Antes de cada cita se encola además un recordatorio al cliente ({@link RecordatorioCitaService}).
  */
 @Service
 public class EmailAsyncService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailAsyncService.class);
 
+    public static final String MODO_INTERVALO = "intervalo";
+    public static final String MODO_AGENDA = "agenda";
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Autowired
+    private CorreoSalienteService correoSalienteService;
+
     @Autowired
-    private EmailExecutor emailExecutor;
+    private DespachadorCorreoService despachadorCorreoService;
 
-    @Value("${resend.api-key:}")
-    private String resendApiKey;
+    @Autowired
+    private NotificacionPersonalRepository notificacionPersonalRepository;
 
-    @Value("${resend.from.email:Citas Papus BarberShop <citas@papusbarbershop.com>}")
-    private String emailFrom;
+    @Autowired
+    private PlantillaCorreoService plantillaCorreoService;
+
+    @Autowired
+    private CitaRepository citaRepository;
 
     @Value("${resend.admin.email:}")
     private String adminEmail;
 
-    private Resend resend;
+    /**
+     * Notificaciones de nuevas citas al barbero y al admin: "inmediato" (un correo por cita),
+     * "intervalo" (un resumen cada correo.resumen.intervalo-minutos) o "agenda" (la agenda del
+     * día a la hora correo.resumen.agenda-hora).
+     */
+    @Value("${correo.resumen.modo:inmediato}")
+    private String modoResumen;
+
+    @Value("${correo.resumen.agenda-hora:7}")
+    private int horaAgenda;
 
-    @PostConstruct
-    public void init() {
-        logger.info("=== Validando configuración de Resend ===");
-        if (resendApiKey == null || resendApiKey.isBlank()) {
-            logger.warn("⚠️  RESEND_API_KEY no está configurada. Los correos NO se enviarán.");
-            logger.warn("⚠️  Configura resend.api-key o la variable de entorno RESEND_API_KEY.");
-            resend = null;
-        } else {
-            resend = new Resend(resendApiKey);
-            logger.info("✓ Resend configurado correctamente");
-            logger.info("✓ Email remitente: {}", emailFrom);
-            if (adminEmail == null || adminEmail.isBlank()) {
-                logger.info("  (RESEND_ADMIN_EMAIL no configurado: no se enviará notificación al admin)");
-            } else {
-                logger.info("✓ Email admin para notificaciones: {}", adminEmail);
+    @Value("${correo.resumen.zona-horaria:America/Guatemala}")
+    private String zonaResumen;
+
+    /**
+     * Encola los correos de una nueva cita: la confirmación al cliente y las notificaciones al
+     * barbero y al admin. Debe llamarse dentro de la transacción que guarda la cita; los correos
+     * se envían al confirmarse. Según {@code correo.resumen.modo}, las notificaciones al personal
+     * se envían al momento, se acumulan para un resumen periódico o se omiten porque la cita
+     * aparecerá en la agenda diaria.
+     *
+     * @param cita           Cita guardada
+     * @param correosCliente Lista de correos del cliente (confirmación)
+     */
+    @Transactional
+    public void encolarCorreosCita(Cita cita, List<String> correosCliente) {
+        // Valores y fragmento de datos de la cita: se calculan una vez y se comparten entre los correos
+        Map<String, Object> valores = valoresCita(cita);
+        String barberoCorreo = cita.getBarbero().getCorreo();
+        int encolados = 0;
+
+        // 1. Correo al/los cliente(s): confirmación con datos de la cita
+        Set<String> correosValidos = normalizarCorreos(correosCliente);
+        if (!correosValidos.isEmpty()) {
+            String htmlCliente = plantillaCorreoService.renderizarCorreo("cita-cliente", valores);
+            int indice = 0;
+            for (String to : correosValidos) {
+                if (correoSalienteService.encolar("cita-" + cita.getId() + "-cliente-" + indice++, to,
+                        "Confirmación de Cita - Papus BarberShop", htmlCliente)) {
+                    encolados++;
+                }
             }
         }
-        logger.info("=== Validación de Resend completada ===");
+
+        // 2. y 3. Notificaciones al barbero y al admin, con el mismo fragmento de datos de la cita
+        boolean notificarBarbero = barberoCorreo != null && !barberoCorreo.trim().isEmpty()
+                && !acumularParaResumen(cita, barberoCorreo, NotificacionPersonal.ROL_BARBERO);
+        boolean notificarAdmin = adminEmail != null && !adminEmail.trim().isEmpty()
+                && !acumularParaResumen(cita, adminEmail, NotificacionPersonal.ROL_ADMIN);
+        String datosCita = notificarBarbero || notificarAdmin
+                ? plantillaCorreoService.renderizar("cita-datos", valores) : null;
+
+        if (notificarBarbero) {
+            String htmlBarbero = plantillaCorreoService.renderizarCorreo("cita-personal", Map.of(
+                    "titulo", "Nueva cita asignada",
+                    "introduccion", "Se ha registrado una nueva cita con los siguientes datos del cliente:",
+                    "datosCita", datosCita));
+            if (correoSalienteService.encolar("cita-" + cita.getId() + "-barbero", barberoCorreo,
+                    "Nueva cita asignada - Papus BarberShop", htmlBarbero)) {
+                encolados++;
+            }
+        }
+
+        if (notificarAdmin) {
+            String htmlAdmin = plantillaCorreoService.renderizarCorreo("cita-personal", Map.of(
+                    "titulo", "Nueva cita registrada en el sistema",
+                    "introduccion", "Se ha agendado una nueva cita con los siguientes datos:",
+                    "datosCita", datosCita));
+            if (correoSalienteService.encolar("cita-" + cita.getId() + "-admin", adminEmail,
+                    "Nueva cita registrada - Papus BarberShop", htmlAdmin)) {
+                encolados++;
+            }
+        }
+
+        logger.info("Correos de la cita {} encolados: {}", cita.getId(), encolados);
+        despacharAlConfirmar();
+    }
+
+    /**
+     * Decide si la notificación de una cita al personal se envía al momento o queda para un resumen.
+     *
+     * @return true si la notificación queda para un resumen (no debe enviarse ahora)
+     */
+    private boolean acumularParaResumen(Cita cita, String destinatario, String rol) {
+        if (MODO_INTERVALO.equalsIgnoreCase(modoResumen)) {
+            notificacionPersonalRepository.save(new NotificacionPersonal(destinatario.trim(), rol, cita.getId()));
+            return true;
+        }
+        if (MODO_AGENDA.equalsIgnoreCase(modoResumen)) {
+            // Una cita para hoy agendada después de enviar la agenda del día se notifica al momento
+            ZonedDateTime ahora = ZonedDateTime.now(ZoneId.of(zonaResumen));
+            return cita.getFecha().isAfter(ahora.toLocalDate()) || ahora.getHour() < horaAgenda;
+        }
+        return false;
+    }
+
+    /**
+     * Encola el recordatorio de una cita para el cliente, si la cita sigue activa a la fecha y
+     * hora con que se programó. Se envía a los correos de la confirmación (o al correo del
+     * cliente) con una clave por fecha y hora: si la cita se reprograma, se recuerda la nueva.
+     *
+     * @param citaId ID de la cita
+     * @param fecha  Fecha con que se programó el recordatorio
+     * @param hora   Hora con que se programó el recordatorio
+     * @return true si se encoló algún correo
+     */
+    @Transactional
+    public boolean encolarRecordatorioCita(Long citaId, LocalDate fecha, LocalTime hora) {
+        Cita cita = citaRepository.findById(citaId).orElse(null);
+        if (cita == null || !("PENDIENTE".equals(cita.getEstado()) || "CONFIRMADA".equals(cita.getEstado()))
+                || !fecha.equals(cita.getFecha()) || !hora.equals(cita.getHora())) {
+            return false;
+        }
+        Set<String> correos = normalizarCorreos(cita.getCorreosEnviados() != null
+                ? Arrays.asList(cita.getCorreosEnviados().split(","))
+                : Collections.singletonList(cita.getCorreoCliente()));
+        if (correos.isEmpty()) {
+            return false;
+        }
+        String html = plantillaCorreoService.renderizarCorreo("recordatorio-cita", valoresCita(cita));
+        String clave = "recordatorio-" + citaId + "-" + fecha + "T" + hora + "-";
+        boolean encolado = false;
+        int indice = 0;
+        for (String to : correos) {
+            encolado |= correoSalienteService.encolar(clave + indice++, to,
+                    "Recordatorio de Cita - Papus BarberShop", html);
+        }
+        if (encolado) {
+            logger.info("Recordatorio de la cita {} encolado ({} correos)", citaId, correos.size());
+            despacharAlConfirmar();
+        }
+        return encolado;
     }
 
     /**
-     * Envía los 3 correos de cita de forma ASÍNCRONA: al cliente, al barbero y al admin.
+     * Encola un correo de resumen de citas para un miembro del personal.
      *
-     * @param correosCliente     Lista de correos del cliente (confirmación)
-     * @param nombreCliente      Nombre del cliente
-     * @param correoCliente      Correo principal del cliente (para datos en correo al barbero/admin)
-     * @param telefonoCliente    Teléfono del cliente (opcional)
-     * @param fecha              Fecha de la cita (formateada)
-     * @param hora               Hora de la cita (formateada)
-     * @param barberoNombre      Nombre del barbero
-     * @param barberoCorreo      Correo del barbero (para notificación; puede ser null/vacío)
-     * @param tipoCorteNombre    Nombre del tipo de corte
-     * @param comentarios        Comentarios adicionales
+     * @param claveIdempotencia Clave única del resumen
+     * @param destinatario      Correo del destinatario
+     * @param asunto            Asunto del correo
+     * @param titulo            Título del resumen
+     * @param citas             Citas incluidas, en el orden en que se muestran
+     * @param incluirBarbero    true para mostrar el barbero de cada cita (resumen del admin)
      */
-    public void enviarConfirmacionCitaAsync(List<String> correosCliente, String nombreCliente,
-                                            String correoCliente, String telefonoCliente,
-                                            String fecha, String hora, String barberoNombre,
-                                            String barberoCorreo, String tipoCorteNombre,
-                                            String comentarios) {
-        emailExecutor.ejecutarEnvioAsincrono(() -> {
-            enviarCorreosCita(correosCliente, nombreCliente, correoCliente, telefonoCliente,
-                    fecha, hora, barberoNombre, barberoCorreo, tipoCorteNombre, comentarios);
-        });
-        logger.info("Tarea de envío de correos de cita enviada al pool asíncrono (cliente, barbero, admin).");
+    @Transactional
+    public void encolarResumen(String claveIdempotencia, String destinatario, String asunto, String titulo,
+                               List<Cita> citas, boolean incluirBarbero) {
+        correoSalienteService.encolar(claveIdempotencia, destinatario, asunto,
+                construirCuerpoEmailHtmlResumen(titulo, citas, incluirBarbero));
+        despacharAlConfirmar();
     }
 
     /**
-     * Envía un correo genérico de forma asíncrona.
+     * Encola un correo genérico.
      */
-    public void enviarCorreoAsync(String destinatario, String asunto, String mensaje) {
+    @Transactional
+    public void encolarCorreo(String destinatario, String asunto, String mensaje) {
         if (destinatario == null || destinatario.trim().isEmpty()) {
             logger.warn("No se proporcionó destinatario para el correo");
             return;
         }
-        emailExecutor.ejecutarEnvioAsincrono(() -> enviarCorreoSimple(destinatario, asunto, mensaje));
-        logger.info("Tarea de envío de correo genérico enviada al pool asíncrono. Destinatario: {}", destinatario);
+        String html = plantillaCorreoService.renderizarCorreo("mensaje", Map.of("mensaje", mensaje != null ? mensaje : ""));
+        correoSalienteService.encolar("correo-" + UUID.randomUUID(), destinatario, asunto, html);
+        despacharAlConfirmar();
     }
 
-    private void enviarCorreosCita(List<String> correosCliente, String nombreCliente,
-                                   String correoCliente, String telefonoCliente,
-                                   String fecha, String hora, String barberoNombre,
-                                   String barberoCorreo, String tipoCorteNombre,
-                                   String comentarios) {
-        if (resend == null) {
-            logger.warn("Resend no está configurado. No se enviarán correos.");
+    /**
+     * Encola el resumen de productos con stock bajo. Se encola como máximo uno por día.
+     */
+    @Transactional
+    public void encolarAlertasStock(String destinatario, List<AlertaStockDTO> alertas) {
+        if (destinatario == null || destinatario.trim().isEmpty() || alertas.isEmpty()) {
             return;
         }
-
-        List<String> correosValidos = correosCliente != null
-                ? correosCliente.stream().filter(c -> c != null && !c.trim().isEmpty()).toList()
-                : List.of();
-
-        try {
-            int enviados = 0;
-
-            // 1. Correo al/los cliente(s): confirmación con datos de la cita
-            String htmlCliente = construirCuerpoEmailHtmlCliente(nombreCliente, fecha, hora, barberoNombre, tipoCorteNombre, comentarios);
-            String asuntoCliente = "Confirmación de Cita - Papus BarberShop";
-            for (String to : correosValidos) {
-                if (enviarEmail(to, asuntoCliente, htmlCliente)) {
-                    enviados++;
-                }
-            }
-
-            // 2. Correo al barbero: notificación de nueva cita con datos del cliente
-            if (barberoCorreo != null && !barberoCorreo.trim().isEmpty()) {
-                String htmlBarbero = construirCuerpoEmailHtmlBarbero(nombreCliente, correoCliente, telefonoCliente, fecha, hora, tipoCorteNombre, comentarios);
-                if (enviarEmail(barberoCorreo.trim(), "Nueva cita asignada - Papus BarberShop", htmlBarbero)) {
-                    enviados++;
-                }
-            }
-
-            // 3. Correo al admin: notificación general de nueva cita
-            if (adminEmail != null && !adminEmail.trim().isEmpty()) {
-                String htmlAdmin = construirCuerpoEmailHtmlAdmin(nombreCliente, correoCliente, telefonoCliente, fecha, hora, barberoNombre, tipoCorteNombre, comentarios);
-                if (enviarEmail(adminEmail.trim(), "Nueva cita registrada - Papus BarberShop", htmlAdmin)) {
-                    enviados++;
-                }
-            }
-
-            logger.info("Envío de correos de cita completado. Total enviados: {}", enviados);
-        } catch (Exception e) {
-            logger.error("Error en envío asíncrono de correos de cita: {}", e.getMessage(), e);
+        if (correoSalienteService.encolar("alertas-stock-" + LocalDate.now(), destinatario,
+                "Productos con stock bajo - Papus BarberShop", construirCuerpoEmailHtmlAlertasStock(alertas))) {
+            logger.info("Resumen de stock bajo encolado ({} productos).", alertas.size());
         }
+        despacharAlConfirmar();
     }
 
-    private boolean enviarEmail(String to, String subject, String html) {
-        try {
-            CreateEmailOptions params = CreateEmailOptions.builder()
-                    .from(emailFrom)
-                    .to(to)
-                    .subject(subject)
-                    .html(html)
-                    .build();
-            CreateEmailResponse response = resend.emails().send(params);
-            logger.info("✓ Correo enviado a {} (id: {})", to, response.getId());
-            return true;
-        } catch (ResendException e) {
-            logger.error("✗ Error al enviar correo a {}: {}", to, e.getMessage(), e);
-            return false;
+    /**
+     * Solicita el despacho del outbox cuando se confirme la transacción actual.
+     */
+    private void despacharAlConfirmar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    despachadorCorreoService.despertar();
+                }
+            });
+        } else {
+            despachadorCorreoService.despertar();
         }
     }
 
-    private void enviarCorreoSimple(String destinatario, String asunto, String mensaje) {
-        if (resend == null) {
-            logger.warn("Resend no está configurado. No se enviará el correo.");
-            return;
+    private static Set<String> normalizarCorreos(List<String> correos) {
+        Set<String> correosValidos = new LinkedHashSet<>();
+        if (correos != null) {
+            for (String correo : correos) {
+                if (correo != null && !correo.trim().isEmpty()) {
+                    correosValidos.add(correo.trim().toLowerCase(Locale.ROOT));
+                }
+            }
         }
-        String html = "<html><body style=\"font-family: Arial, sans-serif;\"><p>" + escapeHtml(mensaje) + "</p></body></html>";
-        enviarEmail(destinatario.trim(), asunto, html);
+        return correosValidos;
     }
 
-    private String construirCuerpoEmailHtmlCliente(String nombreCliente, String fecha, String hora,
-                                                   String barberoNombre, String tipoCorteNombre,
-                                                   String comentarios) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"></head><body style=\"font-family: Arial, sans-serif; line-height: 1.6; color: #333;\">");
-        html.append("<div style=\"max-width: 600px; margin: 0 auto; padding: 20px;\">");
-        html.append("<h2 style=\"color: #2c3e50;\">¡Hola ").append(escapeHtml(nombreCliente)).append("! 👋</h2>");
-        html.append("<p style=\"font-size: 18px; color: #27ae60;\">✨ Su cita ha sido confirmada exitosamente ✨</p>");
-        html.append("<div style=\"background-color: #f8f9fa; padding: 20px; border-radius: 5px; margin: 20px 0;\">");
-        html.append("<h3 style=\"color: #2c3e50; margin-top: 0;\">📋 Detalles de la cita:</h3>");
-        html.append("<p><strong>📅 Fecha:</strong> ").append(escapeHtml(fecha)).append("</p>");
-        html.append("<p><strong>🕐 Hora:</strong> ").append(escapeHtml(hora)).append("</p>");
-        html.append("<p><strong>💇 Barbero:</strong> ").append(escapeHtml(barberoNombre)).append("</p>");
-        html.append("<p><strong>✂️ Tipo de Corte:</strong> ").append(escapeHtml(tipoCorteNombre)).append("</p>");
-        if (comentarios != null && !comentarios.trim().isEmpty()) {
-            html.append("<p><strong>💬 Comentarios:</strong> ").append(escapeHtml(comentarios)).append("</p>");
-        }
-        html.append("</div>");
-        html.append("<p style=\"font-size: 16px; color: #2c3e50;\">🎯 Esperamos verle pronto en Papus BarberShop 🎯</p>");
-        html.append("<p>Saludos cordiales,<br>Equipo Papus BarberShop 💈</p>");
-        html.append("</div></body></html>");
-        return html.toString();
-    }
-
-    private String construirCuerpoEmailHtmlBarbero(String nombreCliente, String correoCliente, String telefonoCliente,
-                                                  String fecha, String hora, String tipoCorteNombre, String comentarios) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"></head><body style=\"font-family: Arial, sans-serif; line-height: 1.6; color: #333;\">");
-        html.append("<div style=\"max-width: 600px; margin: 0 auto; padding: 20px;\">");
-        html.append("<h2 style=\"color: #2c3e50;\">Nueva cita asignada</h2>");
-        html.append("<p>Se ha registrado una nueva cita con los siguientes datos del cliente:</p>");
-        html.append("<div style=\"background-color: #f8f9fa; padding: 20px; border-radius: 5px; margin: 20px 0;\">");
-        html.append("<p><strong>Nombre:</strong> ").append(escapeHtml(nombreCliente)).append("</p>");
-        html.append("<p><strong>Correo:</strong> ").append(escapeHtml(correoCliente != null ? correoCliente : "-")).append("</p>");
-        html.append("<p><strong>Teléfono:</strong> ").append(escapeHtml(telefonoCliente != null ? telefonoCliente : "-")).append("</p>");
-        html.append("<p><strong>Fecha:</strong> ").append(escapeHtml(fecha)).append("</p>");
-        html.append("<p><strong>Hora:</strong> ").append(escapeHtml(hora)).append("</p>");
-        html.append("<p><strong>Servicio:</strong> ").append(escapeHtml(tipoCorteNombre)).append("</p>");
-        if (comentarios != null && !comentarios.trim().isEmpty()) {
-            html.append("<p><strong>Comentarios:</strong> ").append(escapeHtml(comentarios)).append("</p>");
-        }
-        html.append("</div>");
-        html.append("<p>Saludos,<br>Papus BarberShop</p>");
-        html.append("</div></body></html>");
-        return html.toString();
+    /**
+     * Valores de una cita para las plantillas de correo.
+     */
+    private Map<String, Object> valoresCita(Cita cita) {
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("nombreCliente", cita.getNombreCliente());
+        valores.put("correoCliente", cita.getCorreoCliente() != null ? cita.getCorreoCliente() : "-");
+        valores.put("telefonoCliente", cita.getTelefonoCliente() != null ? cita.getTelefonoCliente() : "-");
+        valores.put("fecha", cita.getFecha().format(FORMATO_FECHA));
+        valores.put("hora", cita.getHora().format(FORMATO_HORA));
+        valores.put("barbero", cita.getBarbero().getNombre());
+        valores.put("tipoCorte", cita.getTipoCorte().getNombre());
+        valores.put("comentarios", cita.getComentarios());
+        return valores;
     }
 
-    private String construirCuerpoEmailHtmlAdmin(String nombreCliente, String correoCliente, String telefonoCliente,
-                                                String fecha, String hora, String barberoNombre, String tipoCorteNombre, String comentarios) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"></head><body style=\"font-family: Arial, sans-serif; line-height: 1.6; color: #333;\">");
-        html.append("<div style=\"max-width: 600px; margin: 0 auto; padding: 20px;\">");
-        html.append("<h2 style=\"color: #2c3e50;\">Nueva cita registrada en el sistema</h2>");
-        html.append("<p>Se ha agendado una nueva cita con los siguientes datos:</p>");
-        html.append("<div style=\"background-color: #f8f9fa; padding: 20px; border-radius: 5px; margin: 20px 0;\">");
-        html.append("<p><strong>Cliente:</strong> ").append(escapeHtml(nombreCliente)).append("</p>");
-        html.append("<p><strong>Correo cliente:</strong> ").append(escapeHtml(correoCliente != null ? correoCliente : "-")).append("</p>");
-        html.append("<p><strong>Teléfono:</strong> ").append(escapeHtml(telefonoCliente != null ? telefonoCliente : "-")).append("</p>");
-        html.append("<p><strong>Fecha:</strong> ").append(escapeHtml(fecha)).append(" | <strong>Hora:</strong> ").append(escapeHtml(hora)).append("</p>");
-        html.append("<p><strong>Barbero:</strong> ").append(escapeHtml(barberoNombre)).append("</p>");
-        html.append("<p><strong>Servicio:</strong> ").append(escapeHtml(tipoCorteNombre)).append("</p>");
-        if (comentarios != null && !comentarios.trim().isEmpty()) {
-            html.append("<p><strong>Comentarios:</strong> ").append(escapeHtml(comentarios)).append("</p>");
-        }
-        html.append("</div>");
-        html.append("<p>Saludos,<br>Papus BarberShop</p>");
-        html.append("</div></body></html>");
-        return html.toString();
+    private String construirCuerpoEmailHtmlResumen(String titulo, List<Cita> citas, boolean incluirBarbero) {
+        StringBuilder filas = new StringBuilder();
+        for (Cita cita : citas) {
+            Map<String, Object> valores = valoresCita(cita);
+            if (!incluirBarbero) {
+                valores.remove("barbero");
+            }
+            plantillaCorreoService.renderizar("resumen-citas-fila", valores, filas);
+        }
+        return plantillaCorreoService.renderizarCorreo("resumen-citas", Map.of(
+                "titulo", titulo, "incluirBarbero", incluirBarbero, "filas", filas));
     }
 
-    private String escapeHtml(String text) {
-        if (text == null) return "";
-        return text.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#39;");
+    private String construirCuerpoEmailHtmlAlertasStock(List<AlertaStockDTO> alertas) {
+        StringBuilder filas = new StringBuilder();
+        for (AlertaStockDTO alerta : alertas) {
+            Map<String, Object> valores = new HashMap<>();
+            valores.put("producto", alerta.getProductoNombre());
+            valores.put("stock", alerta.getStock());
+            valores.put("velocidadDiaria", alerta.getVelocidadDiaria());
+            valores.put("diasRestantes", alerta.getDiasRestantes() != null ? alerta.getDiasRestantes() : "-");
+            valores.put("cantidadSugerida", alerta.getCantidadSugerida());
+            plantillaCorreoService.renderizar("alertas-stock-fila", valores, filas);
+        }
+        return plantillaCorreoService.renderizarCorreo("alertas-stock", Map.of("filas", filas));
     }
 }
@@ -1,23 +1,45 @@
 package com.papusbarbershop.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clase singleton para gestionar el ExecutorService que maneja el envío asíncrono de correos.
- * 
+ *
  * Esta clase proporciona un pool de hilos reutilizable para ejecutar tareas de envío de correos
  * de forma asíncrona, evitando bloquear las respuestas del servidor.
- * 
+ *
+ * Los correos se guardan antes en el outbox (tabla correos_salientes) y las tareas sólo los
+ * despachan: una tarea descartada o interrumpida al detener la aplicación no pierde correos,
+ * el despacho periódico los envía después.
+ *
  * CARACTERÍSTICAS:
  * - Singleton: una única instancia para toda la aplicación
- * - ExecutorService con pool fijo de hilos
+ * - Pool de hilos acotado con cola limitada (correo.executor.*): si el proveedor de correo no
+ *   responde, las tareas no se acumulan en memoria sin límite
+ * - Política de rechazo configurable cuando la cola está llena: descartar la tarea o ejecutarla
+ *   en el hilo que la envía (backpressure)
+ * - Métricas en /actuator/metrics: executor.* con name=correo (hilos activos, tareas en cola,
+ *   completadas), correo.executor.espera (tiempo en cola), correo.executor.tareas (duración y
+ *   resultado) y correo.executor.rechazadas
  * - Cierre graceful al detener la aplicación
  * - Manejo de excepciones dentro de las tareas asíncronas
  */
@@ -25,72 +47,141 @@ import java.util.concurrent.TimeUnit;
 public class EmailExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailExecutor.class);
-    
+
+    private static final String POLITICA_LLAMADOR = "llamador";
+    private static final String POLITICA_DESCARTAR = "descartar";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Hilos permanentes del pool.
+     */
+    @Value("${correo.executor.hilos:2}")
+    private int hilos;
+
+    /**
+     * Hilos máximos: se crean hilos adicionales sólo cuando la cola está llena.
+     */
+    @Value("${correo.executor.max-hilos:5}")
+    private int maxHilos;
+
+    @Value("${correo.executor.cola:100}")
+    private int capacidadCola;
+
     /**
-     * Número de hilos en el pool. 
-     * Se puede ajustar según la carga esperada de correos.
+     * Qué hacer con una tarea cuando el pool y la cola están llenos: "descartar" o "llamador"
+     * (la ejecuta el hilo que la envía, frenando a quien produce tareas).
      */
-    private static final int THREAD_POOL_SIZE = 5;
-    
+    @Value("${correo.executor.rechazo:descartar}")
+    private String politicaRechazo;
+
     /**
      * ExecutorService singleton para toda la aplicación.
      * Se inicializa una sola vez y se reutiliza para todas las tareas de envío de correos.
      */
-    private final ExecutorService executorService;
-    
+    private ThreadPoolExecutor executorService;
+
+    private Timer espera;
+    private Timer tareasCorrectas;
+    private Timer tareasConError;
+    private Counter rechazadas;
+
     /**
-     * Constructor que inicializa el ExecutorService con un pool fijo de hilos.
+     * Inicializa el pool de hilos acotado y registra sus métricas.
      */
-    public EmailExecutor() {
-        this.executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE, r -> {
-            Thread thread = new Thread(r, "EmailSender-" + System.currentTimeMillis());
-            thread.setDaemon(false); // No son hilos daemon para asegurar que completen
-            thread.setUncaughtExceptionHandler((t, e) -> {
-                logger.error("Error no capturado en hilo de envío de correo: {}", t.getName(), e);
-            });
-            return thread;
-        });
-        logger.info("EmailExecutor inicializado con {} hilos en el pool", THREAD_POOL_SIZE);
+    @PostConstruct
+    public void init() {
+        espera = Timer.builder("correo.executor.espera")
+                .description("Tiempo que las tareas de correo esperan en la cola").register(meterRegistry);
+        tareasCorrectas = Timer.builder("correo.executor.tareas").tag("resultado", "ok")
+                .description("Duración de las tareas de correo").register(meterRegistry);
+        tareasConError = Timer.builder("correo.executor.tareas").tag("resultado", "error")
+                .description("Duración de las tareas de correo").register(meterRegistry);
+        rechazadas = Counter.builder("correo.executor.rechazadas").tag("politica", politicaRechazo)
+                .description("Tareas de correo rechazadas por pool y cola llenos").register(meterRegistry);
+
+        AtomicInteger contador = new AtomicInteger();
+        executorService = new ThreadPoolExecutor(hilos, Math.max(hilos, maxHilos), 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+                    Thread thread = new Thread(r, "EmailSender-" + contador.incrementAndGet());
+                    thread.setDaemon(false); // No son hilos daemon para asegurar que completen
+                    thread.setUncaughtExceptionHandler((t, e) -> {
+                        logger.error("Error no capturado en hilo de envío de correo: {}", t.getName(), e);
+                    });
+                    return thread;
+                }, crearPoliticaRechazo());
+        new ExecutorServiceMetrics(executorService, "correo", Tags.empty()).bindTo(meterRegistry);
+        logger.info("EmailExecutor inicializado con {}-{} hilos, cola de {} tareas (rechazo: {})",
+                hilos, executorService.getMaximumPoolSize(), capacidadCola, politicaRechazo);
+    }
+
+    private RejectedExecutionHandler crearPoliticaRechazo() {
+        RejectedExecutionHandler politica;
+        if (POLITICA_LLAMADOR.equalsIgnoreCase(politicaRechazo)) {
+            politica = new ThreadPoolExecutor.CallerRunsPolicy();
+        } else {
+            if (!POLITICA_DESCARTAR.equalsIgnoreCase(politicaRechazo)) {
+                logger.warn("Política de rechazo desconocida '{}', se usará '{}'", politicaRechazo, POLITICA_DESCARTAR);
+            }
+            politica = new ThreadPoolExecutor.AbortPolicy();
+        }
+        return (r, executor) -> {
+            rechazadas.increment();
+            politica.rejectedExecution(r, executor);
+        };
     }
-    
+
     /**
      * Ejecuta una tarea de envío de correo de forma asíncrona.
-     * 
-     * Este método NO bloquea la ejecución. La tarea se ejecuta en segundo plano
-     * y cualquier excepción se maneja dentro del hilo asíncrono.
-     * 
+     *
+     * Este método NO bloquea la ejecución (salvo con la política "llamador" y la cola llena).
+     * La tarea se ejecuta en segundo plano y cualquier excepción se maneja dentro del hilo asíncrono.
+     *
      * @param task Tarea Runnable que contiene la lógica de envío de correo
+     * @return false si la tarea se descartó por estar el pool y la cola llenos
      */
-    public void ejecutarEnvioAsincrono(Runnable task) {
+    public boolean ejecutarEnvioAsincrono(Runnable task) {
         if (task == null) {
             logger.warn("Se intentó ejecutar una tarea de envío de correo nula");
-            return;
+            return false;
         }
-        
-        executorService.submit(() -> {
-            try {
-                logger.debug("Iniciando envío de correo asíncrono en hilo: {}", Thread.currentThread().getName());
-                task.run();
-                logger.debug("Envío de correo asíncrono completado exitosamente");
-            } catch (Exception e) {
-                // Las excepciones se manejan aquí para no propagarlas al hilo principal
-                logger.error("Error en envío asíncrono de correo (no afecta la respuesta al usuario): {}", 
-                           e.getMessage(), e);
-            }
-        });
-        
+
+        long encolada = System.nanoTime();
+        try {
+            executorService.execute(() -> {
+                long inicio = System.nanoTime();
+                espera.record(inicio - encolada, TimeUnit.NANOSECONDS);
+                try {
+                    logger.debug("Iniciando envío de correo asíncrono en hilo: {}", Thread.currentThread().getName());
+                    task.run();
+                    tareasCorrectas.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                    logger.debug("Envío de correo asíncrono completado exitosamente");
+                } catch (Exception e) {
+                    // Las excepciones se manejan aquí para no propagarlas al hilo principal
+                    tareasConError.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                    logger.error("Error en envío asíncrono de correo (no afecta la respuesta al usuario): {}",
+                               e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Cola de envío de correos llena ({} tareas); se descarta la tarea", executorService.getQueue().size());
+            return false;
+        }
+
         logger.debug("Tarea de envío de correo enviada al pool de hilos (no bloqueante)");
+        return true;
     }
-    
+
     /**
      * Obtiene el ExecutorService para uso avanzado (si es necesario).
-     * 
+     *
      * @return El ExecutorService singleton
      */
     public ExecutorService getExecutorService() {
         return executorService;
     }
-    
+
     /**
      * Método de limpieza que se ejecuta al detener la aplicación.
      * Cierra el ExecutorService de forma graceful, esperando a que las tareas
@@ -100,13 +191,13 @@ public class EmailExecutor {
     public void shutdown() {
         logger.info("Cerrando EmailExecutor...");
         executorService.shutdown();
-        
+
         try {
             // Esperar a que las tareas en ejecución terminen
             if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
                 logger.warn("El EmailExecutor no terminó en 30 segundos, forzando cierre...");
                 executorService.shutdownNow();
-                
+
                 // Esperar otros 10 segundos antes de forzar
                 if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
                     logger.error("El EmailExecutor no pudo cerrarse correctamente");
@@ -120,4 +211,3 @@ public class EmailExecutor {
         }
     }
 }
-
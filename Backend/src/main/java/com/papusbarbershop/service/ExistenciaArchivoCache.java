@@ -0,0 +1,181 @@
+package com.papusbarbershop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache de existencia de archivos en el almacenamiento.
+ *
+ * Evita consultar el almacenamiento (un HEAD a S3) en cada llamada a /api/s3/exists:
+ * - Los resultados consultados se guardan con TTL corto si el archivo no existe (puede estar
+ *   subiéndose) y con TTL largo si existe.
+ * - Las operaciones del propio backend actualizan el cache sin consultar: generar una URL de
+ *   subida marca la clave como inexistente (TTL corto), confirmar una imagen o subir un archivo
+ *   la marca como existente y eliminarla la marca como inexistente (TTL largo).
+ * - Varias consultas simultáneas de la misma clave sin entrada comparten una sola consulta.
+ *
+ * /api/s3/exists es público, así que guardar una entrada nunca recorre el mapa: las entradas
+ * vencidas se eliminan periódicamente (almacenamiento.existencia.depuracion-segundos) y, si se
+ * supera el máximo, se descartan en orden de inserción primero las negativas y después las
+ * positivas, en tiempo constante por entrada.
+ */
+@Component
+public class ExistenciaArchivoCache {
+
+    @Autowired
+    private AlmacenamientoService almacenamientoService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${almacenamiento.existencia.ttl-positivo-segundos:3600}")
+    private long ttlPositivoSegundos;
+
+    @Value("${almacenamiento.existencia.ttl-negativo-segundos:5}")
+    private long ttlNegativoSegundos;
+
+    @Value("${almacenamiento.existencia.max-entradas:10000}")
+    private int maxEntradas;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // Entradas en orden de inserción, para descartar sin recorrer el mapa. Pueden contener
+    // entradas ya reemplazadas o eliminadas, que se ignoran al descartar y se limpian al depurar.
+    private final Queue<Entrada> negativas = new ConcurrentLinkedQueue<>();
+    private final Queue<Entrada> positivas = new ConcurrentLinkedQueue<>();
+
+    // Consultas en curso por clave (una sola consulta al almacenamiento por clave a la vez)
+    private final Map<String, CompletableFuture<Boolean>> enCurso = new ConcurrentHashMap<>();
+
+    private Counter aciertos;
+    private Counter fallos;
+
+    private static final class Entrada {
+        final String key;
+        final boolean existe;
+        final long expiraEn;
+
+        Entrada(String key, boolean existe, long expiraEn) {
+            this.key = key;
+            this.existe = existe;
+            this.expiraEn = expiraEn;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        aciertos = Counter.builder("almacenamiento.existencia.cache").tag("resultado", "acierto")
+                .description("Verificaciones de existencia servidas desde el cache").register(meterRegistry);
+        fallos = Counter.builder("almacenamiento.existencia.cache").tag("resultado", "fallo")
+                .description("Verificaciones de existencia consultadas al almacenamiento").register(meterRegistry);
+    }
+
+    /**
+     * Verifica si un archivo existe, consultando el almacenamiento sólo si no hay una entrada vigente.
+     *
+     * @param key Clave del archivo
+     * @return true si el archivo existe
+     */
+    public boolean existe(String key) {
+        Entrada entrada = entradas.get(key);
+        if (entrada != null && entrada.expiraEn > System.currentTimeMillis()) {
+            aciertos.increment();
+            return entrada.existe;
+        }
+        fallos.increment();
+
+        CompletableFuture<Boolean> nueva = new CompletableFuture<>();
+        CompletableFuture<Boolean> consulta = enCurso.putIfAbsent(key, nueva);
+        if (consulta != null) {
+            return consulta.join();
+        }
+        try {
+            boolean existe = almacenamientoService.fileExists(key);
+            guardar(key, existe, existe ? ttlPositivoSegundos : ttlNegativoSegundos);
+            nueva.complete(existe);
+            return existe;
+        } catch (RuntimeException e) {
+            // Un error del almacenamiento no se guarda en el cache
+            nueva.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(key, nueva);
+        }
+    }
+
+    /**
+     * Marca una clave para la que se generó una URL de subida: aún no existe, pero puede
+     * existir en cualquier momento, así que la entrada dura poco.
+     */
+    public void marcarSubidaPendiente(String key) {
+        guardar(key, false, ttlNegativoSegundos);
+    }
+
+    /**
+     * Marca una clave cuyo archivo se sabe que existe (imagen confirmada o archivo subido por el backend).
+     */
+    public void marcarExistente(String key) {
+        guardar(key, true, ttlPositivoSegundos);
+    }
+
+    /**
+     * Marca una clave cuyo archivo se eliminó. Las claves incluyen timestamp y UUID y no se reutilizan.
+     */
+    public void marcarEliminado(String key) {
+        guardar(key, false, ttlPositivoSegundos);
+    }
+
+    /**
+     * Elimina las entradas vencidas y las referencias a entradas que ya no están en el cache.
+     */
+    @Scheduled(fixedDelayString = "${almacenamiento.existencia.depuracion-segundos:60}",
+            initialDelayString = "${almacenamiento.existencia.depuracion-segundos:60}", timeUnit = TimeUnit.SECONDS)
+    public void depurar() {
+        long ahora = System.currentTimeMillis();
+        entradas.values().removeIf(e -> e.expiraEn <= ahora);
+        negativas.removeIf(e -> entradas.get(e.key) != e);
+        positivas.removeIf(e -> entradas.get(e.key) != e);
+    }
+
+    private void guardar(String key, boolean existe, long ttlSegundos) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        Entrada entrada = new Entrada(key, existe, System.currentTimeMillis() + ttlSegundos * 1000);
+        entradas.put(key, entrada);
+        (existe ? positivas : negativas).offer(entrada);
+        // Primero las negativas: son baratas de volver a consultar y las que genera /api/s3/exists
+        while (entradas.size() > maxEntradas) {
+            if (!descartar(negativas) && !descartar(positivas)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Descarta la entrada más antigua de la cola que siga en el cache.
+     *
+     * @return false si la cola se vació sin descartar ninguna
+     */
+    private boolean descartar(Queue<Entrada> cola) {
+        Entrada entrada;
+        while ((entrada = cola.poll()) != null) {
+            if (entradas.remove(entrada.key, entrada)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -4,6 +4,7 @@ import com.papusbarbershop.dto.HorarioCreateDTO;
 import com.papusbarbershop.dto.HorarioDTO;
 import com.papusbarbershop.entity.Barbero;
 import com.papusbarbershop.entity.Horario;
+import com.papusbarbershop.exception.ConflictoVersionException;
 import com.papusbarbershop.exception.RecursoDuplicadoException;
 import com.papusbarbershop.exception.RecursoNoEncontradoException;
 import com.papusbarbershop.exception.ValidacionException;
@@ -37,6 +38,9 @@ public class HorarioService {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private ReintentoOptimista reintentoOptimista;
+
     /**
      * Obtiene todos los horarios.
      * 
@@ -126,14 +130,20 @@ public class HorarioService {
      * 
      * @param id ID del horario
      * @param horarioCreateDTO DTO con los datos actualizados
+     * @param versionEsperada Versión leída por el cliente (If-Match), o null para no verificarla
      * @return Horario actualizado
      * @throws RecursoNoEncontradoException si no se encuentra el horario o el barbero
      * @throws ValidacionException si la hora de entrada es mayor o igual a la hora de salida
+     * @throws ConflictoVersionException si el horario cambió desde la versión esperada
      */
     @Transactional
-    public HorarioDTO update(Long id, HorarioCreateDTO horarioCreateDTO) {
+    public HorarioDTO update(Long id, HorarioCreateDTO horarioCreateDTO, Long versionEsperada) {
         Horario horario = horarioRepository.findById(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Horario con ID " + id + " no encontrado"));
+        if (versionEsperada != null && !versionEsperada.equals(horario.getVersion())) {
+            throw new ConflictoVersionException("El horario con ID " + id + " fue modificado por otro usuario " +
+                    "(versión actual " + horario.getVersion() + ", esperada " + versionEsperada + ")");
+        }
 
         // Validar que el barbero existe
         Barbero barbero = barberoService.findEntityById(horarioCreateDTO.getBarberoId());
@@ -161,7 +171,9 @@ public class HorarioService {
         horario.setHoraSalida(horarioCreateDTO.getHoraSalida());
         horario.setActivo(horarioCreateDTO.getActivo() != null ? horarioCreateDTO.getActivo() : true);
 
-        Horario horarioActualizado = horarioRepository.save(horario);
+        // Escribir antes de refrescar: así el conflicto de versión se detecta aquí y el DTO
+        // devuelve la versión nueva
+        Horario horarioActualizado = horarioRepository.saveAndFlush(horario);
         // Refrescar la entidad para obtener el created_at de la base de datos
         entityManager.refresh(horarioActualizado);
         return convertToDTO(horarioActualizado);
@@ -275,12 +287,15 @@ public class HorarioService {
      * Proceso completo de gestión automática de horarios.
      * Desactiva horarios pasados y activa horarios del día actual.
      * 
+     * Se reintenta si un administrador edita un horario al mismo tiempo.
+     * 
      * @return Map con el número de horarios desactivados y activados
      */
-    @Transactional
     public java.util.Map<String, Integer> gestionarHorariosAutomaticamente() {
-        int desactivados = desactivarHorariosPasados();
-        int activados = activarHorariosDelDia();
+        int[] conteos = reintentoOptimista.ejecutar("gestión automática de horarios",
+                () -> new int[] { desactivarHorariosPasados(), activarHorariosDelDia() });
+        int desactivados = conteos[0];
+        int activados = conteos[1];
         
         java.util.Map<String, Integer> resultado = new java.util.HashMap<>();
         resultado.put("horariosDesactivados", desactivados);
@@ -309,7 +324,7 @@ public class HorarioService {
                 fecha = horario.getCreatedAt().toLocalDate();
             }
         }
-        return new HorarioDTO(
+        HorarioDTO dto = new HorarioDTO(
                 horario.getId(),
                 horario.getBarbero().getId(),
                 horario.getBarbero().getNombre(),
@@ -318,6 +333,8 @@ public class HorarioService {
                 horario.getActivo(),
                 fecha
         );
+        dto.setVersion(horario.getVersion());
+        return dto;
     }
 }
 
@@ -0,0 +1,306 @@
+package com.papusbarbershop.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio que genera variantes redimensionadas de las imágenes de productos.
+ *
+ * Cuando se confirma la imagen de un producto, la imagen original se descarga del almacenamiento,
+ * se generan versiones JPEG de distintos tamaños (miniatura, tarjeta, completa) y se guardan junto
+ * a la original. Al terminar se registran en el producto, para que los clientes descarguen la
+ * variante más pequeña que les sirva en lugar de la imagen original.
+ *
+ * El trabajo se hace en un pool de hilos acotado con cola limitada: si la cola está llena la
+ * imagen se descarta del pipeline y el producto sigue mostrando la imagen original.
+ *
+ * La imagen original la sube el usuario, así que nunca se carga completa sin límites: se lee en
+ * streaming hasta imagenes.variantes.max-bytes, las dimensiones se comprueban con los metadatos
+ * del lector antes de decodificar, y las imágenes mucho mayores que la variante más grande se
+ * decodifican submuestreadas.
+ */
+@Service
+public class ImagenVarianteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImagenVarianteService.class);
+
+    /**
+     * Variantes generadas, de mayor a menor: nombre y lado mayor máximo en píxeles. Cada variante
+     * se obtiene de la anterior; las imágenes más pequeñas que el límite no se amplían, sólo se
+     * recomprimen.
+     */
+    private static final List<Map.Entry<String, Integer>> VARIANTES = List.of(
+            Map.entry("completa", 1200),
+            Map.entry("tarjeta", 480),
+            Map.entry("miniatura", 160));
+
+    // Límite de píxeles de la imagen original, para no decodificar imágenes desproporcionadas
+    private static final long MAX_PIXELES_ORIGINAL = 40_000_000L;
+
+    @Autowired
+    private AlmacenamientoService almacenamientoService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ExistenciaArchivoCache existenciaArchivoCache;
+
+    @Value("${imagenes.variantes.hilos:2}")
+    private int hilos;
+
+    @Value("${imagenes.variantes.cola:100}")
+    private int capacidadCola;
+
+    @Value("${imagenes.variantes.calidad-jpeg:0.82}")
+    private float calidadJpeg;
+
+    @Value("${imagenes.variantes.max-bytes:10485760}")
+    private long maxBytes;
+
+    private ThreadPoolExecutor ejecutor;
+
+    @PostConstruct
+    public void init() {
+        // Sin cache en disco de ImageIO: las imágenes se procesan en memoria
+        ImageIO.setUseCache(false);
+        AtomicInteger contador = new AtomicInteger();
+        ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+                    Thread hilo = new Thread(r, "imagen-variantes-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Obtiene la clave de una variante a partir de la clave de la imagen original.
+     * Ej: productos/shampoo-123-ab12.png → productos/shampoo-123-ab12_miniatura.jpg
+     *
+     * @param key Clave de la imagen original
+     * @param variante Nombre de la variante
+     * @return Clave de la variante
+     */
+    public static String claveVariante(String key, String variante) {
+        int punto = key.lastIndexOf('.');
+        int barra = key.lastIndexOf('/');
+        String base = punto > barra ? key.substring(0, punto) : key;
+        return base + "_" + variante + ".jpg";
+    }
+
+    /**
+     * Programa la generación de variantes de la imagen de un producto. No bloquea.
+     *
+     * @param productoId ID del producto
+     * @param key Clave de la imagen original
+     */
+    public void programar(Long productoId, String key) {
+        if (productoId == null || key == null || key.isEmpty()) {
+            return;
+        }
+        try {
+            ejecutor.execute(() -> generar(productoId, key));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Cola de variantes de imagen llena; se omite la imagen {} del producto {}", key, productoId);
+        }
+    }
+
+    private void generar(Long productoId, String key) {
+        long inicio = System.currentTimeMillis();
+        try {
+            BufferedImage original;
+            try (InputStream contenido = new EntradaLimitada(almacenamientoService.readFile(key), maxBytes)) {
+                original = leerImagen(contenido);
+            }
+            if (original == null) {
+                logger.warn("La imagen {} del producto {} no tiene un formato soportado", key, productoId);
+                return;
+            }
+
+            List<String> generadas = new ArrayList<>();
+            BufferedImage anterior = original;
+            for (Map.Entry<String, Integer> variante : VARIANTES) {
+                anterior = redimensionar(anterior, variante.getValue());
+                String claveVariante = claveVariante(key, variante.getKey());
+                almacenamientoService.uploadFile(claveVariante, codificarJpeg(anterior), "image/jpeg");
+                existenciaArchivoCache.marcarExistente(claveVariante);
+                generadas.add(variante.getKey());
+            }
+
+            productoService.registrarVariantesImagen(productoId, key, generadas);
+            logger.info("Variantes de imagen generadas para producto {} ({} ms)", productoId,
+                    System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            logger.error("Error al generar variantes de la imagen {} del producto {}: {}", key, productoId,
+                    e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodifica la imagen desde el stream comprobando antes sus dimensiones. Sólo se leen los
+     * bytes necesarios para el encabezado antes de rechazar una imagen desproporcionada.
+     *
+     * @return Imagen decodificada, o null si el formato no es soportado
+     */
+    private BufferedImage leerImagen(InputStream contenido) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(contenido)) {
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) {
+                return null;
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                int ancho = lector.getWidth(0);
+                int alto = lector.getHeight(0);
+                if ((long) ancho * alto > MAX_PIXELES_ORIGINAL) {
+                    throw new IOException("Imagen demasiado grande: " + ancho + "x" + alto);
+                }
+                // Submuestreo al decodificar: se conserva al menos el doble de la variante más
+                // grande, que luego se reduce por pasos
+                int factor = Math.max(1, Math.max(ancho, alto) / (2 * VARIANTES.get(0).getValue()));
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                parametros.setSourceSubsampling(factor, factor, 0, 0);
+                return lector.read(0, parametros);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    /**
+     * Stream que falla al superar un número máximo de bytes, para no descargar ni decodificar
+     * archivos de tamaño arbitrario.
+     */
+    private static final class EntradaLimitada extends FilterInputStream {
+        private final long maximo;
+        private long leidos;
+
+        EntradaLimitada(InputStream entrada, long maximo) {
+            super(entrada);
+            this.maximo = maximo;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                contar(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                contar(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long saltados = super.skip(n);
+            contar(saltados);
+            return saltados;
+        }
+
+        private void contar(long n) throws IOException {
+            leidos += n;
+            if (leidos > maximo) {
+                throw new IOException("La imagen supera el máximo de " + maximo + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Redimensiona la imagen para que su lado mayor no supere el límite, reduciendo a la mitad
+     * en varios pasos (interpolación bilineal) para evitar el aliasing de una reducción directa.
+     * El resultado es RGB sobre fondo blanco (JPEG no admite transparencia).
+     */
+    private BufferedImage redimensionar(BufferedImage original, int ladoMaximo) {
+        int ancho = original.getWidth();
+        int alto = original.getHeight();
+        double escala = Math.min(1.0, (double) ladoMaximo / Math.max(ancho, alto));
+        int anchoFinal = Math.max(1, (int) Math.round(ancho * escala));
+        int altoFinal = Math.max(1, (int) Math.round(alto * escala));
+
+        BufferedImage actual = original;
+        int anchoActual = ancho;
+        int altoActual = alto;
+        while (anchoActual / 2 >= anchoFinal && altoActual / 2 >= altoFinal) {
+            anchoActual /= 2;
+            altoActual /= 2;
+            actual = dibujar(actual, anchoActual, altoActual);
+        }
+        return dibujar(actual, anchoFinal, altoFinal);
+    }
+
+    private BufferedImage dibujar(BufferedImage origen, int ancho, int alto) {
+        BufferedImage destino = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, ancho, alto);
+            g.drawImage(origen, 0, 0, ancho, alto, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private byte[] codificarJpeg(BufferedImage imagen) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (ImageOutputStream destino = ImageIO.createImageOutputStream(salida)) {
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(calidadJpeg);
+            parametros.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            escritor.setOutput(destino);
+            escritor.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,89 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.AlertaStockDTO;
+import com.papusbarbershop.dto.DiferenciaInventarioDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Servicio de scheduler para el libro de inventario.
+ * 
+ * Este servicio ejecuta tareas programadas para:
+ * - Tomar fotografías del stock de los productos con movimientos nuevos
+ * - Conciliar el stock de los productos con el stock derivado del libro
+ * - Enviar el resumen diario de productos con stock bajo (si hay destinatario configurado)
+ */
+@Service
+public class InventarioSchedulerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioSchedulerService.class);
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private VelocidadVentaService velocidadVentaService;
+
+    @Autowired
+    private EmailAsyncService emailAsyncService;
+
+    @Value("${inventario.alertas.correo:}")
+    private String correoAlertas;
+
+    /**
+     * Genera las fotografías de inventario diariamente a las 00:30.
+     */
+    @Scheduled(cron = "0 30 0 * * ?") // Ejecutar a las 00:30 todos los días
+    public void generarSnapshotsDiariamente() {
+        try {
+            int generados = inventarioService.generarSnapshots();
+            logger.info("Fotografías de inventario generadas: {}", generados);
+        } catch (Exception e) {
+            logger.error("Error al generar las fotografías de inventario: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Concilia el stock de los productos con el libro de inventario diariamente a las 01:00.
+     * Las diferencias sólo se registran en el log; no se corrigen automáticamente.
+     */
+    @Scheduled(cron = "0 0 1 * * ?") // Ejecutar a la 01:00 todos los días
+    public void conciliarDiariamente() {
+        try {
+            List<DiferenciaInventarioDTO> diferencias = inventarioService.conciliar();
+            if (diferencias.isEmpty()) {
+                logger.info("Conciliación de inventario sin diferencias");
+            }
+            for (DiferenciaInventarioDTO diferencia : diferencias) {
+                logger.warn("Diferencia de inventario en producto {} ({}): stock {}, libro {}",
+                        diferencia.getProductoId(), diferencia.getProductoNombre(),
+                        diferencia.getStockProducto(), diferencia.getStockLibro());
+            }
+        } catch (Exception e) {
+            logger.error("Error al conciliar el inventario: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Envía el resumen de productos con stock bajo diariamente a las 08:00.
+     * No hace nada si inventario.alertas.correo está vacío o no hay alertas.
+     */
+    @Scheduled(cron = "0 0 8 * * ?") // Ejecutar a las 08:00 todos los días
+    public void enviarResumenStockBajo() {
+        if (correoAlertas == null || correoAlertas.trim().isEmpty()) {
+            return;
+        }
+        try {
+            List<AlertaStockDTO> alertas = velocidadVentaService.obtenerAlertas(null);
+            emailAsyncService.encolarAlertasStock(correoAlertas, alertas);
+        } catch (Exception e) {
+            logger.error("Error al preparar el resumen de stock bajo: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.DiferenciaInventarioDTO;
+import com.papusbarbershop.dto.MovimientoInventarioDTO;
+import com.papusbarbershop.dto.StockEnFechaDTO;
+import com.papusbarbershop.entity.MovimientoInventario;
+import com.papusbarbershop.entity.MovimientoInventario.TipoMovimiento;
+import com.papusbarbershop.entity.SnapshotInventario;
+import com.papusbarbershop.entity.VentaProducto;
+import com.papusbarbershop.exception.ValidacionException;
+import com.papusbarbershop.repository.MovimientoInventarioRepository;
+import com.papusbarbershop.repository.SnapshotInventarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio para el libro de inventario.
+ *
+ * Cada cambio de stock se registra como un movimiento de sólo inserción, en la misma transacción
+ * que modifica {@code productos.stock}. Periódicamente se toma una fotografía del stock de cada
+ * producto con movimientos nuevos, de modo que el stock en un instante se obtiene con la última
+ * fotografía anterior más un recorrido acotado de los movimientos posteriores.
+ */
+@Service
+public class InventarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioService.class);
+
+    // Productos comparados por sentencia en la conciliación
+    private static final int TAMANO_LOTE_CONCILIACION = 500;
+
+    @Autowired
+    private MovimientoInventarioRepository movimientoRepository;
+
+    @Autowired
+    private SnapshotInventarioRepository snapshotRepository;
+
+    /**
+     * Margen hacia atrás para el corte de las fotografías: los movimientos más recientes se dejan
+     * para la siguiente fotografía, así una transacción aún no confirmada no queda fuera del libro.
+     */
+    @Value("${inventario.snapshot.margen-minutos:10}")
+    private long margenSnapshotMinutos;
+
+    // ==================== REGISTRO DE MOVIMIENTOS ====================
+
+    /**
+     * Registra un movimiento en el libro de inventario.
+     *
+     * @param productoId ID del producto
+     * @param productoNombre Nombre del producto al momento del movimiento
+     * @param tipo Tipo de movimiento
+     * @param cantidad Cantidad firmada (negativa si sale stock)
+     * @param stockResultante Stock del producto después del movimiento
+     * @param ventaId ID de la venta relacionada (puede ser null)
+     * @param motivo Motivo del movimiento (puede ser null)
+     */
+    @Transactional
+    public void registrar(Long productoId, String productoNombre, TipoMovimiento tipo, int cantidad,
+                          int stockResultante, Long ventaId, String motivo) {
+        MovimientoInventario movimiento = new MovimientoInventario(productoId, productoNombre, tipo,
+                cantidad, stockResultante);
+        movimiento.setVentaId(ventaId);
+        movimiento.setMotivo(motivo);
+        movimientoRepository.save(movimiento);
+    }
+
+    /**
+     * Registra en lote un movimiento de venta por cada venta indicada (líneas de un ticket).
+     *
+     * @param ventas Ventas ya guardadas, con stockDespues calculado
+     */
+    @Transactional
+    public void registrarVentas(List<VentaProducto> ventas) {
+        List<MovimientoInventario> movimientos = new ArrayList<>(ventas.size());
+        for (VentaProducto venta : ventas) {
+            MovimientoInventario movimiento = new MovimientoInventario(venta.getProducto().getId(),
+                    venta.getProductoNombre(), TipoMovimiento.VENTA, -venta.getCantidad(), venta.getStockDespues());
+            movimiento.setVentaId(venta.getId());
+            movimientos.add(movimiento);
+        }
+        movimientoRepository.saveAll(movimientos);
+    }
+
+    /**
+     * Registra un movimiento de saldo inicial para los productos que aún no tienen movimientos.
+     * Se ejecuta al iniciar la aplicación para incorporar al libro los productos existentes.
+     *
+     * @return Cantidad de productos incorporados
+     */
+    @Transactional
+    public int registrarSaldosIniciales() {
+        int registrados = movimientoRepository.registrarSaldosIniciales(LocalDateTime.now());
+        if (registrados > 0) {
+            logger.info("✓ Libro de inventario: saldo inicial registrado para {} productos", registrados);
+        }
+        return registrados;
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Obtiene los movimientos de un producto en un rango de fechas.
+     *
+     * @param productoId ID del producto
+     * @param desde Inicio del rango (inclusive)
+     * @param hasta Fin del rango (inclusive)
+     * @return Movimientos en orden cronológico
+     * @throws ValidacionException si el rango es inválido
+     */
+    public List<MovimientoInventarioDTO> findMovimientos(Long productoId, LocalDateTime desde, LocalDateTime hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new ValidacionException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        return movimientoRepository.findByProductoIdAndFechaHoraBetweenOrderByFechaHoraAscIdAsc(productoId, desde, hasta)
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Calcula el stock de un producto en un instante: última fotografía anterior al instante
+     * más los movimientos registrados entre la fotografía y el instante.
+     * Funciona también para productos eliminados del catálogo.
+     *
+     * @param productoId ID del producto
+     * @param instante Instante a consultar
+     * @return Stock en el instante indicado
+     */
+    public StockEnFechaDTO stockEnFecha(Long productoId, LocalDateTime instante) {
+        Optional<SnapshotInventario> snapshot = snapshotRepository
+                .findFirstByProductoIdAndHastaLessThanEqualOrderByHastaDesc(productoId, instante);
+
+        long stock;
+        if (snapshot.isPresent()) {
+            stock = snapshot.get().getStock()
+                    + movimientoRepository.sumarCantidades(productoId, snapshot.get().getHasta(), instante);
+        } else {
+            stock = movimientoRepository.sumarCantidadesHasta(productoId, instante);
+        }
+
+        StockEnFechaDTO dto = new StockEnFechaDTO();
+        dto.setProductoId(productoId);
+        dto.setFechaHora(instante);
+        dto.setStock((int) stock);
+        dto.setSnapshotHasta(snapshot.map(SnapshotInventario::getHasta).orElse(null));
+        return dto;
+    }
+
+    // ==================== FOTOGRAFÍAS Y CONCILIACIÓN ====================
+
+    /**
+     * Genera una fotografía para cada producto con movimientos desde su última fotografía.
+     * El corte se fija unos minutos antes del momento actual (ver margenSnapshotMinutos).
+     *
+     * @return Cantidad de fotografías generadas
+     */
+    @Transactional
+    public int generarSnapshots() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime corte = ahora.minusMinutes(margenSnapshotMinutos);
+        return snapshotRepository.generarSnapshots(corte, ahora);
+    }
+
+    /**
+     * Compara el stock de cada producto con el stock derivado del libro de inventario,
+     * recorriendo los productos por lotes ordenados por ID.
+     *
+     * @return Productos cuyo stock no coincide con el libro
+     */
+    @Transactional(readOnly = true)
+    public List<DiferenciaInventarioDTO> conciliar() {
+        List<DiferenciaInventarioDTO> diferencias = new ArrayList<>();
+        long despuesDe = 0;
+        while (true) {
+            List<Object[]> filas = movimientoRepository.compararStockLote(despuesDe, TAMANO_LOTE_CONCILIACION);
+            for (Object[] fila : filas) {
+                int stockProducto = ((Number) fila[2]).intValue();
+                int stockLibro = ((Number) fila[3]).intValue();
+                if (stockProducto != stockLibro) {
+                    DiferenciaInventarioDTO dto = new DiferenciaInventarioDTO();
+                    dto.setProductoId(((Number) fila[0]).longValue());
+                    dto.setProductoNombre((String) fila[1]);
+                    dto.setStockProducto(stockProducto);
+                    dto.setStockLibro(stockLibro);
+                    dto.setDiferencia(stockProducto - stockLibro);
+                    diferencias.add(dto);
+                }
+            }
+            if (filas.size() < TAMANO_LOTE_CONCILIACION) {
+                break;
+            }
+            despuesDe = ((Number) filas.get(filas.size() - 1)[0]).longValue();
+        }
+        return diferencias;
+    }
+
+    /**
+     * Convierte una entidad MovimientoInventario a DTO.
+     *
+     * @param movimiento Entidad MovimientoInventario
+     * @return DTO de MovimientoInventario
+     */
+    private MovimientoInventarioDTO convertToDTO(MovimientoInventario movimiento) {
+        MovimientoInventarioDTO dto = new MovimientoInventarioDTO();
+        dto.setId(movimiento.getId());
+        dto.setProductoId(movimiento.getProductoId());
+        dto.setProductoNombre(movimiento.getProductoNombre());
+        dto.setTipo(movimiento.getTipo().name());
+        dto.setCantidad(movimiento.getCantidad());
+        dto.setStockResultante(movimiento.getStockResultante());
+        dto.setVentaId(movimiento.getVentaId());
+        dto.setMotivo(movimiento.getMotivo());
+        dto.setFechaHora(movimiento.getFechaHora());
+        return dto;
+    }
+}
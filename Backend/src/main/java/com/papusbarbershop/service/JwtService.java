@@ -1,16 +1,31 @@
 package com.papusbarbershop.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -18,18 +33,203 @@ import java.util.function.Function;
  * 
  * Este servicio proporciona funcionalidades para generar, validar y extraer
  * información de tokens JWT utilizados para autenticación en el sistema.
+ *
+ * La clave de firma y el parser se construyen una sola vez al iniciar. Cada token se verifica
+ * una sola vez ({@link #verificarToken}) y sus claims quedan en un cache acotado
+ * (jwt.cache.max-entradas) hasta que el token expira, de modo que las peticiones siguientes con
+ * el mismo token no repiten la verificación. El cache se indexa por el SHA-256 del token: no
+ * guarda los tokens y un token alterado nunca coincide con uno verificado.
+ *
+ * Hay dos tipos de token (claim "typ"): de acceso (jwt.expiration, 15 minutos), que autentica
+ * cada petición, y de refresco (jwt.refresh-expiration), que sólo sirve en /auth/refresh para
+ * obtener un nuevo par. Mientras un frontend no use /auth/refresh, jwt.acceso-extendido-temporal
+ * extiende el token de acceso a 24 horas; es una excepción temporal que se quitará. Cada token lleva un identificador único (claim "jti") que permite
+ * revocarlo ({@link RevocacionTokenService}).
  */
 @Service
 public class JwtService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+
+    private static final long EXPIRACION_ACCESO_EXTENDIDA = 86400000L;
     
     @Value("${jwt.secret:PapusBarberShopSecretKey2024SecureKeyForJWTTokenGeneration}")
     private String secretKey;
     
-    @Value("${jwt.expiration:86400000}") // 24 horas por defecto
+    public static final String TIPO_ACCESO = "access";
+    public static final String TIPO_REFRESCO = "refresh";
+
+    @Value("${jwt.expiration:900000}") // 15 minutos por defecto
     private long jwtExpiration;
+
+    // Temporal: 24 horas para los frontends que todavía no renuevan con /auth/refresh
+    @Value("${jwt.acceso-extendido-temporal:false}")
+    private boolean accesoExtendidoTemporal;
+
+    @Value("${jwt.refresh-expiration:604800000}") // 7 días por defecto
+    private long refreshExpiration;
+
+    @Value("${jwt.cache.max-entradas:10000}")
+    private int maxEntradasCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Key signKey;
+
+    private JwtParser parser;
+
+    private final Map<String, TokenVerificado> verificados = new ConcurrentHashMap<>();
+
+    private Counter aciertos;
+    private Counter fallos;
+
+    /**
+     * Datos de un token con firma y expiración ya verificadas.
+     */
+    public static final class TokenVerificado {
+        private final String username;
+        private final Long userId;
+        private final String rol;
+        private final String id;
+        private final String tipo;
+        private final long emitidoEn;
+        private final long expiraEn;
+
+        TokenVerificado(Claims claims) {
+            this.username = claims.getSubject();
+            this.userId = claims.get("userId", Long.class);
+            this.rol = claims.get("rol", String.class);
+            this.id = claims.getId();
+            // Los tokens emitidos antes de existir los refresh tokens no tienen tipo: son de acceso
+            String typ = claims.get("typ", String.class);
+            this.tipo = typ != null ? typ : TIPO_ACCESO;
+            this.emitidoEn = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0;
+            this.expiraEn = claims.getExpiration().getTime();
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getRol() {
+            return rol;
+        }
+
+        /**
+         * Identificador único del token (jti), o null en tokens emitidos antes de existir.
+         */
+        public String getId() {
+            return id;
+        }
+
+        public String getTipo() {
+            return tipo;
+        }
+
+        public boolean esAcceso() {
+            return TIPO_ACCESO.equals(tipo);
+        }
+
+        public boolean esRefresco() {
+            return TIPO_REFRESCO.equals(tipo);
+        }
+
+        public Date getEmision() {
+            return new Date(emitidoEn);
+        }
+
+        public Date getExpiracion() {
+            return new Date(expiraEn);
+        }
+
+        long emitidoEn() {
+            return emitidoEn;
+        }
+
+        boolean expirado(long ahora) {
+            return expiraEn <= ahora;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (accesoExtendidoTemporal) {
+            jwtExpiration = Math.max(jwtExpiration, EXPIRACION_ACCESO_EXTENDIDA);
+            logger.warn("jwt.acceso-extendido-temporal activo: los tokens de acceso duran {} ms. " +
+                    "Desactivarlo cuando los frontends usen /auth/refresh", jwtExpiration);
+        }
+        signKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+
+        aciertos = Counter.builder("jwt.cache").tag("resultado", "acierto")
+                .description("Tokens JWT servidos desde el cache de tokens verificados").register(meterRegistry);
+        fallos = Counter.builder("jwt.cache").tag("resultado", "fallo")
+                .description("Tokens JWT verificados con su firma").register(meterRegistry);
+        Gauge.builder("jwt.cache.entradas", verificados, Map::size)
+                .description("Tokens JWT en el cache de tokens verificados").register(meterRegistry);
+    }
+
+    /**
+     * Verifica un token JWT (firma y expiración) y devuelve sus datos.
+     *
+     * @param token Token JWT
+     * @return Datos del token verificado
+     * @throws io.jsonwebtoken.JwtException si el token es inválido o expiró
+     */
+    public TokenVerificado verificarToken(String token) {
+        long ahora = System.currentTimeMillis();
+        String clave = hash(token);
+        TokenVerificado verificado = verificados.get(clave);
+        if (verificado != null) {
+            if (!verificado.expirado(ahora)) {
+                aciertos.increment();
+                return verificado;
+            }
+            verificados.remove(clave, verificado);
+        }
+
+        fallos.increment();
+        Claims claims = extractAllClaims(token);
+        verificado = new TokenVerificado(claims);
+        if (verificado.expirado(ahora)) {
+            throw new ExpiredJwtException(null, claims, "El token JWT expiró");
+        }
+        if (verificados.size() >= maxEntradasCache) {
+            depurarCache(ahora);
+        }
+        if (verificados.size() < maxEntradasCache) {
+            verificados.put(clave, verificado);
+        }
+        return verificado;
+    }
+
+    /**
+     * Libera espacio en el cache: elimina los tokens expirados y, si sigue lleno, lo vacía
+     * (las entradas sólo ahorran verificaciones, perderlas no afecta la validez).
+     */
+    private void depurarCache(long ahora) {
+        verificados.values().removeIf(verificado -> verificado.expirado(ahora));
+        if (verificados.size() >= maxEntradasCache) {
+            verificados.clear();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
     
     /**
-     * Genera un token JWT para un usuario.
+     * Genera un token JWT de acceso para un usuario.
      * 
      * @param username Nombre de usuario
      * @param userId ID del usuario
@@ -37,26 +237,56 @@ public class JwtService {
      * @return Token JWT generado
      */
     public String generateToken(String username, Long userId, String rol) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", userId);
-        claims.put("rol", rol);
-        return createToken(claims, username);
+        return createToken(username, userId, rol, TIPO_ACCESO, jwtExpiration);
+    }
+
+    /**
+     * Genera un token JWT de refresco para un usuario.
+     *
+     * @param username Nombre de usuario
+     * @param userId ID del usuario
+     * @param rol Rol del usuario
+     * @return Token JWT de refresco
+     */
+    public String generateRefreshToken(String username, Long userId, String rol) {
+        return createToken(username, userId, rol, TIPO_REFRESCO, refreshExpiration);
+    }
+
+    /**
+     * Duración de los tokens de acceso en milisegundos.
+     */
+    public long getExpiracionAcceso() {
+        return jwtExpiration;
+    }
+
+    /**
+     * Duración de los tokens de refresco en milisegundos (la vida máxima de cualquier token).
+     */
+    public long getExpiracionRefresco() {
+        return Math.max(refreshExpiration, jwtExpiration);
     }
     
     /**
      * Crea un token JWT con los claims especificados.
      * 
-     * @param claims Claims a incluir en el token
      * @param subject Subject del token (usuario)
+     * @param tipo Tipo de token (acceso o refresco)
+     * @param duracion Duración del token en milisegundos
      * @return Token JWT creado
      */
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(String subject, Long userId, String rol, String tipo, long duracion) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put("rol", rol);
+        claims.put("typ", tipo);
+        long ahora = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(ahora))
+                .setExpiration(new Date(ahora + duracion))
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
@@ -67,7 +297,7 @@ public class JwtService {
      * @return Nombre de usuario
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verificarToken(token).getUsername();
     }
     
     /**
@@ -77,7 +307,7 @@ public class JwtService {
      * @return Fecha de expiración
      */
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verificarToken(token).getExpiracion();
     }
     
     /**
@@ -87,7 +317,7 @@ public class JwtService {
      * @return ID del usuario
      */
     public Long extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("userId", Long.class));
+        return verificarToken(token).getUserId();
     }
     
     /**
@@ -97,7 +327,7 @@ public class JwtService {
      * @return Rol del usuario
      */
     public String extractRol(String token) {
-        return extractClaim(token, claims -> claims.get("rol", String.class));
+        return verificarToken(token).getRol();
     }
     
     /**
@@ -120,21 +350,7 @@ public class JwtService {
      * @return Claims del token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    /**
-     * Verifica si el token JWT ha expirado.
-     * 
-     * @param token Token JWT
-     * @return true si ha expirado, false en caso contrario
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
     
     /**
@@ -145,18 +361,6 @@ public class JwtService {
      * @return true si es válido, false en caso contrario
      */
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
-    }
-    
-    /**
-     * Obtiene la clave de firma para los tokens JWT.
-     * 
-     * @return Clave de firma
-     */
-    private Key getSignKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return verificarToken(token).getUsername().equals(username);
     }
 }
-
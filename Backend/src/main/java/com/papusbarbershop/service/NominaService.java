@@ -0,0 +1,282 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.CierreNominaDTO;
+import com.papusbarbershop.dto.DesviacionBarberoDTO;
+import com.papusbarbershop.dto.DesviacionNominaDTO;
+import com.papusbarbershop.dto.ResumenBarberoDTO;
+import com.papusbarbershop.entity.CierreNomina;
+import com.papusbarbershop.entity.CierreNominaLinea;
+import com.papusbarbershop.exception.RecursoDuplicadoException;
+import com.papusbarbershop.exception.RecursoNoEncontradoException;
+import com.papusbarbershop.exception.ValidacionException;
+import com.papusbarbershop.repository.BarberoRepository;
+import com.papusbarbershop.repository.CierreNominaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio para el cálculo y cierre de la nómina de barberos.
+ *
+ * El pago de cada barbero se calcula con una sola consulta agregada. Al cerrar un periodo
+ * se guarda una fotografía inmutable de los totales, y las lecturas posteriores de ese
+ * periodo se sirven desde el cierre en lugar de recalcular sobre las filas originales.
+ */
+@Service
+@Transactional(readOnly = true)
+public class NominaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NominaService.class);
+
+    @Autowired
+    private BarberoRepository barberoRepository;
+
+    @Autowired
+    private CierreNominaRepository cierreNominaRepository;
+
+    /**
+     * Obtiene el resumen por barbero de un periodo. Si el periodo está cerrado se devuelve
+     * la fotografía del cierre; de lo contrario se calcula sobre los datos actuales.
+     *
+     * @param fechaInicio Fecha de inicio
+     * @param fechaFin Fecha de fin
+     * @return Lista de resúmenes por barbero
+     */
+    public List<ResumenBarberoDTO> obtenerResumenBarberos(LocalDate fechaInicio, LocalDate fechaFin) {
+        Optional<CierreNomina> cierre = cierreNominaRepository.findByPeriodo(fechaInicio, fechaFin);
+        if (cierre.isPresent()) {
+            return cierre.get().getLineas().stream()
+                    .map(this::convertirLineaADTO)
+                    .collect(Collectors.toList());
+        }
+        return calcularResumenBarberos(fechaInicio, fechaFin);
+    }
+
+    /**
+     * Calcula el resumen de todos los barberos en un rango de fechas.
+     * Los totales de todos los barberos se obtienen en una sola consulta agregada.
+     *
+     * @param fechaInicio Fecha de inicio
+     * @param fechaFin Fecha de fin
+     * @return Lista de resúmenes por barbero
+     */
+    public List<ResumenBarberoDTO> calcularResumenBarberos(LocalDate fechaInicio, LocalDate fechaFin) {
+        List<Object[]> filas = barberoRepository.calcularTotalesNomina(fechaInicio, fechaFin);
+        List<ResumenBarberoDTO> resumenBarberos = new ArrayList<>(filas.size());
+
+        for (Object[] fila : filas) {
+            ResumenBarberoDTO resumen = new ResumenBarberoDTO();
+            resumen.setBarberoId(((Number) fila[0]).longValue());
+            resumen.setBarberoNombre((String) fila[1]);
+            BigDecimal porcentajeServicio = aBigDecimal(fila[2]);
+            resumen.setPorcentajeServicio(porcentajeServicio);
+
+            BigDecimal totalServicios = aBigDecimal(fila[3]);
+            resumen.setTotalServicios(totalServicios);
+            resumen.setCantidadServicios(((Number) fila[4]).intValue());
+
+            BigDecimal totalVentas = aBigDecimal(fila[5]);
+            resumen.setTotalVentas(totalVentas);
+            resumen.setCantidadVentas(((Number) fila[6]).intValue());
+
+            // Comisión = comision del producto * cantidad vendida (0 si el producto fue eliminado)
+            BigDecimal totalComisiones = aBigDecimal(fila[7]);
+            resumen.setTotalComisiones(totalComisiones);
+
+            // Total generado (servicios + ventas)
+            resumen.setTotalGenerado(totalServicios.add(totalVentas));
+
+            // Calcular pago del barbero (porcentaje sobre servicios + total de comisiones)
+            BigDecimal porcentaje = porcentajeServicio.divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            BigDecimal pagoPorServicios = totalServicios.multiply(porcentaje).setScale(2, RoundingMode.HALF_UP);
+            // Pago total = pago por servicios + comisiones
+            BigDecimal pagoBarbero = pagoPorServicios.add(totalComisiones).setScale(2, RoundingMode.HALF_UP);
+            resumen.setPagoBarbero(pagoBarbero);
+
+            resumenBarberos.add(resumen);
+        }
+
+        return resumenBarberos;
+    }
+
+    /**
+     * Cierra la nómina de un periodo guardando el pago calculado de cada barbero.
+     *
+     * @param fechaInicio Fecha de inicio del periodo
+     * @param fechaFin Fecha de fin del periodo
+     * @param usuario Usuario que realiza el cierre
+     * @return Cierre creado
+     * @throws ValidacionException si el periodo no es válido
+     * @throws RecursoDuplicadoException si el periodo se traslapa con un cierre existente
+     */
+    @Transactional
+    public CierreNominaDTO cerrarPeriodo(LocalDate fechaInicio, LocalDate fechaFin, String usuario) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new ValidacionException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        if (cierreNominaRepository.existeTraslape(fechaInicio, fechaFin)) {
+            throw new RecursoDuplicadoException("Ya existe un cierre de nómina que incluye fechas del periodo "
+                    + fechaInicio + " a " + fechaFin);
+        }
+
+        CierreNomina cierre = new CierreNomina(fechaInicio, fechaFin, usuario);
+        BigDecimal totalPagado = BigDecimal.ZERO;
+        for (ResumenBarberoDTO resumen : calcularResumenBarberos(fechaInicio, fechaFin)) {
+            CierreNominaLinea linea = new CierreNominaLinea();
+            linea.setCierre(cierre);
+            linea.setBarberoId(resumen.getBarberoId());
+            linea.setBarberoNombre(resumen.getBarberoNombre());
+            linea.setPorcentajeServicio(resumen.getPorcentajeServicio());
+            linea.setTotalServicios(resumen.getTotalServicios());
+            linea.setCantidadServicios(resumen.getCantidadServicios());
+            linea.setTotalVentas(resumen.getTotalVentas());
+            linea.setCantidadVentas(resumen.getCantidadVentas());
+            linea.setTotalComisiones(resumen.getTotalComisiones());
+            linea.setPagoBarbero(resumen.getPagoBarbero());
+            cierre.getLineas().add(linea);
+            totalPagado = totalPagado.add(resumen.getPagoBarbero());
+        }
+        cierre.setTotalPagado(totalPagado);
+
+        CierreNomina saved = cierreNominaRepository.save(cierre);
+        logger.info("Nómina cerrada para el periodo {} - {} por {}: total {}", fechaInicio, fechaFin, usuario, totalPagado);
+        return convertirADTO(saved);
+    }
+
+    /**
+     * Obtiene todos los cierres de nómina (sin detalle por barbero).
+     *
+     * @return Lista de cierres
+     */
+    public List<CierreNominaDTO> findAll() {
+        return cierreNominaRepository.findAllByOrderByFechaInicioDesc().stream()
+                .map(this::convertirEncabezadoADTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Obtiene un cierre de nómina con el detalle por barbero.
+     *
+     * @param id ID del cierre
+     * @return Cierre encontrado
+     * @throws RecursoNoEncontradoException si no se encuentra el cierre
+     */
+    public CierreNominaDTO findById(Long id) {
+        return convertirADTO(buscarCierre(id));
+    }
+
+    /**
+     * Compara un cierre de nómina contra un recálculo de los datos actuales del mismo periodo.
+     * El recálculo se resuelve en una sola consulta agregada.
+     *
+     * @param id ID del cierre
+     * @return Diferencias por barbero
+     * @throws RecursoNoEncontradoException si no se encuentra el cierre
+     */
+    public DesviacionNominaDTO detectarDesviacion(Long id) {
+        CierreNomina cierre = buscarCierre(id);
+
+        Map<Long, DesviacionBarberoDTO> desviaciones = new LinkedHashMap<>();
+        for (CierreNominaLinea linea : cierre.getLineas()) {
+            DesviacionBarberoDTO desviacion = new DesviacionBarberoDTO();
+            desviacion.setBarberoId(linea.getBarberoId());
+            desviacion.setBarberoNombre(linea.getBarberoNombre());
+            desviacion.setPagoCierre(linea.getPagoBarbero());
+            desviacion.setPagoActual(BigDecimal.ZERO);
+            desviaciones.put(linea.getBarberoId(), desviacion);
+        }
+        for (ResumenBarberoDTO resumen : calcularResumenBarberos(cierre.getFechaInicio(), cierre.getFechaFin())) {
+            DesviacionBarberoDTO desviacion = desviaciones.computeIfAbsent(resumen.getBarberoId(), barberoId -> {
+                DesviacionBarberoDTO nueva = new DesviacionBarberoDTO();
+                nueva.setBarberoId(barberoId);
+                nueva.setBarberoNombre(resumen.getBarberoNombre());
+                nueva.setPagoCierre(BigDecimal.ZERO);
+                return nueva;
+            });
+            desviacion.setPagoActual(resumen.getPagoBarbero());
+        }
+
+        BigDecimal totalActual = BigDecimal.ZERO;
+        boolean hayDesviacion = false;
+        for (DesviacionBarberoDTO desviacion : desviaciones.values()) {
+            BigDecimal diferencia = desviacion.getPagoActual().subtract(desviacion.getPagoCierre());
+            desviacion.setDiferencia(diferencia);
+            totalActual = totalActual.add(desviacion.getPagoActual());
+            if (diferencia.signum() != 0) {
+                hayDesviacion = true;
+            }
+        }
+
+        DesviacionNominaDTO dto = new DesviacionNominaDTO();
+        dto.setCierreId(cierre.getId());
+        dto.setFechaInicio(cierre.getFechaInicio());
+        dto.setFechaFin(cierre.getFechaFin());
+        dto.setTotalCierre(cierre.getTotalPagado());
+        dto.setTotalActual(totalActual);
+        dto.setDiferencia(totalActual.subtract(cierre.getTotalPagado()));
+        dto.setHayDesviacion(hayDesviacion);
+        dto.setBarberos(new ArrayList<>(desviaciones.values()));
+        return dto;
+    }
+
+    private CierreNomina buscarCierre(Long id) {
+        return cierreNominaRepository.findByIdConLineas(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Cierre de nómina con ID " + id + " no encontrado"));
+    }
+
+    private CierreNominaDTO convertirADTO(CierreNomina cierre) {
+        CierreNominaDTO dto = convertirEncabezadoADTO(cierre);
+        dto.setBarberos(cierre.getLineas().stream()
+                .map(this::convertirLineaADTO)
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    private CierreNominaDTO convertirEncabezadoADTO(CierreNomina cierre) {
+        CierreNominaDTO dto = new CierreNominaDTO();
+        dto.setId(cierre.getId());
+        dto.setFechaInicio(cierre.getFechaInicio());
+        dto.setFechaFin(cierre.getFechaFin());
+        dto.setFechaCierre(cierre.getFechaCierre());
+        dto.setCerradoPor(cierre.getCerradoPor());
+        dto.setTotalPagado(cierre.getTotalPagado());
+        return dto;
+    }
+
+    private ResumenBarberoDTO convertirLineaADTO(CierreNominaLinea linea) {
+        ResumenBarberoDTO resumen = new ResumenBarberoDTO();
+        resumen.setBarberoId(linea.getBarberoId());
+        resumen.setBarberoNombre(linea.getBarberoNombre());
+        resumen.setPorcentajeServicio(linea.getPorcentajeServicio());
+        resumen.setTotalServicios(linea.getTotalServicios());
+        resumen.setCantidadServicios(linea.getCantidadServicios());
+        resumen.setTotalVentas(linea.getTotalVentas());
+        resumen.setCantidadVentas(linea.getCantidadVentas());
+        resumen.setTotalComisiones(linea.getTotalComisiones());
+        resumen.setTotalGenerado(linea.getTotalServicios().add(linea.getTotalVentas()));
+        resumen.setPagoBarbero(linea.getPagoBarbero());
+        return resumen;
+    }
+
+    private static BigDecimal aBigDecimal(Object valor) {
+        if (valor == null) {
+            return BigDecimal.ZERO;
+        }
+        if (valor instanceof BigDecimal) {
+            return (BigDecimal) valor;
+        }
+        return new BigDecimal(valor.toString());
+    }
+}
@@ -0,0 +1,371 @@
+package com.papusbarbershop.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio de plantillas HTML de correos (src/main/resources/templates/correo).
+ *
+ * Las plantillas se compilan una sola vez (al iniciar) a una lista de segmentos: texto literal,
+ * variables y secciones condicionales, de modo que renderizar sólo concatena. Sintaxis:
+ * - {{nombre}}: valor escapado para HTML
+ * - {{{nombre}}}: valor sin escapar (fragmentos HTML ya renderizados)
+ * - {{#nombre}}...{{/nombre}}: el bloque se incluye sólo si el valor no es nulo, vacío ni false
+ *
+ * Si {@code correo.plantillas.directorio} está configurado, las plantillas de ese directorio
+ * reemplazan a las del classpath y se recompilan al modificarse el archivo, sin redesplegar.
+ */
+@Service
+public class PlantillaCorreoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlantillaCorreoService.class);
+
+    private static final String RUTA_CLASSPATH = "templates/correo/";
+
+    // Plantillas que se compilan al iniciar (un error de sintaxis detiene el arranque)
+    private static final List<String> PLANTILLAS = List.of(
+            "base", "cita-cliente", "cita-datos", "cita-personal", "resumen-citas", "resumen-citas-fila",
+            "alertas-stock", "alertas-stock-fila", "mensaje", "recordatorio-cita");
+
+    // Intervalo mínimo entre revisiones de cambios en el directorio de plantillas
+    private static final long INTERVALO_REVISION_MS = 2000;
+
+    @Value("${correo.plantillas.directorio:}")
+    private String directorio;
+
+    private Path directorioExterno;
+
+    private final Map<String, Plantilla> plantillas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (directorio != null && !directorio.isBlank()) {
+            directorioExterno = Paths.get(directorio).toAbsolutePath().normalize();
+            logger.info("Plantillas de correo editables en {}", directorioExterno);
+        }
+        for (String nombre : PLANTILLAS) {
+            plantillas.put(nombre, cargar(nombre));
+        }
+        logger.info("✓ {} plantillas de correo compiladas", plantillas.size());
+    }
+
+    /**
+     * Renderiza una plantilla.
+     *
+     * @param nombre Nombre de la plantilla (sin extensión)
+     * @param valores Valores de las variables
+     * @return HTML renderizado
+     */
+    public String renderizar(String nombre, Map<String, ?> valores) {
+        return renderizarEn(nombre, valores).toString();
+    }
+
+    /**
+     * Renderiza una plantilla agregándola a una salida existente (por ejemplo, las filas de una tabla).
+     *
+     * @param nombre Nombre de la plantilla (sin extensión)
+     * @param valores Valores de las variables
+     * @param salida Destino del HTML renderizado
+     */
+    public void renderizar(String nombre, Map<String, ?> valores, StringBuilder salida) {
+        obtener(nombre).renderizar(valores, salida);
+    }
+
+    /**
+     * Renderiza una plantilla de contenido dentro del diseño base del correo.
+     *
+     * @param nombre Nombre de la plantilla de contenido
+     * @param valores Valores de las variables
+     * @return Documento HTML completo
+     */
+    public String renderizarCorreo(String nombre, Map<String, ?> valores) {
+        // El contenido pasa al diseño base como StringBuilder, sin copiarlo a un String intermedio,
+        // y la salida se dimensiona de entrada para el documento completo
+        StringBuilder contenido = renderizarEn(nombre, valores);
+        Plantilla base = obtener("base");
+        StringBuilder salida = new StringBuilder(base.capacidad + contenido.length());
+        base.renderizar(Map.of("contenido", contenido), salida);
+        return salida.toString();
+    }
+
+    private StringBuilder renderizarEn(String nombre, Map<String, ?> valores) {
+        Plantilla plantilla = obtener(nombre);
+        StringBuilder salida = new StringBuilder(plantilla.capacidad);
+        plantilla.renderizar(valores, salida);
+        return salida;
+    }
+
+    /**
+     * Escapa texto para HTML en una sola pasada, agregándolo a la salida.
+     * Los tramos sin caracteres especiales se copian de una vez.
+     */
+    public static void escapar(CharSequence texto, StringBuilder salida) {
+        int inicio = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            String reemplazo;
+            switch (texto.charAt(i)) {
+                case '&' -> reemplazo = "&amp;";
+                case '<' -> reemplazo = "&lt;";
+                case '>' -> reemplazo = "&gt;";
+                case '"' -> reemplazo = "&quot;";
+                case '\'' -> reemplazo = "&#39;";
+                default -> {
+                    continue;
+                }
+            }
+            salida.append(texto, inicio, i).append(reemplazo);
+            inicio = i + 1;
+        }
+        if (inicio == 0) {
+            // Sin caracteres especiales: un String se copia de una vez
+            salida.append(texto);
+        } else {
+            salida.append(texto, inicio, texto.length());
+        }
+    }
+
+    private Plantilla obtener(String nombre) {
+        Plantilla plantilla = plantillas.get(nombre);
+        if (plantilla == null) {
+            plantilla = plantillas.computeIfAbsent(nombre, this::cargar);
+        } else if (directorioExterno != null && plantilla.debeRevisar()) {
+            Path archivo = directorioExterno.resolve(nombre + ".html");
+            long modificado = ultimaModificacion(archivo);
+            if (modificado != plantilla.modificado) {
+                try {
+                    plantilla = cargar(nombre);
+                    plantillas.put(nombre, plantilla);
+                    logger.info("Plantilla de correo recargada: {}", nombre);
+                } catch (RuntimeException e) {
+                    // Se conserva la versión anterior si la editada no compila
+                    logger.error("No se pudo recargar la plantilla {}: {}", nombre, e.getMessage());
+                    plantilla.modificado = modificado;
+                }
+            }
+        }
+        return plantilla;
+    }
+
+    private Plantilla cargar(String nombre) {
+        try {
+            String fuente;
+            long modificado = 0;
+            Path archivo = directorioExterno != null ? directorioExterno.resolve(nombre + ".html") : null;
+            if (archivo != null && Files.isRegularFile(archivo)) {
+                fuente = Files.readString(archivo, StandardCharsets.UTF_8);
+                modificado = ultimaModificacion(archivo);
+            } else {
+                try (InputStream entrada = new ClassPathResource(RUTA_CLASSPATH + nombre + ".html").getInputStream()) {
+                    fuente = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+            return new Plantilla(compilar(nombre, fuente), modificado);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer la plantilla de correo " + nombre + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static long ultimaModificacion(Path archivo) {
+        try {
+            return Files.isRegularFile(archivo) ? Files.getLastModifiedTime(archivo).toMillis() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // ==================== COMPILACIÓN ====================
+
+    /**
+     * Compila el texto de una plantilla a segmentos.
+     *
+     * @throws IllegalArgumentException si una etiqueta o sección no está cerrada
+     */
+    static List<Segmento> compilar(String nombre, String fuente) {
+        List<Segmento> raiz = new ArrayList<>();
+        int fin = compilar(nombre, fuente, 0, null, raiz);
+        if (fin != fuente.length()) {
+            throw new IllegalArgumentException("Plantilla " + nombre + ": cierre de sección inesperado");
+        }
+        return raiz;
+    }
+
+    /**
+     * Compila desde la posición indicada hasta el cierre de la sección (o el fin del texto).
+     *
+     * @return Posición siguiente al cierre de la sección
+     */
+    private static int compilar(String nombre, String fuente, int inicio, String seccion, List<Segmento> destino) {
+        int pos = inicio;
+        while (pos < fuente.length()) {
+            int apertura = fuente.indexOf("{{", pos);
+            if (apertura < 0) {
+                break;
+            }
+            if (apertura > pos) {
+                destino.add(new Literal(fuente.substring(pos, apertura)));
+            }
+            boolean sinEscapar = fuente.startsWith("{{{", apertura);
+            String cierreEtiqueta = sinEscapar ? "}}}" : "}}";
+            int cierre = fuente.indexOf(cierreEtiqueta, apertura);
+            if (cierre < 0) {
+                throw new IllegalArgumentException("Plantilla " + nombre + ": etiqueta sin cerrar en posición " + apertura);
+            }
+            String etiqueta = fuente.substring(apertura + (sinEscapar ? 3 : 2), cierre).trim();
+            pos = cierre + cierreEtiqueta.length();
+
+            if (!sinEscapar && etiqueta.startsWith("#")) {
+                String nombreSeccion = etiqueta.substring(1).trim();
+                List<Segmento> contenido = new ArrayList<>();
+                pos = compilar(nombre, fuente, pos, nombreSeccion, contenido);
+                destino.add(new Seccion(nombreSeccion, contenido));
+            } else if (!sinEscapar && etiqueta.startsWith("/")) {
+                if (!etiqueta.substring(1).trim().equals(seccion)) {
+                    throw new IllegalArgumentException("Plantilla " + nombre + ": cierre {{" + etiqueta + "}} inesperado");
+                }
+                return pos;
+            } else {
+                destino.add(new Variable(etiqueta, !sinEscapar));
+            }
+        }
+        if (seccion != null) {
+            throw new IllegalArgumentException("Plantilla " + nombre + ": sección {{#" + seccion + "}} sin cerrar");
+        }
+        if (pos < fuente.length()) {
+            destino.add(new Literal(fuente.substring(pos)));
+        }
+        return fuente.length();
+    }
+
+    /**
+     * Plantilla compilada.
+     */
+    static final class Plantilla {
+
+        final List<Segmento> segmentos;
+        // Capacidad inicial de la salida: el texto literal más un margen para los valores
+        final int capacidad;
+        volatile long modificado;
+        private volatile long proximaRevision;
+
+        Plantilla(List<Segmento> segmentos, long modificado) {
+            this.segmentos = segmentos;
+            this.modificado = modificado;
+            this.capacidad = longitudLiteral(segmentos) + 256;
+        }
+
+        private static int longitudLiteral(List<Segmento> segmentos) {
+            int longitud = 0;
+            for (Segmento segmento : segmentos) {
+                if (segmento instanceof Literal literal) {
+                    longitud += literal.texto.length();
+                } else if (segmento instanceof Seccion seccion) {
+                    longitud += longitudLiteral(seccion.contenido);
+                }
+            }
+            return longitud;
+        }
+
+        void renderizar(Map<String, ?> valores, StringBuilder salida) {
+            for (Segmento segmento : segmentos) {
+                segmento.renderizar(valores, salida);
+            }
+        }
+
+        boolean debeRevisar() {
+            long ahora = System.currentTimeMillis();
+            if (ahora < proximaRevision) {
+                return false;
+            }
+            proximaRevision = ahora + INTERVALO_REVISION_MS;
+            return true;
+        }
+    }
+
+    interface Segmento {
+        void renderizar(Map<String, ?> valores, StringBuilder salida);
+    }
+
+    static final class Literal implements Segmento {
+        private final String texto;
+
+        Literal(String texto) {
+            this.texto = texto;
+        }
+
+        @Override
+        public void renderizar(Map<String, ?> valores, StringBuilder salida) {
+            salida.append(texto);
+        }
+    }
+
+    static final class Variable implements Segmento {
+        private final String nombre;
+        private final boolean escapar;
+
+        Variable(String nombre, boolean escapar) {
+            this.nombre = nombre;
+            this.escapar = escapar;
+        }
+
+        @Override
+        public void renderizar(Map<String, ?> valores, StringBuilder salida) {
+            Object valor = valores.get(nombre);
+            if (valor == null) {
+                return;
+            }
+            // Los fragmentos ya renderizados (StringBuilder) se agregan sin copiarlos antes
+            CharSequence texto = valor instanceof CharSequence secuencia ? secuencia : valor.toString();
+            if (escapar) {
+                escapar(texto, salida);
+            } else {
+                salida.append(texto);
+            }
+        }
+    }
+
+    static final class Seccion implements Segmento {
+        private final String nombre;
+        private final List<Segmento> contenido;
+
+        Seccion(String nombre, List<Segmento> contenido) {
+            this.nombre = nombre;
+            this.contenido = contenido;
+        }
+
+        @Override
+        public void renderizar(Map<String, ?> valores, StringBuilder salida) {
+            Object valor = valores.get(nombre);
+            if (valor == null || Boolean.FALSE.equals(valor) || estaEnBlanco(valor)) {
+                return;
+            }
+            for (Segmento segmento : contenido) {
+                segmento.renderizar(valores, salida);
+            }
+        }
+
+        private static boolean estaEnBlanco(Object valor) {
+            CharSequence texto = valor instanceof CharSequence secuencia ? secuencia : valor.toString();
+            for (int i = 0; i < texto.length(); i++) {
+                if (texto.charAt(i) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
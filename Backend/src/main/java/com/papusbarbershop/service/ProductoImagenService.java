@@ -1,93 +1,154 @@
 package com.papusbarbershop.service;
 
+import com.papusbarbershop.dto.CambiosImagenesDTO;
+import com.papusbarbershop.dto.ReferenciaImagenDTO;
+import com.papusbarbershop.entity.ReferenciaImagenProducto;
+import com.papusbarbershop.repository.ReferenciaImagenProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
- * Servicio para gestionar las referencias de imágenes de productos en S3.
- * 
- * Este servicio almacena temporalmente las referencias de imágenes S3
- * para que puedan ser compartidas entre diferentes aplicaciones frontend.
+ * Servicio para las referencias de imágenes de productos que sincronizan los frontends.
+ *
+ * Las referencias se guardan en la base de datos con una versión creciente por cambio, de modo
+ * que los clientes piden sólo los cambios posteriores a la última versión que conocen en lugar
+ * del mapa completo. Registrar una referencia que no cambió no genera una versión nueva.
  */
 @Service
 public class ProductoImagenService {
 
-    // Almacenamiento en memoria de las referencias de imágenes
-    // Estructura: Map<productoId, Map<"s3Key"|"nombreArchivo"|"timestamp", valor>>
-    private final Map<Long, Map<String, Object>> imagenesProductos = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(ProductoImagenService.class);
+
+    // Clave del bloqueo advisory que serializa la asignación de versiones
+    private static final long CLAVE_BLOQUEO_VERSIONES = 0x5052_4F44_494D_47L;
+
+    private static final int LIMITE_POR_DEFECTO = 500;
+    private static final int LIMITE_MAXIMO = 1000;
+
+    @Autowired
+    private ReferenciaImagenProductoRepository referenciaRepository;
 
     /**
-     * Guarda o actualiza la referencia de imagen S3 para un producto.
-     * 
+     * Registra la referencia de imagen de un producto. Debe llamarse en la misma transacción que
+     * modifica la imagen del producto.
+     *
      * @param productoId ID del producto
-     * @param s3Key Clave S3 de la imagen
+     * @param s3Key Clave de la imagen (null si el producto ya no tiene imagen o fue eliminado)
+     * @return true si la referencia cambió y se le asignó una versión nueva
      */
-    public void guardarReferenciaImagen(Long productoId, String s3Key) {
-        Map<String, Object> imagenData = new HashMap<>();
-        imagenData.put("s3Key", s3Key);
-        imagenData.put("timestamp", System.currentTimeMillis());
-        imagenesProductos.put(productoId, imagenData);
-        System.out.println("ProductoImagenService: Guardada referencia para producto " + productoId + " con s3Key: " + s3Key);
+    @Transactional
+    public boolean registrar(Long productoId, String s3Key) {
+        referenciaRepository.bloquearVersiones(CLAVE_BLOQUEO_VERSIONES);
+        String clave = s3Key != null && !s3Key.isEmpty() ? s3Key : null;
+        return referenciaRepository.registrar(productoId, clave, LocalDateTime.now()) > 0;
     }
 
     /**
-     * Guarda o actualiza la referencia de imagen local para un producto.
-     * 
-     * @param productoId ID del producto
-     * @param nombreArchivo Nombre del archivo local
+     * Registra las referencias de los productos con imagen que aún no tienen referencia.
+     * Se ejecuta al iniciar la aplicación.
+     *
+     * @return Cantidad de referencias registradas
      */
-    public void guardarReferenciaImagenLocal(Long productoId, String nombreArchivo) {
-        Map<String, Object> imagenData = imagenesProductos.getOrDefault(productoId, new HashMap<>());
-        imagenData.put("nombreArchivo", nombreArchivo);
-        imagenData.put("timestamp", System.currentTimeMillis());
-        imagenesProductos.put(productoId, imagenData);
+    @Transactional
+    public int registrarExistentes() {
+        referenciaRepository.bloquearVersiones(CLAVE_BLOQUEO_VERSIONES);
+        int registradas = referenciaRepository.registrarExistentes(LocalDateTime.now());
+        if (registradas > 0) {
+            logger.info("✓ Referencias de imágenes registradas para {} productos existentes", registradas);
+        }
+        return registradas;
     }
 
     /**
-     * Obtiene la referencia de imagen para un producto.
-     * 
-     * @param productoId ID del producto
-     * @return Mapa con los datos de la imagen (s3Key, nombreArchivo, timestamp) o null si no existe
+     * Obtiene los cambios de referencias posteriores a una versión.
+     *
+     * @param since Última versión conocida por el cliente (0 para obtener todas)
+     * @param limite Cantidad máxima de cambios (null para usar el valor por defecto)
+     * @return Cambios en orden de versión y la versión hasta la que llegan
      */
-    public Map<String, Object> obtenerReferenciaImagen(Long productoId) {
-        Map<String, Object> referencia = imagenesProductos.get(productoId);
-        if (referencia == null) {
-            System.out.println("ProductoImagenService: No se encontró referencia para producto " + productoId);
-        } else {
-            System.out.println("ProductoImagenService: Referencia encontrada para producto " + productoId + ": " + referencia.get("s3Key"));
+    @Transactional(readOnly = true)
+    public CambiosImagenesDTO obtenerCambios(long since, Integer limite) {
+        int tamano = limite != null && limite > 0 ? Math.min(limite, LIMITE_MAXIMO) : LIMITE_POR_DEFECTO;
+        long versionActual = referenciaRepository.findVersionActual();
+
+        // Una versión desconocida (posterior a la actual) obliga al cliente a recargar todo
+        boolean completo = since <= 0 || since > versionActual;
+        long desde = completo ? 0 : since;
+
+        List<ReferenciaImagenProducto> cambios = referenciaRepository
+                .findByVersionGreaterThanOrderByVersionAsc(desde, PageRequest.of(0, tamano + 1));
+        boolean hayMas = cambios.size() > tamano;
+        if (hayMas) {
+            cambios = cambios.subList(0, tamano);
         }
-        return referencia;
+
+        CambiosImagenesDTO dto = new CambiosImagenesDTO();
+        dto.setVersion(cambios.isEmpty() ? desde : cambios.get(cambios.size() - 1).getVersion());
+        dto.setCompleto(completo);
+        dto.setHayMas(hayMas);
+        dto.setReferencias(cambios.stream().map(this::convertToDTO).collect(Collectors.toList()));
+        return dto;
     }
 
     /**
-     * Obtiene todas las referencias de imágenes.
-     * 
+     * Obtiene todas las referencias vigentes, en el formato del endpoint original
+     * (productoId → {s3Key, timestamp}).
+     *
      * @return Mapa con todas las referencias de imágenes
      */
+    @Transactional(readOnly = true)
     public Map<Long, Map<String, Object>> obtenerTodasLasReferencias() {
-        return new HashMap<>(imagenesProductos);
+        Map<Long, Map<String, Object>> referencias = new HashMap<>();
+        for (ReferenciaImagenProducto referencia : referenciaRepository.findByS3KeyIsNotNull()) {
+            Map<String, Object> imagenData = new HashMap<>();
+            imagenData.put("s3Key", referencia.getS3Key());
+            imagenData.put("timestamp", referencia.getActualizadoEn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            imagenData.put("version", referencia.getVersion());
+            referencias.put(referencia.getProductoId(), imagenData);
+        }
+        return referencias;
     }
 
     /**
-     * Guarda múltiples referencias de imágenes a la vez.
-     * 
-     * @param referencias Mapa con las referencias a guardar
+     * Obtiene las claves de imagen registradas de varios productos en una sola consulta.
+     *
+     * @param productoIds IDs de los productos
+     * @return Mapa productoId → s3Key (sólo productos con imagen)
      */
-    public void guardarReferencias(Map<Long, Map<String, Object>> referencias) {
-        imagenesProductos.putAll(referencias);
-        System.out.println("ProductoImagenService: Guardadas " + referencias.size() + " referencias. Total: " + imagenesProductos.size());
+    @Transactional(readOnly = true)
+    public Map<Long, String> obtenerS3Keys(Collection<Long> productoIds) {
+        Map<Long, String> claves = new HashMap<>();
+        for (ReferenciaImagenProducto referencia : referenciaRepository.findByProductoIdIn(productoIds)) {
+            if (referencia.getS3Key() != null) {
+                claves.put(referencia.getProductoId(), referencia.getS3Key());
+            }
+        }
+        return claves;
     }
 
     /**
-     * Elimina la referencia de imagen de un producto.
-     * 
-     * @param productoId ID del producto
+     * Convierte una entidad ReferenciaImagenProducto a DTO.
+     *
+     * @param referencia Entidad ReferenciaImagenProducto
+     * @return DTO de la referencia
      */
-    public void eliminarReferenciaImagen(Long productoId) {
-        imagenesProductos.remove(productoId);
+    private ReferenciaImagenDTO convertToDTO(ReferenciaImagenProducto referencia) {
+        ReferenciaImagenDTO dto = new ReferenciaImagenDTO();
+        dto.setProductoId(referencia.getProductoId());
+        dto.setS3Key(referencia.getS3Key());
+        dto.setVersion(referencia.getVersion());
+        return dto;
     }
 }
-
@@ -2,15 +2,24 @@ package com.papusbarbershop.service;
 
 import com.papusbarbershop.dto.ProductoCreateDTO;
 import com.papusbarbershop.dto.ProductoDTO;
+import com.papusbarbershop.dto.ReposicionStockDTO;
+import com.papusbarbershop.entity.MovimientoInventario.TipoMovimiento;
 import com.papusbarbershop.entity.Producto;
+import com.papusbarbershop.exception.ConflictoVersionException;
 import com.papusbarbershop.exception.RecursoNoEncontradoException;
+import com.papusbarbershop.exception.ValidacionException;
 import com.papusbarbershop.repository.ProductoRepository;
 import com.papusbarbershop.repository.VentaProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -21,6 +30,8 @@ import java.util.stream.Collectors;
 @Service
 public class ProductoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductoService.class);
+
     @Autowired
     private ProductoRepository productoRepository;
 
@@ -28,18 +39,32 @@ public class ProductoService {
     private VentaProductoRepository ventaProductoRepository;
 
     @Autowired
-    private S3Service s3Service;
+    private UrlPresignadaCache urlPresignadaCache;
+
+    @Autowired
+    private InventarioService inventarioService;
 
-    @org.springframework.beans.factory.annotation.Value("${aws.s3.presigned-url-expiration:3600}")
-    private long presignedUrlExpiration;
+    @Autowired
+    private ReintentoOptimista reintentoOptimista;
+
+    @Autowired
+    private ProductoImagenService productoImagenService;
 
-    // Cache temporal de URLs presignadas para evitar generar URLs repetidas en el mismo request
-    // Estructura: Map<s3Key, {url, expiresAt}>
-    private static class PresignedUrlCache {
-        String url;
-        long expiresAt;
+    @Autowired
+    private ExistenciaArchivoCache existenciaArchivoCache;
+
+    /**
+     * Precarga en segundo plano las URLs presignadas de las imágenes del catálogo, para que
+     * las primeras consultas de productos ya encuentren las URLs firmadas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargarUrlsImagenes() {
+        try {
+            urlPresignadaCache.precargar(productoRepository.findS3Keys());
+        } catch (Exception e) {
+            logger.error("Error al precargar las URLs de imágenes de productos: {}", e.getMessage(), e);
+        }
     }
-    private final Map<String, PresignedUrlCache> presignedUrlCache = new HashMap<>();
 
     /**
      * Crea un nuevo producto.
@@ -58,6 +83,8 @@ public class ProductoService {
         producto.setDescripcion(productoCreateDTO.getDescripcion());
 
         Producto saved = productoRepository.save(producto);
+        inventarioService.registrar(saved.getId(), saved.getNombre(), TipoMovimiento.SALDO_INICIAL,
+                saved.getStock(), saved.getStock(), null, "Alta del producto");
         return convertToDTOConImagen(saved);
     }
 
@@ -66,12 +93,20 @@ public class ProductoService {
      * 
      * @param id ID del producto
      * @param productoCreateDTO DTO con los datos actualizados
+     * @param versionEsperada Versión leída por el cliente (If-Match), o null para no verificarla
      * @return Producto actualizado
+     * @throws ConflictoVersionException si el producto cambió desde la versión esperada
+     *         (incluye cambios de stock por ventas)
      */
     @Transactional
-    public ProductoDTO update(Long id, ProductoCreateDTO productoCreateDTO) {
+    public ProductoDTO update(Long id, ProductoCreateDTO productoCreateDTO, Long versionEsperada) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Producto con ID " + id + " no encontrado"));
+        if (versionEsperada != null && !versionEsperada.equals(producto.getVersion())) {
+            throw new ConflictoVersionException("El producto con ID " + id + " fue modificado después de leerlo " +
+                    "(versión actual " + producto.getVersion() + ", esperada " + versionEsperada + ")");
+        }
+        int stockAnterior = producto.getStock();
 
         producto.setNombre(productoCreateDTO.getNombre());
         producto.setStock(productoCreateDTO.getStock());
@@ -80,7 +115,13 @@ public class ProductoService {
         producto.setComision(productoCreateDTO.getComision() != null ? productoCreateDTO.getComision() : 1);
         producto.setDescripcion(productoCreateDTO.getDescripcion());
 
-        Producto saved = productoRepository.save(producto);
+        // Flush inmediato: una venta concurrente incrementa la versión y la escritura falla aquí
+        Producto saved = productoRepository.saveAndFlush(producto);
+        // Un cambio manual de stock queda en el libro como ajuste
+        if (saved.getStock() != stockAnterior) {
+            inventarioService.registrar(saved.getId(), saved.getNombre(), TipoMovimiento.AJUSTE,
+                    saved.getStock() - stockAnterior, saved.getStock(), null, "Ajuste manual de stock");
+        }
         return convertToDTOConImagen(saved);
     }
 
@@ -90,9 +131,6 @@ public class ProductoService {
      * @return Lista de productos con imagenUrl incluida
      */
     public List<ProductoDTO> findAll() {
-        // Limpiar cache expirado antes de procesar
-        limpiarCacheExpirado();
-        
         return productoRepository.findAll().stream()
                 .map(this::convertToDTOConImagen)
                 .collect(Collectors.toList());
@@ -123,6 +161,26 @@ public class ProductoService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Producto con ID " + id + " no encontrado"));
     }
 
+    /**
+     * Obtiene las entidades Producto de los IDs indicados.
+     * 
+     * @param ids IDs de los productos
+     * @return Entidades Producto indexadas por ID
+     * @throws RecursoNoEncontradoException si algún producto no existe
+     */
+    public Map<Long, Producto> findEntitiesByIds(java.util.Collection<Long> ids) {
+        Map<Long, Producto> productos = new HashMap<>();
+        for (Producto producto : productoRepository.findAllById(ids)) {
+            productos.put(producto.getId(), producto);
+        }
+        for (Long id : ids) {
+            if (!productos.containsKey(id)) {
+                throw new RecursoNoEncontradoException("Producto con ID " + id + " no encontrado");
+            }
+        }
+        return productos;
+    }
+
     /**
      * Obtiene todas las entidades Producto (sin convertir a DTO).
      * 
@@ -132,6 +190,110 @@ public class ProductoService {
         return productoRepository.findAll();
     }
 
+    // ==================== AJUSTES DE INVENTARIO ====================
+    // Operaciones internas para ventas: sólo modifican el stock con una sentencia atómica,
+    // sin reescribir el producto completo ni generar DTOs con URLs de imagen.
+
+    /**
+     * Descuenta stock de un producto con una única sentencia condicional.
+     * 
+     * @param productoId ID del producto
+     * @param cantidad Cantidad a descontar
+     * @return Stock restante después del descuento
+     * @throws RecursoNoEncontradoException si no se encuentra el producto
+     * @throws ValidacionException si no hay stock suficiente
+     */
+    @Transactional
+    public int descontarStock(Long productoId, int cantidad) {
+        return productoRepository.descontarStock(productoId, cantidad)
+                .orElseThrow(() -> {
+                    Integer disponible = productoRepository.findStockById(productoId)
+                            .orElseThrow(() -> new RecursoNoEncontradoException("Producto con ID " + productoId + " no encontrado"));
+                    return new ValidacionException("Stock insuficiente. Stock disponible: " + disponible +
+                            ", cantidad solicitada: " + cantidad);
+                });
+    }
+
+    /**
+     * Descuenta stock de varios productos con una única sentencia. Si alguno no tiene
+     * existencias suficientes se lanza la excepción y la transacción completa se revierte.
+     * 
+     * @param cantidades Cantidad a descontar por ID de producto
+     * @return Stock restante por ID de producto
+     * @throws RecursoNoEncontradoException si algún producto no existe
+     * @throws ValidacionException si algún producto no tiene stock suficiente
+     */
+    @Transactional
+    public Map<Long, Integer> descontarStockLote(Map<Long, Integer> cantidades) {
+        Map<Long, Integer> restantes = productoRepository.descontarStockLote(cantidades);
+        if (restantes.size() < cantidades.size()) {
+            StringBuilder detalle = new StringBuilder("Stock insuficiente.");
+            for (Map.Entry<Long, Integer> entrada : cantidades.entrySet()) {
+                if (restantes.containsKey(entrada.getKey())) {
+                    continue;
+                }
+                Long productoId = entrada.getKey();
+                Integer disponible = productoRepository.findStockById(productoId)
+                        .orElseThrow(() -> new RecursoNoEncontradoException("Producto con ID " + productoId + " no encontrado"));
+                detalle.append(" Producto ").append(productoId)
+                        .append(": stock disponible ").append(disponible)
+                        .append(", cantidad solicitada ").append(entrada.getValue()).append(".");
+            }
+            throw new ValidacionException(detalle.toString());
+        }
+        return restantes;
+    }
+
+    /**
+     * Repone stock a un producto con una única sentencia.
+     * 
+     * @param productoId ID del producto
+     * @param cantidad Cantidad a reponer
+     * @return Stock resultante
+     * @throws RecursoNoEncontradoException si no se encuentra el producto
+     */
+    @Transactional
+    public int reponerStock(Long productoId, int cantidad) {
+        return productoRepository.reponerStock(productoId, cantidad)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Producto con ID " + productoId + " no encontrado"));
+    }
+
+    /**
+     * Registra una reposición de stock (compra a proveedor, entrada de mercadería) y la
+     * anota en el libro de inventario.
+     * 
+     * @param productoId ID del producto
+     * @param reposicionDTO DTO con la cantidad y el motivo de la reposición
+     * @return Producto actualizado
+     * @throws RecursoNoEncontradoException si no se encuentra el producto
+     */
+    @Transactional
+    public ProductoDTO registrarReposicion(Long productoId, ReposicionStockDTO reposicionDTO) {
+        int stock = reponerStock(productoId, reposicionDTO.getCantidad());
+        // Se lee después de la sentencia atómica para obtener el stock ya actualizado
+        Producto producto = findEntityById(productoId);
+        inventarioService.registrar(productoId, producto.getNombre(), TipoMovimiento.REPOSICION,
+                reposicionDTO.getCantidad(), stock, null, reposicionDTO.getMotivo());
+        return convertToDTOConImagen(producto);
+    }
+
+    /**
+     * Ajusta el stock de un producto según la diferencia indicada: descuenta si es positiva
+     * (validando existencias) y repone si es negativa.
+     * 
+     * @param productoId ID del producto
+     * @param diferencia Unidades adicionales a descontar (negativo para reponer)
+     * @return Stock resultante
+     * @throws ValidacionException si no hay stock suficiente
+     */
+    @Transactional
+    public int ajustarStock(Long productoId, int diferencia) {
+        if (diferencia > 0) {
+            return descontarStock(productoId, diferencia);
+        }
+        return reponerStock(productoId, -diferencia);
+    }
+
     /**
      * Elimina un producto por su ID.
      * Las ventas que referencian al producto se conservan: se desvincula el producto
@@ -151,22 +313,68 @@ public class ProductoService {
             venta.setProductoNombre(nombreProducto);
             ventaProductoRepository.save(venta);
         }
+        // El stock que desaparece con el producto se da de baja en el libro
+        if (producto.getStock() != 0) {
+            inventarioService.registrar(id, nombreProducto, TipoMovimiento.AJUSTE,
+                    -producto.getStock(), 0, null, "Producto eliminado");
+        }
         productoRepository.delete(producto);
+        // Los frontends eliminan la referencia de imagen en su siguiente sincronización
+        if (producto.getS3Key() != null) {
+            productoImagenService.registrar(id, null);
+        }
     }
 
     /**
      * Actualiza la clave S3 de la imagen de un producto.
+     * Se reintenta si una venta modifica el producto al mismo tiempo.
      * 
      * @param productoId ID del producto
      * @param s3Key Clave del objeto en S3
+     * @return true si la imagen aún no tiene variantes redimensionadas (imagen nueva o pendiente)
      * @throws RecursoNoEncontradoException si no se encuentra el producto
      */
-    @Transactional
-    public void actualizarS3Key(Long productoId, String s3Key) {
-        Producto producto = productoRepository.findById(productoId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Producto con ID " + productoId + " no encontrado"));
-        producto.setS3Key(s3Key);
-        productoRepository.save(producto);
+    public boolean actualizarS3Key(Long productoId, String s3Key) {
+        boolean sinVariantes = reintentoOptimista.ejecutar("actualizar imagen del producto " + productoId, () -> {
+            Producto producto = productoRepository.findById(productoId)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Producto con ID " + productoId + " no encontrado"));
+            if (!s3Key.equals(producto.getS3Key())) {
+                // Las variantes de la imagen anterior ya no aplican
+                producto.setImagenVariantes(null);
+            }
+            producto.setS3Key(s3Key);
+            productoRepository.save(producto);
+            productoImagenService.registrar(productoId, s3Key);
+            return producto.getImagenVariantes() == null;
+        });
+        existenciaArchivoCache.marcarExistente(s3Key);
+        urlPresignadaCache.precargar(List.of(s3Key));
+        return sinVariantes;
+    }
+
+    /**
+     * Registra las variantes redimensionadas generadas para la imagen de un producto.
+     * Si la imagen del producto cambió mientras se generaban, no se registra nada.
+     * 
+     * @param productoId ID del producto
+     * @param s3Key Clave de la imagen original a partir de la cual se generaron
+     * @param variantes Nombres de las variantes generadas
+     */
+    public void registrarVariantesImagen(Long productoId, String s3Key, List<String> variantes) {
+        boolean registradas = reintentoOptimista.ejecutar("registrar variantes de imagen del producto " + productoId, () -> {
+            Producto producto = productoRepository.findById(productoId).orElse(null);
+            if (producto == null || !s3Key.equals(producto.getS3Key())) {
+                return false;
+            }
+            producto.setImagenVariantes(String.join(",", variantes));
+            productoRepository.save(producto);
+            return true;
+        });
+        if (registradas) {
+            urlPresignadaCache.precargar(variantes.stream()
+                    .map(variante -> ImagenVarianteService.claveVariante(s3Key, variante))
+                    .toList());
+        }
     }
 
     /**
@@ -185,6 +393,7 @@ public class ProductoService {
                 producto.getComision() != null ? producto.getComision() : 1
         );
         dto.setDescripcion(producto.getDescripcion());
+        dto.setVersion(producto.getVersion());
         return dto;
     }
 
@@ -201,28 +410,11 @@ public class ProductoService {
         String s3Key = producto.getS3Key();
         
         if (s3Key != null && !s3Key.isEmpty()) {
-            // Verificar si ya tenemos una URL presignada válida en cache
-            PresignedUrlCache cached = presignedUrlCache.get(s3Key);
-            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
-                dto.setImagenUrl(cached.url);
-            } else {
-                // Generar nueva URL presignada
-                try {
-                    String presignedUrl = s3Service.generatePresignedDownloadUrl(s3Key, presignedUrlExpiration);
-                    dto.setImagenUrl(presignedUrl);
-                    
-                    // Guardar en cache
-                    PresignedUrlCache cacheEntry = new PresignedUrlCache();
-                    cacheEntry.url = presignedUrl;
-                    cacheEntry.expiresAt = System.currentTimeMillis() + (presignedUrlExpiration * 1000);
-                    presignedUrlCache.put(s3Key, cacheEntry);
-                } catch (Exception e) {
-                    // Si falla la generación de URL, dejar imagenUrl como null
-                    System.err.println("Error al generar URL presignada para producto " + producto.getId() + " con s3Key " + s3Key + ": " + e.getMessage());
-                    e.printStackTrace();
-                    dto.setImagenUrl(null);
-                }
-            }
+            // URL desde el cache; nunca se firma en el hilo de la petición. Si aún no hay URL
+            // (imagen recién confirmada) queda null, el cliente muestra la imagen de reemplazo y
+            // la firma se programa.
+            dto.setImagenUrl(urlPresignadaCache.obtener(s3Key));
+            dto.setImagenVariantes(urlsVariantes(s3Key, producto.getImagenVariantes()));
         } else {
             // No hay s3Key para este producto
             dto.setImagenUrl(null);
@@ -232,11 +424,23 @@ public class ProductoService {
     }
 
     /**
-     * Limpia las entradas expiradas del cache de URLs presignadas.
+     * Obtiene desde el cache las URLs de las variantes redimensionadas registradas de la imagen.
+     * 
+     * @param s3Key Clave de la imagen original
+     * @param variantes Variantes registradas (separadas por coma)
+     * @return Mapa nombre → URL con las variantes que ya tienen URL, o null si no hay ninguna
      */
-    private void limpiarCacheExpirado() {
-        long ahora = System.currentTimeMillis();
-        presignedUrlCache.entrySet().removeIf(entry -> entry.getValue().expiresAt <= ahora);
+    private Map<String, String> urlsVariantes(String s3Key, String variantes) {
+        if (variantes == null || variantes.isEmpty()) {
+            return null;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String variante : variantes.split(",")) {
+            String url = urlPresignadaCache.obtener(ImagenVarianteService.claveVariante(s3Key, variante));
+            if (url != null) {
+                urls.put(variante, url);
+            }
+        }
+        return urls.isEmpty() ? null : urls;
     }
 }
-
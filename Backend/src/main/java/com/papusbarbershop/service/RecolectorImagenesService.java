@@ -0,0 +1,232 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.RecoleccionImagenesDTO;
+import com.papusbarbershop.exception.ValidacionException;
+import com.papusbarbershop.repository.ProductoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Servicio que elimina del almacenamiento las imágenes de productos que ya no están referenciadas
+ * (imágenes reemplazadas, productos eliminados o subidas nunca confirmadas).
+ *
+ * Las claves referenciadas (imagen de cada producto y sus variantes) se cargan como un arreglo
+ * ordenado de hashes de 64 bits, y el prefijo de imágenes se recorre página por página
+ * comparando cada clave con ese arreglo. Una colisión de hash sólo puede hacer que se conserve
+ * un archivo huérfano, nunca que se elimine uno referenciado. Los archivos más recientes que el
+ * período de gracia se conservan para no eliminar subidas en curso.
+ *
+ * Por defecto se ejecuta en modo simulación: informa los huérfanos sin eliminarlos.
+ */
+@Service
+public class RecolectorImagenesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecolectorImagenesService.class);
+
+    // Claves huérfanas incluidas como ejemplo en el resultado
+    private static final int MAX_EJEMPLOS = 20;
+
+    @Autowired
+    private AlmacenamientoService almacenamientoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ExistenciaArchivoCache existenciaArchivoCache;
+
+    @Autowired
+    private UrlPresignadaCache urlPresignadaCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${imagenes.gc.prefijo:productos/}")
+    private String prefijo;
+
+    @Value("${imagenes.gc.gracia-horas:24}")
+    private long graciaHoras;
+
+    @Value("${imagenes.gc.simulacion:true}")
+    private boolean simulacionPorDefecto;
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+
+    /**
+     * Conteos y lote pendiente de eliminación durante un recorrido del almacenamiento.
+     */
+    private static final class Recorrido {
+        int revisados;
+        int referenciados;
+        int recientes;
+        int huerfanos;
+        int eliminados;
+        final List<String> ejemplos = new ArrayList<>();
+        final List<String> lote = new ArrayList<>();
+    }
+
+    private Counter revisados;
+    private Counter huerfanos;
+    private Counter eliminados;
+    private Timer duracion;
+
+    @PostConstruct
+    public void init() {
+        revisados = Counter.builder("imagenes.gc.revisados")
+                .description("Archivos revisados por la recolección de imágenes").register(meterRegistry);
+        huerfanos = Counter.builder("imagenes.gc.huerfanos")
+                .description("Imágenes huérfanas encontradas").register(meterRegistry);
+        eliminados = Counter.builder("imagenes.gc.eliminados")
+                .description("Imágenes huérfanas eliminadas").register(meterRegistry);
+        duracion = Timer.builder("imagenes.gc.duracion")
+                .description("Duración de la recolección de imágenes").register(meterRegistry);
+    }
+
+    /**
+     * Recolección programada con el modo configurado (imagenes.gc.simulacion).
+     */
+    @Scheduled(cron = "0 30 3 * * *") // Todos los días a las 03:30
+    public void recolectarProgramado() {
+        try {
+            RecoleccionImagenesDTO resultado = recolectar(simulacionPorDefecto);
+            logger.info("Recolección de imágenes{}: {} revisadas, {} huérfanas, {} eliminadas",
+                    resultado.getSimulacion() ? " (simulación)" : "", resultado.getRevisados(),
+                    resultado.getHuerfanos(), resultado.getEliminados());
+        } catch (Exception e) {
+            logger.error("Error en la recolección de imágenes huérfanas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Busca las imágenes huérfanas bajo el prefijo configurado y, si no es simulación, las elimina
+     * en lotes de hasta {@link AlmacenamientoService#MAX_CLAVES_ELIMINACION} claves.
+     *
+     * @param simulacion true para sólo informar los huérfanos sin eliminarlos (null para usar el configurado)
+     * @return Resultado de la recolección
+     * @throws ValidacionException si ya hay una recolección en curso
+     */
+    public RecoleccionImagenesDTO recolectar(Boolean simulacion) {
+        boolean soloSimular = simulacion != null ? simulacion : simulacionPorDefecto;
+        if (!enEjecucion.compareAndSet(false, true)) {
+            throw new ValidacionException("Ya hay una recolección de imágenes en curso");
+        }
+        long inicio = System.nanoTime();
+        try {
+            long[] referenciados = cargarReferenciados();
+            Instant limiteGracia = Instant.now().minus(Duration.ofHours(graciaHoras));
+
+            Recorrido recorrido = new Recorrido();
+            almacenamientoService.listFiles(prefijo, (key, modificado) -> {
+                recorrido.revisados++;
+                if (Arrays.binarySearch(referenciados, hash(key)) >= 0) {
+                    recorrido.referenciados++;
+                    return;
+                }
+                if (modificado != null && modificado.isAfter(limiteGracia)) {
+                    recorrido.recientes++;
+                    return;
+                }
+                recorrido.huerfanos++;
+                if (recorrido.ejemplos.size() < MAX_EJEMPLOS) {
+                    recorrido.ejemplos.add(key);
+                }
+                if (!soloSimular) {
+                    recorrido.lote.add(key);
+                    if (recorrido.lote.size() >= AlmacenamientoService.MAX_CLAVES_ELIMINACION) {
+                        recorrido.eliminados += eliminar(recorrido.lote);
+                    }
+                }
+            });
+            if (!recorrido.lote.isEmpty()) {
+                recorrido.eliminados += eliminar(recorrido.lote);
+            }
+
+            revisados.increment(recorrido.revisados);
+            huerfanos.increment(recorrido.huerfanos);
+            eliminados.increment(recorrido.eliminados);
+
+            RecoleccionImagenesDTO dto = new RecoleccionImagenesDTO();
+            dto.setSimulacion(soloSimular);
+            dto.setRevisados(recorrido.revisados);
+            dto.setReferenciados(recorrido.referenciados);
+            dto.setRecientes(recorrido.recientes);
+            dto.setHuerfanos(recorrido.huerfanos);
+            dto.setEliminados(recorrido.eliminados);
+            dto.setEjemplos(recorrido.ejemplos);
+            dto.setDuracionMs((System.nanoTime() - inicio) / 1_000_000);
+            return dto;
+        } finally {
+            duracion.record(Duration.ofNanos(System.nanoTime() - inicio));
+            enEjecucion.set(false);
+        }
+    }
+
+    /**
+     * Elimina un lote de claves y lo vacía.
+     *
+     * @return Cantidad de archivos eliminados
+     */
+    private int eliminar(List<String> lote) {
+        int eliminadosLote = almacenamientoService.deleteFiles(lote);
+        for (String key : lote) {
+            existenciaArchivoCache.marcarEliminado(key);
+            urlPresignadaCache.invalidar(key);
+        }
+        lote.clear();
+        return eliminadosLote;
+    }
+
+    /**
+     * Carga los hashes ordenados de las claves referenciadas: la imagen de cada producto y las
+     * claves de sus variantes.
+     */
+    private long[] cargarReferenciados() {
+        List<Object[]> imagenes = productoRepository.findImagenesConVariantes();
+        long[] hashes = new long[imagenes.size() * 4];
+        int cantidad = 0;
+        for (Object[] fila : imagenes) {
+            String key = (String) fila[0];
+            String variantes = (String) fila[1];
+            hashes[cantidad++] = hash(key);
+            if (variantes != null && !variantes.isEmpty()) {
+                for (String variante : variantes.split(",")) {
+                    if (cantidad == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                    }
+                    hashes[cantidad++] = hash(ImagenVarianteService.claveVariante(key, variante));
+                }
+            }
+        }
+        long[] ordenados = Arrays.copyOf(hashes, cantidad);
+        Arrays.sort(ordenados);
+        return ordenados;
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits de la clave.
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,275 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.entity.Cita;
+import com.papusbarbershop.repository.CitaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de recordatorios de citas: envía al cliente un correo correo.recordatorio.horas-antes
+ * horas antes de cada cita activa.
+ *
+ * Los recordatorios de las próximas correo.recordatorio.horizonte-horas horas se mantienen en
+ * memoria en una {@link DelayQueue} que un único hilo consume al vencer cada uno, sin consultar la
+ * base de datos periódicamente. La cola se carga al iniciar, se actualiza al crear, reprogramar,
+ * cancelar o completar una cita, y se recarga cada correo.recordatorio.recarga-horas horas para
+ * incorporar las citas que entran al horizonte.
+ *
+ * Al vencer, el recordatorio se encola en el outbox ({@link EmailAsyncService#encolarRecordatorioCita})
+ * tras verificar en la base de datos que la cita sigue activa a la misma fecha y hora; así un
+ * recordatorio desactualizado (p. ej. una cita cancelada en otra instancia) no se envía, y la
+ * clave de idempotencia evita duplicados entre instancias o tras un reinicio.
+ */
+@Service
+public class RecordatorioCitaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordatorioCitaService.class);
+
+    // Espera antes de reintentar un recordatorio que no se pudo encolar (p. ej. base de datos caída)
+    private static final long REINTENTO_MS = 60_000;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private EmailAsyncService emailAsyncService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${correo.recordatorio.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${correo.recordatorio.horas-antes:24}")
+    private long horasAntes;
+
+    @Value("${correo.recordatorio.horizonte-horas:48}")
+    private long horizonteHoras;
+
+    @Value("${correo.recordatorio.recarga-horas:12}")
+    private long recargaHoras;
+
+    @Value("${correo.recordatorio.zona-horaria:America/Guatemala}")
+    private String zonaHoraria;
+
+    private final DelayQueue<Recordatorio> cola = new DelayQueue<>();
+
+    // Recordatorio vigente de cada cita: los que ya no coinciden se descartan al vencer
+    private final Map<Long, Recordatorio> programados = new ConcurrentHashMap<>();
+
+    private volatile Thread hilo;
+
+    /**
+     * Recordatorio de una cita, ordenado por su vencimiento.
+     */
+    private static final class Recordatorio implements Delayed {
+        final Long citaId;
+        final LocalDate fecha;
+        final LocalTime hora;
+        final long venceEn;
+
+        Recordatorio(Long citaId, LocalDate fecha, LocalTime hora, long venceEn) {
+            this.citaId = citaId;
+            this.fecha = fecha;
+            this.hora = hora;
+            this.venceEn = venceEn;
+        }
+
+        boolean mismaCita(LocalDate otraFecha, LocalTime otraHora) {
+            return fecha.equals(otraFecha) && hora.equals(otraHora);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(venceEn - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return Long.compare(venceEn, ((Recordatorio) otro).venceEn);
+        }
+    }
+
+    /**
+     * Inicia el hilo de recordatorios y carga los de las citas dentro del horizonte.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) {
+            logger.info("Recordatorios de citas deshabilitados");
+            return;
+        }
+        if (horizonteHoras < horasAntes + recargaHoras) {
+            logger.warn("correo.recordatorio.horizonte-horas ({}) es menor que horas-antes + recarga-horas ({}): " +
+                    "algunas citas podrían quedarse sin recordatorio", horizonteHoras, horasAntes + recargaHoras);
+        }
+        Gauge.builder("correo.recordatorio.programados", programados, Map::size)
+                .description("Recordatorios de citas programados en memoria").register(meterRegistry);
+
+        hilo = new Thread(this::consumir, "recordatorios-citas");
+        hilo.setDaemon(true);
+        hilo.start();
+        try {
+            recargar();
+        } catch (Exception e) {
+            logger.error("Error al cargar los recordatorios de citas: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+
+    /**
+     * Carga los recordatorios de las citas activas dentro del horizonte. Los recordatorios ya
+     * programados para la misma fecha y hora se conservan; los vencidos de citas aún futuras
+     * (p. ej. por un reinicio) se envían al momento.
+     */
+    public void recargar() {
+        if (!habilitado) {
+            return;
+        }
+        ZonedDateTime ahora = ZonedDateTime.now(ZoneId.of(zonaHoraria));
+        ZonedDateTime limite = ahora.plusHours(horizonteHoras);
+        List<Cita> citas = citaRepository.findCitasActivasEntre(ahora.toLocalDate(), limite.toLocalDate());
+        int cargados = 0;
+        for (Cita cita : citas) {
+            if (programar(cita.getId(), cita.getFecha(), cita.getHora(), true)) {
+                cargados++;
+            }
+        }
+        logger.info("Recordatorios de citas cargados: {} nuevos, {} programados", cargados, programados.size());
+    }
+
+    /**
+     * Programa (o reprograma) el recordatorio de una cita nueva o con nueva fecha/hora. Dentro de
+     * una transacción se programa al confirmarse. Si la cita se crea con menos de horas-antes de
+     * anticipación no se programa: el cliente acaba de recibir la confirmación.
+     *
+     * @param cita Cita guardada
+     * @param nueva true si la cita se acaba de crear
+     */
+    public void programarAlConfirmar(Cita cita, boolean nueva) {
+        if (!habilitado) {
+            return;
+        }
+        Long citaId = cita.getId();
+        LocalDate fecha = cita.getFecha();
+        LocalTime hora = cita.getHora();
+        ejecutarAlConfirmar(() -> programar(citaId, fecha, hora, !nueva));
+    }
+
+    /**
+     * Cancela el recordatorio de una cita cancelada o completada.
+     *
+     * @param citaId ID de la cita
+     */
+    public void cancelar(Long citaId) {
+        Recordatorio recordatorio = programados.remove(citaId);
+        if (recordatorio != null) {
+            cola.remove(recordatorio);
+            logger.debug("Recordatorio de la cita {} cancelado", citaId);
+        }
+    }
+
+    /**
+     * @param enviarVencido true para enviar al momento un recordatorio cuyo momento ya pasó
+     * @return true si se programó un recordatorio nuevo
+     */
+    private boolean programar(Long citaId, LocalDate fecha, LocalTime hora, boolean enviarVencido) {
+        ZonedDateTime ahora = ZonedDateTime.now(ZoneId.of(zonaHoraria));
+        ZonedDateTime inicio = ZonedDateTime.of(fecha, hora, ahora.getZone());
+        if (!inicio.isAfter(ahora) || inicio.isAfter(ahora.plusHours(horizonteHoras))) {
+            // Fuera del horizonte: se cargará en una recarga posterior
+            cancelar(citaId);
+            return false;
+        }
+        ZonedDateTime envio = inicio.minusHours(horasAntes);
+        if (envio.isBefore(ahora) && !enviarVencido) {
+            cancelar(citaId);
+            return false;
+        }
+
+        Recordatorio actual = programados.get(citaId);
+        if (actual != null && actual.mismaCita(fecha, hora)) {
+            return false;
+        }
+        Recordatorio recordatorio = new Recordatorio(citaId, fecha, hora, envio.toInstant().toEpochMilli());
+        Recordatorio anterior = programados.put(citaId, recordatorio);
+        if (anterior != null) {
+            cola.remove(anterior);
+        }
+        cola.offer(recordatorio);
+        logger.debug("Recordatorio de la cita {} programado para {}", citaId, envio);
+        return true;
+    }
+
+    /**
+     * Bucle del hilo de recordatorios: espera al siguiente vencimiento y lo encola en el outbox.
+     */
+    private void consumir() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Recordatorio recordatorio;
+            try {
+                recordatorio = cola.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (programados.get(recordatorio.citaId) != recordatorio) {
+                continue; // Reprogramado o cancelado
+            }
+            try {
+                boolean encolado = emailAsyncService.encolarRecordatorioCita(recordatorio.citaId,
+                        recordatorio.fecha, recordatorio.hora);
+                programados.remove(recordatorio.citaId, recordatorio);
+                logger.debug("Recordatorio de la cita {} {}", recordatorio.citaId, encolado ? "encolado" : "omitido");
+            } catch (Exception e) {
+                logger.error("Error al encolar el recordatorio de la cita {}, se reintentará: {}",
+                        recordatorio.citaId, e.getMessage(), e);
+                Recordatorio reintento = new Recordatorio(recordatorio.citaId, recordatorio.fecha, recordatorio.hora,
+                        System.currentTimeMillis() + REINTENTO_MS);
+                if (programados.replace(recordatorio.citaId, recordatorio, reintento)) {
+                    cola.offer(reintento);
+                }
+            }
+        }
+    }
+
+    private static void ejecutarAlConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
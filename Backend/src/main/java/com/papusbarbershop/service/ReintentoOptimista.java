@@ -0,0 +1,87 @@
+package com.papusbarbershop.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta operaciones de lectura-modificación-escritura en su propia transacción y las
+ * reintenta si fallan por bloqueo optimista.
+ * 
+ * Cada intento vuelve a leer las entidades, por lo que sólo debe usarse en operaciones que
+ * sigan siendo correctas al aplicarse sobre datos más recientes (cambios de estado, tareas
+ * internas). Las ediciones de usuario no se reintentan: el conflicto se devuelve al cliente.
+ */
+@Component
+public class ReintentoOptimista {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReintentoOptimista.class);
+
+    private static final int MAX_INTENTOS = 3;
+
+    // Espera base antes del segundo intento; se duplica en cada intento y se le suma ruido aleatorio
+    private static final long ESPERA_BASE_MS = 15;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ReintentoOptimista(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Ejecuta la operación en una transacción nueva, reintentando ante conflictos de versión.
+     * Si ya hay una transacción activa no se puede reintentar (quedaría marcada para rollback),
+     * así que la operación se ejecuta una sola vez dentro de ella.
+     *
+     * @param operacion Nombre de la operación (para el log)
+     * @param accion Operación a ejecutar
+     * @return Resultado de la operación
+     * @throws OptimisticLockingFailureException si el conflicto persiste tras el último intento
+     */
+    public <T> T ejecutar(String operacion, Supplier<T> accion) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return accion.get();
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(estado -> accion.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (intento >= MAX_INTENTOS) {
+                    logger.warn("Conflicto de versión en {} tras {} intentos", operacion, intento);
+                    throw e;
+                }
+                logger.debug("Conflicto de versión en {} (intento {}), reintentando", operacion, intento);
+                esperar(intento);
+            }
+        }
+    }
+
+    /**
+     * Variante sin resultado de {@link #ejecutar(String, Supplier)}.
+     */
+    public void ejecutar(String operacion, Runnable accion) {
+        ejecutar(operacion, () -> {
+            accion.run();
+            return null;
+        });
+    }
+
+    private void esperar(int intento) {
+        long espera = (ESPERA_BASE_MS << (intento - 1)) + ThreadLocalRandom.current().nextLong(ESPERA_BASE_MS);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido", e);
+        }
+    }
+}
@@ -3,18 +3,14 @@ package com.papusbarbershop.service;
 import com.papusbarbershop.dto.ResumenBarberoDTO;
 import com.papusbarbershop.dto.ResumenDiarioDTO;
 import com.papusbarbershop.dto.ResumenMensualDTO;
-import com.papusbarbershop.entity.Barbero;
-import com.papusbarbershop.repository.BarberoRepository;
 import com.papusbarbershop.repository.ServicioRepository;
 import com.papusbarbershop.repository.VentaProductoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -33,7 +29,7 @@ public class ReporteService {
     private VentaProductoRepository ventaProductoRepository;
 
     @Autowired
-    private BarberoRepository barberoRepository;
+    private NominaService nominaService;
 
     /**
      * Genera un resumen diario para una fecha específica.
@@ -79,7 +75,7 @@ public class ReporteService {
         resumen.setTotalGeneral(totalServicios.add(totalVentas));
 
         // Resumen por barbero
-        List<ResumenBarberoDTO> resumenBarberos = calcularResumenBarberos(fecha, fecha);
+        List<ResumenBarberoDTO> resumenBarberos = nominaService.obtenerResumenBarberos(fecha, fecha);
         resumen.setResumenBarberos(resumenBarberos);
 
         return resumen;
@@ -132,7 +128,7 @@ public class ReporteService {
         resumen.setTotalGeneral(totalServicios.add(totalVentas));
 
         // Resumen por barbero
-        List<ResumenBarberoDTO> resumenBarberos = calcularResumenBarberos(fechaInicio, fechaFin);
+        List<ResumenBarberoDTO> resumenBarberos = nominaService.obtenerResumenBarberos(fechaInicio, fechaFin);
         resumen.setResumenBarberos(resumenBarberos);
 
         return resumen;
@@ -147,77 +143,4 @@ public class ReporteService {
     public ResumenDiarioDTO generarResumenPorFecha(LocalDate fecha) {
         return generarResumenDiario(fecha);
     }
-
-    /**
-     * Calcula el resumen de todos los barberos en un rango de fechas.
-     * 
-     * @param fechaInicio Fecha de inicio
-     * @param fechaFin Fecha de fin
-     * @return Lista de resúmenes por barbero
-     */
-    private List<ResumenBarberoDTO> calcularResumenBarberos(LocalDate fechaInicio, LocalDate fechaFin) {
-        List<Barbero> barberos = barberoRepository.findAll();
-        List<ResumenBarberoDTO> resumenBarberos = new ArrayList<>();
-
-        for (Barbero barbero : barberos) {
-            ResumenBarberoDTO resumen = new ResumenBarberoDTO();
-            resumen.setBarberoId(barbero.getId());
-            resumen.setBarberoNombre(barbero.getNombre());
-            resumen.setPorcentajeServicio(barbero.getPorcentajeServicio());
-
-            // Calcular total de servicios
-            BigDecimal totalServicios = servicioRepository.calcularTotalPorBarbero(
-                    barbero.getId(), fechaInicio, fechaFin);
-            resumen.setTotalServicios(totalServicios);
-
-            // Contar servicios
-            List<com.papusbarbershop.entity.Servicio> servicios = servicioRepository.findByBarberoId(barbero.getId());
-            servicios = servicios.stream()
-                    .filter(s -> !s.getFecha().isBefore(fechaInicio) && !s.getFecha().isAfter(fechaFin))
-                    .toList();
-            resumen.setCantidadServicios(servicios.size());
-
-            // Calcular total de ventas
-            BigDecimal totalVentas = ventaProductoRepository.calcularTotalPorBarbero(
-                    barbero.getId(), fechaInicio, fechaFin);
-            resumen.setTotalVentas(totalVentas);
-
-            // Contar ventas
-            List<com.papusbarbershop.entity.VentaProducto> ventas = ventaProductoRepository.findByBarberoId(barbero.getId());
-            ventas = ventas.stream()
-                    .filter(v -> !v.getFecha().isBefore(fechaInicio) && !v.getFecha().isAfter(fechaFin))
-                    .toList();
-            resumen.setCantidadVentas(ventas.size());
-
-            // Calcular total de comisiones por barbero
-            // Comisión = comision del producto * cantidad vendida (0 si el producto fue eliminado)
-            BigDecimal totalComisiones = ventas.stream()
-                    .map(venta -> {
-                        Integer comision = 0;
-                        if (venta.getProducto() != null) {
-                            comision = venta.getProducto().getComision();
-                            if (comision == null) comision = 0;
-                        }
-                        return BigDecimal.valueOf(comision).multiply(BigDecimal.valueOf(venta.getCantidad()));
-                    })
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            resumen.setTotalComisiones(totalComisiones);
-
-            // Total generado (servicios + ventas)
-            BigDecimal totalGenerado = totalServicios.add(totalVentas);
-            resumen.setTotalGenerado(totalGenerado);
-
-            // Calcular pago del barbero (porcentaje sobre servicios + total de comisiones)
-            BigDecimal porcentaje = barbero.getPorcentajeServicio().divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-            BigDecimal pagoPorServicios = totalServicios.multiply(porcentaje).setScale(2, RoundingMode.HALF_UP);
-            // Pago total = pago por servicios + comisiones
-            BigDecimal pagoBarbero = pagoPorServicios.add(totalComisiones).setScale(2, RoundingMode.HALF_UP);
-            resumen.setPagoBarbero(pagoBarbero);
-
-            resumenBarberos.add(resumen);
-        }
-
-        return resumenBarberos;
-    }
 }
-
@@ -0,0 +1,136 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.entity.Cita;
+import com.papusbarbershop.entity.NotificacionPersonal;
+import com.papusbarbershop.repository.CitaRepository;
+import com.papusbarbershop.repository.NotificacionPersonalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio que agrupa las notificaciones de citas para el personal en correos de resumen.
+ *
+ * - Modo intervalo: las notificaciones acumuladas en notificaciones_personal se agrupan por
+ *   destinatario y se encola un solo correo por destinatario con todas sus citas nuevas.
+ * - Modo agenda: cada barbero recibe las citas del día y el admin la agenda completa.
+ */
+@Service
+public class ResumenPersonalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumenPersonalService.class);
+
+    // Notificaciones agrupadas por transacción
+    private static final int MAX_NOTIFICACIONES = 1000;
+
+    private static final Comparator<Cita> POR_FECHA_Y_HORA =
+            Comparator.comparing(Cita::getFecha).thenComparing(Cita::getHora);
+
+    @Autowired
+    private NotificacionPersonalRepository notificacionPersonalRepository;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private EmailAsyncService emailAsyncService;
+
+    @Value("${resend.admin.email:}")
+    private String adminEmail;
+
+    /**
+     * Agrupa las notificaciones pendientes y encola un resumen por destinatario. Las citas
+     * canceladas o eliminadas desde la notificación se omiten.
+     *
+     * @return Cantidad de resúmenes encolados
+     */
+    @Transactional
+    public int enviarResumenesPendientes() {
+        List<NotificacionPersonal> pendientes = notificacionPersonalRepository.reclamarPendientes(MAX_NOTIFICACIONES);
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Cita> citas = citaRepository.findAllById(pendientes.stream()
+                        .map(NotificacionPersonal::getCitaId).distinct().collect(Collectors.toList()))
+                .stream().collect(Collectors.toMap(Cita::getId, Function.identity()));
+
+        Map<String, List<NotificacionPersonal>> porDestinatario = new LinkedHashMap<>();
+        for (NotificacionPersonal notificacion : pendientes) {
+            porDestinatario.computeIfAbsent(notificacion.getRol() + "|" + notificacion.getDestinatario(),
+                    k -> new ArrayList<>()).add(notificacion);
+        }
+
+        int resumenes = 0;
+        for (List<NotificacionPersonal> grupo : porDestinatario.values()) {
+            NotificacionPersonal primera = grupo.get(0);
+            List<Cita> citasGrupo = grupo.stream()
+                    .map(n -> citas.get(n.getCitaId()))
+                    .filter(c -> c != null && !"CANCELADA".equals(c.getEstado()))
+                    .distinct()
+                    .sorted(POR_FECHA_Y_HORA)
+                    .collect(Collectors.toList());
+            if (citasGrupo.isEmpty()) {
+                continue;
+            }
+            String titulo = citasGrupo.size() == 1 ? "1 nueva cita" : citasGrupo.size() + " nuevas citas";
+            emailAsyncService.encolarResumen("resumen-" + primera.getId() + "-" + grupo.get(grupo.size() - 1).getId(),
+                    primera.getDestinatario(), "Resumen de nuevas citas - Papus BarberShop", titulo, citasGrupo,
+                    NotificacionPersonal.ROL_ADMIN.equals(primera.getRol()));
+            resumenes++;
+        }
+        notificacionPersonalRepository.deleteAllInBatch(pendientes);
+        logger.info("Resúmenes de citas para el personal encolados: {} ({} notificaciones)", resumenes, pendientes.size());
+        return resumenes;
+    }
+
+    /**
+     * Encola la agenda de un día: a cada barbero con correo sus citas y al admin todas.
+     * Se encola como máximo una agenda por destinatario y día.
+     *
+     * @param fecha Día de la agenda
+     * @return Cantidad de agendas encoladas
+     */
+    @Transactional
+    public int enviarAgenda(LocalDate fecha) {
+        List<Cita> citas = citaRepository.findByFechaBetween(fecha, fecha).stream()
+                .filter(c -> !"CANCELADA".equals(c.getEstado()))
+                .sorted(POR_FECHA_Y_HORA)
+                .collect(Collectors.toList());
+        if (citas.isEmpty()) {
+            return 0;
+        }
+        String titulo = "Agenda del " + fecha.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        String asunto = titulo + " - Papus BarberShop";
+        int agendas = 0;
+
+        Map<Long, List<Cita>> porBarbero = citas.stream()
+                .collect(Collectors.groupingBy(c -> c.getBarbero().getId(), LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<Long, List<Cita>> entrada : porBarbero.entrySet()) {
+            String correo = entrada.getValue().get(0).getBarbero().getCorreo();
+            if (correo != null && !correo.trim().isEmpty()) {
+                emailAsyncService.encolarResumen("agenda-" + fecha + "-barbero-" + entrada.getKey(), correo,
+                        asunto, titulo, entrada.getValue(), false);
+                agendas++;
+            }
+        }
+        if (adminEmail != null && !adminEmail.trim().isEmpty()) {
+            emailAsyncService.encolarResumen("agenda-" + fecha + "-admin", adminEmail, asunto, titulo, citas, true);
+            agendas++;
+        }
+        logger.info("Agenda del {} encolada para {} destinatarios ({} citas)", fecha, agendas, citas.size());
+        return agendas;
+    }
+}
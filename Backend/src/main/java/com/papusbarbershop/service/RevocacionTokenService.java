@@ -0,0 +1,313 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.entity.TokenRevocado;
+import com.papusbarbershop.repository.TokenRevocadoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Servicio de revocación de tokens JWT (cierre de sesión, rotación de refresh tokens y cambio o
+ * restablecimiento de contraseña).
+ *
+ * Las revocaciones se guardan en la tabla tokens_revocados. Los tokens revocados uno a uno se
+ * reflejan en un filtro de Bloom en memoria que se consulta en cada petición: si el filtro indica
+ * que el token no está revocado (el caso normal) la consulta cuesta unos nanosegundos y no toca la
+ * base de datos; sólo ante un posible positivo (revocado o falso positivo, ~1%) se confirma con la
+ * tabla. Las revocaciones de todos los tokens de un usuario son pocas y se guardan completas en
+ * memoria (usuario → fecha de revocación), ya que los tokens nuevos del usuario darían positivo
+ * en el filtro en cada petición.
+ *
+ * El estado en memoria se construye al iniciar, incorpora cada
+ * jwt.revocacion.sincronizacion-segundos las revocaciones hechas en otras instancias y se
+ * reconstruye a diario al eliminar las revocaciones cuyos tokens ya expiraron (un filtro de Bloom
+ * no permite quitar elementos).
+ *
+ * Desactivar un usuario con {@link AuthService#cambiarEstadoUsuario} (PUT /admin/usuarios/{username}/estado)
+ * revoca todos sus tokens. Si el campo activo se cambia directamente en la base de datos, los
+ * tokens de acceso ya emitidos siguen siendo válidos hasta expirar ({@link AuthService#refrescar}
+ * sólo comprueba activo al refrescar).
+ */
+@Service
+public class RevocacionTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocacionTokenService.class);
+
+    private static final String PREFIJO_TOKEN = "jti:";
+    private static final String PREFIJO_USUARIO = "usuario:";
+
+    // Tasa de falsos positivos objetivo del filtro
+    private static final double TASA_FALSOS_POSITIVOS = 0.01;
+
+    // Margen al sincronizar, para no perder revocaciones confirmadas durante la consulta anterior
+    private static final long MARGEN_SINCRONIZACION_SEGUNDOS = 5;
+
+    @Autowired
+    private TokenRevocadoRepository tokenRevocadoRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Revocaciones vigentes esperadas; si se superan, el filtro se reconstruye con el doble.
+     */
+    @Value("${jwt.revocacion.capacidad:10000}")
+    private int capacidad;
+
+    private volatile FiltroBloom filtro;
+
+    // Usuario → instante (ms) hasta el que sus tokens están revocados
+    private volatile Map<String, Long> usuariosRevocados = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime ultimaSincronizacion;
+
+    private Counter revocados;
+    private Counter falsosPositivos;
+
+    /**
+     * Filtro de Bloom de los identificadores (jti) de tokens revocados (doble hashing sobre FNV-1a de 64 bits). Admite
+     * agregar y consultar de forma concurrente sin bloqueos.
+     */
+    private static final class FiltroBloom {
+        private final AtomicLongArray bits;
+        private final long numBits;
+        private final int numHashes;
+        private final int capacidad;
+        private final AtomicInteger elementos = new AtomicInteger();
+
+        FiltroBloom(int capacidad) {
+            this.capacidad = Math.max(capacidad, 100);
+            long m = (long) Math.ceil(-this.capacidad * Math.log(TASA_FALSOS_POSITIVOS) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+            this.numBits = bits.length() * 64L;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / this.capacidad * Math.log(2)));
+        }
+
+        void agregar(String valor) {
+            long h1 = hash(valor);
+            long h2 = mezclar(h1);
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                int indice = (int) (bit >>> 6);
+                long mascara = 1L << bit;
+                long actual;
+                do {
+                    actual = bits.get(indice);
+                } while ((actual & mascara) == 0 && !bits.compareAndSet(indice, actual, actual | mascara));
+            }
+            elementos.incrementAndGet();
+        }
+
+        boolean contiene(String valor) {
+            long h1 = hash(valor);
+            long h2 = mezclar(h1);
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean saturado() {
+            return elementos.get() > capacidad;
+        }
+
+        /**
+         * Hash FNV-1a de 64 bits del valor.
+         */
+        private static long hash(String valor) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < valor.length(); i++) {
+                h ^= valor.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return h;
+        }
+
+        /**
+         * Segundo hash derivado del primero (finalizador de SplitMix64), impar para recorrer todos los bits.
+         */
+        private static long mezclar(long h) {
+            h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+            h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+            return (h ^ (h >>> 31)) | 1;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        revocados = Counter.builder("jwt.revocacion.consultas").tag("resultado", "revocado")
+                .description("Tokens rechazados por estar revocados").register(meterRegistry);
+        falsosPositivos = Counter.builder("jwt.revocacion.consultas").tag("resultado", "falso_positivo")
+                .description("Positivos del filtro de revocación descartados al consultar la tabla").register(meterRegistry);
+        reconstruir(capacidad);
+    }
+
+    /**
+     * Indica si un token verificado fue revocado.
+     *
+     * @param token Token con firma y expiración ya verificadas
+     * @return true si el token o los tokens de su usuario fueron revocados
+     */
+    public boolean estaRevocado(JwtService.TokenVerificado token) {
+        if (!usuariosRevocados.isEmpty() && token.getUsername() != null) {
+            Long revocadoHasta = usuariosRevocados.get(token.getUsername());
+            // Los tokens emitidos en el mismo segundo de la revocación también se consideran revocados
+            if (revocadoHasta != null && token.emitidoEn() <= revocadoHasta) {
+                revocados.increment();
+                return true;
+            }
+        }
+        if (token.getId() != null && filtro.contiene(token.getId())) {
+            if (tokenRevocadoRepository.existsById(PREFIJO_TOKEN + token.getId())) {
+                revocados.increment();
+                return true;
+            }
+            falsosPositivos.increment();
+        }
+        return false;
+    }
+
+    /**
+     * Revoca un token concreto hasta su expiración.
+     *
+     * @param token Token verificado a revocar
+     */
+    @Transactional
+    public void revocarToken(JwtService.TokenVerificado token) {
+        if (token.getId() == null) {
+            // Token anterior a los identificadores: sólo puede revocarse junto con los de su usuario
+            revocarUsuario(token.getUsername());
+            return;
+        }
+        tokenRevocadoRepository.save(new TokenRevocado(PREFIJO_TOKEN + token.getId(), LocalDateTime.now(),
+                aFecha(token.getExpiracion())));
+        filtro.agregar(token.getId());
+    }
+
+    /**
+     * Revoca un token sólo si aún no estaba revocado, de forma atómica: de varias llamadas
+     * concurrentes con el mismo token (por ejemplo, dos renovaciones con el mismo refresh token)
+     * sólo una obtiene true. La revocación de la llamada que gana se confirma con su transacción.
+     *
+     * @param token Token verificado a consumir
+     * @return true si esta llamada lo revocó; false si ya estaba revocado o no tiene identificador
+     */
+    @Transactional
+    public boolean consumirToken(JwtService.TokenVerificado token) {
+        if (token.getId() == null) {
+            return false;
+        }
+        int insertadas = tokenRevocadoRepository.insertarSiNoExiste(PREFIJO_TOKEN + token.getId(),
+                LocalDateTime.now(), aFecha(token.getExpiracion()));
+        filtro.agregar(token.getId());
+        return insertadas == 1;
+    }
+
+    /**
+     * Revoca todos los tokens emitidos hasta ahora para un usuario (los que obtenga después de
+     * iniciar sesión de nuevo siguen siendo válidos).
+     *
+     * @param username Nombre de usuario
+     */
+    @Transactional
+    public void revocarUsuario(String username) {
+        LocalDateTime ahora = LocalDateTime.now();
+        TokenRevocado revocacion = new TokenRevocado(PREFIJO_USUARIO + username, ahora,
+                ahora.plus(jwtService.getExpiracionRefresco(), ChronoUnit.MILLIS));
+        // Upsert: dos revocaciones simultáneas del mismo usuario no chocan por la clave
+        tokenRevocadoRepository.insertarOExtender(revocacion.getClave(), revocacion.getRevocadoEn(),
+                revocacion.getExpiraEn());
+        agregar(filtro, usuariosRevocados, revocacion);
+        logger.info("Tokens del usuario {} revocados", username);
+    }
+
+    /**
+     * Incorpora al filtro las revocaciones hechas en otras instancias.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocacion.sincronizacion-segundos:30}",
+            initialDelayString = "${jwt.revocacion.sincronizacion-segundos:30}", timeUnit = TimeUnit.SECONDS)
+    public void sincronizar() {
+        try {
+            FiltroBloom actual = filtro;
+            if (actual.saturado()) {
+                reconstruir(actual.capacidad * 2);
+                return;
+            }
+            LocalDateTime desde = ultimaSincronizacion.minusSeconds(MARGEN_SINCRONIZACION_SEGUNDOS);
+            ultimaSincronizacion = LocalDateTime.now();
+            for (TokenRevocado revocacion : tokenRevocadoRepository.findByRevocadoEnGreaterThanEqual(desde)) {
+                agregar(actual, usuariosRevocados, revocacion);
+            }
+        } catch (Exception e) {
+            logger.error("Error al sincronizar las revocaciones de tokens: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Elimina las revocaciones de tokens ya expirados y reconstruye el filtro sin ellas.
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    @Transactional
+    public void depurar() {
+        try {
+            int eliminadas = tokenRevocadoRepository.eliminarExpirados(LocalDateTime.now());
+            reconstruir(capacidad);
+            logger.info("Revocaciones de tokens expiradas eliminadas: {}", eliminadas);
+        } catch (Exception e) {
+            logger.error("Error al depurar las revocaciones de tokens: {}", e.getMessage(), e);
+        }
+    }
+
+    private void reconstruir(int capacidadMinima) {
+        ultimaSincronizacion = LocalDateTime.now();
+        List<TokenRevocado> vigentes = tokenRevocadoRepository.findByExpiraEnAfter(ultimaSincronizacion);
+        FiltroBloom nuevo = new FiltroBloom(Math.max(capacidadMinima, vigentes.size() * 2));
+        Map<String, Long> usuarios = new ConcurrentHashMap<>();
+        for (TokenRevocado revocacion : vigentes) {
+            agregar(nuevo, usuarios, revocacion);
+        }
+        filtro = nuevo;
+        usuariosRevocados = usuarios;
+        logger.info("Filtro de revocación de tokens construido: {} revocaciones vigentes ({} de usuarios), " +
+                "{} bits, {} funciones hash", vigentes.size(), usuarios.size(), nuevo.numBits, nuevo.numHashes);
+    }
+
+    private static void agregar(FiltroBloom filtro, Map<String, Long> usuarios, TokenRevocado revocacion) {
+        String clave = revocacion.getClave();
+        if (clave.startsWith(PREFIJO_TOKEN)) {
+            filtro.agregar(clave.substring(PREFIJO_TOKEN.length()));
+        } else if (clave.startsWith(PREFIJO_USUARIO)) {
+            long revocadoEn = revocacion.getRevocadoEn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            usuarios.merge(clave.substring(PREFIJO_USUARIO.length()), revocadoEn, Math::max);
+        }
+    }
+
+    private static LocalDateTime aFecha(Date fecha) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(fecha.getTime()), ZoneId.systemDefault());
+    }
+}
@@ -2,31 +2,39 @@ package com.papusbarbershop.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
-import jakarta.annotation.PostConstruct;
+import java.io.InputStream;
 import java.time.Duration;
-import java.util.UUID;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
- * Servicio para la gestión de archivos en Amazon S3.
+ * Servicio para la gestión de archivos en Amazon S3 (implementación de almacenamiento por defecto).
  * 
  * Este servicio proporciona funcionalidades para:
  * - Generar URLs presignadas para subir archivos
  * - Generar URLs presignadas para descargar archivos
  * - Eliminar archivos de S3
+ *
+ * Usa el cliente y el presigner compartidos definidos en {@link com.papusbarbershop.config.S3Config}.
  */
 @Service
-public class S3Service {
+@ConditionalOnProperty(name = "almacenamiento.tipo", havingValue = "s3", matchIfMissing = true)
+public class S3Service implements AlmacenamientoService {
 
     private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
 
@@ -36,107 +44,14 @@ public class S3Service {
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
-    @Value("${aws.s3.access-key-id}")
-    private String accessKeyId;
-
-    @Value("${aws.s3.secret-access-key}")
-    private String secretAccessKey;
-
     @Value("${aws.s3.presigned-url-expiration:3600}")
     private long presignedUrlExpiration;
 
-    /**
-     * Valida la configuración de S3 después de la inicialización.
-     * Se ejecuta automáticamente después de que Spring inyecta las dependencias.
-     */
-    @PostConstruct
-    public void validateConfiguration() {
-        logger.info("=== Validando configuración de S3 ===");
-        logger.info("Región: {}", region);
-        logger.info("Bucket: {}", bucketName);
-        logger.info("Access Key ID presente: {}", (accessKeyId != null && !accessKeyId.isEmpty()));
-        logger.info("Secret Access Key presente: {}", (secretAccessKey != null && !secretAccessKey.isEmpty()));
-        logger.info("Tiempo de expiración de URLs presignadas: {} segundos", presignedUrlExpiration);
-        
-        if (region == null || region.isEmpty()) {
-            logger.error("ERROR: AWS_REGION no está configurada");
-            throw new IllegalStateException("AWS_REGION no está configurada");
-        }
-        
-        if (bucketName == null || bucketName.isEmpty()) {
-            logger.error("ERROR: AWS_S3_BUCKET_NAME no está configurada");
-            throw new IllegalStateException("AWS_S3_BUCKET_NAME no está configurada");
-        }
-        
-        if (accessKeyId == null || accessKeyId.isEmpty()) {
-            logger.error("ERROR: AWS_ACCESS_KEY_ID no está configurada");
-            throw new IllegalStateException("AWS_ACCESS_KEY_ID no está configurada");
-        }
-        
-        if (secretAccessKey == null || secretAccessKey.isEmpty()) {
-            logger.error("ERROR: AWS_SECRET_ACCESS_KEY no está configurada");
-            throw new IllegalStateException("AWS_SECRET_ACCESS_KEY no está configurada");
-        }
-        
-        // Validar formato de región
-        try {
-            Region.of(region);
-            logger.info("Región válida: {}", region);
-        } catch (Exception e) {
-            logger.error("ERROR: Región inválida: {}", region, e);
-            throw new IllegalStateException("Región AWS inválida: " + region, e);
-        }
-        
-        logger.info("=== Configuración de S3 validada correctamente ===");
-    }
-
-    /**
-     * Crea un cliente S3 configurado con las credenciales.
-     * 
-     * @return Cliente S3 configurado
-     */
-    private S3Client createS3Client() {
-        logger.debug("Creando cliente S3 con región: {}, bucket: {}", region, bucketName);
-        
-        if (accessKeyId == null || accessKeyId.isEmpty() || secretAccessKey == null || secretAccessKey.isEmpty()) {
-            logger.error("ERROR: Credenciales AWS no están disponibles");
-            throw new IllegalStateException("Credenciales AWS no están configuradas correctamente");
-        }
-        
-        AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKeyId, secretAccessKey);
-        
-        S3Client client = S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
-                .build();
-        
-        logger.debug("Cliente S3 creado exitosamente");
-        return client;
-    }
+    @Autowired
+    private S3Client s3Client;
 
-    /**
-     * Crea un presigner S3 configurado con las credenciales.
-     * 
-     * @return Presigner S3 configurado
-     */
-    private S3Presigner createS3Presigner() {
-        logger.debug("Creando presigner S3 con región: {}, bucket: {}", region, bucketName);
-        
-        if (accessKeyId == null || accessKeyId.isEmpty() || secretAccessKey == null || secretAccessKey.isEmpty()) {
-            logger.error("ERROR: Credenciales AWS no están disponibles para presigner");
-            throw new IllegalStateException("Credenciales AWS no están configuradas correctamente");
-        }
-        
-        AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKeyId, secretAccessKey);
-        
-        S3Presigner presigner = S3Presigner.builder()
-                .region(Region.of(region))
-                .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
-                .build();
-        
-        logger.debug("Presigner S3 creado exitosamente");
-        return presigner;
-    }
+    @Autowired
+    private S3Presigner s3Presigner;
 
     /**
      * Genera una URL presignada para subir un archivo a S3.
@@ -146,6 +61,7 @@ public class S3Service {
      * @param contentType Tipo de contenido (ej: 'image/jpeg', 'image/png')
      * @return URL presignada y la key del objeto
      */
+    @Override
     public PresignedUrlResponse generatePresignedUploadUrl(String fileName, String folder, String contentType) {
         logger.info("Generando URL presignada para subir archivo: fileName={}, folder={}, contentType={}", 
                 fileName, folder, contentType);
@@ -165,14 +81,12 @@ public class S3Service {
         }
         
         // Generar un nombre único para el archivo
-        String uniqueFileName = generateUniqueFileName(fileName);
+        String uniqueFileName = AlmacenamientoService.generateUniqueFileName(fileName);
         String key = folder + "/" + uniqueFileName;
         
-        logger.info("Key generada: {}", key);
-        logger.info("Configuración: bucket={}, region={}, expiration={}s", 
-                bucketName, region, presignedUrlExpiration);
+        logger.debug("Key generada: {}, bucket={}, expiration={}s", key, bucketName, presignedUrlExpiration);
 
-        try (S3Presigner presigner = createS3Presigner()) {
+        try {
             // Construir PutObjectRequest SIN Content-Type para evitar SignatureDoesNotMatch
             // El Content-Type NO debe estar firmado en la URL presignada
             // Solo se firma el header "host", permitiendo que el frontend envíe cualquier Content-Type
@@ -191,7 +105,7 @@ public class S3Service {
                     .putObjectRequest(putObjectRequest)
                     .build();
 
-            String presignedUrl = presigner.presignPutObject(presignRequest).url().toString();
+            String presignedUrl = s3Presigner.presignPutObject(presignRequest).url().toString();
             
             logger.info("URL presignada generada exitosamente para key: {}", key);
             logger.debug("URL presignada (primeros 100 caracteres): {}...", 
@@ -212,28 +126,16 @@ public class S3Service {
      * @param expirationTime Tiempo de expiración en segundos
      * @return URL presignada
      */
+    @Override
     public String generatePresignedDownloadUrl(String key, long expirationTime) {
-        logger.info("Generando URL presignada para descargar: key={}, expiration={}s", key, expirationTime);
+        logger.debug("Generando URL presignada para descargar: key={}, expiration={}s", key, expirationTime);
         
         if (key == null || key.isEmpty()) {
             throw new IllegalArgumentException("La key no puede estar vacía");
         }
         
-        try (S3Presigner presigner = createS3Presigner()) {
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build();
-
-            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                    .signatureDuration(Duration.ofSeconds(expirationTime))
-                    .getObjectRequest(getObjectRequest)
-                    .build();
-
-            String presignedUrl = presigner.presignGetObject(presignRequest).url().toString();
-            logger.info("URL presignada de descarga generada exitosamente para key: {}", key);
-            
-            return presignedUrl;
+        try {
+            return presignGet(key, expirationTime);
         } catch (Exception e) {
             logger.error("Error al generar URL presignada de descarga: bucket={}, region={}, key={}", 
                     bucketName, region, key, e);
@@ -241,12 +143,139 @@ public class S3Service {
         }
     }
 
+    /**
+     * Genera URLs presignadas de descarga para varias claves en una sola llamada
+     * (por ejemplo, todas las imágenes de la grilla de productos).
+     * Las claves vacías o repetidas se ignoran; si una clave no se puede firmar se omite
+     * del resultado y se continúa con las demás.
+     *
+     * @param keys Claves de objetos en S3
+     * @param expirationTime Tiempo de expiración en segundos
+     * @return Mapa clave → URL presignada, en el orden de las claves recibidas
+     */
+    @Override
+    public Map<String, String> generatePresignedDownloadUrls(Collection<String> keys, long expirationTime) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (key == null || key.isEmpty() || urls.containsKey(key)) {
+                continue;
+            }
+            try {
+                urls.put(key, presignGet(key, expirationTime));
+            } catch (Exception e) {
+                logger.warn("No se pudo generar URL presignada de descarga para key={}: {}", key, e.getMessage());
+            }
+        }
+        logger.debug("URLs presignadas de descarga generadas: {} de {} claves", urls.size(), keys.size());
+        return urls;
+    }
+
+    private String presignGet(String key, long expirationTime) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(Duration.ofSeconds(expirationTime))
+                .getObjectRequest(getObjectRequest)
+                .build();
+
+        return s3Presigner.presignGetObject(presignRequest).url().toString();
+    }
+
+    /**
+     * Lee el contenido de un archivo de S3.
+     * 
+     * @param key Clave del objeto en S3
+     * @return Stream con el contenido (el llamador debe cerrarlo)
+     */
+    @Override
+    public InputStream readFile(String key) {
+        logger.debug("Leyendo archivo de S3: key={}, bucket={}", key, bucketName);
+        return s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build());
+    }
+
+    /**
+     * Sube a S3 un archivo generado por el backend.
+     * 
+     * @param key Clave del objeto en S3
+     * @param content Contenido del archivo
+     * @param contentType Tipo de contenido
+     */
+    @Override
+    public void uploadFile(String key, byte[] content, String contentType) {
+        logger.debug("Subiendo archivo a S3: key={}, bytes={}", key, content.length);
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .build(),
+                RequestBody.fromBytes(content));
+    }
+
+    /**
+     * Recorre los objetos de S3 bajo un prefijo, en páginas de hasta 1000 claves.
+     * 
+     * @param prefix Prefijo de las claves
+     * @param consumidor Recibe la clave y la fecha de última modificación de cada objeto
+     */
+    @Override
+    public void listFiles(String prefix, BiConsumer<String, Instant> consumidor) {
+        ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .maxKeys(1000)
+                .build();
+
+        for (ListObjectsV2Response pagina : s3Client.listObjectsV2Paginator(listRequest)) {
+            for (S3Object objeto : pagina.contents()) {
+                consumidor.accept(objeto.key(), objeto.lastModified());
+            }
+        }
+    }
+
+    /**
+     * Elimina varios objetos de S3 con DeleteObjects, hasta 1000 claves por petición.
+     * Los errores de claves individuales se registran y no interrumpen el resto.
+     * 
+     * @param keys Claves de los objetos
+     * @return Cantidad de objetos eliminados
+     */
+    @Override
+    public int deleteFiles(List<String> keys) {
+        int eliminados = 0;
+        for (int inicio = 0; inicio < keys.size(); inicio += MAX_CLAVES_ELIMINACION) {
+            List<String> lote = keys.subList(inicio, Math.min(inicio + MAX_CLAVES_ELIMINACION, keys.size()));
+            DeleteObjectsRequest deleteRequest = DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder()
+                            .objects(lote.stream().map(k -> ObjectIdentifier.builder().key(k).build()).toList())
+                            .quiet(true)
+                            .build())
+                    .build();
+
+            DeleteObjectsResponse response = s3Client.deleteObjects(deleteRequest);
+            for (S3Error error : response.errors()) {
+                logger.warn("No se pudo eliminar el objeto de S3: key={}, código={}, mensaje={}",
+                        error.key(), error.code(), error.message());
+            }
+            eliminados += lote.size() - response.errors().size();
+        }
+        logger.info("Eliminación en lote de S3: {} de {} objetos eliminados", eliminados, keys.size());
+        return eliminados;
+    }
+
     /**
      * Elimina un archivo de S3.
      * 
      * @param key Clave del objeto en S3
      * @throws Exception Si hay un error al eliminar el archivo
      */
+    @Override
     public void deleteFile(String key) throws Exception {
         logger.info("Eliminando archivo de S3: key={}, bucket={}", key, bucketName);
         
@@ -254,7 +283,7 @@ public class S3Service {
             throw new IllegalArgumentException("La key no puede estar vacía");
         }
         
-        try (S3Client s3Client = createS3Client()) {
+        try {
             DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
                     .bucket(bucketName)
                     .key(key)
@@ -273,8 +302,10 @@ public class S3Service {
      * Verifica si un archivo existe en S3.
      * 
      * @param key Clave del objeto en S3
-     * @return true si el archivo existe
+     * @return true si el archivo existe, false si S3 responde que no existe
+     * @throws RuntimeException si no se pudo verificar (el resultado no debe tomarse como inexistente)
      */
+    @Override
     public boolean fileExists(String key) {
         logger.debug("Verificando existencia de archivo: key={}, bucket={}", key, bucketName);
         
@@ -282,7 +313,7 @@ public class S3Service {
             return false;
         }
         
-        try (S3Client s3Client = createS3Client()) {
+        try {
             HeadObjectRequest headRequest = HeadObjectRequest.builder()
                     .bucket(bucketName)
                     .key(key)
@@ -294,73 +325,15 @@ public class S3Service {
         } catch (NoSuchKeyException e) {
             logger.debug("Archivo no existe: key={}", key);
             return false;
-        } catch (Exception e) {
+        } catch (S3Exception e) {
+            // HEAD no devuelve cuerpo: un objeto inexistente llega como 404 sin código de error
+            if (e.statusCode() == 404) {
+                logger.debug("Archivo no existe: key={}", key);
+                return false;
+            }
             logger.error("Error al verificar existencia de archivo: bucket={}, region={}, key={}", 
                     bucketName, region, key, e);
-            return false;
-        }
-    }
-
-    /**
-     * Genera un nombre de archivo único basado en el nombre original.
-     * 
-     * @param originalFileName Nombre original del archivo
-     * @return Nombre de archivo único con timestamp y UUID
-     */
-    private String generateUniqueFileName(String originalFileName) {
-        String extension = "";
-        int lastDotIndex = originalFileName.lastIndexOf('.');
-        if (lastDotIndex > 0) {
-            extension = originalFileName.substring(lastDotIndex);
-            originalFileName = originalFileName.substring(0, lastDotIndex);
-        }
-
-        // Sanitizar el nombre del archivo
-        String sanitizedName = originalFileName
-                .toLowerCase()
-                .replaceAll("[^a-z0-9]", "-")
-                .replaceAll("-+", "-")
-                .replaceAll("^-|-$", "");
-
-        // Limitar la longitud
-        if (sanitizedName.length() > 50) {
-            sanitizedName = sanitizedName.substring(0, 50);
-        }
-
-        // Agregar timestamp y UUID para garantizar unicidad
-        long timestamp = System.currentTimeMillis();
-        String uuid = UUID.randomUUID().toString().substring(0, 8);
-
-        return sanitizedName + "-" + timestamp + "-" + uuid + extension;
-    }
-
-    /**
-     * Clase interna para la respuesta de URL presignada.
-     */
-    public static class PresignedUrlResponse {
-        private String url;
-        private String key;
-
-        public PresignedUrlResponse(String url, String key) {
-            this.url = url;
-            this.key = key;
-        }
-
-        public String getUrl() {
-            return url;
-        }
-
-        public void setUrl(String url) {
-            this.url = url;
-        }
-
-        public String getKey() {
-            return key;
-        }
-
-        public void setKey(String key) {
-            this.key = key;
+            throw new RuntimeException("Error al verificar existencia de archivo en S3: " + e.getMessage(), e);
         }
     }
 }
-
@@ -26,6 +26,12 @@ public class ServicioService {
     @Autowired
     private BarberoService barberoService;
 
+    @Autowired
+    private CuboAnaliticoService cuboAnaliticoService;
+
+    @Autowired
+    private CierreCajaService cierreCajaService;
+
     /**
      * Crea un nuevo servicio.
      * 
@@ -45,6 +51,8 @@ public class ServicioService {
         servicio.setPrecio(servicioCreateDTO.getPrecio());
 
         Servicio saved = servicioRepository.save(servicio);
+        cierreCajaService.registrarServicio(saved, 1);
+        cuboAnaliticoService.registrarServicio(saved);
         return convertToDTO(saved);
     }
 
@@ -99,6 +107,9 @@ public class ServicioService {
 
         Barbero barbero = barberoService.findEntityById(servicioCreateDTO.getBarberoId());
 
+        // Retirar del cierre de caja los valores anteriores
+        cierreCajaService.registrarServicio(servicio, -1);
+
         servicio.setFecha(servicioCreateDTO.getFecha());
         servicio.setHora(servicioCreateDTO.getHora());
         servicio.setBarbero(barbero);
@@ -107,6 +118,8 @@ public class ServicioService {
         servicio.setPrecio(servicioCreateDTO.getPrecio());
 
         Servicio saved = servicioRepository.save(servicio);
+        cierreCajaService.registrarServicio(saved, 1);
+        cuboAnaliticoService.registrarServicio(saved);
         return convertToDTO(saved);
     }
 
@@ -120,7 +133,9 @@ public class ServicioService {
     public void delete(Long id) {
         Servicio servicio = servicioRepository.findById(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Servicio con ID " + id + " no encontrado"));
+        cierreCajaService.registrarServicio(servicio, -1);
         servicioRepository.delete(servicio);
+        cuboAnaliticoService.eliminarServicio(id);
     }
 
     /**
@@ -0,0 +1,264 @@
+package com.papusbarbershop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache concurrente y acotado de URLs presignadas de descarga (S3 o almacenamiento local).
+ *
+ * Las URLs se firman siempre en un hilo de fondo, nunca en el hilo de la petición:
+ * - Una clave sin URL válida devuelve null (el cliente muestra la imagen de reemplazo) y programa
+ *   la firma. Las claves del catálogo se firman al iniciar y al confirmar cada imagen, y se
+ *   renuevan antes de expirar, así que esto sólo ocurre durante los primeros milisegundos de una
+ *   imagen nueva o si la firma falla.
+ * - Una entrada se sirve como fresca durante una fracción de la vigencia de la firma, para que el
+ *   cliente no reciba una URL a punto de expirar. Pasada esa fracción, y mientras la firma siga
+ *   siendo válida, se sirve la URL anterior y se programa una nueva firma en segundo plano.
+ * - Cada entrada se vuelve a firmar antes de caducar, en un momento aleatorio dentro de una
+ *   ventana, para que el catálogo completo no expire (ni se vuelva a firmar) a la vez.
+ * - Las claves del catálogo (las registradas con {@link #precargar}: imágenes de productos y sus
+ *   variantes) se renuevan siempre y nunca se descartan, hasta que se invalidan al eliminar el
+ *   objeto. Las demás entradas que no se consultan durante una vigencia completa se descartan en
+ *   lugar de renovarse, y al superar el tamaño máximo se descartan las menos usadas recientemente
+ *   (en tiempo constante, con un LinkedHashMap en orden de acceso que sólo contiene esas claves).
+ */
+@Component
+public class UrlPresignadaCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlPresignadaCache.class);
+
+    // Fracción de la vigencia de la firma durante la cual se sirve la URL
+    private static final double FRACCION_VIGENCIA = 0.75;
+
+    // Ventana (fracciones de la vigencia de la firma) en la que se renueva cada entrada
+    private static final double INICIO_RENOVACION = 0.50;
+    private static final double FIN_RENOVACION = 0.70;
+
+    private static final long INTERVALO_REVISION_SEGUNDOS = 60;
+
+    @Autowired
+    private AlmacenamientoService almacenamientoService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.presigned-url-expiration:3600}")
+    private long vigenciaFirmaSegundos;
+
+    @Value("${aws.s3.url-cache.max-entradas:2000}")
+    private int maxEntradas;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // Claves del catálogo: no se descartan por falta de uso ni por tamaño
+    private final Set<String> catalogo = ConcurrentHashMap.newKeySet();
+
+    // Claves fuera del catálogo en orden de acceso (la primera es la menos usada recientemente)
+    private final Map<String, Boolean> recientes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true));
+
+    // Claves con una firma en curso (evita firmar la misma clave varias veces a la vez)
+    private final Set<String> enCurso = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService ejecutor;
+
+    private Counter aciertos;
+    private Counter fallos;
+    private Counter firmas;
+    private Counter erroresFirma;
+
+    private static final class Entrada {
+        final String url;
+        final long frescaHasta;
+        final long firmaExpiraEn;
+        final long renovarEn;
+        volatile long ultimoAcceso;
+
+        Entrada(String url, long frescaHasta, long firmaExpiraEn, long renovarEn, long ultimoAcceso) {
+            this.url = url;
+            this.frescaHasta = frescaHasta;
+            this.firmaExpiraEn = firmaExpiraEn;
+            this.renovarEn = renovarEn;
+            this.ultimoAcceso = ultimoAcceso;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        ejecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "url-presignada-cache");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        ejecutor.scheduleWithFixedDelay(this::revisar, INTERVALO_REVISION_SEGUNDOS,
+                INTERVALO_REVISION_SEGUNDOS, TimeUnit.SECONDS);
+
+        aciertos = Counter.builder("productos.imagen.url.cache").tag("resultado", "acierto")
+                .description("Consultas de URL presignada servidas desde el cache").register(meterRegistry);
+        fallos = Counter.builder("productos.imagen.url.cache").tag("resultado", "fallo")
+                .description("Consultas de URL presignada sin entrada vigente").register(meterRegistry);
+        firmas = Counter.builder("productos.imagen.url.firmas").tag("resultado", "ok")
+                .description("URLs presignadas generadas en segundo plano").register(meterRegistry);
+        erroresFirma = Counter.builder("productos.imagen.url.firmas").tag("resultado", "error")
+                .description("Errores al generar URLs presignadas").register(meterRegistry);
+        Gauge.builder("productos.imagen.url.cache.entradas", entradas, Map::size)
+                .description("Entradas en el cache de URLs presignadas").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ejecutor != null) {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Obtiene la URL presignada de una clave sin bloquear. Con una entrada cuya firma sigue siendo
+     * válida pero ya no es fresca devuelve esa URL y programa la renovación.
+     *
+     * @param key Clave del objeto en S3
+     * @return URL válida, o null si aún no hay una (la firma queda programada)
+     */
+    public String obtener(String key) {
+        long ahora = System.currentTimeMillis();
+        Entrada entrada = entradas.get(key);
+        if (entrada != null && entrada.firmaExpiraEn > ahora) {
+            entrada.ultimoAcceso = ahora;
+            if (!catalogo.contains(key)) {
+                recientes.get(key);
+            }
+            aciertos.increment();
+            if (entrada.frescaHasta <= ahora) {
+                programarFirma(key);
+            }
+            return entrada.url;
+        }
+        fallos.increment();
+        programarFirma(key);
+        return null;
+    }
+
+    /**
+     * Programa la firma de varias claves (precarga del catálogo o imagen nueva).
+     *
+     * @param keys Claves de objetos en S3
+     */
+    public void precargar(Collection<String> keys) {
+        for (String key : keys) {
+            if (key != null && !key.isEmpty()) {
+                catalogo.add(key);
+                recientes.remove(key);
+                if (!entradas.containsKey(key)) {
+                    programarFirma(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Descarta la URL de una clave y la quita del catálogo (por ejemplo, si el objeto se eliminó).
+     */
+    public void invalidar(String key) {
+        catalogo.remove(key);
+        recientes.remove(key);
+        entradas.remove(key);
+    }
+
+    private void programarFirma(String key) {
+        if (enCurso.add(key)) {
+            ejecutor.execute(() -> {
+                try {
+                    firmar(key);
+                } finally {
+                    enCurso.remove(key);
+                }
+            });
+        }
+    }
+
+    private void firmar(String key) {
+        try {
+            String url = almacenamientoService.generatePresignedDownloadUrl(key, vigenciaFirmaSegundos);
+            long ahora = System.currentTimeMillis();
+            long vigenciaMs = vigenciaFirmaSegundos * 1000;
+            double fraccionRenovacion = ThreadLocalRandom.current().nextDouble(INICIO_RENOVACION, FIN_RENOVACION);
+            Entrada anterior = entradas.get(key);
+            Entrada entrada = new Entrada(url,
+                    ahora + (long) (vigenciaMs * FRACCION_VIGENCIA),
+                    ahora + vigenciaMs,
+                    ahora + (long) (vigenciaMs * fraccionRenovacion),
+                    anterior != null ? anterior.ultimoAcceso : ahora);
+            entradas.put(key, entrada);
+            if (!catalogo.contains(key)) {
+                recientes.put(key, Boolean.TRUE);
+            }
+            firmas.increment();
+            if (entradas.size() > maxEntradas) {
+                desalojar();
+            }
+        } catch (Exception e) {
+            erroresFirma.increment();
+            logger.warn("Error al generar URL presignada para {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Revisión periódica: renueva las entradas en su ventana de renovación (las del catálogo
+     * siempre, las demás si se siguen consultando) y descarta las que no son del catálogo y no
+     * se usan.
+     */
+    private void revisar() {
+        try {
+            long ahora = System.currentTimeMillis();
+            long vigenciaMs = vigenciaFirmaSegundos * 1000;
+            for (Map.Entry<String, Entrada> e : entradas.entrySet()) {
+                Entrada entrada = e.getValue();
+                if (ahora - entrada.ultimoAcceso > vigenciaMs && !catalogo.contains(e.getKey())) {
+                    if (entradas.remove(e.getKey(), entrada)) {
+                        recientes.remove(e.getKey());
+                    }
+                    continue;
+                }
+                if (entrada.renovarEn <= ahora) {
+                    firmar(e.getKey());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error en la revisión del cache de URLs presignadas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Descarta las claves fuera del catálogo menos usadas recientemente hasta volver al máximo.
+     * Si el catálogo solo supera el máximo, el cache lo conserva completo.
+     */
+    private void desalojar() {
+        synchronized (recientes) {
+            Iterator<String> claves = recientes.keySet().iterator();
+            while (entradas.size() > maxEntradas && claves.hasNext()) {
+                String key = claves.next();
+                claves.remove();
+                entradas.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.UtilizacionBarberoDTO;
+import com.papusbarbershop.dto.UtilizacionDTO;
+import com.papusbarbershop.entity.Barbero;
+import com.papusbarbershop.exception.ValidacionException;
+import com.papusbarbershop.repository.BarberoRepository;
+import com.papusbarbershop.repository.CitaRepository;
+import com.papusbarbershop.repository.HorarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Servicio para el reporte de utilización de barberos (mapa de calor de horas pico).
+ * 
+ * Compara los minutos reservados en citas contra los minutos disponibles según los
+ * horarios, por barbero, día de la semana e intervalo de 30 minutos. El cálculo se
+ * hace en una sola pasada sobre proyecciones escalares, acumulando en arreglos
+ * primitivos {@code int[7][48]} por barbero para poder consultarse de forma interactiva
+ * sobre rangos de hasta un año.
+ */
+@Service
+@Transactional(readOnly = true)
+public class UtilizacionService {
+
+    private static final int MINUTOS_POR_INTERVALO = 30;
+    private static final int MINUTOS_POR_DIA = 24 * 60;
+    private static final int INTERVALOS_POR_DIA = MINUTOS_POR_DIA / MINUTOS_POR_INTERVALO;
+    private static final int DIAS_SEMANA = 7;
+    private static final long MAX_DIAS_RANGO = 366;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private HorarioRepository horarioRepository;
+
+    @Autowired
+    private BarberoRepository barberoRepository;
+
+    /**
+     * Calcula la utilización de cada barbero en el rango de fechas indicado.
+     * 
+     * @param fechaInicio Fecha inicial (inclusive)
+     * @param fechaFin Fecha final (inclusive)
+     * @return Reporte de utilización
+     */
+    public UtilizacionDTO calcularUtilizacion(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new ValidacionException("Las fechas de inicio y fin son requeridas");
+        }
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new ValidacionException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        if (ChronoUnit.DAYS.between(fechaInicio, fechaFin) >= MAX_DIAS_RANGO) {
+            throw new ValidacionException("El rango de fechas no puede superar " + MAX_DIAS_RANGO + " días");
+        }
+
+        Map<Long, Acumulador> acumuladores = new HashMap<>();
+
+        // Minutos disponibles: un turno por barbero y día (el más reciente si hay varios)
+        Set<Long> turnosVistos = new HashSet<>();
+        List<Object[]> turnos = horarioRepository.findTurnosEnRango(
+                fechaInicio.atStartOfDay(), fechaFin.plusDays(1).atStartOfDay());
+        for (Object[] fila : turnos) {
+            Long barberoId = (Long) fila[0];
+            LocalDate fecha = ((LocalDateTime) fila[1]).toLocalDate();
+            if (!turnosVistos.add(barberoId * 100_000L + fecha.toEpochDay())) {
+                continue;
+            }
+            int inicio = minutoDelDia((LocalTime) fila[2]);
+            int fin = minutoDelDia((LocalTime) fila[3]);
+            if (fin <= inicio) {
+                continue;
+            }
+            Acumulador acumulador = acumuladores.computeIfAbsent(barberoId, k -> new Acumulador());
+            distribuir(acumulador.disponibles[diaSemana(fecha)], inicio, fin);
+        }
+
+        // Minutos reservados: cada cita ocupa la duración de su tipo de corte
+        List<Object[]> bloques = citaRepository.findBloquesReservados(fechaInicio, fechaFin);
+        for (Object[] fila : bloques) {
+            Long barberoId = (Long) fila[0];
+            LocalDate fecha = (LocalDate) fila[1];
+            int inicio = minutoDelDia((LocalTime) fila[2]);
+            int duracion = fila[3] != null ? (Integer) fila[3] : 0;
+            int fin = Math.min(inicio + duracion, MINUTOS_POR_DIA);
+            if (fin <= inicio) {
+                continue;
+            }
+            Acumulador acumulador = acumuladores.computeIfAbsent(barberoId, k -> new Acumulador());
+            distribuir(acumulador.reservados[diaSemana(fecha)], inicio, fin);
+        }
+
+        List<UtilizacionBarberoDTO> barberos = new ArrayList<>();
+        for (Barbero barbero : barberoRepository.findAll()) {
+            Acumulador acumulador = acumuladores.get(barbero.getId());
+            if (acumulador == null) {
+                acumulador = new Acumulador();
+            }
+            barberos.add(construirDTO(barbero, acumulador));
+        }
+
+        UtilizacionDTO utilizacion = new UtilizacionDTO();
+        utilizacion.setFechaInicio(fechaInicio);
+        utilizacion.setFechaFin(fechaFin);
+        utilizacion.setMinutosPorIntervalo(MINUTOS_POR_INTERVALO);
+        utilizacion.setBarberos(barberos);
+        return utilizacion;
+    }
+
+    /**
+     * Reparte los minutos del tramo [inicio, fin) entre los intervalos que abarca.
+     */
+    private static void distribuir(int[] intervalos, int inicio, int fin) {
+        int minuto = inicio;
+        while (minuto < fin) {
+            int intervalo = minuto / MINUTOS_POR_INTERVALO;
+            int limite = Math.min(fin, (intervalo + 1) * MINUTOS_POR_INTERVALO);
+            intervalos[intervalo] += limite - minuto;
+            minuto = limite;
+        }
+    }
+
+    private static int minutoDelDia(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    private static int diaSemana(LocalDate fecha) {
+        return fecha.getDayOfWeek().getValue() - 1;
+    }
+
+    private UtilizacionBarberoDTO construirDTO(Barbero barbero, Acumulador acumulador) {
+        double[][] utilizacion = new double[DIAS_SEMANA][INTERVALOS_POR_DIA];
+        long totalReservados = 0;
+        long totalDisponibles = 0;
+        for (int dia = 0; dia < DIAS_SEMANA; dia++) {
+            for (int i = 0; i < INTERVALOS_POR_DIA; i++) {
+                int reservados = acumulador.reservados[dia][i];
+                int disponibles = acumulador.disponibles[dia][i];
+                totalReservados += reservados;
+                totalDisponibles += disponibles;
+                utilizacion[dia][i] = disponibles > 0 ? redondear((double) reservados / disponibles) : 0.0;
+            }
+        }
+
+        UtilizacionBarberoDTO dto = new UtilizacionBarberoDTO();
+        dto.setBarberoId(barbero.getId());
+        dto.setBarberoNombre(barbero.getNombre());
+        dto.setMinutosReservados(acumulador.reservados);
+        dto.setMinutosDisponibles(acumulador.disponibles);
+        dto.setUtilizacion(utilizacion);
+        dto.setTotalMinutosReservados(totalReservados);
+        dto.setTotalMinutosDisponibles(totalDisponibles);
+        dto.setUtilizacionTotal(totalDisponibles > 0 ? redondear((double) totalReservados / totalDisponibles) : 0.0);
+        return dto;
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 10_000d) / 10_000d;
+    }
+
+    /**
+     * Acumuladores primitivos de minutos por día de la semana e intervalo.
+     */
+    private static final class Acumulador {
+        private final int[][] reservados = new int[DIAS_SEMANA][INTERVALOS_POR_DIA];
+        private final int[][] disponibles = new int[DIAS_SEMANA][INTERVALOS_POR_DIA];
+    }
+}
@@ -0,0 +1,268 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.AlertaStockDTO;
+import com.papusbarbershop.entity.Producto;
+import com.papusbarbershop.entity.VelocidadProducto;
+import com.papusbarbershop.repository.VelocidadProductoRepository;
+import com.papusbarbershop.repository.VentaProductoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio que estima la velocidad de venta de cada producto y genera alertas de stock bajo.
+ *
+ * La velocidad es una media móvil exponencial (EWMA) de las unidades vendidas por día, que se
+ * actualiza en O(1) con cada venta confirmada sin consultar la tabla de ventas. Los días sin
+ * ventas se aplican de una vez como decaimiento (1 - alfa)^dias, y las correcciones sobre días
+ * ya cerrados (ediciones o eliminaciones de ventas antiguas) se ajustan con el peso que ese día
+ * tiene en la media.
+ *
+ * El estado vive en memoria y se guarda periódicamente en la tabla velocidades_producto.
+ */
+@Service
+public class VelocidadVentaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VelocidadVentaService.class);
+
+    // Días de historial usados para inicializar las velocidades cuando no hay estado guardado
+    private static final int DIAS_INICIALIZACION = 56;
+
+    @Autowired
+    private VelocidadProductoRepository velocidadRepository;
+
+    @Autowired
+    private VentaProductoRepository ventaProductoRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    /**
+     * Peso del día más reciente en la media (0 &lt; alfa &lt;= 1). Valores altos reaccionan
+     * más rápido a cambios de demanda; valores bajos suavizan los picos.
+     */
+    @Value("${inventario.velocidad.alfa:0.2}")
+    private double alfa;
+
+    @Value("${inventario.alertas.dias-umbral:7}")
+    private double diasUmbral;
+
+    @Value("${inventario.alertas.dias-cobertura:30}")
+    private int diasCobertura;
+
+    private final Map<Long, EstadoVelocidad> estados = new ConcurrentHashMap<>();
+
+    // Productos con cambios pendientes de guardar
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Estado de la media de un producto. Las unidades del día en curso se acumulan aparte
+     * y se incorporan a la media cuando llega una venta de un día posterior.
+     */
+    private static class EstadoVelocidad {
+        double ewma;
+        long diaActual;
+        int unidadesDia;
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    /**
+     * Registra unidades vendidas (o devueltas, con valor negativo) de un producto una vez
+     * confirmada la transacción actual.
+     *
+     * @param productoId ID del producto (si es null no se registra nada)
+     * @param fecha Fecha de la venta
+     * @param unidades Unidades vendidas; negativas para retirar una venta
+     */
+    public void registrarVenta(Long productoId, LocalDate fecha, int unidades) {
+        if (productoId == null || unidades == 0) {
+            return;
+        }
+        Runnable cambio = () -> {
+            EstadoVelocidad estado = estados.computeIfAbsent(productoId, id -> nuevoEstado(fecha));
+            synchronized (estado) {
+                aplicar(estado, fecha.toEpochDay(), unidades);
+            }
+            pendientes.add(productoId);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cambio.run();
+                }
+            });
+        } else {
+            cambio.run();
+        }
+    }
+
+    private EstadoVelocidad nuevoEstado(LocalDate fecha) {
+        EstadoVelocidad estado = new EstadoVelocidad();
+        estado.diaActual = fecha.toEpochDay();
+        return estado;
+    }
+
+    private void aplicar(EstadoVelocidad estado, long dia, int unidades) {
+        if (dia > estado.diaActual) {
+            // Cerrar el día en curso y decaer por los días intermedios sin ventas
+            estado.ewma = decaer(estado, dia);
+            estado.diaActual = dia;
+            estado.unidadesDia = unidades;
+        } else if (dia == estado.diaActual) {
+            estado.unidadesDia += unidades;
+        } else {
+            // Corrección de un día ya incorporado: su peso actual es alfa * (1 - alfa)^antigüedad
+            double peso = alfa * Math.pow(1 - alfa, estado.diaActual - 1 - dia);
+            estado.ewma = Math.max(0, estado.ewma + peso * unidades);
+        }
+    }
+
+    /**
+     * Media al inicio del día indicado: incorpora el día en curso y los días sin ventas intermedios.
+     */
+    private double decaer(EstadoVelocidad estado, long dia) {
+        if (dia <= estado.diaActual) {
+            return estado.ewma;
+        }
+        double cerrada = alfa * Math.max(0, estado.unidadesDia) + (1 - alfa) * estado.ewma;
+        return cerrada * Math.pow(1 - alfa, dia - estado.diaActual - 1);
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Obtiene la velocidad de venta estimada de un producto (unidades por día), considerando
+     * sólo días completos hasta ayer.
+     *
+     * @param productoId ID del producto
+     * @return Unidades por día (0 si el producto no tiene ventas registradas)
+     */
+    public double obtenerVelocidad(Long productoId) {
+        EstadoVelocidad estado = estados.get(productoId);
+        if (estado == null) {
+            return 0;
+        }
+        synchronized (estado) {
+            return decaer(estado, LocalDate.now().toEpochDay());
+        }
+    }
+
+    /**
+     * Obtiene los productos sin stock o cuyo stock proyectado alcanza para menos días que el umbral.
+     *
+     * @param umbralDias Umbral de días de stock (null para usar el configurado)
+     * @return Alertas ordenadas de menor a mayor cantidad de días restantes
+     */
+    public List<AlertaStockDTO> obtenerAlertas(Double umbralDias) {
+        double umbral = umbralDias != null ? umbralDias : diasUmbral;
+        List<AlertaStockDTO> alertas = new ArrayList<>();
+        for (Producto producto : productoService.findAllEntities()) {
+            int stock = producto.getStock() != null ? producto.getStock() : 0;
+            double velocidad = obtenerVelocidad(producto.getId());
+            Double diasRestantes = velocidad > 0 ? stock / velocidad : null;
+            boolean alerta = stock <= 0 || (diasRestantes != null && diasRestantes < umbral);
+            if (!alerta) {
+                continue;
+            }
+            AlertaStockDTO dto = new AlertaStockDTO();
+            dto.setProductoId(producto.getId());
+            dto.setProductoNombre(producto.getNombre());
+            dto.setStock(stock);
+            dto.setVelocidadDiaria(Math.round(velocidad * 100) / 100.0);
+            dto.setDiasRestantes(diasRestantes != null ? Math.round(diasRestantes * 10) / 10.0 : null);
+            dto.setCantidadSugerida(Math.max(0, (int) Math.ceil(velocidad * diasCobertura) - stock));
+            alertas.add(dto);
+        }
+        alertas.sort(Comparator.comparing(AlertaStockDTO::getDiasRestantes,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return alertas;
+    }
+
+    // ==================== PERSISTENCIA ====================
+
+    /**
+     * Carga el estado guardado. Si no hay estado guardado, lo inicializa a partir de las ventas
+     * de las últimas semanas (única lectura agregada de la tabla de ventas).
+     */
+    public void inicializar() {
+        List<VelocidadProducto> guardadas = velocidadRepository.findAll();
+        if (!guardadas.isEmpty()) {
+            for (VelocidadProducto guardada : guardadas) {
+                EstadoVelocidad estado = new EstadoVelocidad();
+                estado.ewma = guardada.getEwmaDiario();
+                estado.diaActual = guardada.getDiaActual().toEpochDay();
+                estado.unidadesDia = guardada.getUnidadesDia();
+                estados.put(guardada.getProductoId(), estado);
+            }
+            logger.info("✓ Velocidades de venta cargadas: {} productos", guardadas.size());
+            return;
+        }
+
+        List<Object[]> filas = ventaProductoRepository.sumarUnidadesPorProductoYDia(
+                LocalDate.now().minusDays(DIAS_INICIALIZACION));
+        for (Object[] fila : filas) {
+            Long productoId = (Long) fila[0];
+            LocalDate fecha = (LocalDate) fila[1];
+            int unidades = ((Number) fila[2]).intValue();
+            EstadoVelocidad estado = estados.computeIfAbsent(productoId, id -> nuevoEstado(fecha));
+            aplicar(estado, fecha.toEpochDay(), unidades);
+            pendientes.add(productoId);
+        }
+        guardarPendientes();
+        logger.info("✓ Velocidades de venta inicializadas desde el historial: {} productos", estados.size());
+    }
+
+    /**
+     * Guarda en la base de datos el estado de los productos con cambios. Se ejecuta cada
+     * 5 minutos y al detener la aplicación.
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    @PreDestroy
+    public void guardarPendientes() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        List<VelocidadProducto> cambios = new ArrayList<>();
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Long productoId : List.copyOf(pendientes)) {
+            pendientes.remove(productoId);
+            EstadoVelocidad estado = estados.get(productoId);
+            if (estado == null) {
+                continue;
+            }
+            VelocidadProducto velocidad = new VelocidadProducto();
+            velocidad.setProductoId(productoId);
+            synchronized (estado) {
+                velocidad.setEwmaDiario(estado.ewma);
+                velocidad.setDiaActual(LocalDate.ofEpochDay(estado.diaActual));
+                velocidad.setUnidadesDia(estado.unidadesDia);
+            }
+            velocidad.setActualizadoEn(ahora);
+            cambios.add(velocidad);
+        }
+        try {
+            velocidadRepository.saveAll(cambios);
+        } catch (Exception e) {
+            // Reintentar en la siguiente ejecución
+            cambios.forEach(c -> pendientes.add(c.getProductoId()));
+            logger.error("Error al guardar las velocidades de venta: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.papusbarbershop.service;
 
+import com.papusbarbershop.dto.LineaTicketDTO;
+import com.papusbarbershop.dto.TicketVentaCreateDTO;
+import com.papusbarbershop.dto.TicketVentaDTO;
 import com.papusbarbershop.dto.VentaProductoCreateDTO;
 import com.papusbarbershop.dto.VentaProductoDTO;
 import com.papusbarbershop.entity.Barbero;
+import com.papusbarbershop.entity.MovimientoInventario.TipoMovimiento;
 import com.papusbarbershop.entity.Producto;
 import com.papusbarbershop.entity.VentaProducto;
 import com.papusbarbershop.exception.RecursoNoEncontradoException;
@@ -14,7 +18,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -35,10 +43,22 @@ public class VentaProductoService {
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private CuboAnaliticoService cuboAnaliticoService;
+
+    @Autowired
+    private CierreCajaService cierreCajaService;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private VelocidadVentaService velocidadVentaService;
+
     /**
      * Crea una nueva venta de producto.
      * 
-     * Valida el stock disponible, actualiza el inventario y registra la venta.
+     * Descuenta el stock del producto de forma atómica y registra la venta.
      * 
      * @param ventaCreateDTO DTO con los datos de la venta
      * @return Venta creada
@@ -50,21 +70,14 @@ public class VentaProductoService {
         Barbero barbero = barberoService.findEntityById(ventaCreateDTO.getBarberoId());
         Producto producto = productoService.findEntityById(ventaCreateDTO.getProductoId());
 
-        // Validar stock disponible
-        Integer stockAntes = producto.getStock();
-        if (stockAntes < ventaCreateDTO.getCantidad()) {
-            throw new ValidacionException("Stock insuficiente. Stock disponible: " + stockAntes + 
-                    ", cantidad solicitada: " + ventaCreateDTO.getCantidad());
-        }
+        // Descontar stock de forma atómica (verificación y escritura en una sola sentencia)
+        Integer cantidad = ventaCreateDTO.getCantidad();
+        Integer stockDespues = productoService.descontarStock(producto.getId(), cantidad);
+        Integer stockAntes = stockDespues + cantidad;
 
         // Calcular importe
         BigDecimal precioUnitario = producto.getPrecioVenta();
-        BigDecimal importe = precioUnitario.multiply(BigDecimal.valueOf(ventaCreateDTO.getCantidad()));
-
-        // Actualizar stock del producto
-        Integer stockDespues = stockAntes - ventaCreateDTO.getCantidad();
-        producto.setStock(stockDespues);
-        productoService.update(producto.getId(), convertProductoToDTO(producto));
+        BigDecimal importe = precioUnitario.multiply(BigDecimal.valueOf(cantidad));
 
         // Crear venta
         VentaProducto venta = new VentaProducto();
@@ -81,9 +94,88 @@ public class VentaProductoService {
         venta.setMetodoPago(ventaCreateDTO.getMetodoPago());
 
         VentaProducto saved = ventaProductoRepository.save(venta);
+        inventarioService.registrar(producto.getId(), producto.getNombre(), TipoMovimiento.VENTA,
+                -cantidad, stockDespues, saved.getId(), null);
+        velocidadVentaService.registrarVenta(producto.getId(), saved.getFecha(), cantidad);
+        cierreCajaService.registrarVenta(saved, 1);
+        cuboAnaliticoService.registrarVenta(saved);
         return convertToDTO(saved);
     }
 
+    /**
+     * Registra un ticket con varias líneas de producto para un mismo barbero y método de pago.
+     * 
+     * Todo el ticket se procesa en una sola transacción: el stock de todos los productos se
+     * descuenta con una única sentencia y las ventas se insertan en lote. Si algún producto
+     * no tiene stock suficiente no se registra ninguna línea.
+     * 
+     * @param ticketCreateDTO DTO con los datos del ticket
+     * @return Ventas registradas y total del ticket
+     * @throws ValidacionException si algún producto no tiene stock suficiente
+     */
+    @Transactional
+    public TicketVentaDTO crearTicket(TicketVentaCreateDTO ticketCreateDTO) {
+        Barbero barbero = barberoService.findEntityById(ticketCreateDTO.getBarberoId());
+
+        // Agrupar cantidades por producto (un producto puede repetirse en varias líneas)
+        Map<Long, Integer> cantidadPorProducto = new LinkedHashMap<>();
+        for (LineaTicketDTO linea : ticketCreateDTO.getLineas()) {
+            cantidadPorProducto.merge(linea.getProductoId(), linea.getCantidad(), Integer::sum);
+        }
+        Map<Long, Producto> productos = productoService.findEntitiesByIds(cantidadPorProducto.keySet());
+
+        // Descontar el stock de todas las líneas en una sola sentencia
+        Map<Long, Integer> stockRestante = productoService.descontarStockLote(cantidadPorProducto);
+
+        // Stock de cada producto antes del ticket, para calcular stockAntes/stockDespues por línea
+        Map<Long, Integer> stockEnCurso = new HashMap<>();
+        cantidadPorProducto.forEach((productoId, cantidad) ->
+                stockEnCurso.put(productoId, stockRestante.get(productoId) + cantidad));
+
+        List<VentaProducto> ventas = new ArrayList<>(ticketCreateDTO.getLineas().size());
+        BigDecimal total = BigDecimal.ZERO;
+        int cantidadTotal = 0;
+        for (LineaTicketDTO linea : ticketCreateDTO.getLineas()) {
+            Producto producto = productos.get(linea.getProductoId());
+            Integer stockAntes = stockEnCurso.get(producto.getId());
+            Integer stockDespues = stockAntes - linea.getCantidad();
+            stockEnCurso.put(producto.getId(), stockDespues);
+
+            BigDecimal precioUnitario = producto.getPrecioVenta();
+            BigDecimal importe = precioUnitario.multiply(BigDecimal.valueOf(linea.getCantidad()));
+
+            VentaProducto venta = new VentaProducto();
+            venta.setFecha(ticketCreateDTO.getFecha());
+            venta.setHora(ticketCreateDTO.getHora());
+            venta.setBarbero(barbero);
+            venta.setProducto(producto);
+            venta.setProductoNombre(producto.getNombre());
+            venta.setCantidad(linea.getCantidad());
+            venta.setPrecioUnitario(precioUnitario);
+            venta.setImporte(importe);
+            venta.setStockAntes(stockAntes);
+            venta.setStockDespues(stockDespues);
+            venta.setMetodoPago(ticketCreateDTO.getMetodoPago());
+            ventas.add(venta);
+
+            total = total.add(importe);
+            cantidadTotal += linea.getCantidad();
+        }
+
+        // Inserción en lote (ids por secuencia, hibernate.jdbc.batch_size)
+        List<VentaProducto> saved = ventaProductoRepository.saveAll(ventas);
+        inventarioService.registrarVentas(saved);
+        cierreCajaService.registrarTicket(ticketCreateDTO.getFecha(), barbero.getId(),
+                ticketCreateDTO.getMetodoPago(), total, saved.size());
+        saved.forEach(cuboAnaliticoService::registrarVenta);
+        saved.forEach(v -> velocidadVentaService.registrarVenta(v.getProducto().getId(), v.getFecha(), v.getCantidad()));
+
+        List<VentaProductoDTO> ventasDTO = saved.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return new TicketVentaDTO(ventasDTO, cantidadTotal, total);
+    }
+
     /**
      * Obtiene todas las ventas de productos.
      * 
@@ -140,49 +232,43 @@ public class VentaProductoService {
         Barbero barbero = barberoService.findEntityById(ventaCreateDTO.getBarberoId());
         Producto producto = productoService.findEntityById(ventaCreateDTO.getProductoId());
 
-        // Si cambió el producto o la cantidad, ajustar stock
+        // Retirar del cierre de caja y de la velocidad de venta los valores anteriores
+        cierreCajaService.registrarVenta(venta, -1);
+        if (venta.getProducto() != null) {
+            velocidadVentaService.registrarVenta(venta.getProducto().getId(), venta.getFecha(), -venta.getCantidad());
+        }
+
+        // Si cambió el producto o la cantidad, ajustar stock con sentencias atómicas
         boolean productoCambio = venta.getProducto() == null || !venta.getProducto().getId().equals(ventaCreateDTO.getProductoId());
         boolean cantidadCambio = !venta.getCantidad().equals(ventaCreateDTO.getCantidad());
 
         if (productoCambio || cantidadCambio) {
-            // Restaurar stock del producto anterior (solo si la venta tenía producto vinculado)
-            if (venta.getProducto() != null) {
-                Producto productoAnterior = venta.getProducto();
-                Integer stockActualAnterior = productoAnterior.getStock();
-                Integer stockRestaurado = stockActualAnterior + venta.getCantidad();
-                productoAnterior.setStock(stockRestaurado);
-                productoService.update(productoAnterior.getId(), convertProductoToDTO(productoAnterior));
-            }
-
-            // Validar stock disponible del nuevo producto (o mismo producto con nueva cantidad)
-            Integer stockActual = producto.getStock();
             Integer cantidadNecesaria = ventaCreateDTO.getCantidad();
-            
+            Integer stockDespues;
+
             if (productoCambio) {
-                // Si cambió el producto, validar stock del nuevo producto
-                if (stockActual < cantidadNecesaria) {
-                    throw new ValidacionException("Stock insuficiente. Stock disponible: " + stockActual + 
-                            ", cantidad solicitada: " + cantidadNecesaria);
+                // Restaurar stock del producto anterior (solo si la venta tenía producto vinculado)
+                if (venta.getProducto() != null) {
+                    Producto anterior = venta.getProducto();
+                    int stockAnterior = productoService.reponerStock(anterior.getId(), venta.getCantidad());
+                    inventarioService.registrar(anterior.getId(), anterior.getNombre(), TipoMovimiento.DEVOLUCION,
+                            venta.getCantidad(), stockAnterior, venta.getId(), "Cambio de producto en la venta");
                 }
+                // Descontar la cantidad completa del nuevo producto
+                stockDespues = productoService.descontarStock(producto.getId(), cantidadNecesaria);
+                inventarioService.registrar(producto.getId(), producto.getNombre(), TipoMovimiento.VENTA,
+                        -cantidadNecesaria, stockDespues, venta.getId(), null);
             } else {
-                // Si es el mismo producto pero cambió la cantidad, calcular diferencia
-                Integer diferencia = cantidadNecesaria - venta.getCantidad();
-                if (diferencia > 0 && stockActual < diferencia) {
-                    throw new ValidacionException("Stock insuficiente. Stock disponible: " + stockActual + 
-                            ", cantidad adicional necesaria: " + diferencia);
-                }
+                // Mismo producto: descontar o reponer sólo la diferencia
+                int diferencia = cantidadNecesaria - venta.getCantidad();
+                stockDespues = productoService.ajustarStock(producto.getId(), diferencia);
+                inventarioService.registrar(producto.getId(), producto.getNombre(),
+                        diferencia > 0 ? TipoMovimiento.VENTA : TipoMovimiento.DEVOLUCION,
+                        -diferencia, stockDespues, venta.getId(), "Cambio de cantidad en la venta");
             }
 
-            // Obtener stock antes de la actualización
-            Integer stockAntes = producto.getStock();
-            
-            // Actualizar stock del producto (nuevo o actualizado)
-            Integer stockDespues = stockActual - cantidadNecesaria;
-            producto.setStock(stockDespues);
-            productoService.update(producto.getId(), convertProductoToDTO(producto));
-            
             // Guardar stock antes y después para la venta
-            venta.setStockAntes(stockAntes);
+            venta.setStockAntes(stockDespues + cantidadNecesaria);
             venta.setStockDespues(stockDespues);
         }
 
@@ -202,6 +288,9 @@ public class VentaProductoService {
         venta.setMetodoPago(ventaCreateDTO.getMetodoPago());
 
         VentaProducto saved = ventaProductoRepository.save(venta);
+        velocidadVentaService.registrarVenta(producto.getId(), saved.getFecha(), saved.getCantidad());
+        cierreCajaService.registrarVenta(saved, 1);
+        cuboAnaliticoService.registrarVenta(saved);
         return convertToDTO(saved);
     }
 
@@ -219,13 +308,15 @@ public class VentaProductoService {
         // Restaurar stock del producto solo si la venta aún tiene producto vinculado
         if (venta.getProducto() != null) {
             Producto producto = venta.getProducto();
-            Integer stockActual = producto.getStock();
-            Integer stockRestaurado = stockActual + venta.getCantidad();
-            producto.setStock(stockRestaurado);
-            productoService.update(producto.getId(), convertProductoToDTO(producto));
+            int stock = productoService.reponerStock(producto.getId(), venta.getCantidad());
+            inventarioService.registrar(producto.getId(), producto.getNombre(), TipoMovimiento.DEVOLUCION,
+                    venta.getCantidad(), stock, id, "Venta eliminada");
+            velocidadVentaService.registrarVenta(producto.getId(), venta.getFecha(), -venta.getCantidad());
         }
 
+        cierreCajaService.registrarVenta(venta, -1);
         ventaProductoRepository.deleteById(id);
+        cuboAnaliticoService.eliminarVenta(id);
     }
 
     /**
@@ -251,20 +342,4 @@ public class VentaProductoService {
         dto.setMetodoPago(venta.getMetodoPago());
         return dto;
     }
-
-    /**
-     * Convierte una entidad Producto a DTO para actualización.
-     * 
-     * @param producto Entidad Producto
-     * @return DTO de Producto
-     */
-    private com.papusbarbershop.dto.ProductoCreateDTO convertProductoToDTO(Producto producto) {
-        com.papusbarbershop.dto.ProductoCreateDTO dto = new com.papusbarbershop.dto.ProductoCreateDTO();
-        dto.setNombre(producto.getNombre());
-        dto.setStock(producto.getStock());
-        dto.setPrecioCosto(producto.getPrecioCosto());
-        dto.setPrecioVenta(producto.getPrecioVenta());
-        return dto;
-    }
 }
-
@@ -0,0 +1,8 @@
+-- Script para agregar la columna de variantes de imagen a productos
+-- Guarda los nombres de las variantes redimensionadas generadas para la imagen actual
+-- (ej: 'miniatura,tarjeta,completa'). NULL mientras no se hayan generado.
+-- Este script es seguro de ejecutar varias veces
+
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS imagen_variantes VARCHAR(100);
+
+COMMENT ON COLUMN productos.imagen_variantes IS 'Variantes generadas de la imagen del producto (separadas por coma)';
@@ -0,0 +1,13 @@
+-- Script para agregar la columna de versión (bloqueo optimista) a productos, citas y horarios
+-- Hibernate incrementa la versión en cada actualización y rechaza escrituras basadas en
+-- una versión desactualizada. Las sentencias nativas de stock también la incrementan.
+-- Las filas existentes quedan con versión 0.
+-- Este script es seguro de ejecutar varias veces
+
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE citas ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE horarios ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN productos.version IS 'Versión para bloqueo optimista (ETag / If-Match)';
+COMMENT ON COLUMN citas.version IS 'Versión para bloqueo optimista (ETag / If-Match)';
+COMMENT ON COLUMN horarios.version IS 'Versión para bloqueo optimista (ETag / If-Match)';
@@ -0,0 +1,18 @@
+-- Script para crear la tabla de acumulados del cierre de caja
+-- Guarda, por día, barbero y método de pago, los totales de servicios y ventas.
+-- La aplicación la mantiene de forma incremental y la reconstruye desde el histórico
+-- al arrancar si está vacía.
+-- Este script es seguro de ejecutar varias veces
+
+CREATE TABLE IF NOT EXISTS cierres_caja (
+    fecha DATE NOT NULL,
+    barbero_id BIGINT NOT NULL,
+    metodo_pago VARCHAR(50) NOT NULL,
+    total_servicios DECIMAL(12,2) NOT NULL DEFAULT 0,
+    cantidad_servicios INTEGER NOT NULL DEFAULT 0,
+    total_ventas DECIMAL(12,2) NOT NULL DEFAULT 0,
+    cantidad_ventas INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, barbero_id, metodo_pago)
+);
+
+COMMENT ON TABLE cierres_caja IS 'Totales de caja por día, barbero y método de pago (mantenidos incrementalmente)';
@@ -0,0 +1,36 @@
+-- Script para crear las tablas de cierres de nómina
+-- Cada cierre guarda una fotografía inmutable del pago de cada barbero en un periodo,
+-- de modo que editar ventas o servicios antiguos no altere una nómina ya pagada.
+-- Las líneas no referencian la tabla barberos para conservar el histórico aunque el barbero cambie.
+-- Este script es seguro de ejecutar varias veces
+
+CREATE TABLE IF NOT EXISTS cierres_nomina (
+    id BIGSERIAL PRIMARY KEY,
+    fecha_inicio DATE NOT NULL,
+    fecha_fin DATE NOT NULL,
+    fecha_cierre TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    cerrado_por VARCHAR(50),
+    total_pagado DECIMAL(12,2) NOT NULL,
+    CONSTRAINT chk_cierres_nomina_periodo CHECK (fecha_fin >= fecha_inicio)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_cierres_nomina_periodo ON cierres_nomina (fecha_inicio, fecha_fin);
+
+CREATE TABLE IF NOT EXISTS cierres_nomina_lineas (
+    id BIGSERIAL PRIMARY KEY,
+    cierre_id BIGINT NOT NULL REFERENCES cierres_nomina(id) ON DELETE CASCADE,
+    barbero_id BIGINT NOT NULL,
+    barbero_nombre VARCHAR(100) NOT NULL,
+    porcentaje_servicio DECIMAL(5,2) NOT NULL,
+    total_servicios DECIMAL(12,2) NOT NULL,
+    cantidad_servicios INTEGER NOT NULL,
+    total_ventas DECIMAL(12,2) NOT NULL,
+    cantidad_ventas INTEGER NOT NULL,
+    total_comisiones DECIMAL(12,2) NOT NULL,
+    pago_barbero DECIMAL(12,2) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cierres_nomina_lineas_cierre ON cierres_nomina_lineas (cierre_id);
+
+COMMENT ON TABLE cierres_nomina IS 'Cierres de nómina por periodo (inmutables)';
+COMMENT ON TABLE cierres_nomina_lineas IS 'Pago congelado de cada barbero en un cierre de nómina';
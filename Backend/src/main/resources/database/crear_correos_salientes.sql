@@ -0,0 +1,34 @@
+-- Script para crear la tabla del outbox de correos
+-- Los correos se insertan en la misma transacción que la operación que los origina (p. ej. crear
+-- una cita) y un despachador los envía con Resend después de confirmarse, con reintentos y
+-- backoff exponencial. Los que agotan los reintentos quedan en estado FALLIDO para revisión.
+-- clave_idempotencia evita encolar dos veces el mismo correo y se envía a Resend como
+-- Idempotency-Key para que un reintento no duplique un correo ya aceptado.
+-- clave_lote registra el lote de Resend en que se envió el correo: al reintentarlo se reenvía el
+-- mismo lote con la misma Idempotency-Key.
+-- Este script es seguro de ejecutar varias veces
+
+CREATE TABLE IF NOT EXISTS correos_salientes (
+    id BIGSERIAL PRIMARY KEY,
+    clave_idempotencia VARCHAR(255) NOT NULL,
+    destinatario VARCHAR(255) NOT NULL,
+    asunto VARCHAR(255) NOT NULL,
+    html TEXT NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    intentos INTEGER NOT NULL DEFAULT 0,
+    proximo_intento TIMESTAMP NOT NULL,
+    ultimo_error VARCHAR(1000),
+    clave_lote VARCHAR(100),
+    proveedor_id VARCHAR(100),
+    creado_en TIMESTAMP NOT NULL,
+    enviado_en TIMESTAMP
+);
+
+-- Bases creadas con la versión anterior del script
+ALTER TABLE correos_salientes ADD COLUMN IF NOT EXISTS clave_lote VARCHAR(100);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_correos_salientes_clave ON correos_salientes (clave_idempotencia);
+CREATE INDEX IF NOT EXISTS idx_correos_salientes_estado ON correos_salientes (estado, proximo_intento);
+CREATE INDEX IF NOT EXISTS idx_correos_salientes_lote ON correos_salientes (clave_lote);
+
+COMMENT ON TABLE correos_salientes IS 'Outbox de correos pendientes, enviados y fallidos';
@@ -0,0 +1,45 @@
+-- Script para crear el libro de inventario (movimientos y fotografías de stock)
+-- movimientos_inventario es de sólo inserción: ventas, reposiciones, ajustes y devoluciones
+-- con la cantidad firmada y el stock resultante. No tiene llave foránea a productos para
+-- conservar el historial de productos eliminados.
+-- snapshots_inventario guarda el stock de cada producto según el libro hasta un corte; el stock
+-- en un instante es la última fotografía más los movimientos posteriores.
+-- La aplicación registra el saldo inicial de los productos existentes al arrancar.
+-- Este script es seguro de ejecutar varias veces
+
+-- La secuencia asigna ids por bloques de 50 (allocationSize de la entidad MovimientoInventario)
+CREATE SEQUENCE IF NOT EXISTS movimientos_inventario_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS movimientos_inventario (
+    id BIGINT PRIMARY KEY DEFAULT nextval('movimientos_inventario_id_seq'),
+    producto_id BIGINT NOT NULL,
+    producto_nombre VARCHAR(200) NOT NULL,
+    tipo VARCHAR(20) NOT NULL,
+    cantidad INTEGER NOT NULL,
+    stock_resultante INTEGER NOT NULL,
+    venta_id BIGINT,
+    motivo VARCHAR(255),
+    fecha_hora TIMESTAMP NOT NULL,
+    CONSTRAINT chk_movimientos_inventario_tipo
+        CHECK (tipo IN ('SALDO_INICIAL', 'VENTA', 'REPOSICION', 'AJUSTE', 'DEVOLUCION'))
+);
+
+-- Bases creadas con la versión anterior del script (VARCHAR(100)): igualar a productos.nombre
+ALTER TABLE movimientos_inventario ALTER COLUMN producto_nombre TYPE VARCHAR(200);
+
+CREATE INDEX IF NOT EXISTS idx_movimientos_inventario_producto_fecha
+    ON movimientos_inventario (producto_id, fecha_hora);
+
+CREATE TABLE IF NOT EXISTS snapshots_inventario (
+    id BIGSERIAL PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    stock INTEGER NOT NULL,
+    hasta TIMESTAMP NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_snapshots_inventario_producto_hasta
+    ON snapshots_inventario (producto_id, hasta DESC);
+
+COMMENT ON TABLE movimientos_inventario IS 'Libro de inventario de sólo inserción (cantidad firmada por movimiento)';
+COMMENT ON TABLE snapshots_inventario IS 'Fotografías periódicas del stock por producto según el libro de inventario';
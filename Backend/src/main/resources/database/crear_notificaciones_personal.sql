@@ -0,0 +1,17 @@
+-- Script para crear la tabla de notificaciones de citas para el personal (barberos y admin)
+-- Con correo.resumen.modo=intervalo, las notificaciones de nuevas citas no se envían una por una:
+-- se acumulan aquí y cada intervalo se envía un solo correo de resumen por destinatario.
+-- Las filas se eliminan al encolar el resumen en el outbox de correos.
+-- Este script es seguro de ejecutar varias veces
+
+CREATE TABLE IF NOT EXISTS notificaciones_personal (
+    id BIGSERIAL PRIMARY KEY,
+    destinatario VARCHAR(255) NOT NULL,
+    rol VARCHAR(20) NOT NULL,
+    cita_id BIGINT NOT NULL,
+    creado_en TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_notificaciones_personal_destinatario ON notificaciones_personal (destinatario);
+
+COMMENT ON TABLE notificaciones_personal IS 'Notificaciones de nuevas citas pendientes de agruparse en un resumen';
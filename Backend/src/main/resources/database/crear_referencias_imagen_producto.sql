@@ -0,0 +1,18 @@
+-- Script para crear la tabla de referencias de imágenes de productos versionadas
+-- Una fila por producto con la clave de su imagen y la versión del último cambio. Cada cambio
+-- recibe una versión mayor que todas las anteriores, de modo que los frontends sincronizan sólo
+-- los cambios posteriores a la última versión que conocen (GET /api/s3/producto-imagenes?since=N).
+-- s3_key en NULL indica que el producto ya no tiene imagen o fue eliminado.
+-- La aplicación registra al iniciar los productos existentes con imagen.
+-- Este script es seguro de ejecutar varias veces
+
+CREATE TABLE IF NOT EXISTS referencias_imagen_producto (
+    producto_id BIGINT PRIMARY KEY,
+    s3_key VARCHAR(500),
+    version BIGINT NOT NULL,
+    actualizado_en TIMESTAMP NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_referencias_imagen_version ON referencias_imagen_producto (version);
+
+COMMENT ON TABLE referencias_imagen_producto IS 'Referencias de imágenes de productos con versión para sincronización incremental';
@@ -0,0 +1,16 @@
+-- Script para crear la tabla de revocaciones de tokens JWT
+-- Cada fila revoca un token concreto (clave 'jti:<id del token>', al cerrar sesión o rotar un
+-- refresh token) o todos los tokens de un usuario emitidos hasta revocado_en (clave
+-- 'usuario:<username>', al cambiar o restablecer la contraseña).
+-- Las filas se eliminan a diario una vez que expira el último token afectado (expira_en).
+-- Este script es seguro de ejecutar varias veces
+
+CREATE TABLE IF NOT EXISTS tokens_revocados (
+    clave VARCHAR(100) PRIMARY KEY,
+    revocado_en TIMESTAMP NOT NULL,
+    expira_en TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_tokens_revocados_revocado_en ON tokens_revocados (revocado_en);
+
+COMMENT ON TABLE tokens_revocados IS 'Revocaciones de tokens JWT vigentes (respaldo del filtro de revocación en memoria)';
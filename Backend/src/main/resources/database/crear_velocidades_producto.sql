@@ -0,0 +1,15 @@
+-- Script para crear la tabla de velocidades de venta por producto
+-- Guarda el estado de la media móvil exponencial de unidades vendidas por día de cada
+-- producto. La aplicación mantiene el estado en memoria y lo guarda aquí periódicamente;
+-- si la tabla está vacía al arrancar, lo inicializa con las ventas de las últimas semanas.
+-- Este script es seguro de ejecutar varias veces
+
+CREATE TABLE IF NOT EXISTS velocidades_producto (
+    producto_id BIGINT PRIMARY KEY,
+    ewma_diario DOUBLE PRECISION NOT NULL,
+    dia_actual DATE NOT NULL,
+    unidades_dia INTEGER NOT NULL,
+    actualizado_en TIMESTAMP NOT NULL
+);
+
+COMMENT ON TABLE velocidades_producto IS 'Velocidad de venta (EWMA de unidades por día) por producto para alertas de stock bajo';
@@ -149,6 +149,9 @@ CREATE TABLE ventas_productos (
     FOREIGN KEY (producto_id) REFERENCES productos(id) ON DELETE RESTRICT
 );
 
+-- Ids reservados por bloques de 50 para insertar en lote (allocationSize de VentaProducto)
+ALTER SEQUENCE ventas_productos_id_seq INCREMENT BY 50;
+
 -- ===========================================
 -- CREAR ÍNDICES PARA OPTIMIZACIÓN
 -- ===========================================
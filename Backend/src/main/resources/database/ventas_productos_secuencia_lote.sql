@@ -0,0 +1,23 @@
+-- Script para que la secuencia de ventas_productos asigne ids por bloques de 50
+-- La entidad VentaProducto usa GenerationType.SEQUENCE con allocationSize = 50 para
+-- poder insertar las líneas de un ticket en lote (hibernate.jdbc.batch_size).
+-- El incremento de la secuencia debe coincidir con allocationSize: es obligatorio ejecutarlo en
+-- bases creadas antes de este cambio, de lo contrario Hibernate detiene el arranque.
+-- Este script es seguro y no modifica los ids existentes
+
+DO $$
+BEGIN
+    IF EXISTS (
+        SELECT 1
+        FROM information_schema.columns
+        WHERE table_name = 'ventas_productos'
+        AND column_name = 'id'
+        AND is_identity = 'YES'
+    ) THEN
+        -- Columna creada como IDENTITY (por Hibernate): ajustar la secuencia de la identidad
+        ALTER TABLE ventas_productos ALTER COLUMN id SET INCREMENT BY 50;
+    ELSE
+        -- Columna creada como BIGSERIAL (papus_barbershop.sql)
+        ALTER SEQUENCE ventas_productos_id_seq INCREMENT BY 50;
+    END IF;
+END $$;
@@ -0,0 +1,108 @@
+package com.papusbarbershop.controller;
+
+import com.papusbarbershop.exception.GlobalExceptionHandler;
+import com.papusbarbershop.service.AlmacenamientoLocalService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de las subidas con URL firmada al almacenamiento local: un archivo que supera
+ * almacenamiento.local.max-bytes se rechaza con 413 y no deja nada en el directorio.
+ */
+class ArchivoLocalControllerTest {
+
+    private static final long MAX_BYTES = 1024;
+
+    @TempDir
+    Path directorio;
+
+    private AlmacenamientoLocalService almacenamiento;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void crear() throws Exception {
+        almacenamiento = new AlmacenamientoLocalService();
+        ReflectionTestUtils.setField(almacenamiento, "directorio", directorio.toString());
+        ReflectionTestUtils.setField(almacenamiento, "urlBase", "http://localhost");
+        ReflectionTestUtils.setField(almacenamiento, "secreto", "SecretoDeAlmacenamientoLocalDePruebas2024");
+        ReflectionTestUtils.setField(almacenamiento, "secretoJwt", "otro");
+        ReflectionTestUtils.setField(almacenamiento, "maxBytes", MAX_BYTES);
+        ReflectionTestUtils.setField(almacenamiento, "vigenciaSubidaSegundos", 600L);
+        almacenamiento.init();
+
+        ArchivoLocalController controller = new ArchivoLocalController();
+        ReflectionTestUtils.setField(controller, "almacenamientoLocalService", almacenamiento);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void unaSubidaDentroDelLimiteSeGuarda() throws Exception {
+        mockMvc.perform(put(urlSubida()).content(new byte[(int) MAX_BYTES]).with(sinContentLength()))
+                .andExpect(status().isOk());
+        assertEquals(1, archivos());
+    }
+
+    @Test
+    void unaSubidaConContentLengthExcesivoDevuelve413() throws Exception {
+        mockMvc.perform(put(urlSubida()).content(new byte[(int) MAX_BYTES + 1]))
+                .andExpect(status().isPayloadTooLarge());
+        assertEquals(0, archivos());
+    }
+
+    @Test
+    void unaSubidaSinContentLengthQueExcedeElLimiteDevuelve413() throws Exception {
+        mockMvc.perform(put(urlSubida()).content(new byte[(int) MAX_BYTES + 1]).with(sinContentLength()))
+                .andExpect(status().isPayloadTooLarge());
+        assertEquals(0, archivos());
+    }
+
+    private String urlSubida() {
+        return almacenamiento.generatePresignedUploadUrl("foto.jpg", "productos", "image/jpeg")
+                .getUrl().substring("http://localhost".length());
+    }
+
+    private long archivos() throws Exception {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            return rutas.filter(Files::isRegularFile).count();
+        }
+    }
+
+    // Subida en streaming (chunked): el servidor sólo conoce el tamaño al leer el cuerpo
+    private static RequestPostProcessor sinContentLength() {
+        return request -> {
+            MockHttpServletRequest sinLongitud = new MockHttpServletRequest(
+                    request.getServletContext(), request.getMethod(), request.getRequestURI()) {
+                @Override
+                public int getContentLength() {
+                    return -1;
+                }
+
+                @Override
+                public long getContentLengthLong() {
+                    return -1;
+                }
+            };
+            sinLongitud.setQueryString(request.getQueryString());
+            sinLongitud.setParameters(request.getParameterMap());
+            sinLongitud.setContent(request.getContentAsByteArray());
+            return sinLongitud;
+        };
+    }
+}
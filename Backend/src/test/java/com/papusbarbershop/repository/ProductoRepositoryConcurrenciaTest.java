@@ -0,0 +1,200 @@
+package com.papusbarbershop.repository;
+
+import com.papusbarbershop.entity.Producto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de concurrencia del descuento atómico de stock contra PostgreSQL real
+ * (las sentencias son nativas: UPDATE … RETURNING). Se omiten si no hay Docker.
+ *
+ * Cada prueba confirma sus propias transacciones (sin la transacción envolvente de
+ * {@link DataJpaTest}) para que los hilos compitan igual que peticiones reales.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class ProductoRepositoryConcurrenciaTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "32");
+    }
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM productos");
+    }
+
+    @Test
+    void ventasConcurrentesDeLasUltimasUnidadesNoSobrevenden() throws Exception {
+        int stock = 25;
+        int hilos = 100;
+        Long id = crearProducto(stock);
+
+        List<Integer> restantes = new ArrayList<>();
+        List<Callable<Optional<Integer>>> compras = new ArrayList<>();
+        CountDownLatch salida = new CountDownLatch(1);
+        for (int i = 0; i < hilos; i++) {
+            compras.add(() -> {
+                salida.await();
+                return productoRepository.descontarStock(id, 1);
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Optional<Integer>>> resultados = new ArrayList<>();
+            for (Callable<Optional<Integer>> compra : compras) {
+                resultados.add(executor.submit(compra));
+            }
+            salida.countDown();
+            for (Future<Optional<Integer>> resultado : resultados) {
+                resultado.get(60, TimeUnit.SECONDS).ifPresent(restantes::add);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(stock, restantes.size(), "Deben concretarse exactamente tantas ventas como unidades");
+        assertTrue(restantes.stream().allMatch(r -> r >= 0), "El stock restante nunca puede ser negativo");
+        assertEquals(stock, restantes.stream().distinct().count(), "Cada venta debe ver un stock restante distinto");
+        assertEquals(0, productoRepository.findStockById(id).orElseThrow());
+    }
+
+    @Test
+    void rendimientoDeVentasConcurrentesSobreUnMismoProducto() throws Exception {
+        int stock = 2000;
+        int hilos = 16;
+        Long id = crearProducto(stock);
+
+        AtomicInteger exitosas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        long inicio;
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    // Cada hilo compra hasta que se agota el stock; tras agotarse, cada hilo ve un rechazo
+                    while (productoRepository.descontarStock(id, 1).isPresent()) {
+                        exitosas.incrementAndGet();
+                    }
+                    rechazadas.incrementAndGet();
+                    return null;
+                }));
+            }
+            inicio = System.nanoTime();
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        assertEquals(stock, exitosas.get());
+        assertEquals(hilos, rechazadas.get());
+        assertEquals(0, productoRepository.findStockById(id).orElseThrow());
+        System.out.printf("descontarStock: %d ventas con %d hilos en %.2f s (%.0f ventas/s)%n",
+                stock, hilos, segundos, stock / segundos);
+    }
+
+    @Test
+    void ticketsConLosMismosProductosEnOrdenOpuestoNoSeBloquean() throws Exception {
+        int tickets = 200;
+        int hilos = 16;
+        List<Long> productos = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            productos.add(crearProducto(tickets));
+        }
+        // Con un catálogo de tamaño real el plan busca cada línea por índice en el orden recibido
+        jdbcTemplate.update("INSERT INTO productos (nombre, stock, precio_costo, precio_venta, version) " +
+                "SELECT 'Relleno ' || n, 10, 1, 2, 0 FROM generate_series(1, 20000) AS n");
+        jdbcTemplate.execute("ANALYZE productos");
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        AtomicInteger descontados = new AtomicInteger();
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            CountDownLatch salida = new CountDownLatch(1);
+            for (int i = 0; i < tickets; i++) {
+                // La mitad de los tickets trae los productos en un orden y la otra mitad en el opuesto
+                List<Long> orden = new ArrayList<>(productos);
+                if (i % 2 == 1) {
+                    Collections.reverse(orden);
+                }
+                Map<Long, Integer> lineas = new LinkedHashMap<>();
+                orden.forEach(id -> lineas.put(id, 1));
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    descontados.addAndGet(productoRepository.descontarStockLote(lineas).size());
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                // Un interbloqueo en PostgreSQL haría fallar aquí alguna venta
+                tarea.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(tickets * productos.size(), descontados.get());
+        for (Long id : productos) {
+            assertEquals(0, productoRepository.findStockById(id).orElseThrow());
+        }
+    }
+
+    private Long crearProducto(int stock) {
+        Producto producto = new Producto("Cera mate", stock, new BigDecimal("25.00"), new BigDecimal("50.00"), 10);
+        return productoRepository.save(producto).getId();
+    }
+}
@@ -0,0 +1,49 @@
+package com.papusbarbershop.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas del secreto de las URLs firmadas del almacenamiento local: es obligatorio y no puede
+ * reutilizar el secreto de JWT.
+ */
+class AlmacenamientoLocalServiceTest {
+
+    private static final String SECRETO_JWT = "PapusBarberShopSecretKey2024SecureKeyForJWTTokenGeneration";
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void noArrancaSinSecretoPropio() {
+        assertTrue(assertThrows(IllegalStateException.class, () -> crear("").init())
+                .getMessage().contains("obligatorio"));
+        assertTrue(assertThrows(IllegalStateException.class, () -> crear("corto").init())
+                .getMessage().contains("32 bytes"));
+        assertTrue(assertThrows(IllegalStateException.class, () -> crear(SECRETO_JWT).init())
+                .getMessage().contains("distinto de jwt.secret"));
+    }
+
+    @Test
+    void arrancaConUnSecretoPropio() {
+        assertDoesNotThrow(() -> crear("SecretoDeAlmacenamientoLocalDePruebas2024").init());
+    }
+
+    private AlmacenamientoLocalService crear(String secreto) {
+        AlmacenamientoLocalService servicio = new AlmacenamientoLocalService();
+        ReflectionTestUtils.setField(servicio, "directorio", directorio.toString());
+        ReflectionTestUtils.setField(servicio, "urlBase", "http://localhost");
+        ReflectionTestUtils.setField(servicio, "secreto", secreto);
+        ReflectionTestUtils.setField(servicio, "secretoJwt", SECRETO_JWT);
+        ReflectionTestUtils.setField(servicio, "maxBytes", 1024L);
+        ReflectionTestUtils.setField(servicio, "vigenciaSubidaSegundos", 600L);
+        return servicio;
+    }
+}
@@ -0,0 +1,146 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.LoginResponse;
+import com.papusbarbershop.entity.Usuario;
+import com.papusbarbershop.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Renovaciones concurrentes con el mismo refresh token contra PostgreSQL real (la revocación usa
+ * INSERT … ON CONFLICT DO NOTHING) y revocación al desactivar un usuario. Se omiten si no hay Docker.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({AuthService.class, JwtService.class, RevocacionTokenService.class,
+        AuthServiceRefrescoConcurrenteTest.Configuracion.class})
+class AuthServiceRefrescoConcurrenteTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "20");
+    }
+
+    @TestConfiguration
+    static class Configuracion {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder();
+        }
+    }
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RevocacionTokenService revocacionTokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM tokens_revocados");
+        jdbcTemplate.update("DELETE FROM usuarios");
+    }
+
+    @Test
+    void renovacionesConcurrentesConElMismoRefreshTokenEmitenUnSoloPar() throws Exception {
+        Usuario usuario = usuarioRepository.save(new Usuario("barbero1", "x", Usuario.Rol.BARBERO, true));
+        String refreshToken = jwtService.generateRefreshToken(usuario.getUsername(), usuario.getId(), "BARBERO");
+        int hilos = 16;
+
+        List<LoginResponse> respuestas = new ArrayList<>();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<LoginResponse>> tareas = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    return authService.refrescar(refreshToken);
+                }));
+            }
+            salida.countDown();
+            for (Future<LoginResponse> tarea : tareas) {
+                respuestas.add(tarea.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, respuestas.stream().filter(LoginResponse::isSuccess).count(),
+                "Sólo una renovación puede obtener tokens");
+        assertTrue(respuestas.stream().filter(r -> !r.isSuccess())
+                .allMatch(r -> "Refresh token revocado".equals(r.getMessage())));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tokens_revocados WHERE clave LIKE 'jti:%'", Integer.class));
+
+        // Las renovaciones perdedoras cuentan como reutilización: el par emitido también queda revocado
+        LoginResponse ganadora = respuestas.stream().filter(LoginResponse::isSuccess).findFirst().orElseThrow();
+        assertFalse(authService.refrescar(ganadora.getRefreshToken()).isSuccess());
+    }
+
+    @Test
+    void desactivarUnUsuarioRevocaSusTokens() {
+        Usuario usuario = usuarioRepository.save(new Usuario("barbero2", "x", Usuario.Rol.BARBERO, true));
+        String accessToken = jwtService.generateToken(usuario.getUsername(), usuario.getId(), "BARBERO");
+        String refreshToken = jwtService.generateRefreshToken(usuario.getUsername(), usuario.getId(), "BARBERO");
+
+        authService.cambiarEstadoUsuario(usuario.getUsername(), false);
+
+        assertTrue(revocacionTokenService.estaRevocado(jwtService.verificarToken(accessToken)));
+        assertFalse(authService.refrescar(refreshToken).isSuccess());
+        assertFalse(usuarioRepository.findByUsername("barbero2").orElseThrow().getActivo());
+    }
+}
@@ -0,0 +1,102 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.dto.ConsultaCuboDTO;
+import com.papusbarbershop.dto.FilaCuboDTO;
+import com.papusbarbershop.dto.ResultadoCuboDTO;
+import com.papusbarbershop.entity.Barbero;
+import com.papusbarbershop.entity.Servicio;
+import com.papusbarbershop.repository.ServicioRepository;
+import com.papusbarbershop.repository.VentaProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de la compactación del cubo analítico: las ediciones repetidas no hacen crecer
+ * las columnas sin límite y las consultas siguen viendo sólo las filas vigentes.
+ */
+class CuboAnaliticoServiceTest {
+
+    private CuboAnaliticoService cubo;
+    private Barbero barbero;
+
+    @BeforeEach
+    void crear() {
+        ServicioRepository servicioRepository = mock(ServicioRepository.class);
+        VentaProductoRepository ventaProductoRepository = mock(VentaProductoRepository.class);
+        when(servicioRepository.findHechosAnaliticos()).thenReturn(List.of());
+        when(ventaProductoRepository.findHechosAnaliticos()).thenReturn(List.of());
+
+        cubo = new CuboAnaliticoService();
+        ReflectionTestUtils.setField(cubo, "servicioRepository", servicioRepository);
+        ReflectionTestUtils.setField(cubo, "ventaProductoRepository", ventaProductoRepository);
+        ReflectionTestUtils.setField(cubo, "habilitado", true);
+        ReflectionTestUtils.setField(cubo, "fraccionCompactar", 0.25);
+        cubo.recargar();
+
+        barbero = new Barbero("Carlos", new BigDecimal("0.50"));
+        barbero.setId(7L);
+    }
+
+    @Test
+    void edicionesRepetidasCompactanLasColumnas() {
+        for (long id = 1; id <= 100; id++) {
+            cubo.registrarServicio(servicio(id, "Fade", "100.00"));
+        }
+        // Cada servicio se edita 50 veces: sin compactar quedarían 5100 filas
+        for (int edicion = 0; edicion < 50; edicion++) {
+            for (long id = 1; id <= 100; id++) {
+                cubo.registrarServicio(servicio(id, edicion % 2 == 0 ? "Clásico" : "Fade", "150.00"));
+            }
+        }
+
+        int filas = (int) ReflectionTestUtils.getField(cubo, "filas");
+        assertTrue(filas < 100 + 400, "Las columnas debían compactarse, quedaron " + filas + " filas");
+
+        ConsultaCuboDTO consulta = new ConsultaCuboDTO();
+        consulta.setAgruparPor(List.of("tipo_corte"));
+        ResultadoCuboDTO resultado = cubo.consultar(consulta);
+        assertEquals(100, resultado.getFilasEscaneadas());
+        assertEquals(1, resultado.getFilas().size());
+        FilaCuboDTO grupo = resultado.getFilas().get(0);
+        assertEquals("Fade", grupo.getGrupo().get("TIPO_CORTE"));
+        assertEquals(100, grupo.getRegistros());
+        assertEquals(new BigDecimal("15000.00"), grupo.getTotal());
+    }
+
+    @Test
+    void laCompactacionConservaLosIndicesPorId() {
+        for (long id = 1; id <= 1000; id++) {
+            cubo.registrarServicio(servicio(id, "Fade", "100.00"));
+        }
+        // Eliminar los pares fuerza una compactación a mitad del recorrido
+        for (long id = 2; id <= 1000; id += 2) {
+            cubo.eliminarServicio(id);
+        }
+        // Tras compactar, editar y eliminar por id debe tocar la fila correcta
+        cubo.registrarServicio(servicio(1L, "Fade", "300.00"));
+        cubo.eliminarServicio(999L);
+
+        ConsultaCuboDTO consulta = new ConsultaCuboDTO();
+        ResultadoCuboDTO resultado = cubo.consultar(consulta);
+        assertEquals(499, resultado.getFilasEscaneadas());
+        assertEquals(new BigDecimal("50100.00"), resultado.getFilas().get(0).getTotal());
+    }
+
+    private Servicio servicio(Long id, String tipoCorte, String precio) {
+        Servicio servicio = new Servicio(LocalDate.of(2026, 3, 14), LocalTime.NOON, barbero, tipoCorte,
+                "EFECTIVO", new BigDecimal(precio));
+        servicio.setId(id);
+        return servicio;
+    }
+}
@@ -0,0 +1,220 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.entity.CorreoSaliente;
+import com.papusbarbershop.repository.CorreoSalienteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas del despacho del outbox de correos contra PostgreSQL real (los correos se reclaman con
+ * FOR UPDATE SKIP LOCKED) y un sustituto de Resend ({@link ResendSimulado}). Se omiten si no hay Docker.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "resend.api-key=re_prueba",
+        "correo.resend.peticiones-por-segundo=1000",
+        "correo.resend.rafaga=100",
+        "correo.outbox.max-intentos=3",
+        "correo.outbox.reintento-base-segundos=30",
+        "correo.outbox.intervalo-ms=3600000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({CorreoSalienteService.class, DespachadorCorreoService.class, DespachadorCorreoServiceTest.Configuracion.class})
+class DespachadorCorreoServiceTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @TestConfiguration
+    static class Configuracion {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private EmailExecutor emailExecutor;
+
+    @Autowired
+    private DespachadorCorreoService despachador;
+
+    @Autowired
+    private CorreoSalienteService correoSalienteService;
+
+    @Autowired
+    private CorreoSalienteRepository correoSalienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ResendSimulado resend;
+
+    @BeforeEach
+    void conectar() {
+        resend = new ResendSimulado();
+        ReflectionTestUtils.setField(despachador, "resend", resend.cliente());
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM correos_salientes");
+    }
+
+    @Test
+    void errorTransitorioSeReintentaConBackoffExponencialYLaMismaClave() {
+        correoSalienteService.encolar("cita-1", "ana@correo.com", "Cita confirmada", "<p>Hola</p>");
+
+        resend.fallarConEstado(500);
+        despachador.despachar();
+        CorreoSaliente correo = buscar("cita-1");
+        assertEquals(CorreoSaliente.ESTADO_PENDIENTE, correo.getEstado());
+        assertEquals(1, correo.getIntentos());
+        assertNotNull(correo.getUltimoError());
+        // Base de 30 s con ±20% de variación
+        assertEsperaEntre(correo, 24, 36);
+
+        // Aún no vence: el despacho no lo toma
+        despachador.despachar();
+        assertEquals(1, resend.clavesRecibidas.size());
+
+        vencer("cita-1");
+        resend.fallarConEstado(503);
+        despachador.despachar();
+        correo = buscar("cita-1");
+        assertEquals(2, correo.getIntentos());
+        // Segundo intento: el doble
+        assertEsperaEntre(correo, 48, 72);
+
+        vencer("cita-1");
+        despachador.despachar();
+        correo = buscar("cita-1");
+        assertEquals(CorreoSaliente.ESTADO_ENVIADO, correo.getEstado());
+        assertNotNull(correo.getProveedorId());
+        assertNull(correo.getUltimoError());
+        assertEquals(List.of("cita-1", "cita-1", "cita-1"), resend.clavesRecibidas);
+        assertEquals(List.of("ana@correo.com"), resend.entregados);
+    }
+
+    @Test
+    void rechazoDelProveedorPasaAFallidoSinReintentar() {
+        correoSalienteService.encolar("cita-2", "correo-invalido", "Cita confirmada", "<p>Hola</p>");
+
+        resend.fallarConEstado(422);
+        despachador.despachar();
+        assertEquals(CorreoSaliente.ESTADO_FALLIDO, buscar("cita-2").getEstado());
+
+        vencer("cita-2");
+        despachador.despachar();
+        assertEquals(1, resend.clavesRecibidas.size());
+        assertTrue(resend.entregados.isEmpty());
+    }
+
+    @Test
+    void agotarLosIntentosPasaAFallido() {
+        correoSalienteService.encolar("cita-3", "luis@correo.com", "Cita confirmada", "<p>Hola</p>");
+
+        for (int intento = 1; intento <= 3; intento++) {
+            resend.fallarConEstado(500);
+            vencer("cita-3");
+            despachador.despachar();
+        }
+        CorreoSaliente correo = buscar("cita-3");
+        assertEquals(CorreoSaliente.ESTADO_FALLIDO, correo.getEstado());
+        assertEquals(3, correo.getIntentos());
+
+        vencer("cita-3");
+        despachador.despachar();
+        assertEquals(3, resend.clavesRecibidas.size());
+        assertTrue(resend.entregados.isEmpty());
+    }
+
+    @Test
+    void reintentoDeUnLoteReenviaElMismoLoteConLaMismaClave() {
+        correoSalienteService.encolar("resumen-a", "a@correo.com", "Resumen", "<p>A</p>");
+        correoSalienteService.encolar("resumen-b", "b@correo.com", "Resumen", "<p>B</p>");
+        correoSalienteService.encolar("resumen-c", "c@correo.com", "Resumen", "<p>C</p>");
+
+        // Resend acepta el lote pero la respuesta se pierde: los tres quedan para reintento
+        resend.perderRespuesta();
+        despachador.despachar();
+        String claveLote = buscar("resumen-a").getClaveLote();
+        assertNotNull(claveLote);
+        for (String clave : List.of("resumen-a", "resumen-b", "resumen-c")) {
+            CorreoSaliente correo = buscar(clave);
+            assertEquals(CorreoSaliente.ESTADO_PENDIENTE, correo.getEstado());
+            assertEquals(claveLote, correo.getClaveLote());
+        }
+
+        // Al reintentar los acompaña un correo nuevo y el reclamo trae los del lote en otro orden
+        correoSalienteService.encolar("resumen-d", "d@correo.com", "Resumen", "<p>D</p>");
+        jdbcTemplate.update("UPDATE correos_salientes SET proximo_intento = ? WHERE clave_idempotencia = 'resumen-c'",
+                LocalDateTime.now().minusMinutes(10));
+        vencer("resumen-a");
+        vencer("resumen-b");
+        despachador.despachar();
+
+        for (String clave : List.of("resumen-a", "resumen-b", "resumen-c", "resumen-d")) {
+            assertEquals(CorreoSaliente.ESTADO_ENVIADO, buscar(clave).getEstado(), clave);
+        }
+        // El lote se reenvió completo con la misma clave y el proveedor no lo volvió a entregar
+        assertEquals(List.of(claveLote, claveLote), resend.clavesDeLotes);
+        assertEquals(List.of("a@correo.com", "b@correo.com", "c@correo.com", "d@correo.com"), resend.entregados);
+        assertTrue(resend.clavesRecibidas.contains("resumen-d"));
+    }
+
+    private CorreoSaliente buscar(String claveIdempotencia) {
+        return correoSalienteRepository.findAll().stream()
+                .filter(correo -> correo.getClaveIdempotencia().equals(claveIdempotencia))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void vencer(String claveIdempotencia) {
+        jdbcTemplate.update("UPDATE correos_salientes SET proximo_intento = ? WHERE clave_idempotencia = ?",
+                LocalDateTime.now().minusSeconds(1), claveIdempotencia);
+    }
+
+    private static void assertEsperaEntre(CorreoSaliente correo, long minimoSegundos, long maximoSegundos) {
+        long espera = Duration.between(LocalDateTime.now(), correo.getProximoIntento()).getSeconds();
+        assertTrue(espera >= minimoSegundos - 2 && espera <= maximoSegundos,
+                "Espera de " + espera + " s fuera de [" + minimoSegundos + ", " + maximoSegundos + "]");
+    }
+}
@@ -0,0 +1,100 @@
+package com.papusbarbershop.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por petición de autenticar un token JWT en JwtAuthenticationFilter:
+ * - filtroAnterior: lo que hacía el filtro antes del cache (extractUsername, validateToken y
+ *   extractRol: cuatro verificaciones, cada una construyendo la clave y el parser).
+ * - verificacionSinCache: una verificación de firma con el parser compartido (fallo del cache).
+ * - verificacionConCache: {@link JwtService#verificarToken} con el token ya verificado
+ *   (SHA-256 del token y búsqueda en el mapa).
+ *
+ * Ejecutar:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.papusbarbershop.service.JwtServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtServiceBenchmark {
+
+    private static final String SECRETO = "PapusBarberShopSecretKey2024SecureKeyForJWTTokenGeneration";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRETO);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", TimeUnit.DAYS.toMillis(7));
+        ReflectionTestUtils.setField(jwtService, "maxEntradasCache", 10000);
+        ReflectionTestUtils.setField(jwtService, "meterRegistry", new SimpleMeterRegistry());
+        jwtService.init();
+        token = jwtService.generateToken("barbero1", 42L, "BARBERO");
+        jwtService.verificarToken(token);
+    }
+
+    @Benchmark
+    public String filtroAnterior() {
+        String username = extraerAnterior(token).getSubject();
+        String validado = extraerAnterior(token).getSubject();
+        Date expiracion = extraerAnterior(token).getExpiration();
+        if (!validado.equals(username) || expiracion.before(new Date())) {
+            throw new IllegalStateException("Token inválido");
+        }
+        return extraerAnterior(token).get("rol", String.class);
+    }
+
+    @Benchmark
+    public String verificacionSinCache() {
+        return jwtService.extractClaim(token, claims -> claims.get("rol", String.class));
+    }
+
+    @Benchmark
+    public String verificacionConCache() {
+        return jwtService.verificarToken(token).getRol();
+    }
+
+    // Verificación de JwtService antes del cache: clave y parser nuevos en cada llamada
+    private static Claims extraerAnterior(String token) {
+        Key clave = Keys.hmacShaKeyFor(SECRETO.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(clave)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
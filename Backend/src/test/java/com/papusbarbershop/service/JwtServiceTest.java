@@ -0,0 +1,92 @@
+package com.papusbarbershop.service;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas del cache de tokens verificados de JwtService.
+ */
+class JwtServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void crear() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "PapusBarberShopSecretKey2024SecureKeyForJWTTokenGeneration");
+        // El claim exp tiene resolución de segundos: el token vence en a lo sumo 2 s
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 2000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 60000L);
+        ReflectionTestUtils.setField(jwtService, "maxEntradasCache", 100);
+        ReflectionTestUtils.setField(jwtService, "meterRegistry", meterRegistry);
+        jwtService.init();
+    }
+
+    @Test
+    void elCacheNoDevuelveUnTokenDespuesDeSuExpiracion() throws Exception {
+        String token = jwtService.generateToken("barbero1", 42L, "BARBERO");
+        JwtService.TokenVerificado verificado = jwtService.verificarToken(token);
+        assertSame(verificado, jwtService.verificarToken(token));
+        assertEquals(1.0, meterRegistry.get("jwt.cache").tag("resultado", "acierto").counter().count());
+
+        long expiracion = verificado.getExpiracion().getTime();
+        while (System.currentTimeMillis() < expiracion) {
+            Thread.sleep(Math.max(1, expiracion - System.currentTimeMillis()));
+        }
+
+        // En el mismo milisegundo de exp el token ya no se acepta, ni desde el cache ni verificándolo
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verificarToken(token));
+        assertTrue(verificados().isEmpty());
+        assertEquals(1.0, meterRegistry.get("jwt.cache").tag("resultado", "acierto").counter().count());
+    }
+
+    @Test
+    void unTokenAlteradoNoCoincideConElVerificado() {
+        String token = jwtService.generateToken("barbero1", 42L, "BARBERO");
+        jwtService.verificarToken(token);
+
+        int punto = token.lastIndexOf('.');
+        String firma = token.substring(punto + 1);
+        String otraFirma = (firma.charAt(0) == 'A' ? 'B' : 'A') + firma.substring(1);
+        String alterado = token.substring(0, punto + 1) + otraFirma;
+
+        assertThrows(JwtException.class, () -> jwtService.verificarToken(alterado));
+        assertEquals(1, verificados().size());
+    }
+
+    @Test
+    void elAccesoExtendidoTemporalLlevaElTokenDeAccesoA24Horas() {
+        assertEquals(2000L, jwtService.getExpiracionAcceso());
+
+        JwtService extendido = new JwtService();
+        ReflectionTestUtils.setField(extendido, "secretKey", "PapusBarberShopSecretKey2024SecureKeyForJWTTokenGeneration");
+        ReflectionTestUtils.setField(extendido, "jwtExpiration", 900000L);
+        ReflectionTestUtils.setField(extendido, "accesoExtendidoTemporal", true);
+        ReflectionTestUtils.setField(extendido, "refreshExpiration", 60000L);
+        ReflectionTestUtils.setField(extendido, "maxEntradasCache", 100);
+        ReflectionTestUtils.setField(extendido, "meterRegistry", new SimpleMeterRegistry());
+        extendido.init();
+
+        assertEquals(86400000L, extendido.getExpiracionAcceso());
+        JwtService.TokenVerificado token = extendido.verificarToken(extendido.generateToken("barbero1", 42L, "BARBERO"));
+        assertTrue(token.getExpiracion().getTime() - System.currentTimeMillis() > 86000000L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> verificados() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(jwtService, "verificados");
+    }
+}
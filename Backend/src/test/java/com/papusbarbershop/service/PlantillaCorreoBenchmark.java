@@ -0,0 +1,166 @@
+package com.papusbarbershop.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el renderizado de correos con plantillas precompiladas (PlantillaCorreoService) contra
+ * la construcción con StringBuilder y escapeHtml de varias pasadas que usaba EmailAsyncService
+ * antes de las plantillas (copiada abajo tal cual).
+ *
+ * Ambos lados parten de los mismos datos de la cita e incluyen armar el mapa de valores.
+ *
+ * Ejecutar:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.papusbarbershop.service.PlantillaCorreoBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PlantillaCorreoBenchmark {
+
+    private static final int FILAS_RESUMEN = 20;
+
+    private PlantillaCorreoService plantillaCorreoService;
+
+    private final String nombreCliente = "José \"Pepe\" Martínez & Hijos";
+    private final String correoCliente = "jose@correo.com";
+    private final String telefonoCliente = "+51 987 654 321";
+    private final String fecha = "14/03/2026";
+    private final String hora = "10:30";
+    private final String barbero = "Carlos <El Maestro>";
+    private final String tipoCorte = "Fade clásico";
+    private final String comentarios = "Por favor, con navaja y sin 'raya'";
+
+    @Setup
+    public void preparar() {
+        plantillaCorreoService = new PlantillaCorreoService();
+        plantillaCorreoService.init();
+    }
+
+    @Benchmark
+    public String citaClientePlantilla() {
+        return plantillaCorreoService.renderizarCorreo("cita-cliente", valoresCita(true));
+    }
+
+    @Benchmark
+    public String citaClienteStringBuilder() {
+        return construirCuerpoEmailHtmlCliente(nombreCliente, fecha, hora, barbero, tipoCorte, comentarios);
+    }
+
+    @Benchmark
+    public String resumenPlantilla() {
+        StringBuilder filas = new StringBuilder();
+        for (int i = 0; i < FILAS_RESUMEN; i++) {
+            plantillaCorreoService.renderizar("resumen-citas-fila", valoresCita(true), filas);
+        }
+        return plantillaCorreoService.renderizarCorreo("resumen-citas", Map.of(
+                "titulo", "Citas de hoy", "incluirBarbero", true, "filas", filas));
+    }
+
+    @Benchmark
+    public String resumenStringBuilder() {
+        return construirCuerpoEmailHtmlResumen("Citas de hoy", true);
+    }
+
+    private Map<String, Object> valoresCita(boolean incluirBarbero) {
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("nombreCliente", nombreCliente);
+        valores.put("correoCliente", correoCliente);
+        valores.put("telefonoCliente", telefonoCliente);
+        valores.put("fecha", fecha);
+        valores.put("hora", hora);
+        if (incluirBarbero) {
+            valores.put("barbero", barbero);
+        }
+        valores.put("tipoCorte", tipoCorte);
+        valores.put("comentarios", comentarios);
+        return valores;
+    }
+
+    // ==================== IMPLEMENTACIÓN ANTERIOR ====================
+
+    private String construirCuerpoEmailHtmlCliente(String nombreCliente, String fecha, String hora,
+                                                   String barberoNombre, String tipoCorteNombre,
+                                                   String comentarios) {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"></head><body style=\"font-family: Arial, sans-serif; line-height: 1.6; color: #333;\">");
+        html.append("<div style=\"max-width: 600px; margin: 0 auto; padding: 20px;\">");
+        html.append("<h2 style=\"color: #2c3e50;\">¡Hola ").append(escapeHtml(nombreCliente)).append("! 👋</h2>");
+        html.append("<p style=\"font-size: 18px; color: #27ae60;\">✨ Su cita ha sido confirmada exitosamente ✨</p>");
+        html.append("<div style=\"background-color: #f8f9fa; padding: 20px; border-radius: 5px; margin: 20px 0;\">");
+        html.append("<h3 style=\"color: #2c3e50; margin-top: 0;\">📋 Detalles de la cita:</h3>");
+        html.append("<p><strong>📅 Fecha:</strong> ").append(escapeHtml(fecha)).append("</p>");
+        html.append("<p><strong>🕐 Hora:</strong> ").append(escapeHtml(hora)).append("</p>");
+        html.append("<p><strong>💇 Barbero:</strong> ").append(escapeHtml(barberoNombre)).append("</p>");
+        html.append("<p><strong>✂️ Tipo de Corte:</strong> ").append(escapeHtml(tipoCorteNombre)).append("</p>");
+        if (comentarios != null && !comentarios.trim().isEmpty()) {
+            html.append("<p><strong>💬 Comentarios:</strong> ").append(escapeHtml(comentarios)).append("</p>");
+        }
+        html.append("</div>");
+        html.append("<p style=\"font-size: 16px; color: #2c3e50;\">🎯 Esperamos verle pronto en Papus BarberShop 🎯</p>");
+        html.append("<p>Saludos cordiales,<br>Equipo Papus BarberShop 💈</p>");
+        html.append("</div></body></html>");
+        return html.toString();
+    }
+
+    private String construirCuerpoEmailHtmlResumen(String titulo, boolean incluirBarbero) {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"></head><body style=\"font-family: Arial, sans-serif; line-height: 1.6; color: #333;\">");
+        html.append("<div style=\"max-width: 600px; margin: 0 auto; padding: 20px;\">");
+        html.append("<h2 style=\"color: #2c3e50;\">").append(escapeHtml(titulo)).append("</h2>");
+        html.append("<table style=\"width: 100%; border-collapse: collapse;\">");
+        html.append("<tr style=\"background-color: #f8f9fa;\"><th align=\"left\">Fecha</th><th>Hora</th><th align=\"left\">Cliente</th>");
+        if (incluirBarbero) {
+            html.append("<th align=\"left\">Barbero</th>");
+        }
+        html.append("<th align=\"left\">Servicio</th><th align=\"left\">Teléfono</th></tr>");
+        for (int i = 0; i < FILAS_RESUMEN; i++) {
+            html.append("<tr><td>").append(fecha).append("</td>");
+            html.append("<td align=\"center\">").append(hora).append("</td>");
+            html.append("<td>").append(escapeHtml(nombreCliente)).append("</td>");
+            if (incluirBarbero) {
+                html.append("<td>").append(escapeHtml(barbero)).append("</td>");
+            }
+            html.append("<td>").append(escapeHtml(tipoCorte)).append("</td>");
+            html.append("<td>").append(escapeHtml(telefonoCliente)).append("</td></tr>");
+        }
+        html.append("</table>");
+        html.append("<p>Saludos,<br>Papus BarberShop</p>");
+        html.append("</div></body></html>");
+        return html.toString();
+    }
+
+    private String escapeHtml(String text) {
+        if (text == null) return "";
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .replace("'", "&#39;");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PlantillaCorreoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package com.papusbarbershop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas del renderizado de plantillas de correo compiladas.
+ */
+class PlantillaCorreoServiceTest {
+
+    @Test
+    void escapaLosCaracteresEspecialesYConservaLosTramosIntermedios() {
+        StringBuilder salida = new StringBuilder();
+        PlantillaCorreoService.escapar("a&b<c>d\"e'f", salida);
+        assertEquals("a&amp;b&lt;c&gt;d&quot;e&#39;f", salida.toString());
+
+        salida.setLength(0);
+        PlantillaCorreoService.escapar("<<sin cambios al final", salida);
+        assertEquals("&lt;&lt;sin cambios al final", salida.toString());
+    }
+
+    @Test
+    void renderizaVariablesFragmentosYSecciones() {
+        List<PlantillaCorreoService.Segmento> segmentos = PlantillaCorreoService.compilar("prueba",
+                "<p>{{nombre}}</p>{{{fragmento}}}{{#comentarios}}<i>{{comentarios}}</i>{{/comentarios}}");
+        PlantillaCorreoService.Plantilla plantilla = new PlantillaCorreoService.Plantilla(segmentos, 0);
+
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("nombre", "Ana & Luis");
+        valores.put("fragmento", new StringBuilder("<b>ya renderizado</b>"));
+        valores.put("comentarios", new StringBuilder("  \t"));
+        StringBuilder salida = new StringBuilder();
+        plantilla.renderizar(valores, salida);
+        assertEquals("<p>Ana &amp; Luis</p><b>ya renderizado</b>", salida.toString());
+
+        valores.put("comentarios", "Sin 'raya'");
+        salida.setLength(0);
+        plantilla.renderizar(valores, salida);
+        assertEquals("<p>Ana &amp; Luis</p><b>ya renderizado</b><i>Sin &#39;raya&#39;</i>", salida.toString());
+    }
+
+    @Test
+    void elCorreoSeEnvuelveEnElDisenoBase() {
+        PlantillaCorreoService servicio = new PlantillaCorreoService();
+        servicio.init();
+
+        String html = servicio.renderizarCorreo("mensaje", Map.of("mensaje", "<script>"));
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.contains("&lt;script&gt;"));
+        assertFalse(html.contains("<script>"));
+        assertTrue(html.endsWith("</div></body></html>") || html.endsWith("</div></body></html>\n"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.papusbarbershop.service;
+
+import com.resend.Resend;
+import com.resend.core.exception.ResendException;
+import com.resend.core.net.RequestOptions;
+import com.resend.services.batch.Batch;
+import com.resend.services.batch.model.BatchEmail;
+import com.resend.services.batch.model.CreateBatchEmailsResponse;
+import com.resend.services.emails.Emails;
+import com.resend.services.emails.model.CreateEmailOptions;
+import com.resend.services.emails.model.CreateEmailResponse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sustituto de la API de Resend para pruebas (el SDK no permite cambiar la URL base).
+ *
+ * Se comporta como el proveedor en lo que importa al outbox:
+ * - Una clave de idempotencia ya aceptada devuelve la respuesta original sin volver a entregar.
+ * - La misma clave con otros destinatarios responde 409.
+ *
+ * Se pueden programar fallas para las siguientes peticiones: un error HTTP sin entregar nada, o
+ * una respuesta perdida (el proveedor entrega pero el cliente ve un error de red).
+ */
+final class ResendSimulado {
+
+    private final Resend cliente = mock(Resend.class);
+
+    // Clave de idempotencia → destinatarios y respuesta de la petición aceptada
+    private final Map<String, List<String>> destinatariosPorClave = new HashMap<>();
+    private final Map<String, Object> respuestasPorClave = new HashMap<>();
+
+    private final Deque<Integer> fallas = new ArrayDeque<>();
+
+    // Falla programada que entrega la petición pero pierde la respuesta
+    private static final int RESPUESTA_PERDIDA = -1;
+
+    final List<String> entregados = new ArrayList<>();
+    final List<String> clavesRecibidas = new ArrayList<>();
+    final List<String> clavesDeLotes = new ArrayList<>();
+
+    private int siguienteId = 1;
+
+    ResendSimulado() {
+        Emails emails = mock(Emails.class);
+        Batch batch = mock(Batch.class);
+        when(cliente.emails()).thenReturn(emails);
+        when(cliente.batch()).thenReturn(batch);
+        try {
+            when(emails.send(any(CreateEmailOptions.class), any(RequestOptions.class))).thenAnswer(invocacion -> {
+                CreateEmailOptions correo = invocacion.getArgument(0);
+                RequestOptions opciones = invocacion.getArgument(1);
+                return recibir(opciones.getIdempotencyKey(), List.of(correo),
+                        ids -> new CreateEmailResponse(ids.get(0)));
+            });
+            when(batch.send(anyList(), any(RequestOptions.class))).thenAnswer(invocacion -> {
+                List<CreateEmailOptions> correos = invocacion.getArgument(0);
+                RequestOptions opciones = invocacion.getArgument(1);
+                clavesDeLotes.add(opciones.getIdempotencyKey());
+                return recibir(opciones.getIdempotencyKey(), correos, ids -> {
+                    List<BatchEmail> datos = new ArrayList<>();
+                    ids.forEach(id -> datos.add(new BatchEmail(id)));
+                    return new CreateBatchEmailsResponse(datos, List.of());
+                });
+            });
+        } catch (ResendException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Resend cliente() {
+        return cliente;
+    }
+
+    /**
+     * La siguiente petición falla con el estado HTTP indicado sin entregar nada.
+     */
+    void fallarConEstado(int estado) {
+        fallas.add(estado);
+    }
+
+    /**
+     * La siguiente petición se entrega, pero el cliente recibe un error de red.
+     */
+    void perderRespuesta() {
+        fallas.add(RESPUESTA_PERDIDA);
+    }
+
+    private Object recibir(String clave, List<CreateEmailOptions> correos,
+                           Function<List<String>, Object> respuesta) throws ResendException {
+        clavesRecibidas.add(clave);
+        Integer falla = fallas.poll();
+        if (falla != null && falla != RESPUESTA_PERDIDA) {
+            throw new ResendException(falla, "Error simulado " + falla);
+        }
+
+        List<String> destinatarios = new ArrayList<>();
+        correos.forEach(correo -> destinatarios.addAll(correo.getTo()));
+        if (clave != null && respuestasPorClave.containsKey(clave)) {
+            if (!destinatariosPorClave.get(clave).equals(destinatarios)) {
+                throw new ResendException(409, "invalid_idempotent_request");
+            }
+            return respuestasPorClave.get(clave);
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (String destinatario : destinatarios) {
+            entregados.add(destinatario);
+            ids.add("em_" + siguienteId++);
+        }
+        Object resultado = respuesta.apply(ids);
+        if (clave != null) {
+            destinatariosPorClave.put(clave, destinatarios);
+            respuestasPorClave.put(clave, resultado);
+        }
+        if (falla != null) {
+            throw new ResendException("Conexión cerrada antes de recibir la respuesta");
+        }
+        return resultado;
+    }
+}
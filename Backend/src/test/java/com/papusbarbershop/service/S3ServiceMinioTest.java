@@ -0,0 +1,188 @@
+package com.papusbarbershop.service;
+
+import com.papusbarbershop.config.S3Config;
+import com.papusbarbershop.controller.S3Controller;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de S3Config y S3Service contra MinIO, con el endpoint propio y acceso path-style
+ * (aws.s3.endpoint y aws.s3.path-style). Se omiten si no hay Docker.
+ *
+ * El lote de URLs presignadas se prueba a través de S3Controller, que es donde se validan las claves.
+ */
+@SpringJUnitConfig({S3Config.class, S3Service.class, S3Controller.class})
+@TestPropertySource(properties = {
+        "aws.s3.region=us-east-1",
+        "aws.s3.bucket-name=" + S3ServiceMinioTest.BUCKET,
+        "aws.s3.presigned-url-expiration=600",
+        "aws.s3.path-style=true"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class S3ServiceMinioTest {
+
+    static final String BUCKET = "papusbarbershop-pruebas";
+
+    @Container
+    static final MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        registry.add("aws.s3.endpoint", minio::getS3URL);
+        registry.add("aws.s3.access-key-id", minio::getUserName);
+        registry.add("aws.s3.secret-access-key", minio::getPassword);
+    }
+
+    @MockBean
+    private ProductoService productoService;
+
+    @MockBean
+    private ImagenVarianteService imagenVarianteService;
+
+    @MockBean
+    private ProductoImagenService productoImagenService;
+
+    @MockBean
+    private ExistenciaArchivoCache existenciaArchivoCache;
+
+    @MockBean
+    private UrlPresignadaCache urlPresignadaCache;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    private S3Controller s3Controller;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void crearBucket() {
+        try {
+            s3Client.headBucket(b -> b.bucket(BUCKET));
+        } catch (NoSuchBucketException e) {
+            s3Client.createBucket(b -> b.bucket(BUCKET));
+        }
+    }
+
+    @Test
+    void subidaYDescargaConUrlsPresignadasPathStyle() throws Exception {
+        AlmacenamientoService.PresignedUrlResponse subida =
+                s3Service.generatePresignedUploadUrl("corte fade.jpg", "productos", "image/jpeg");
+        assertTrue(subida.getKey().startsWith("productos/"));
+        // Path-style: el bucket va en la ruta del endpoint configurado, no en el host
+        assertTrue(subida.getUrl().startsWith(minio.getS3URL() + "/" + BUCKET + "/productos/"), subida.getUrl());
+
+        byte[] contenido = "imagen de prueba".getBytes(StandardCharsets.UTF_8);
+        HttpResponse<String> put = http.send(HttpRequest.newBuilder(URI.create(subida.getUrl()))
+                        .header("Content-Type", "image/jpeg")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(contenido))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, put.statusCode(), put.body());
+        assertTrue(s3Service.fileExists(subida.getKey()));
+
+        String descarga = s3Service.generatePresignedDownloadUrl(subida.getKey(), 60);
+        assertArrayEquals(contenido, descargar(descarga));
+    }
+
+    @Test
+    void loteDeUrlsPresignadasSoloFirmaClavesDelCatalogo() throws Exception {
+        s3Service.uploadFile("productos/lote/a.jpg", new byte[]{1, 2, 3}, "image/jpeg");
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(s3Controller).build();
+
+        String respuesta = mockMvc.perform(post("/api/s3/presigned-url/download/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\":[\"productos/lote/a.jpg\",\"productos/lote/b.jpg\",\"productos/lote/a.jpg\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.urls.length()").value(2))
+                .andExpect(jsonPath("$.urls['productos/lote/b.jpg']").exists())
+                .andReturn().getResponse().getContentAsString();
+        String url = respuesta.replaceAll("(?s).*\"productos/lote/a.jpg\":\"([^\"]+)\".*", "$1");
+        assertArrayEquals(new byte[]{1, 2, 3}, descargar(url));
+
+        mockMvc.perform(post("/api/s3/presigned-url/download/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\":[\"productos/lote/a.jpg\",\"productos/../usuarios/secreto.json\"]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/s3/presigned-url/download/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\":[\"reportes/ventas.pdf\"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listadoPaginadoYEliminacionEnLote() {
+        // Más de 1000 objetos: dos páginas de ListObjectsV2 y dos peticiones de DeleteObjects
+        int total = AlmacenamientoService.MAX_CLAVES_ELIMINACION + 5;
+        List<String> claves = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            String key = String.format("productos/gc/%04d.jpg", i);
+            s3Client.putObject(b -> b.bucket(BUCKET).key(key), RequestBody.fromBytes(new byte[]{(byte) i}));
+            claves.add(key);
+        }
+        s3Service.uploadFile("productos/otro/fuera.jpg", new byte[]{9}, "image/jpeg");
+
+        Map<String, Instant> listados = new HashMap<>();
+        s3Service.listFiles("productos/gc/", listados::put);
+        assertEquals(total, listados.size());
+        assertTrue(listados.keySet().containsAll(claves));
+        listados.values().forEach(modificado -> assertNotNull(modificado));
+
+        List<String> aEliminar = new ArrayList<>(claves);
+        aEliminar.add("productos/gc/no-existe.jpg");
+        // S3 trata como eliminada una clave inexistente
+        assertEquals(total + 1, s3Service.deleteFiles(aEliminar));
+
+        Map<String, Instant> restantes = new HashMap<>();
+        s3Service.listFiles("productos/gc/", restantes::put);
+        assertTrue(restantes.isEmpty());
+        assertTrue(s3Service.fileExists("productos/otro/fuera.jpg"));
+        assertFalse(s3Service.fileExists(claves.get(0)));
+    }
+
+    private byte[] descargar(String url) throws Exception {
+        HttpResponse<byte[]> respuesta = http.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, respuesta.statusCode());
+        return respuesta.body();
+    }
+}
@@ -0,0 +1,116 @@
+package com.papusbarbershop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas del cache de URLs presignadas: la firma nunca ocurre en el hilo que consulta y el
+ * descarte por tamaño respeta las claves del catálogo.
+ */
+class UrlPresignadaCacheTest {
+
+    private final Set<String> hilosFirma = ConcurrentHashMap.newKeySet();
+
+    private UrlPresignadaCache cache;
+
+    @BeforeEach
+    void crear() throws Exception {
+        AlmacenamientoService almacenamiento = mock(AlmacenamientoService.class);
+        when(almacenamiento.generatePresignedDownloadUrl(anyString(), anyLong())).thenAnswer(invocacion -> {
+            hilosFirma.add(Thread.currentThread().getName());
+            return "https://firmada/" + invocacion.getArgument(0);
+        });
+        cache = new UrlPresignadaCache();
+        ReflectionTestUtils.setField(cache, "almacenamientoService", almacenamiento);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "vigenciaFirmaSegundos", 3600L);
+        ReflectionTestUtils.setField(cache, "maxEntradas", 3);
+        cache.init();
+    }
+
+    @AfterEach
+    void cerrar() {
+        cache.shutdown();
+    }
+
+    @Test
+    void sinUrlDevuelveNullYFirmaEnSegundoPlano() throws Exception {
+        assertNull(cache.obtener("productos/nuevo.jpg"));
+        String url = esperarUrl("productos/nuevo.jpg");
+
+        assertEquals("https://firmada/productos/nuevo.jpg", url);
+        assertEquals(Set.of("url-presignada-cache"), hilosFirma);
+    }
+
+    @Test
+    void sirveLaUrlAnteriorMientrasSigueValidaYProgramaLaRenovacion() throws Exception {
+        cache.precargar(List.of("productos/a.jpg"));
+        esperarUrl("productos/a.jpg");
+        // La entrada ya no es fresca pero su firma sigue vigente
+        Map<String, Object> entradas = entradas();
+        Object entrada = entradas.get("productos/a.jpg");
+        ReflectionTestUtils.setField(entrada, "frescaHasta", System.currentTimeMillis() - 1);
+
+        assertEquals("https://firmada/productos/a.jpg", cache.obtener("productos/a.jpg"));
+        long limite = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (entradas.get("productos/a.jpg") == entrada && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertTrue(entradas.get("productos/a.jpg") != entrada, "La entrada debía renovarse en segundo plano");
+    }
+
+    @Test
+    void alSuperarElMaximoDescartaLaMenosUsadaFueraDelCatalogo() throws Exception {
+        cache.precargar(List.of("productos/catalogo.jpg"));
+        esperarUrl("productos/catalogo.jpg");
+        cache.obtener("otros/1.jpg");
+        esperarUrl("otros/1.jpg");
+        cache.obtener("otros/2.jpg");
+        esperarUrl("otros/2.jpg");
+        // otros/1 pasa a ser la más reciente
+        assertNotNull(cache.obtener("otros/1.jpg"));
+
+        cache.obtener("otros/3.jpg");
+        esperarUrl("otros/3.jpg");
+
+        Map<String, Object> entradas = entradas();
+        assertEquals(3, entradas.size());
+        assertTrue(entradas.containsKey("productos/catalogo.jpg"));
+        assertTrue(entradas.containsKey("otros/1.jpg"));
+        assertFalse(entradas.containsKey("otros/2.jpg"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> entradas() {
+        return (Map<String, Object>) ReflectionTestUtils.getField(cache, "entradas");
+    }
+
+    private String esperarUrl(String key) throws InterruptedException {
+        long limite = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!entradas().containsKey(key) && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        String url = cache.obtener(key);
+        assertNotNull(url, "La firma en segundo plano no terminó");
+        return url;
+    }
+}